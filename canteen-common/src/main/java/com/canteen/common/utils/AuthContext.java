@@ -4,31 +4,50 @@ import javax.servlet.http.HttpServletRequest;
 import java.util.Arrays;
 
 /**
- * Parsed authentication information from a JWT bearer token.
+ * Parsed authentication information from a gateway identity header or a JWT bearer token.
  */
 public class AuthContext {
 
     private final Long userId;
     private final String username;
     private final String role;
+    private final long expiresAt;
 
-    private AuthContext(Long userId, String username, String role) {
+    AuthContext(Long userId, String username, String role, long expiresAt) {
         this.userId = userId;
         this.username = username;
         this.role = role;
+        this.expiresAt = expiresAt;
     }
 
+    /**
+     * Prefers the identity header signed by the gateway and falls back to full JWT verification
+     * for direct calls.
+     */
     public static AuthContext from(HttpServletRequest request) {
+        AuthContext internal = InternalIdentity.verify(request.getHeader(InternalIdentity.HEADER));
+        if (internal != null) {
+            return internal;
+        }
+        return fromBearerToken(request);
+    }
+
+    /**
+     * Verifies the JWT bearer token only, ignoring any identity header.
+     */
+    public static AuthContext fromBearerToken(HttpServletRequest request) {
         String token = extractToken(request);
-        if (token == null || !JwtUtils.validateToken(token)) {
+        if (token == null) {
             throw new SecurityException("未授权访问");
         }
 
-        return new AuthContext(
-                JwtUtils.getUserIdFromToken(token),
-                JwtUtils.getUsernameFromToken(token),
-                JwtUtils.getRoleFromToken(token)
-        );
+        VerifiedToken verified;
+        try {
+            verified = JwtUtils.verifyToken(token);
+        } catch (RuntimeException e) {
+            throw new SecurityException("未授权访问");
+        }
+        return new AuthContext(verified.getUserId(), verified.getUsername(), verified.getRole(), verified.getExpiresAt());
     }
 
     public static String extractToken(HttpServletRequest request) {
@@ -51,6 +70,10 @@ public class AuthContext {
         return role;
     }
 
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+
     public boolean hasRole(String expectedRole) {
         return expectedRole != null && expectedRole.equalsIgnoreCase(role);
     }
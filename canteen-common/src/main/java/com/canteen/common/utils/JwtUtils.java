@@ -1,13 +1,13 @@
 package com.canteen.common.utils;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
 
 import java.security.Key;
 import java.util.Date;
-import java.util.Base64;
 
 /**
  * JWT工具类
@@ -16,9 +16,17 @@ public class JwtUtils {
 
     // 使用固定的密钥字符串，确保服务重启后Token仍然有效
     private static final String SECRET_STRING = "canteen-system-jwt-secret-key-2024-very-long-and-secure-string-for-production-use";
-    private static final Key SECRET_KEY = Keys.hmacShaKeyFor(SECRET_STRING.getBytes());
+    static final Key SECRET_KEY = Keys.hmacShaKeyFor(SECRET_STRING.getBytes());
     private static final long EXPIRATION_TIME = 24 * 60 * 60 * 1000; // 24小时
 
+    // JwtParser不可变且线程安全，全局复用一个实例
+    private static final JwtParser PARSER = Jwts.parserBuilder()
+            .setSigningKey(SECRET_KEY)
+            .build();
+
+    // 已验签Token缓存，同一Token在有效期内只验签一次
+    private static final VerifiedTokenCache TOKEN_CACHE = new VerifiedTokenCache(10000);
+
     /**
      * 生成Token
      */
@@ -41,23 +49,44 @@ public class JwtUtils {
             if (token == null || token.trim().isEmpty()) {
                 throw new RuntimeException("Token为空");
             }
-            return Jwts.parserBuilder()
-                    .setSigningKey(SECRET_KEY)
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
+            return PARSER.parseClaimsJws(token).getBody();
         } catch (Exception e) {
             throw new RuntimeException("Token解析失败: " + e.getMessage(), e);
         }
     }
 
+    /**
+     * 验签并返回Token信息，结果按Token摘要缓存到过期为止
+     * Token无效或已过期时抛出异常
+     */
+    public static VerifiedToken verifyToken(String token) {
+        if (token == null || token.trim().isEmpty()) {
+            throw new RuntimeException("Token为空");
+        }
+        VerifiedToken cached = TOKEN_CACHE.get(token);
+        if (cached != null) {
+            return cached;
+        }
+
+        Claims claims = parseToken(token);
+        if (claims.getExpiration() == null) {
+            throw new RuntimeException("Token缺少过期时间");
+        }
+        VerifiedToken verified = new VerifiedToken(
+                claims.get("userId", Long.class),
+                claims.getSubject(),
+                claims.get("role", String.class),
+                claims.getExpiration().getTime());
+        TOKEN_CACHE.put(token, verified);
+        return verified;
+    }
+
     /**
      * 验证Token是否有效
      */
     public static boolean validateToken(String token) {
         try {
-            Claims claims = parseToken(token);
-            return !claims.getExpiration().before(new Date());
+            return !verifyToken(token).isExpired(System.currentTimeMillis());
         } catch (Exception e) {
             return false;
         }
@@ -67,23 +96,20 @@ public class JwtUtils {
      * 从Token中获取用户名
      */
     public static String getUsernameFromToken(String token) {
-        Claims claims = parseToken(token);
-        return claims.getSubject();
+        return verifyToken(token).getUsername();
     }
 
     /**
      * 从Token中获取用户ID
      */
     public static Long getUserIdFromToken(String token) {
-        Claims claims = parseToken(token);
-        return claims.get("userId", Long.class);
+        return verifyToken(token).getUserId();
     }
 
     /**
      * 从Token中获取用户角色
      */
     public static String getRoleFromToken(String token) {
-        Claims claims = parseToken(token);
-        return claims.get("role", String.class);
+        return verifyToken(token).getRole();
     }
 }
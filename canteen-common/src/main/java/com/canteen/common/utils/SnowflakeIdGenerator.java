@@ -0,0 +1,139 @@
+package com.canteen.common.utils;
+
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+/**
+ * 按时间有序的分布式ID生成器
+ *
+ * <p>64位ID布局：1位符号 + 41位毫秒时间戳（相对 {@link #EPOCH}）+ 10位节点ID + 12位序列号，
+ * 单节点每毫秒最多生成4096个ID，不同节点只要节点ID不同就不会冲突。
+ *
+ * <p>时间戳和序列号压缩在同一个AtomicLong里，通过CAS推进，不加锁。
+ * 时钟回拨不超过容忍范围时沿用上次的时间戳继续分配序列号，超出范围直接拒绝。
+ */
+public class SnowflakeIdGenerator {
+
+    /**
+     * 起始时间 2024-01-01 00:00:00 UTC
+     */
+    public static final long EPOCH = 1704067200000L;
+
+    public static final int WORKER_ID_BITS = 10;
+    public static final long MAX_WORKER_ID = (1L << WORKER_ID_BITS) - 1;
+
+    private static final int SEQUENCE_BITS = 12;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final int TIMESTAMP_SHIFT = WORKER_ID_BITS + SEQUENCE_BITS;
+
+    // NTP校时一般只会回拨几毫秒，超过该值说明时钟异常，继续发号有重复风险
+    private static final long DEFAULT_MAX_BACKWARD_MILLIS = 5000;
+
+    private final long workerId;
+    private final long maxBackwardMillis;
+    private final LongSupplier clock;
+
+    /**
+     * 高位为上次发号的时间戳，低12位为该毫秒内已用的序列号
+     */
+    private final AtomicLong state = new AtomicLong();
+
+    public SnowflakeIdGenerator(long workerId) {
+        this(workerId, DEFAULT_MAX_BACKWARD_MILLIS, System::currentTimeMillis);
+    }
+
+    SnowflakeIdGenerator(long workerId, long maxBackwardMillis, LongSupplier clock) {
+        if (workerId < 0 || workerId > MAX_WORKER_ID) {
+            throw new IllegalArgumentException("节点ID必须在0到" + MAX_WORKER_ID + "之间: " + workerId);
+        }
+        this.workerId = workerId;
+        this.maxBackwardMillis = maxBackwardMillis;
+        this.clock = clock;
+    }
+
+    /**
+     * 生成下一个ID，同一节点内严格递增
+     */
+    public long nextId() {
+        while (true) {
+            long current = state.get();
+            long lastTimestamp = current >>> SEQUENCE_BITS;
+            long now = clock.getAsLong() - EPOCH;
+
+            long next;
+            if (now > lastTimestamp) {
+                next = now << SEQUENCE_BITS;
+            } else {
+                long backward = lastTimestamp - now;
+                if (backward > maxBackwardMillis) {
+                    throw new IllegalStateException("系统时钟回拨" + backward + "毫秒，拒绝生成ID");
+                }
+                if ((current & SEQUENCE_MASK) == SEQUENCE_MASK) {
+                    // 当前毫秒序列号已用完，等时钟走到下一毫秒
+                    waitForClock(backward);
+                    continue;
+                }
+                next = current + 1;
+            }
+
+            if (state.compareAndSet(current, next)) {
+                return ((next >>> SEQUENCE_BITS) << TIMESTAMP_SHIFT)
+                        | (workerId << SEQUENCE_BITS)
+                        | (next & SEQUENCE_MASK);
+            }
+        }
+    }
+
+    /**
+     * 生成带前缀的业务编号，如订单号
+     */
+    public String nextId(String prefix) {
+        return prefix + nextId();
+    }
+
+    public long getWorkerId() {
+        return workerId;
+    }
+
+    /**
+     * 解析ID中的生成时间（毫秒时间戳）
+     */
+    public static long timestampOf(long id) {
+        return (id >>> TIMESTAMP_SHIFT) + EPOCH;
+    }
+
+    /**
+     * 解析ID中的节点ID
+     */
+    public static long workerIdOf(long id) {
+        return (id >>> SEQUENCE_BITS) & MAX_WORKER_ID;
+    }
+
+    /**
+     * 未显式配置节点ID时，根据主机名和进程号推导一个节点ID
+     * 多实例部署时仍可能冲突，生产环境应为每个实例显式分配
+     */
+    public static long deriveWorkerId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "unknown";
+        }
+        String identity = host + "/" + ManagementFactory.getRuntimeMXBean().getName();
+        return (identity.hashCode() & Integer.MAX_VALUE) % (MAX_WORKER_ID + 1);
+    }
+
+    private static void waitForClock(long behindMillis) {
+        if (behindMillis > 0) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(behindMillis));
+        } else {
+            Thread.onSpinWait();
+        }
+    }
+}
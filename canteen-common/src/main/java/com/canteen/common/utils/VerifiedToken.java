@@ -0,0 +1,42 @@
+package com.canteen.common.utils;
+
+/**
+ * 已验签的Token信息
+ */
+public final class VerifiedToken {
+
+    private final Long userId;
+    private final String username;
+    private final String role;
+    private final long expiresAt;
+
+    public VerifiedToken(Long userId, String username, String role, long expiresAt) {
+        this.userId = userId;
+        this.username = username;
+        this.role = role;
+        this.expiresAt = expiresAt;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    /**
+     * 过期时间（毫秒时间戳）
+     */
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+
+    public boolean isExpired(long now) {
+        return expiresAt <= now;
+    }
+}
@@ -0,0 +1,47 @@
+package com.canteen.common.utils;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 内部身份头测试类
+ */
+public class InternalIdentityTest {
+
+    @Test
+    void testSignedHeaderRoundTrip() {
+        AuthContext auth = new AuthContext(7L, "张三", "MERCHANT", System.currentTimeMillis() + 3600_000);
+
+        AuthContext verified = InternalIdentity.verify(InternalIdentity.sign(auth));
+
+        assertNotNull(verified);
+        assertEquals(7L, verified.getUserId());
+        assertEquals("张三", verified.getUsername());
+        assertEquals("MERCHANT", verified.getRole());
+        assertTrue(verified.getExpiresAt() <= System.currentTimeMillis() + 60_000);
+    }
+
+    @Test
+    void testTamperedOrExpiredHeaderIsRejected() {
+        String header = InternalIdentity.sign(new AuthContext(7L, "alice", "USER", System.currentTimeMillis() + 3600_000));
+
+        assertNull(InternalIdentity.verify(header.replaceFirst("USER", "ADMIN")));
+        assertNull(InternalIdentity.verify("7.ADMIN.9999999999999.YWxpY2U.forged"));
+        assertNull(InternalIdentity.verify(
+                InternalIdentity.sign(new AuthContext(7L, "alice", "USER", System.currentTimeMillis() - 1))));
+    }
+
+    @Test
+    void testAuthContextFallsBackToJwt() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer " + JwtUtils.generateToken("bob", 9L, "USER"));
+        request.addHeader(InternalIdentity.HEADER, "9.ADMIN.9999999999999.Ym9i.forged");
+
+        AuthContext auth = AuthContext.from(request);
+
+        assertEquals(9L, auth.getUserId());
+        assertEquals("USER", auth.getRole());
+    }
+}
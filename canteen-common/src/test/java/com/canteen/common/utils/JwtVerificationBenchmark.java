@@ -0,0 +1,97 @@
+package com.canteen.common.utils;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JWT验证基准测试：对比旧的四次解析路径与单次解析+缓存路径
+ *
+ * <p>运行方式：
+ * <pre>
+ * mvn -pl canteen-common -am test-compile
+ * mvn -pl canteen-common dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp canteen-common/target/test-classes:canteen-common/target/classes:$(cat canteen-common/target/cp.txt) \
+ *      com.canteen.common.utils.JwtVerificationBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtVerificationBenchmark {
+
+    private String token;
+
+    @Setup
+    public void setUp() {
+        token = JwtUtils.generateToken("benchmark-user", 10001L, "USER");
+        JwtUtils.verifyToken(token);
+    }
+
+    /**
+     * 旧路径：validateToken + 三个getter，每次都重建解析器并重新验签
+     */
+    @Benchmark
+    public void legacyFourParses(Blackhole blackhole) {
+        Claims claims = legacyParse(token);
+        blackhole.consume(!claims.getExpiration().before(new Date()));
+        blackhole.consume(legacyParse(token).get("userId", Long.class));
+        blackhole.consume(legacyParse(token).getSubject());
+        blackhole.consume(legacyParse(token).get("role", String.class));
+    }
+
+    /**
+     * 单次解析：复用解析器，但不走缓存
+     */
+    @Benchmark
+    public void singleParse(Blackhole blackhole) {
+        Claims claims = JwtUtils.parseToken(token);
+        blackhole.consume(claims.get("userId", Long.class));
+        blackhole.consume(claims.getSubject());
+        blackhole.consume(claims.get("role", String.class));
+    }
+
+    /**
+     * 新路径：命中已验签缓存
+     */
+    @Benchmark
+    public void cachedVerify(Blackhole blackhole) {
+        VerifiedToken verified = JwtUtils.verifyToken(token);
+        blackhole.consume(verified.getUserId());
+        blackhole.consume(verified.getUsername());
+        blackhole.consume(verified.getRole());
+    }
+
+    private static Claims legacyParse(String token) {
+        return Jwts.parserBuilder()
+                .setSigningKey(JwtUtils.SECRET_KEY)
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtVerificationBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
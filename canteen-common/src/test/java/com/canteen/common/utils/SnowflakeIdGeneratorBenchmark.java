@@ -0,0 +1,78 @@
+package com.canteen.common.utils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 分布式ID生成器吞吐量基准测试
+ *
+ * <p>sharedNode：所有线程共用一个节点，测CAS竞争下的吞吐；
+ * perThreadNode：每个线程模拟一个独立节点，测多实例下的总吞吐。
+ * ID唯一性由 {@link SnowflakeIdGeneratorTest} 校验。
+ *
+ * <p>运行方式同 {@link JwtVerificationBenchmark}，主类换成本类即可。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class SnowflakeIdGeneratorBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class SharedNode {
+
+        SnowflakeIdGenerator generator;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            generator = new SnowflakeIdGenerator(1);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class PerThreadNode {
+
+        private static final AtomicInteger NEXT_WORKER = new AtomicInteger();
+
+        SnowflakeIdGenerator generator;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            generator = new SnowflakeIdGenerator(NEXT_WORKER.getAndIncrement() & SnowflakeIdGenerator.MAX_WORKER_ID);
+        }
+    }
+
+    @Benchmark
+    public long sharedNode(SharedNode node) {
+        return node.generator.nextId();
+    }
+
+    @Benchmark
+    public long perThreadNode(PerThreadNode node) {
+        return node.generator.nextId();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(SnowflakeIdGeneratorBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,92 @@
+package com.canteen.common.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 分布式ID生成器测试类
+ */
+public class SnowflakeIdGeneratorTest {
+
+    @Test
+    void testIdsAreUniqueAcrossNodesAndThreads() throws Exception {
+        int nodes = 4;
+        int threadsPerNode = 4;
+        int idsPerThread = 100_000;
+
+        List<SnowflakeIdGenerator> generators = new ArrayList<>();
+        for (int i = 0; i < nodes; i++) {
+            generators.add(new SnowflakeIdGenerator(i));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(nodes * threadsPerNode);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<long[]>> futures = new ArrayList<>();
+        for (SnowflakeIdGenerator generator : generators) {
+            for (int t = 0; t < threadsPerNode; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    long[] ids = new long[idsPerThread];
+                    for (int i = 0; i < idsPerThread; i++) {
+                        ids[i] = generator.nextId();
+                    }
+                    return ids;
+                }));
+            }
+        }
+        start.countDown();
+
+        long[] all = new long[nodes * threadsPerNode * idsPerThread];
+        int offset = 0;
+        for (Future<long[]> future : futures) {
+            long[] ids = future.get();
+            for (int i = 1; i < ids.length; i++) {
+                // 同一线程内拿到的ID严格递增
+                assertTrue(ids[i] > ids[i - 1]);
+            }
+            System.arraycopy(ids, 0, all, offset, ids.length);
+            offset += ids.length;
+        }
+        executor.shutdown();
+
+        Arrays.sort(all);
+        for (int i = 1; i < all.length; i++) {
+            assertNotEquals(all[i - 1], all[i], "重复ID: " + all[i]);
+        }
+    }
+
+    @Test
+    void testSmallClockRegressionKeepsIdsIncreasing() {
+        AtomicLong clock = new AtomicLong(SnowflakeIdGenerator.EPOCH + 10_000);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(7, 100, clock::get);
+
+        long before = generator.nextId();
+        clock.addAndGet(-50);
+        long after = generator.nextId();
+
+        assertTrue(after > before);
+        assertEquals(7, SnowflakeIdGenerator.workerIdOf(after));
+        assertEquals(SnowflakeIdGenerator.EPOCH + 10_000, SnowflakeIdGenerator.timestampOf(after));
+    }
+
+    @Test
+    void testLargeClockRegressionIsRejected() {
+        AtomicLong clock = new AtomicLong(SnowflakeIdGenerator.EPOCH + 10_000);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, 100, clock::get);
+        generator.nextId();
+
+        clock.addAndGet(-1000);
+        assertThrows(IllegalStateException.class, generator::nextId);
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(SnowflakeIdGenerator.MAX_WORKER_ID + 1));
+    }
+}
@@ -0,0 +1,55 @@
+package com.canteen.common.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 已验签Token缓存测试类
+ */
+public class VerifiedTokenCacheTest {
+
+    @Test
+    void testExpiredEntryIsNotReturned() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(10);
+        long now = System.currentTimeMillis();
+        cache.put("live", new VerifiedToken(1L, "alice", "USER", now + 60_000));
+        cache.put("expired", new VerifiedToken(2L, "bob", "USER", now - 1));
+
+        assertEquals(1L, cache.get("live").getUserId());
+        assertNull(cache.get("expired"));
+        assertNull(cache.get("unknown"));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void testSizeIsBounded() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(100);
+        long expiresAt = System.currentTimeMillis() + 60_000;
+        for (int i = 0; i < 1000; i++) {
+            cache.put("token-" + i, new VerifiedToken((long) i, "user" + i, "USER", expiresAt));
+        }
+
+        assertTrue(cache.size() <= 100);
+        assertNotNull(cache.get("token-999"));
+    }
+
+    @Test
+    void testVerifyTokenRejectsTamperedToken() {
+        String token = JwtUtils.generateToken("alice", 1L, "MERCHANT");
+
+        VerifiedToken verified = JwtUtils.verifyToken(token);
+        assertEquals(1L, verified.getUserId());
+        assertEquals("alice", verified.getUsername());
+        assertEquals("MERCHANT", verified.getRole());
+        assertSame(verified, JwtUtils.verifyToken(token));
+
+        // 改动签名中间的字符：末尾字符的低位是填充位，解码时被忽略，改动后可能仍能通过校验
+        int signatureStart = token.lastIndexOf('.') + 1;
+        int index = signatureStart + (token.length() - signatureStart) / 2;
+        char flipped = token.charAt(index) == 'A' ? 'B' : 'A';
+        String tampered = token.substring(0, index) + flipped + token.substring(index + 1);
+        assertFalse(JwtUtils.validateToken(tampered));
+        assertThrows(RuntimeException.class, () -> JwtUtils.verifyToken(tampered));
+    }
+}
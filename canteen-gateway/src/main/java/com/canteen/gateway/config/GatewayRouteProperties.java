@@ -0,0 +1,64 @@
+package com.canteen.gateway.config;
+
+import lombok.Data;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 网关路由表配置，绑定 canteen.gateway.routes
+ * 启动时和配置刷新时由 RouteTable 重新绑定并编译
+ */
+@Data
+public class GatewayRouteProperties {
+
+    public static final String PREFIX = "canteen.gateway";
+
+    private List<RouteDefinition> routes = new ArrayList<>();
+
+    @Data
+    public static class RouteDefinition {
+
+        /**
+         * 路径，PREFIX 匹配时按路径段边界匹配（/api/orders 匹配 /api/orders 和 /api/orders/1，不匹配 /api/orders2）
+         */
+        private String path;
+
+        /**
+         * 下游服务名，地址取 canteen.{service}.url
+         */
+        private String service;
+
+        private MatchType match = MatchType.PREFIX;
+
+        /**
+         * 允许的请求方法，为空表示全部方法
+         */
+        private List<String> methods = new ArrayList<>();
+
+        private AuthPolicy auth = AuthPolicy.REQUIRED;
+
+        /**
+         * 异步请求超时时间，为空时使用 spring.mvc.async.request-timeout；
+         * 导出下载等持续流式响应的接口单独放宽
+         */
+        private Duration asyncTimeout;
+    }
+
+    public enum MatchType {
+        PREFIX,
+        EXACT
+    }
+
+    public enum AuthPolicy {
+        /**
+         * 必须携带有效Token
+         */
+        REQUIRED,
+        /**
+         * 公开访问，携带有效Token时仍下发身份头
+         */
+        PUBLIC
+    }
+}
@@ -0,0 +1,68 @@
+package com.canteen.gateway.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 网关代理配置
+ * 每个下游服务一个连接池，未单独配置的服务使用 defaults
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "canteen.gateway.proxy")
+public class ProxyProperties {
+
+    /**
+     * 默认连接池与超时配置
+     */
+    private PoolProperties defaults = new PoolProperties();
+
+    /**
+     * 按服务覆盖的配置，key 为服务名（如 order-service）
+     */
+    private Map<String, PoolProperties> routes = new HashMap<>();
+
+    public PoolProperties forRoute(String route) {
+        return routes.getOrDefault(route, defaults);
+    }
+
+    @Data
+    public static class PoolProperties {
+
+        /**
+         * 最大连接数
+         */
+        private int maxConnections = 500;
+
+        /**
+         * 等待获取连接的最大请求数
+         */
+        private int pendingAcquireMaxCount = 2000;
+
+        /**
+         * 等待获取连接的超时时间
+         */
+        private Duration pendingAcquireTimeout = Duration.ofSeconds(5);
+
+        /**
+         * 空闲连接最长保留时间，需小于下游Tomcat的keep-alive超时（默认20秒），
+         * 否则可能复用到已被下游关闭的连接
+         */
+        private Duration maxIdleTime = Duration.ofSeconds(15);
+
+        /**
+         * 建立连接超时时间
+         */
+        private Duration connectTimeout = Duration.ofSeconds(3);
+
+        /**
+         * 等待下游响应的超时时间
+         */
+        private Duration responseTimeout = Duration.ofSeconds(30);
+    }
+}
@@ -1,8 +1,16 @@
 package com.canteen.gateway.config;
 
+import com.canteen.gateway.proxy.ProxyClients;
+import io.netty.channel.ChannelOption;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * WebClient配置类
@@ -10,10 +18,44 @@ import org.springframework.web.reactive.function.client.WebClient;
 @Configuration
 public class WebClientConfig {
 
+    /**
+     * 网关代理的下游服务
+     */
+    public static final String[] PROXY_ROUTES = {"user-service", "product-service", "order-service", "recommend-service"};
+
     @Bean
     public WebClient webClient() {
         return WebClient.builder()
                 .codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(1024 * 1024)) // 1MB
                 .build();
     }
-}
\ No newline at end of file
+
+    /**
+     * 代理用 WebClient，每个下游服务独立的连接池和超时
+     */
+    @Bean
+    public ProxyClients proxyClients(ProxyProperties proxyProperties) {
+        Map<String, WebClient> clients = new HashMap<>();
+        for (String route : PROXY_ROUTES) {
+            clients.put(route, buildProxyClient(route, proxyProperties.forRoute(route)));
+        }
+        return new ProxyClients(clients, buildProxyClient("default", proxyProperties.getDefaults()));
+    }
+
+    private WebClient buildProxyClient(String route, ProxyProperties.PoolProperties pool) {
+        ConnectionProvider provider = ConnectionProvider.builder("gateway-" + route)
+                .maxConnections(pool.getMaxConnections())
+                .pendingAcquireMaxCount(pool.getPendingAcquireMaxCount())
+                .pendingAcquireTimeout(pool.getPendingAcquireTimeout())
+                .maxIdleTime(pool.getMaxIdleTime())
+                .build();
+
+        HttpClient httpClient = HttpClient.create(provider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) pool.getConnectTimeout().toMillis())
+                .responseTimeout(pool.getResponseTimeout());
+
+        return WebClient.builder()
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+    }
+}
@@ -1,6 +1,11 @@
 package com.canteen.gateway.controller;
 
 import com.canteen.common.utils.AuthContext;
+import com.canteen.common.utils.InternalIdentity;
+import com.canteen.gateway.proxy.ReactiveProxyEngine;
+import com.canteen.gateway.route.Route;
+import com.canteen.gateway.route.RouteTable;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
@@ -12,8 +17,13 @@ import org.springframework.web.multipart.MultipartHttpServletRequest;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 import org.springframework.core.io.ByteArrayResource;
+import org.springframework.web.context.request.async.DeferredResult;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
 
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.time.Duration;
 import org.springframework.web.bind.annotation.RequestMethod;
 
 /**
@@ -23,21 +33,17 @@ import org.springframework.web.bind.annotation.RequestMethod;
 @RestController
 @RequestMapping("/api")
 @CrossOrigin(originPatterns = "*", allowedHeaders = "*", methods = {RequestMethod.GET, RequestMethod.POST, RequestMethod.PUT, RequestMethod.DELETE, RequestMethod.OPTIONS}, allowCredentials = "true")
+@RequiredArgsConstructor
 public class GatewayController {
 
     private final RestTemplate restTemplate = new RestTemplate();
 
-    @Value("${canteen.user-service.url:http://localhost:8081}")
-    private String userServiceUrl;
+    private final ReactiveProxyEngine proxyEngine;
 
-    @Value("${canteen.product-service.url:http://localhost:8082}")
-    private String productServiceUrl;
+    private final RouteTable routeTable;
 
-    @Value("${canteen.order-service.url:http://localhost:8083}")
-    private String orderServiceUrl;
-
-    @Value("${canteen.recommend-service.url:http://localhost:8084}")
-    private String recommendServiceUrl;
+    @Value("${canteen.user-service.url:http://localhost:8081}")
+    private String userServiceUrl;
 
     /**
      * 文件上传专用代理
@@ -48,43 +54,33 @@ public class GatewayController {
     }
 
     /**
-     * 推荐管理代理。必须放在通用 /admin/** 代理前，避免推荐管理请求被转到用户服务。
-     */
-    @RequestMapping(value = {"/admin/recommend/**", "/admin/recommend-config", "/admin/recommend-config/**"}, method = {RequestMethod.GET, RequestMethod.POST, RequestMethod.PUT, RequestMethod.DELETE})
-    public ResponseEntity<String> proxyAdminRecommendService(HttpServletRequest request, @RequestBody(required = false) String body) {
-        return proxyRequest(recommendServiceUrl, request, body);
-    }
-
-    /**
-     * 用户服务代理 - 包括管理员API
-     */
-    @RequestMapping(value = {"/users/**", "/admin/**", "/merchant/**"}, method = {RequestMethod.GET, RequestMethod.POST, RequestMethod.PUT, RequestMethod.DELETE})
-    public ResponseEntity<String> proxyUserService(HttpServletRequest request, @RequestBody(required = false) String body) {
-        return proxyRequest(userServiceUrl, request, body);
-    }
-
-    /**
-     * 商品服务代理 - 包括管理员商品API
+     * 通用代理入口，由路由表决定下游服务和认证策略
      */
-    @RequestMapping(value = {"/products/**"}, method = {RequestMethod.GET, RequestMethod.POST, RequestMethod.PUT, RequestMethod.DELETE})
-    public ResponseEntity<String> proxyProductService(HttpServletRequest request, @RequestBody(required = false) String body) {
-        return proxyRequest(productServiceUrl, request, body);
-    }
-
-    /**
-     * 订单服务代理 - 包括管理员订单API
-     */
-    @RequestMapping(value = {"/orders/**"}, method = {RequestMethod.GET, RequestMethod.POST, RequestMethod.PUT, RequestMethod.DELETE})
-    public ResponseEntity<String> proxyOrderService(HttpServletRequest request, @RequestBody(required = false) String body) {
-        return proxyRequest(orderServiceUrl, request, body);
+    @RequestMapping("/**")
+    public DeferredResult<Void> proxy(HttpServletRequest request, HttpServletResponse response) {
+        String path = request.getRequestURI();
+        Route route = routeTable.match(path, request.getMethod());
+        if (route == null) {
+            if (routeTable.matchesPath(path)) {
+                return toDeferredResult(proxyEngine.writeJson(response, 405, "{\"code\":405,\"message\":\"不支持的请求方法\",\"data\":null}"), null);
+            }
+            return toDeferredResult(proxyEngine.writeJson(response, 404, "{\"code\":404,\"message\":\"接口不存在\",\"data\":null}"), null);
+        }
+        route.recordHit();
+        return toDeferredResult(proxyRequest(route, request, response), route.getAsyncTimeout());
     }
 
     /**
-     * 推荐服务代理
+     * 订阅代理结果，路由配置了异步超时时按路由设置，否则使用全局异步超时；请求结束或超时时取消下游订阅
      */
-    @RequestMapping(value = "/recommend/**", method = {RequestMethod.GET, RequestMethod.POST, RequestMethod.PUT, RequestMethod.DELETE})
-    public ResponseEntity<String> proxyRecommendService(HttpServletRequest request, @RequestBody(required = false) String body) {
-        return proxyRequest(recommendServiceUrl, request, body);
+    private DeferredResult<Void> toDeferredResult(Mono<Void> mono, Duration timeout) {
+        DeferredResult<Void> result = timeout != null ? new DeferredResult<>(timeout.toMillis()) : new DeferredResult<>();
+        Disposable subscription = mono.subscribe(
+                ignored -> { },
+                result::setErrorResult,
+                () -> result.setResult(null));
+        result.onCompletion(subscription::dispose);
+        return result;
     }
 
     /**
@@ -97,7 +93,7 @@ public class GatewayController {
         log.info("代理文件上传请求: POST {} -> {}{}", path, serviceUrl, path);
 
         try {
-            AuthContext auth = AuthContext.from(request);
+            AuthContext auth = AuthContext.fromBearerToken(request);
             auth.requireRole("USER", "MERCHANT", "ADMIN");
 
             if (request instanceof MultipartHttpServletRequest) {
@@ -109,6 +105,7 @@ public class GatewayController {
                 if (token != null) {
                     headers.set("Authorization", token);
                 }
+                headers.set(InternalIdentity.HEADER, InternalIdentity.sign(auth));
 
                 // 构建multipart请求体
                 MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
@@ -142,7 +139,7 @@ public class GatewayController {
 
                 // 发送请求
                 return restTemplate.exchange(
-                    buildTargetUrl(serviceUrl, request),
+                    ReactiveProxyEngine.buildTargetUrl(serviceUrl, request),
                     HttpMethod.POST,
                     entity,
                     String.class
@@ -161,112 +158,32 @@ public class GatewayController {
     }
 
     /**
-     * 通用代理方法
+     * 通用代理方法，由非阻塞代理引擎流式转发
      */
-    private ResponseEntity<String> proxyRequest(String serviceUrl, HttpServletRequest request, String body) {
+    private Mono<Void> proxyRequest(Route route, HttpServletRequest request, HttpServletResponse response) {
         String path = request.getRequestURI();
         String method = request.getMethod();
-        String token = request.getHeader("Authorization");
-        String targetUrl = buildTargetUrl(serviceUrl, request);
 
-        log.info("代理请求: {} {} -> {}", method, path, targetUrl);
+        log.info("代理请求: {} {} -> {}{}", method, path, route.getServiceUrl(), path);
 
-        if (needsAuthentication(path, method)) {
+        AuthContext auth = null;
+        if (route.requiresAuth()) {
             try {
-                AuthContext.from(request);
+                auth = AuthContext.fromBearerToken(request);
             } catch (SecurityException e) {
-                return ResponseEntity.status(401)
-                        .body("{\"code\":401,\"message\":\"未授权访问\",\"data\":null}");
-            }
-        }
-
-        try {
-            // 设置请求头
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            if (token != null) {
-                headers.set("Authorization", token);
+                return proxyEngine.writeJson(response, 401, "{\"code\":401,\"message\":\"未授权访问\",\"data\":null}");
             }
-
-            // 创建请求实体
-            HttpEntity<String> entity = new HttpEntity<>(body, headers);
-
-            // 发送请求
-            return restTemplate.exchange(
-                targetUrl,
-                HttpMethod.valueOf(method),
-                entity,
-                String.class
-            );
-        } catch (HttpStatusCodeException e) {
-            return downstreamError(e);
-        } catch (Exception e) {
-            log.error("代理请求失败: {}", e.getMessage(), e);
-            return ResponseEntity.status(500)
-                    .body("{\"code\":500,\"message\":\"服务调用失败\",\"data\":null}");
-        }
-    }
-
-    /**
-     * 判断是否需要认证
-     */
-    private boolean needsAuthentication(String path, String method) {
-        if (RequestMethod.OPTIONS.name().equalsIgnoreCase(method)) {
-            return false;
-        }
-
-        if (RequestMethod.GET.name().equalsIgnoreCase(method)) {
-            String[] publicExactGetPaths = {
-                    "/api/products",
-                    "/api/products/categories",
-                    "/api/products/hot",
-                    "/api/health",
-                    "/api/users/health",
-                    "/api/orders/health",
-                    "/api/recommend"
-            };
-            for (String publicPath : publicExactGetPaths) {
-                if (path.equals(publicPath)) {
-                    return false;
-                }
-            }
-
-            String[] publicGetPrefixes = {
-                    "/api/products/category/",
-                    "/api/products/hot",
-                    "/api/recommend/"
-            };
-            for (String publicPath : publicGetPrefixes) {
-                if (path.startsWith(publicPath)) {
-                    return false;
-                }
-            }
-        }
-
-        // 不需要认证的路径
-        String[] publicPaths = {
-                "/api/users/register",
-                "/api/users/login",
-                "/api/merchant/login",
-                "/api/merchant/register",
-                "/api/health"
-        };
-
-        for (String publicPath : publicPaths) {
-            if (path.equals(publicPath)) {
-                return false;
+        } else if (AuthContext.extractToken(request) != null) {
+            // 公开接口也可能携带Token，验证通过时同样下发身份头
+            try {
+                auth = AuthContext.fromBearerToken(request);
+            } catch (SecurityException ignored) {
+                // 无效Token交给下游按匿名请求处理
             }
         }
-        return true;
-    }
 
-    private String buildTargetUrl(String serviceUrl, HttpServletRequest request) {
-        StringBuilder targetUrl = new StringBuilder(serviceUrl).append(request.getRequestURI());
-        String queryString = request.getQueryString();
-        if (queryString != null && !queryString.isBlank()) {
-            targetUrl.append('?').append(queryString);
-        }
-        return targetUrl.toString();
+        String identity = auth == null ? null : InternalIdentity.sign(auth);
+        return proxyEngine.forward(route.getService(), route.getServiceUrl(), request, response, identity);
     }
 
     private ResponseEntity<String> downstreamError(HttpStatusCodeException e) {
@@ -0,0 +1,77 @@
+package com.canteen.gateway.controller;
+
+import com.canteen.common.result.Result;
+import com.canteen.common.utils.AuthContext;
+import com.canteen.gateway.route.Route;
+import com.canteen.gateway.route.RouteTable;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.bind.annotation.*;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 网关路由管理控制器
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/gateway/routes")
+@RequiredArgsConstructor
+public class RouteAdminController {
+
+    private final RouteTable routeTable;
+
+    /**
+     * 查看路由表及各路由命中次数
+     */
+    @GetMapping
+    public Result<List<Map<String, Object>>> listRoutes(HttpServletRequest request) {
+        try {
+            requireAdmin(request);
+        } catch (SecurityException e) {
+            return Result.unauthorized(e.getMessage());
+        }
+
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (Route route : routeTable.getRoutes()) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("id", route.getId());
+            item.put("path", route.getPath());
+            item.put("match", route.isExact() ? "EXACT" : "PREFIX");
+            item.put("methods", route.getMethods());
+            item.put("auth", route.getAuth());
+            item.put("service", route.getService());
+            item.put("serviceUrl", route.getServiceUrl());
+            item.put("hits", route.getHitCount());
+            result.add(item);
+        }
+        return Result.success(result);
+    }
+
+    /**
+     * 重新加载路由表
+     */
+    @PostMapping("/reload")
+    public Result<Integer> reload(HttpServletRequest request) {
+        try {
+            requireAdmin(request);
+        } catch (SecurityException e) {
+            return Result.unauthorized(e.getMessage());
+        }
+
+        try {
+            return Result.success("路由表已重新加载", routeTable.reload());
+        } catch (Exception e) {
+            log.error("重新加载路由表失败", e);
+            return Result.error("重新加载路由表失败: " + e.getMessage());
+        }
+    }
+
+    private void requireAdmin(HttpServletRequest request) {
+        AuthContext.fromBearerToken(request).requireRole("ADMIN");
+    }
+}
@@ -0,0 +1,23 @@
+package com.canteen.gateway.proxy;
+
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.util.Map;
+
+/**
+ * 按下游服务划分的代理客户端
+ */
+public class ProxyClients {
+
+    private final Map<String, WebClient> clients;
+    private final WebClient defaultClient;
+
+    public ProxyClients(Map<String, WebClient> clients, WebClient defaultClient) {
+        this.clients = Map.copyOf(clients);
+        this.defaultClient = defaultClient;
+    }
+
+    public WebClient get(String route) {
+        return clients.getOrDefault(route, defaultClient);
+    }
+}
@@ -0,0 +1,215 @@
+package com.canteen.gateway.proxy;
+
+import com.canteen.common.utils.InternalIdentity;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 非阻塞代理引擎
+ * 通过连接池化的 WebClient 转发请求，请求体和响应体按块流式透传，不整体缓存；
+ * 下游状态码和响应头原样返回。控制器返回异步结果后 Servlet 线程即被释放。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ReactiveProxyEngine {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * 逐跳头，不能跨连接转发
+     */
+    private static final Set<String> HOP_BY_HOP_HEADERS = Set.of(
+            "connection", "keep-alive", "proxy-authenticate", "proxy-authorization",
+            "te", "trailer", "trailers", "transfer-encoding", "upgrade", "host");
+
+    /**
+     * 跨域由网关统一处理，不转发给下游，也不透传下游的跨域响应头
+     */
+    private static final Set<String> CORS_REQUEST_HEADERS = Set.of(
+            "origin", "access-control-request-method", "access-control-request-headers");
+
+    private final ProxyClients proxyClients;
+    private final DataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+
+    /**
+     * 转发请求到下游服务
+     *
+     * @param route      下游服务名，用于选择连接池
+     * @param serviceUrl 下游服务地址
+     * @param identity   网关签发的内部身份头，匿名请求为null
+     */
+    public Mono<Void> forward(String route, String serviceUrl, HttpServletRequest request,
+                              HttpServletResponse response, String identity) {
+        HttpMethod method = HttpMethod.resolve(request.getMethod());
+        if (method == null) {
+            return writeJson(response, 405, "{\"code\":405,\"message\":\"不支持的请求方法\",\"data\":null}");
+        }
+
+        WebClient.RequestBodySpec spec = proxyClients.get(route)
+                .method(method)
+                .uri(URI.create(buildTargetUrl(serviceUrl, request)))
+                .headers(headers -> {
+                    copyRequestHeaders(request, headers);
+                    if (identity != null) {
+                        headers.set(InternalIdentity.HEADER, identity);
+                    }
+                });
+        WebClient.RequestHeadersSpec<?> exchange = hasBody(request)
+                ? spec.body(BodyInserters.fromDataBuffers(readBody(request)))
+                : spec;
+
+        return exchange.exchangeToMono(clientResponse -> writeResponse(clientResponse, response))
+                .onErrorResume(e -> handleError(route, response, e));
+    }
+
+    /**
+     * 直接写出JSON响应
+     */
+    public Mono<Void> writeJson(HttpServletResponse response, int status, String body) {
+        return Mono.fromRunnable(() -> {
+            if (response.isCommitted()) {
+                return;
+            }
+            try {
+                response.setStatus(status);
+                response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+                response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+                response.getOutputStream().write(body.getBytes(StandardCharsets.UTF_8));
+                response.flushBuffer();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    public static String buildTargetUrl(String serviceUrl, HttpServletRequest request) {
+        StringBuilder targetUrl = new StringBuilder(serviceUrl).append(request.getRequestURI());
+        String queryString = request.getQueryString();
+        if (queryString != null && !queryString.isBlank()) {
+            targetUrl.append('?').append(queryString);
+        }
+        return targetUrl.toString();
+    }
+
+    private boolean hasBody(HttpServletRequest request) {
+        return request.getContentLengthLong() > 0 || request.getHeader(HttpHeaders.TRANSFER_ENCODING) != null;
+    }
+
+    private Flux<DataBuffer> readBody(HttpServletRequest request) {
+        // Servlet输入流是阻塞读取，放到弹性线程池上，避免占用网络事件线程
+        return DataBufferUtils.readInputStream(request::getInputStream, bufferFactory, BUFFER_SIZE)
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private void copyRequestHeaders(HttpServletRequest request, HttpHeaders headers) {
+        for (String name : Collections.list(request.getHeaderNames())) {
+            String lowerName = name.toLowerCase(Locale.ROOT);
+            if (HOP_BY_HOP_HEADERS.contains(lowerName) || CORS_REQUEST_HEADERS.contains(lowerName)
+                    || InternalIdentity.HEADER.equalsIgnoreCase(name)) {
+                // 客户端自带的内部身份头一律丢弃，只转发网关自己签发的
+                continue;
+            }
+            headers.addAll(name, Collections.list(request.getHeaders(name)));
+        }
+    }
+
+    private Mono<Void> writeResponse(ClientResponse clientResponse, HttpServletResponse response) {
+        response.setStatus(clientResponse.rawStatusCode());
+        clientResponse.headers().asHttpHeaders().forEach((name, values) -> {
+            String lowerName = name.toLowerCase(Locale.ROOT);
+            if (HOP_BY_HOP_HEADERS.contains(lowerName) || lowerName.startsWith("access-control-")) {
+                return;
+            }
+            values.forEach(value -> response.addHeader(name, value));
+        });
+
+        // Servlet输出流是阻塞写入，放到弹性线程池上，逐块写出并刷新
+        return clientResponse.bodyToFlux(DataBuffer.class)
+                .publishOn(Schedulers.boundedElastic())
+                .doOnNext(buffer -> writeBuffer(buffer, response))
+                .then(Mono.fromRunnable(() -> flush(response)));
+    }
+
+    private void writeBuffer(DataBuffer buffer, HttpServletResponse response) {
+        try {
+            OutputStream out = response.getOutputStream();
+            WritableByteChannel channel = Channels.newChannel(out);
+            ByteBuffer byteBuffer = buffer.asByteBuffer();
+            while (byteBuffer.hasRemaining()) {
+                channel.write(byteBuffer);
+            }
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            DataBufferUtils.release(buffer);
+        }
+    }
+
+    private void flush(HttpServletResponse response) {
+        try {
+            response.flushBuffer();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Mono<Void> handleError(String route, HttpServletResponse response, Throwable e) {
+        if (response.isCommitted()) {
+            // 响应已开始写出，无法再返回错误信息；继续抛出由容器中断连接，避免客户端把截断的下载当作完整文件
+            log.warn("代理响应中断: route={}, error={}", route, e.getMessage());
+            return Mono.error(e);
+        }
+        if (isTimeout(e)) {
+            log.warn("代理请求超时: route={}, error={}", route, e.getMessage());
+            return writeJson(response, 504, "{\"code\":504,\"message\":\"服务响应超时\",\"data\":null}");
+        }
+        if (e instanceof WebClientRequestException) {
+            log.error("代理请求失败: route={}, error={}", route, e.getMessage());
+        } else {
+            log.error("代理请求失败: route={}", route, e);
+        }
+        return writeJson(response, 500, "{\"code\":500,\"message\":\"服务调用失败\",\"data\":null}");
+    }
+
+    private boolean isTimeout(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof TimeoutException
+                    || cause instanceof io.netty.handler.timeout.TimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
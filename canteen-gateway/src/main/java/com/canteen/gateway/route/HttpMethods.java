@@ -0,0 +1,54 @@
+package com.canteen.gateway.route;
+
+import java.util.Collection;
+import java.util.Locale;
+
+/**
+ * 请求方法与位掩码的转换，匹配时不分配对象
+ */
+final class HttpMethods {
+
+    static final int ALL = 0xFF;
+
+    private HttpMethods() {
+    }
+
+    static int bit(String method) {
+        if (method == null) {
+            return 0;
+        }
+        switch (method) {
+            case "GET":
+                return 1;
+            case "POST":
+                return 1 << 1;
+            case "PUT":
+                return 1 << 2;
+            case "DELETE":
+                return 1 << 3;
+            case "PATCH":
+                return 1 << 4;
+            case "HEAD":
+                return 1 << 5;
+            case "OPTIONS":
+                return 1 << 6;
+            default:
+                return 0;
+        }
+    }
+
+    static int mask(Collection<String> methods) {
+        if (methods == null || methods.isEmpty()) {
+            return ALL;
+        }
+        int mask = 0;
+        for (String method : methods) {
+            int bit = bit(method.trim().toUpperCase(Locale.ROOT));
+            if (bit == 0) {
+                throw new IllegalArgumentException("不支持的请求方法: " + method);
+            }
+            mask |= bit;
+        }
+        return mask;
+    }
+}
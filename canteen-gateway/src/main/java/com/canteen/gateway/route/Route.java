@@ -0,0 +1,63 @@
+package com.canteen.gateway.route;
+
+import com.canteen.gateway.config.GatewayRouteProperties.AuthPolicy;
+import lombok.Getter;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 编译后的路由规则
+ */
+@Getter
+public class Route {
+
+    private final String id;
+    private final String path;
+    private final boolean exact;
+    private final String service;
+    private final String serviceUrl;
+    private final List<String> methods;
+    private final int methodMask;
+    private final AuthPolicy auth;
+    private final Duration asyncTimeout;
+    private final LongAdder hits;
+
+    Route(String id, String path, boolean exact, String service, String serviceUrl,
+          List<String> methods, AuthPolicy auth, Duration asyncTimeout, LongAdder hits) {
+        this.id = id;
+        this.path = path;
+        this.exact = exact;
+        this.service = service;
+        this.serviceUrl = serviceUrl;
+        this.methods = methods;
+        this.methodMask = HttpMethods.mask(methods);
+        this.auth = auth;
+        this.asyncTimeout = asyncTimeout;
+        this.hits = hits;
+    }
+
+    public boolean requiresAuth() {
+        return auth == AuthPolicy.REQUIRED;
+    }
+
+    public void recordHit() {
+        hits.increment();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    boolean allows(int methodBit) {
+        return (methodMask & methodBit) != 0;
+    }
+
+    /**
+     * 方法限定越少越具体，同一路径上优先匹配
+     */
+    int specificity() {
+        return (exact ? 0 : 2) + (methods.isEmpty() ? 1 : 0);
+    }
+}
@@ -0,0 +1,125 @@
+package com.canteen.gateway.route;
+
+import com.canteen.gateway.config.GatewayRouteProperties;
+import com.canteen.gateway.config.GatewayRouteProperties.RouteDefinition;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 网关路由表
+ * 启动时把 canteen.gateway.routes 编译成前缀树；配置中心刷新或手动触发时重新编译并整体替换，
+ * 编译失败时保留旧路由表。命中计数按路由ID保存，重新加载后继续累计。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RouteTable {
+
+    private static final Map<String, String> DEFAULT_SERVICE_URLS = Map.of(
+            "user-service", "http://localhost:8081",
+            "product-service", "http://localhost:8082",
+            "order-service", "http://localhost:8083",
+            "recommend-service", "http://localhost:8084");
+
+    private final Environment environment;
+
+    private final Map<String, LongAdder> hitCounters = new ConcurrentHashMap<>();
+
+    private volatile RouteTrie trie;
+    private volatile List<Route> routes = Collections.emptyList();
+
+    @PostConstruct
+    public void init() {
+        reload();
+    }
+
+    /**
+     * 重新绑定配置并编译路由表
+     *
+     * @return 加载后的路由数量
+     */
+    public synchronized int reload() {
+        GatewayRouteProperties properties = Binder.get(environment)
+                .bind(GatewayRouteProperties.PREFIX, GatewayRouteProperties.class)
+                .orElseGet(GatewayRouteProperties::new);
+
+        List<Route> compiled = new ArrayList<>();
+        for (RouteDefinition definition : properties.getRoutes()) {
+            compiled.add(compile(definition));
+        }
+        RouteTrie compiledTrie = RouteTrie.compile(compiled);
+
+        this.routes = Collections.unmodifiableList(compiled);
+        this.trie = compiledTrie;
+        log.info("网关路由表加载完成，共{}条路由", compiled.size());
+        return compiled.size();
+    }
+
+    @EventListener(EnvironmentChangeEvent.class)
+    public void onEnvironmentChange(EnvironmentChangeEvent event) {
+        boolean affected = event.getKeys().stream()
+                .anyMatch(key -> key.startsWith(GatewayRouteProperties.PREFIX + ".routes") || key.endsWith("-service.url"));
+        if (!affected) {
+            return;
+        }
+        try {
+            reload();
+        } catch (Exception e) {
+            log.error("网关路由表重新加载失败，继续使用旧路由表", e);
+        }
+    }
+
+    /**
+     * 匹配路由，没有匹配时返回null
+     */
+    public Route match(String path, String method) {
+        return trie.match(path, method);
+    }
+
+    public boolean matchesPath(String path) {
+        return trie.matchesPath(path);
+    }
+
+    public List<Route> getRoutes() {
+        return routes;
+    }
+
+    private Route compile(RouteDefinition definition) {
+        String path = definition.getPath();
+        String service = definition.getService();
+        if (path == null || !path.startsWith("/")) {
+            throw new IllegalStateException("路由路径必须以/开头: " + path);
+        }
+        if (service == null || service.isBlank()) {
+            throw new IllegalStateException("路由未配置下游服务: " + path);
+        }
+        String serviceUrl = environment.getProperty("canteen." + service + ".url", DEFAULT_SERVICE_URLS.get(service));
+        if (serviceUrl == null) {
+            throw new IllegalStateException("未配置下游服务地址: canteen." + service + ".url");
+        }
+
+        List<String> methods = new ArrayList<>();
+        for (String method : definition.getMethods()) {
+            methods.add(method.trim().toUpperCase(Locale.ROOT));
+        }
+        boolean exact = definition.getMatch() == GatewayRouteProperties.MatchType.EXACT;
+        String id = (exact ? "=" : "") + path + (methods.isEmpty() ? "" : " " + methods);
+        LongAdder hits = hitCounters.computeIfAbsent(id, key -> new LongAdder());
+        return new Route(id, path, exact, service, serviceUrl,
+                Collections.unmodifiableList(methods), definition.getAuth(), definition.getAsyncTimeout(), hits);
+    }
+}
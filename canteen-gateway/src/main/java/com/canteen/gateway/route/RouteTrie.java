@@ -0,0 +1,136 @@
+package com.canteen.gateway.route;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 按字符构建的不可变前缀树
+ * 沿请求路径逐字符下行一次，记录最后一个命中的规则，即最长匹配；查找过程不分配对象。
+ * 同一节点上的规则按 精确+限定方法、精确、前缀+限定方法、前缀 的顺序尝试。
+ */
+final class RouteTrie {
+
+    private final Node root;
+
+    private RouteTrie(Node root) {
+        this.root = root;
+    }
+
+    static RouteTrie compile(List<Route> routes) {
+        Builder root = new Builder();
+        for (Route route : routes) {
+            Builder node = root;
+            String path = route.getPath();
+            for (int i = 0; i < path.length(); i++) {
+                node = node.children.computeIfAbsent(path.charAt(i), c -> new Builder());
+            }
+            node.routes.add(route);
+        }
+        return new RouteTrie(root.freeze());
+    }
+
+    /**
+     * 查找匹配的路由，没有匹配时返回null
+     */
+    Route match(String path, String method) {
+        int methodBit = HttpMethods.bit(method);
+        if (methodBit == 0) {
+            return null;
+        }
+        return find(path, methodBit);
+    }
+
+    /**
+     * 忽略请求方法判断路径是否有路由，用于区分404和405
+     */
+    boolean matchesPath(String path) {
+        return find(path, HttpMethods.ALL) != null;
+    }
+
+    private Route find(String path, int methodBit) {
+        Route best = null;
+        Node node = root;
+        int length = path.length();
+        for (int i = 0; ; i++) {
+            if (node.routes != null) {
+                Route route = node.select(path, i, methodBit);
+                if (route != null) {
+                    best = route;
+                }
+            }
+            if (i == length) {
+                return best;
+            }
+            node = node.child(path.charAt(i));
+            if (node == null) {
+                return best;
+            }
+        }
+    }
+
+    private static final class Node {
+
+        private final char[] keys;
+        private final Node[] children;
+        private final Route[] routes;
+        private final boolean endsWithSlash;
+
+        private Node(char[] keys, Node[] children, Route[] routes, boolean endsWithSlash) {
+            this.keys = keys;
+            this.children = children;
+            this.routes = routes;
+            this.endsWithSlash = endsWithSlash;
+        }
+
+        Node child(char c) {
+            int index = Arrays.binarySearch(keys, c);
+            return index >= 0 ? children[index] : null;
+        }
+
+        /**
+         * @param position 当前节点对应的路径长度
+         */
+        Route select(String path, int position, int methodBit) {
+            boolean atEnd = position == path.length();
+            boolean atBoundary = atEnd || endsWithSlash || path.charAt(position) == '/';
+            if (!atBoundary) {
+                return null;
+            }
+            for (Route route : routes) {
+                if ((atEnd || !route.isExact()) && route.allows(methodBit)) {
+                    return route;
+                }
+            }
+            return null;
+        }
+    }
+
+    private static final class Builder {
+
+        private final TreeMap<Character, Builder> children = new TreeMap<>();
+        private final List<Route> routes = new ArrayList<>();
+
+        Node freeze() {
+            char[] keys = new char[children.size()];
+            Node[] nodes = new Node[children.size()];
+            int index = 0;
+            for (Map.Entry<Character, Builder> entry : children.entrySet()) {
+                keys[index] = entry.getKey();
+                nodes[index] = entry.getValue().freeze();
+                index++;
+            }
+            Route[] sorted = null;
+            boolean endsWithSlash = false;
+            if (!routes.isEmpty()) {
+                routes.sort(Comparator.comparingInt(Route::specificity));
+                sorted = routes.toArray(new Route[0]);
+                endsWithSlash = sorted[0].getPath().endsWith("/");
+            }
+            return new Node(keys, nodes, sorted, endsWithSlash);
+        }
+    }
+}
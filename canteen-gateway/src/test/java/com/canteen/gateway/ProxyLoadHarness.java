@@ -0,0 +1,143 @@
+package com.canteen.gateway;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 网关代理压测工具
+ *
+ * <p>用法：
+ * <pre>
+ * # 1. 启动一个固定延迟的模拟下游服务（模拟订单服务，端口18083，每个请求耗时200ms）
+ * java -cp target/test-classes com.canteen.gateway.ProxyLoadHarness backend 18083 200
+ *
+ * # 2. 启动网关并把订单服务指向模拟服务
+ * java -jar target/canteen-gateway-1.0.0.jar --canteen.order-service.url=http://localhost:18083 \
+ *      --spring.cloud.nacos.config.enabled=false --spring.cloud.nacos.discovery.enabled=false
+ *
+ * # 3. 以1000并发压测30秒
+ * java -cp target/test-classes com.canteen.gateway.ProxyLoadHarness load http://localhost:8080/api/orders/health 1000 30
+ * </pre>
+ *
+ * <p>阻塞代理下吞吐上限约为 Servlet线程数 / 下游耗时（默认200线程、200ms时约1000 req/s），
+ * 非阻塞代理下吞吐随并发数线性增长，直到达到连接池上限。
+ */
+public class ProxyLoadHarness {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length >= 3 && "backend".equals(args[0])) {
+            startBackend(Integer.parseInt(args[1]), Long.parseLong(args[2]));
+        } else if (args.length >= 4 && "load".equals(args[0])) {
+            runLoad(args[1], Integer.parseInt(args[2]), Integer.parseInt(args[3]));
+        } else {
+            System.out.println("用法: backend <port> <delayMs> | load <url> <concurrency> <durationSeconds>");
+        }
+    }
+
+    /**
+     * 模拟下游服务：每个请求固定延迟后返回一段JSON
+     */
+    private static void startBackend(int port, long delayMs) throws Exception {
+        // JDK内置HttpServer默认只保留200个空闲长连接，压测时调大，避免连接池复用到被关闭的连接
+        System.setProperty("sun.net.httpserver.maxIdleConnections", "10000");
+        byte[] body = "{\"code\":200,\"message\":\"ok\",\"data\":null}".getBytes(StandardCharsets.UTF_8);
+        HttpServer server = HttpServer.create(new InetSocketAddress(port), 4096);
+        // 延迟通过定时器完成，不占用处理线程，避免模拟服务自身成为瓶颈
+        ScheduledExecutorService timer = Executors.newScheduledThreadPool(4);
+        server.createContext("/", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            timer.schedule(() -> {
+                try (OutputStream out = exchange.getResponseBody()) {
+                    exchange.getResponseHeaders().add("Content-Type", "application/json");
+                    exchange.sendResponseHeaders(200, body.length);
+                    out.write(body);
+                } catch (IOException e) {
+                    exchange.close();
+                }
+            }, delayMs, TimeUnit.MILLISECONDS);
+        });
+        server.setExecutor(Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors()));
+        server.start();
+        System.out.printf("模拟下游服务已启动: port=%d, delay=%dms%n", port, delayMs);
+    }
+
+    /**
+     * 固定并发压测：每个虚拟用户收到响应后立即发起下一个请求
+     */
+    private static void runLoad(String url, int concurrency, int durationSeconds) throws Exception {
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newFixedThreadPool(Math.max(4, Runtime.getRuntime().availableProcessors())))
+                .build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .timeout(Duration.ofSeconds(60))
+                .GET()
+                .build();
+
+        long deadline = System.nanoTime() + Duration.ofSeconds(durationSeconds).toNanos();
+        AtomicLong success = new AtomicLong();
+        AtomicLong failure = new AtomicLong();
+        ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+        CountDownLatch done = new CountDownLatch(concurrency);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < concurrency; i++) {
+            sendNext(client, request, deadline, success, failure, latencies, done);
+        }
+        done.await();
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        long[] sorted = latencies.stream().mapToLong(Long::longValue).toArray();
+        Arrays.sort(sorted);
+        System.out.printf("并发=%d, 时长=%.1fs, 成功=%d, 失败=%d, 吞吐=%.1f req/s%n",
+                concurrency, seconds, success.get(), failure.get(), success.get() / seconds);
+        if (sorted.length > 0) {
+            System.out.printf("延迟(ms): p50=%.1f, p90=%.1f, p99=%.1f, max=%.1f%n",
+                    percentile(sorted, 0.50), percentile(sorted, 0.90), percentile(sorted, 0.99),
+                    sorted[sorted.length - 1] / 1_000_000.0);
+        }
+        System.exit(0);
+    }
+
+    private static void sendNext(HttpClient client, HttpRequest request, long deadline,
+                                 AtomicLong success, AtomicLong failure,
+                                 ConcurrentLinkedQueue<Long> latencies, CountDownLatch done) {
+        if (System.nanoTime() >= deadline) {
+            done.countDown();
+            return;
+        }
+        long begin = System.nanoTime();
+        CompletableFuture<HttpResponse<Void>> future = client.sendAsync(request, HttpResponse.BodyHandlers.discarding());
+        future.whenComplete((response, error) -> {
+            if (error == null && response.statusCode() == 200) {
+                success.incrementAndGet();
+                latencies.add(System.nanoTime() - begin);
+            } else {
+                failure.incrementAndGet();
+            }
+            sendNext(client, request, deadline, success, failure, latencies, done);
+        });
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        int index = (int) Math.min(sorted.length - 1, Math.round(p * (sorted.length - 1)));
+        return sorted[index] / 1_000_000.0;
+    }
+}
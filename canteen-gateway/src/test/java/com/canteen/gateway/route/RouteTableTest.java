@@ -0,0 +1,75 @@
+package com.canteen.gateway.route;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 网关路由表测试类
+ */
+public class RouteTableTest {
+
+    private MockEnvironment environment;
+    private RouteTable routeTable;
+
+    @BeforeEach
+    void setUp() {
+        environment = new MockEnvironment()
+                .withProperty("canteen.order-service.url", "http://orders:8083")
+                .withProperty("canteen.gateway.routes[0].path", "/api/admin")
+                .withProperty("canteen.gateway.routes[0].service", "user-service")
+                .withProperty("canteen.gateway.routes[1].path", "/api/admin/recommend")
+                .withProperty("canteen.gateway.routes[1].service", "recommend-service")
+                .withProperty("canteen.gateway.routes[2].path", "/api/orders")
+                .withProperty("canteen.gateway.routes[2].service", "order-service")
+                .withProperty("canteen.gateway.routes[3].path", "/api/products")
+                .withProperty("canteen.gateway.routes[3].service", "product-service")
+                .withProperty("canteen.gateway.routes[3].methods", "POST,PUT")
+                .withProperty("canteen.gateway.routes[4].path", "/api/products")
+                .withProperty("canteen.gateway.routes[4].service", "product-service")
+                .withProperty("canteen.gateway.routes[4].match", "EXACT")
+                .withProperty("canteen.gateway.routes[4].methods", "GET")
+                .withProperty("canteen.gateway.routes[4].auth", "PUBLIC");
+        routeTable = new RouteTable(environment);
+        routeTable.init();
+    }
+
+    @Test
+    void testLongestPrefixWinsRegardlessOfOrder() {
+        assertEquals("recommend-service", routeTable.match("/api/admin/recommend/config", "GET").getService());
+        assertEquals("recommend-service", routeTable.match("/api/admin/recommend", "GET").getService());
+        assertEquals("user-service", routeTable.match("/api/admin/users", "GET").getService());
+        // 前缀按路径段边界匹配
+        assertEquals("user-service", routeTable.match("/api/admin/recommendations", "GET").getService());
+        assertNull(routeTable.match("/api/ordersx", "GET"));
+        assertEquals("http://orders:8083", routeTable.match("/api/orders/1", "DELETE").getServiceUrl());
+    }
+
+    @Test
+    void testMethodAndExactMatchDecideAuth() {
+        Route publicList = routeTable.match("/api/products", "GET");
+        assertFalse(publicList.requiresAuth());
+
+        assertTrue(routeTable.match("/api/products", "POST").requiresAuth());
+        assertTrue(routeTable.match("/api/products/1", "PUT").requiresAuth());
+        assertNull(routeTable.match("/api/products/1", "GET"));
+        assertTrue(routeTable.matchesPath("/api/products/1"));
+        assertFalse(routeTable.matchesPath("/api/unknown"));
+    }
+
+    @Test
+    void testReloadKeepsHitCounters() {
+        routeTable.match("/api/orders/1", "GET").recordHit();
+        routeTable.match("/api/orders/2", "GET").recordHit();
+
+        environment.setProperty("canteen.gateway.routes[2].path", "/api/orders");
+        environment.setProperty("canteen.order-service.url", "http://orders-v2:8083");
+        routeTable.reload();
+
+        Route route = routeTable.match("/api/orders/3", "GET");
+        assertEquals("http://orders-v2:8083", route.getServiceUrl());
+        assertEquals(2L, route.getHitCount());
+    }
+}
@@ -29,6 +29,11 @@ public interface MerchantOrderService {
      */
     List<Map<String, Object>> getOrderList(Long merchantId, Integer page, Integer size, String status);
     
+    /**
+     * 按游标获取订单列表，返回 records 及下一页游标 nextCursor（为空表示没有更多）
+     */
+    Map<String, Object> getOrderPage(Long merchantId, Integer size, String status, String cursor, String token);
+    
     /**
      * 接受订单
      */
@@ -44,6 +49,11 @@ public interface MerchantOrderService {
      */
     void updateOrderStatus(Long orderId, Long merchantId, String status);
     
+    /**
+     * 批量推进订单状态，action 为 accept、ready 或 complete；返回每个订单的处理结果（orderId、success、message）
+     */
+    List<Map<String, Object>> batchUpdateStatus(List<Long> orderIds, Long merchantId, String action, String token);
+    
     /**
      * 获取订单详情
      */
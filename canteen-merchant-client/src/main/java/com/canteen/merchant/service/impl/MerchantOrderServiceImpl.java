@@ -7,6 +7,8 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 
 import java.math.BigDecimal;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -114,6 +116,51 @@ public class MerchantOrderServiceImpl implements MerchantOrderService {
         }
     }
     
+    @Override
+    public Map<String, Object> getOrderPage(Long merchantId, Integer size, String status, String cursor, String token) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("records", new ArrayList<>());
+        result.put("nextCursor", null);
+        try {
+            StringBuilder urlBuilder = new StringBuilder(BASE_URL + "/api/orders/merchant/" + merchantId + "/list");
+            urlBuilder.append("?size=").append(size);
+            if (status != null && !status.isEmpty()) {
+                urlBuilder.append("&status=").append(status);
+            }
+            if (cursor != null && !cursor.isEmpty()) {
+                urlBuilder.append("&cursor=").append(URLEncoder.encode(cursor, StandardCharsets.UTF_8));
+            }
+            
+            String response = HttpUtil.get(urlBuilder.toString(), token);
+            JsonNode responseNode = objectMapper.readTree(response);
+            
+            if (responseNode.get("code").asInt() == 200) {
+                JsonNode dataNode = responseNode.get("data");
+                result.put("records", getOrderRecords(dataNode.get("records")));
+                JsonNode nextCursorNode = dataNode.get("nextCursor");
+                if (nextCursorNode != null && !nextCursorNode.isNull()) {
+                    result.put("nextCursor", nextCursorNode.asText());
+                }
+            } else {
+                log.warn("获取订单列表失败：{}", responseNode.get("message").asText());
+            }
+        } catch (Exception e) {
+            log.error("获取订单列表异常：merchantId={}", merchantId, e);
+        }
+        return result;
+    }
+    
+    private List<Map<String, Object>> getOrderRecords(JsonNode recordsNode) {
+        List<Map<String, Object>> orders = new ArrayList<>();
+        if (recordsNode != null && recordsNode.isArray()) {
+            for (JsonNode orderNode : recordsNode) {
+                Map<String, Object> order = objectMapper.convertValue(orderNode, Map.class);
+                orders.add(order);
+            }
+        }
+        return orders;
+    }
+    
     @Override
     public void acceptOrder(Long orderId, Long merchantId) {
         try {
@@ -179,6 +226,31 @@ public class MerchantOrderServiceImpl implements MerchantOrderService {
         }
     }
     
+    @Override
+    public List<Map<String, Object>> batchUpdateStatus(List<Long> orderIds, Long merchantId, String action,
+                                                       String token) {
+        try {
+            String url = BASE_URL + "/api/orders/merchant/batch/" + action;
+            Map<String, Object> data = new HashMap<>();
+            data.put("merchantId", merchantId);
+            data.put("orderIds", orderIds);
+            
+            String response = HttpUtil.put(url, data, token);
+            JsonNode responseNode = objectMapper.readTree(response);
+            
+            if (responseNode.get("code").asInt() != 200) {
+                throw new RuntimeException(responseNode.get("message").asText());
+            }
+            
+            log.info("批量处理订单完成：action={}, merchantId={}, {}", action, merchantId,
+                    responseNode.get("message").asText());
+            return getOrderRecords(responseNode.get("data"));
+        } catch (Exception e) {
+            log.error("批量处理订单异常：action={}, merchantId={}, orderIds={}", action, merchantId, orderIds, e);
+            throw new RuntimeException("批量处理订单失败：" + e.getMessage());
+        }
+    }
+    
     @Override
     public Map<String, Object> getOrderDetail(Long orderId, Long merchantId) {
         try {
@@ -1,15 +1,276 @@
 package com.canteen.merchant.ui.panel;
 
 import com.canteen.merchant.dto.MerchantUser;
-import javax.swing.JPanel;
+import com.canteen.merchant.service.MerchantOrderService;
+import com.canteen.merchant.service.impl.MerchantOrderServiceImpl;
+import lombok.extern.slf4j.Slf4j;
 
+import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 订单管理面板
+ *
+ * <p>订单列表支持多选，批量接单、出餐、完成一次请求提交全部选中订单，逐单显示处理结果。
+ * 列表按游标分页，每次加载 {@link #PAGE_SIZE} 条，点击"加载更多"沿下一页游标追加。
+ */
+@Slf4j
 public class OrderManagementPanel extends JPanel {
 
+    private static final int PAGE_SIZE = 100;
+
+    /**
+     * 单次批量操作的订单数上限，与服务端一致
+     */
+    private static final int MAX_BATCH_SIZE = 100;
+
+    private static final String[] STATUS_OPTIONS = {"全部", "PAID", "PREPARING", "READY", "COMPLETED", "CANCELLED"};
+
+    private final MerchantUser currentUser;
+    private final MerchantOrderService orderService;
+
+    // 表格组件
+    private JTable orderTable;
+    private DefaultTableModel tableModel;
+
+    // 筛选组件
+    private JComboBox<String> statusComboBox;
+
+    // 按钮组件
+    private JButton acceptButton;
+    private JButton readyButton;
+    private JButton completeButton;
+    private JButton refreshButton;
+    private JButton loadMoreButton;
+
+    // 分页状态：下一页游标为空表示没有更多；切换筛选或刷新后丢弃旧的加载结果
+    private String nextCursor;
+    private int loadGeneration;
+
     public OrderManagementPanel(MerchantUser currentUser) {
-        // Placeholder constructor
+        this.currentUser = currentUser;
+        this.orderService = new MerchantOrderServiceImpl();
+        initComponents();
+        setupLayout();
+        setupEventHandlers();
+        refresh();
+    }
+
+    private void initComponents() {
+        setLayout(new BorderLayout());
+        setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+
+        // 创建表格，允许多选
+        String[] columnNames = {"ID", "订单号", "金额", "状态", "备注", "下单时间"};
+        tableModel = new DefaultTableModel(columnNames, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false; // 表格不可编辑
+            }
+        };
+        orderTable = new JTable(tableModel);
+        orderTable.setSelectionMode(ListSelectionModel.MULTIPLE_INTERVAL_SELECTION);
+        orderTable.setFont(new Font("微软雅黑", Font.PLAIN, 12));
+        orderTable.getTableHeader().setFont(new Font("微软雅黑", Font.BOLD, 12));
+
+        statusComboBox = new JComboBox<>(STATUS_OPTIONS);
+
+        // 创建按钮
+        acceptButton = new JButton("批量接单");
+        readyButton = new JButton("批量出餐");
+        completeButton = new JButton("批量完成");
+        refreshButton = new JButton("刷新");
+        loadMoreButton = new JButton("加载更多");
+        loadMoreButton.setEnabled(false);
+
+        // 设置按钮字体
+        Font buttonFont = new Font("微软雅黑", Font.PLAIN, 12);
+        acceptButton.setFont(buttonFont);
+        readyButton.setFont(buttonFont);
+        completeButton.setFont(buttonFont);
+        refreshButton.setFont(buttonFont);
+        loadMoreButton.setFont(buttonFont);
+        statusComboBox.setFont(buttonFont);
+    }
+
+    private void setupLayout() {
+        // 顶部筛选栏
+        JPanel filterPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        filterPanel.add(new JLabel("订单状态:"));
+        filterPanel.add(statusComboBox);
+        filterPanel.add(new JLabel("（按住 Ctrl 或 Shift 多选）"));
+        add(filterPanel, BorderLayout.NORTH);
+
+        // 中间表格
+        JScrollPane scrollPane = new JScrollPane(orderTable);
+        add(scrollPane, BorderLayout.CENTER);
+
+        // 底部按钮栏
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        buttonPanel.add(acceptButton);
+        buttonPanel.add(readyButton);
+        buttonPanel.add(completeButton);
+        buttonPanel.add(refreshButton);
+        buttonPanel.add(loadMoreButton);
+        add(buttonPanel, BorderLayout.SOUTH);
+    }
+
+    private void setupEventHandlers() {
+        acceptButton.addActionListener(e -> batchUpdateStatus("accept", "批量接单"));
+        readyButton.addActionListener(e -> batchUpdateStatus("ready", "批量出餐"));
+        completeButton.addActionListener(e -> batchUpdateStatus("complete", "批量完成"));
+        refreshButton.addActionListener(e -> refresh());
+        loadMoreButton.addActionListener(e -> loadPage(nextCursor));
+        statusComboBox.addActionListener(e -> refresh());
+    }
+
+    private List<Long> getSelectedOrderIds() {
+        List<Long> orderIds = new ArrayList<>();
+        for (int row : orderTable.getSelectedRows()) {
+            Object value = tableModel.getValueAt(orderTable.convertRowIndexToModel(row), 0);
+            if (value instanceof Number) {
+                orderIds.add(((Number) value).longValue());
+            }
+        }
+        return orderIds;
+    }
+
+    private void batchUpdateStatus(String action, String actionName) {
+        List<Long> orderIds = getSelectedOrderIds();
+        if (orderIds.isEmpty()) {
+            JOptionPane.showMessageDialog(this, "请选择要处理的订单", "提示", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        if (orderIds.size() > MAX_BATCH_SIZE) {
+            JOptionPane.showMessageDialog(this, "单次最多处理" + MAX_BATCH_SIZE + "个订单", "提示",
+                    JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        int confirm = JOptionPane.showConfirmDialog(this,
+                "确定要对选中的 " + orderIds.size() + " 个订单执行" + actionName + "吗？",
+                "确认" + actionName,
+                JOptionPane.YES_NO_OPTION);
+        if (confirm != JOptionPane.YES_OPTION) {
+            return;
+        }
+
+        setButtonsEnabled(false);
+        SwingWorker<List<Map<String, Object>>, Void> worker = new SwingWorker<List<Map<String, Object>>, Void>() {
+            @Override
+            protected List<Map<String, Object>> doInBackground() {
+                return orderService.batchUpdateStatus(orderIds, currentUser.getId(), action,
+                        currentUser.getToken());
+            }
+
+            @Override
+            protected void done() {
+                setButtonsEnabled(true);
+                try {
+                    showBatchResults(actionName, get());
+                } catch (Exception e) {
+                    log.error("{}失败", actionName, e);
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    JOptionPane.showMessageDialog(OrderManagementPanel.this,
+                            actionName + "失败：" + cause.getMessage(),
+                            "错误",
+                            JOptionPane.ERROR_MESSAGE);
+                }
+                refresh();
+            }
+        };
+        worker.execute();
+    }
+
+    private void showBatchResults(String actionName, List<Map<String, Object>> results) {
+        int successCount = 0;
+        StringBuilder failures = new StringBuilder();
+        for (Map<String, Object> result : results) {
+            if (Boolean.TRUE.equals(result.get("success"))) {
+                successCount++;
+            } else {
+                failures.append("订单 ").append(result.get("orderId"))
+                        .append("：").append(result.get("message")).append('\n');
+            }
+        }
+
+        StringBuilder message = new StringBuilder();
+        message.append(actionName).append("完成：成功").append(successCount)
+                .append("个，失败").append(results.size() - successCount).append("个");
+        if (failures.length() > 0) {
+            message.append("\n\n").append(failures);
+        }
+        JOptionPane.showMessageDialog(this, message.toString(), "处理结果",
+                failures.length() > 0 ? JOptionPane.WARNING_MESSAGE : JOptionPane.INFORMATION_MESSAGE);
+    }
+
+    private void setButtonsEnabled(boolean enabled) {
+        acceptButton.setEnabled(enabled);
+        readyButton.setEnabled(enabled);
+        completeButton.setEnabled(enabled);
     }
 
     public void refresh() {
-        // Placeholder refresh method
+        loadPage(null);
+    }
+
+    /**
+     * 加载一页订单，cursor 为空时重新加载第一页，否则追加到列表末尾
+     */
+    private void loadPage(String cursor) {
+        String selected = (String) statusComboBox.getSelectedItem();
+        String status = "全部".equals(selected) ? null : selected;
+        boolean append = cursor != null;
+        int generation = append ? loadGeneration : ++loadGeneration;
+        if (!append) {
+            nextCursor = null;
+        }
+        loadMoreButton.setEnabled(false);
+
+        SwingWorker<Map<String, Object>, Void> worker = new SwingWorker<Map<String, Object>, Void>() {
+            @Override
+            protected Map<String, Object> doInBackground() {
+                return orderService.getOrderPage(currentUser.getId(), PAGE_SIZE, status, cursor,
+                        currentUser.getToken());
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            protected void done() {
+                if (generation != loadGeneration) {
+                    return;
+                }
+                try {
+                    Map<String, Object> page = get();
+                    List<Map<String, Object>> orders = (List<Map<String, Object>>) page.get("records");
+                    if (!append) {
+                        tableModel.setRowCount(0);
+                    }
+                    for (Map<String, Object> order : orders) {
+                        tableModel.addRow(new Object[]{
+                                order.get("id"),
+                                order.get("orderNo"),
+                                order.get("totalAmount"),
+                                order.get("status"),
+                                order.get("remark"),
+                                order.get("createTime")
+                        });
+                    }
+                    nextCursor = (String) page.get("nextCursor");
+                } catch (Exception e) {
+                    log.error("加载订单列表失败", e);
+                    JOptionPane.showMessageDialog(OrderManagementPanel.this,
+                            "刷新失败：" + e.getMessage(),
+                            "错误",
+                            JOptionPane.ERROR_MESSAGE);
+                }
+                loadMoreButton.setEnabled(nextCursor != null);
+            }
+        };
+
+        worker.execute();
     }
 }
@@ -4,6 +4,7 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
 import org.springframework.context.annotation.ComponentScan;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * 订单服务启动类
@@ -12,6 +13,7 @@ import org.springframework.context.annotation.ComponentScan;
         org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration.class
 })
 @EnableDiscoveryClient
+@EnableScheduling
 @ComponentScan(basePackages = {"com.canteen.order", "com.canteen.common"})
 public class OrderServiceApplication {
 
@@ -0,0 +1,27 @@
+package com.canteen.order.config;
+
+import com.canteen.common.utils.SnowflakeIdGenerator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 订单号生成器配置
+ * 每个订单服务实例必须使用不同的节点ID，通过 canteen.id.worker-id 或环境变量 CANTEEN_WORKER_ID 指定
+ */
+@Slf4j
+@Configuration
+public class IdGeneratorConfig {
+
+    @Bean
+    public SnowflakeIdGenerator orderIdGenerator(@Value("${canteen.id.worker-id:-1}") long workerId) {
+        if (workerId < 0) {
+            workerId = SnowflakeIdGenerator.deriveWorkerId();
+            log.warn("未配置订单号生成器节点ID，根据主机名推导为 {}，多实例部署时请显式配置 canteen.id.worker-id", workerId);
+        } else {
+            log.info("订单号生成器节点ID: {}", workerId);
+        }
+        return new SnowflakeIdGenerator(workerId);
+    }
+}
@@ -0,0 +1,23 @@
+package com.canteen.order.config;
+
+import com.canteen.order.entity.Order;
+import com.canteen.order.support.IdempotencyTable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 下单幂等配置
+ * 客户端通过 Idempotency-Key 请求头标识一次下单，内存表只覆盖本实例和有效期内的重复请求
+ */
+@Configuration
+public class IdempotencyConfig {
+
+    @Bean
+    public IdempotencyTable<Order> checkoutIdempotencyTable(
+            @Value("${canteen.order.idempotency.capacity:10000}") int capacity,
+            @Value("${canteen.order.idempotency.ttl-minutes:10}") long ttlMinutes,
+            @Value("${canteen.order.idempotency.wait-timeout-ms:10000}") long waitTimeoutMillis) {
+        return new IdempotencyTable<>(capacity, ttlMinutes * 60 * 1000, waitTimeoutMillis);
+    }
+}
@@ -5,10 +5,12 @@ import com.canteen.common.utils.AuthContext;
 import com.canteen.order.service.AdminOrderService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.*;
 
 import javax.servlet.http.HttpServletRequest;
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 
@@ -70,6 +72,75 @@ public class AdminOrderController {
         return adminOrderService.getSalesStats(days);
     }
 
+    /**
+     * 获取分时销售统计，默认当天
+     */
+    @GetMapping("/stats/sales/hourly")
+    public List<Map<String, Object>> getHourlySales(HttpServletRequest request,
+                                                    @RequestParam(required = false)
+                                                    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        requireAdmin(request);
+        return adminOrderService.getHourlySales(date != null ? date : LocalDate.now());
+    }
+
+    /**
+     * 获取按星期的销售统计，默认最近30天
+     */
+    @GetMapping("/stats/sales/weekday")
+    public List<Map<String, Object>> getWeekdaySales(HttpServletRequest request,
+                                                     @RequestParam(required = false)
+                                                     @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+                                                     @RequestParam(required = false)
+                                                     @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        requireAdmin(request);
+        LocalDate end = endDate != null ? endDate : LocalDate.now();
+        LocalDate start = startDate != null ? startDate : end.minusDays(29);
+        return adminOrderService.getWeekdaySales(start, end);
+    }
+
+    /**
+     * 获取商户销售排行，默认最近30天
+     */
+    @GetMapping("/stats/sales/merchants")
+    public List<Map<String, Object>> getMerchantSales(HttpServletRequest request,
+                                                      @RequestParam(required = false)
+                                                      @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+                                                      @RequestParam(required = false)
+                                                      @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        requireAdmin(request);
+        LocalDate end = endDate != null ? endDate : LocalDate.now();
+        LocalDate start = startDate != null ? startDate : end.minusDays(29);
+        return adminOrderService.getMerchantSales(start, end);
+    }
+
+    /**
+     * 从订单表重建销售汇总
+     */
+    @PostMapping("/stats/sales/rebuild")
+    public Result<Integer> rebuildSalesRollup(HttpServletRequest request) {
+        try {
+            requireAdmin(request);
+            return Result.success("销售汇总重建完成", adminOrderService.rebuildSalesRollup());
+        } catch (Exception e) {
+            log.error("重建销售汇总失败", e);
+            return Result.error("重建销售汇总失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 立即归档超过保留期的已完成、已取消订单
+     */
+    @PostMapping("/archive")
+    public Result<Integer> archiveOrders(HttpServletRequest request) {
+        try {
+            requireAdmin(request);
+            return Result.success("订单归档完成", adminOrderService.archiveOrders());
+        } catch (Exception e) {
+            log.error("订单归档失败", e);
+            return Result.error("订单归档失败: " + e.getMessage());
+        }
+    }
+
     /**
      * 获取用户订单统计
      */
@@ -79,6 +150,20 @@ public class AdminOrderController {
         return adminOrderService.getUserOrderStats(userId);
     }
 
+    /**
+     * 获取用户订单汇总缓存指标（命中率、淘汰次数等）
+     */
+    @GetMapping("/stats/user-cache")
+    public Result<Map<String, Object>> getUserStatsCacheMetrics(HttpServletRequest request) {
+        try {
+            requireAdmin(request);
+            return Result.success("获取缓存指标成功", adminOrderService.getUserStatsCacheMetrics());
+        } catch (Exception e) {
+            log.error("获取用户订单汇总缓存指标失败", e);
+            return Result.error("获取缓存指标失败: " + e.getMessage());
+        }
+    }
+
     /**
      * 获取全平台订单列表（管理员）
      */
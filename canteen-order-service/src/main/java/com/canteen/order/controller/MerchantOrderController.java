@@ -3,13 +3,20 @@ package com.canteen.order.controller;
 import com.canteen.common.result.Result;
 import com.canteen.common.utils.AuthContext;
 import com.canteen.order.dto.MerchantOrderDTO;
+import com.canteen.order.entity.Order;
 import com.canteen.order.service.MerchantOrderService;
+import com.canteen.order.support.OrderEventHub;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
+import java.time.LocalDate;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -23,6 +30,7 @@ import java.util.Map;
 public class MerchantOrderController {
 
     private final MerchantOrderService merchantOrderService;
+    private final OrderEventHub orderEventHub;
 
     /**
      * 获取商户待处理订单数
@@ -62,6 +70,22 @@ public class MerchantOrderController {
         return merchantOrderService.getOrderTrends(merchantId, days);
     }
 
+    /**
+     * 获取商户按小时、按星期的销售分布，默认最近30天
+     */
+    @GetMapping("/{merchantId}/distribution")
+    public Map<String, Object> getSalesDistribution(HttpServletRequest request,
+                                                    @PathVariable Long merchantId,
+                                                    @RequestParam(required = false)
+                                                    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+                                                    @RequestParam(required = false)
+                                                    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        merchantId = requireCurrentMerchant(request, merchantId);
+        LocalDate end = endDate != null ? endDate : LocalDate.now();
+        LocalDate start = startDate != null ? startDate : end.minusDays(29);
+        return merchantOrderService.getSalesDistribution(merchantId, start, end);
+    }
+
     /**
      * 获取商户订单统计
      */
@@ -94,10 +118,11 @@ public class MerchantOrderController {
                                                             @PathVariable Long merchantId,
                                                             @RequestParam(defaultValue = "1") Integer page,
                                                             @RequestParam(defaultValue = "10") Integer size,
-                                                            @RequestParam(required = false) String status) {
+                                                            @RequestParam(required = false) String status,
+                                                            @RequestParam(required = false) String cursor) {
         try {
             merchantId = requireCurrentMerchant(request, merchantId);
-            Map<String, Object> result = merchantOrderService.getMerchantOrderList(merchantId, page, size, status);
+            Map<String, Object> result = merchantOrderService.getMerchantOrderList(merchantId, page, size, status, cursor);
             return Result.success("获取订单列表成功", result);
         } catch (Exception e) {
             log.error("获取商户订单列表失败", e);
@@ -174,6 +199,33 @@ public class MerchantOrderController {
         }
     }
 
+    /**
+     * 批量接单
+     */
+    @PutMapping("/batch/accept")
+    public Result<List<MerchantOrderDTO.BatchResult>> batchAccept(HttpServletRequest request,
+                                                                 @Valid @RequestBody MerchantOrderDTO.BatchRequest batchRequest) {
+        return batchUpdateStatus(request, batchRequest, Order.Status.PREPARING, "批量接单");
+    }
+
+    /**
+     * 批量出餐
+     */
+    @PutMapping("/batch/ready")
+    public Result<List<MerchantOrderDTO.BatchResult>> batchReady(HttpServletRequest request,
+                                                                @Valid @RequestBody MerchantOrderDTO.BatchRequest batchRequest) {
+        return batchUpdateStatus(request, batchRequest, Order.Status.READY, "批量出餐");
+    }
+
+    /**
+     * 批量完成
+     */
+    @PutMapping("/batch/complete")
+    public Result<List<MerchantOrderDTO.BatchResult>> batchComplete(HttpServletRequest request,
+                                                                   @Valid @RequestBody MerchantOrderDTO.BatchRequest batchRequest) {
+        return batchUpdateStatus(request, batchRequest, Order.Status.COMPLETED, "批量完成");
+    }
+
     /**
      * 获取订单详情
      */
@@ -191,6 +243,34 @@ public class MerchantOrderController {
         }
     }
 
+    /**
+     * 订阅商户订单事件（SSE），推送新订单和订单状态变更
+     * 断线重连时浏览器/客户端自动带上 Last-Event-ID，服务端补发断线期间的事件
+     */
+    @GetMapping(value = "/{merchantId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribeOrderEvents(HttpServletRequest request,
+                                           @PathVariable Long merchantId,
+                                           @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        merchantId = requireCurrentMerchant(request, merchantId);
+        return orderEventHub.subscribe(merchantId, lastEventId);
+    }
+
+    private Result<List<MerchantOrderDTO.BatchResult>> batchUpdateStatus(HttpServletRequest request,
+                                                                         MerchantOrderDTO.BatchRequest batchRequest,
+                                                                         Order.Status target, String action) {
+        try {
+            Long merchantId = requireCurrentMerchant(request, batchRequest.getMerchantId());
+            List<MerchantOrderDTO.BatchResult> results =
+                    merchantOrderService.batchUpdateStatus(batchRequest.getOrderIds(), merchantId, target);
+            long succeeded = results.stream().filter(MerchantOrderDTO.BatchResult::isSuccess).count();
+            return Result.success(action + "完成：成功" + succeeded + "个，失败" + (results.size() - succeeded) + "个",
+                    results);
+        } catch (Exception e) {
+            log.error(action + "失败", e);
+            return Result.error(action + "失败：" + e.getMessage());
+        }
+    }
+
     private Long requireCurrentMerchant(HttpServletRequest request, Long merchantId) {
         AuthContext auth = AuthContext.from(request);
         auth.requireRole("MERCHANT");
@@ -3,13 +3,15 @@ package com.canteen.order.controller;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.canteen.common.result.Result;
 import com.canteen.common.utils.AuthContext;
-import com.canteen.common.utils.JwtUtils;
 import com.canteen.order.dto.OrderDetailResponse;
 import com.canteen.order.entity.Order;
 import com.canteen.order.entity.OrderItem;
 import com.canteen.order.service.OrderService;
+import com.canteen.order.support.IdempotencyTable;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
 
 import javax.servlet.http.HttpServletRequest;
@@ -28,15 +30,24 @@ import java.util.List;
 @RequiredArgsConstructor
 public class OrderController {
 
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 64;
+
     private final OrderService orderService;
+    private final IdempotencyTable<Order> checkoutIdempotencyTable;
 
     /**
      * 创建订单
+     * 携带 Idempotency-Key 请求头时，同一用户相同请求键的重复提交返回第一次创建的订单
      */
     @PostMapping
-    public Result<Order> createOrder(HttpServletRequest request, @RequestBody CreateOrderRequest orderRequest) {
+    public Result<Order> createOrder(HttpServletRequest request,
+                                     @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+                                     @RequestBody CreateOrderRequest orderRequest) {
         try {
             Long userId = getUserIdFromToken(request);
+            if (StringUtils.hasText(idempotencyKey) && idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+                return Result.error("Idempotency-Key 长度不能超过" + MAX_IDEMPOTENCY_KEY_LENGTH);
+            }
             
             // 构建订单项列表
             List<OrderItem> items = new ArrayList<>();
@@ -49,7 +60,14 @@ public class OrderController {
                 items.add(item);
             }
             
-            Order order = orderService.createOrder(userId, items, orderRequest.getRemark());
+            Order order;
+            if (StringUtils.hasText(idempotencyKey)) {
+                String requestKey = idempotencyKey.trim();
+                order = checkoutIdempotencyTable.execute(userId + ":" + requestKey,
+                        () -> createOrderOnce(userId, items, orderRequest.getRemark(), requestKey));
+            } else {
+                order = orderService.createOrder(userId, items, orderRequest.getRemark());
+            }
             log.info("创建订单成功: {}", order.getOrderNo());
             return Result.success("订单创建成功", order);
         } catch (Exception e) {
@@ -322,6 +340,9 @@ public class OrderController {
     // 内部类：订单商品请求
     public static class OrderItemRequest {
         private Long productId;
+        /**
+         * 商品名称和价格以商品服务为准，客户端提交的值仅用于记录价格变更
+         */
         private String productName;
         private Integer quantity;
         private BigDecimal price;
@@ -357,6 +378,7 @@ public class OrderController {
         private Integer totalOrders;      // 总订单数
         private String totalAmount;       // 总消费金额
         private Integer favoriteCount;    // 收藏商品数（暂时返回0）
+        private LocalDateTime lastOrderTime; // 最近下单时间
 
         public UserOrderStats() {}
 
@@ -373,32 +395,41 @@ public class OrderController {
         public void setTotalAmount(String totalAmount) { this.totalAmount = totalAmount; }
         public Integer getFavoriteCount() { return favoriteCount; }
         public void setFavoriteCount(Integer favoriteCount) { this.favoriteCount = favoriteCount; }
+        public LocalDateTime getLastOrderTime() { return lastOrderTime; }
+        public void setLastOrderTime(LocalDateTime lastOrderTime) { this.lastOrderTime = lastOrderTime; }
     }
 
 
 
+    /**
+     * 其他实例并发处理同一请求键时唯一约束冲突，本次事务已回滚，返回先提交的订单
+     */
+    private Order createOrderOnce(Long userId, List<OrderItem> items, String remark, String requestKey) {
+        try {
+            return orderService.createOrder(userId, items, remark, requestKey);
+        } catch (RuntimeException e) {
+            if (!(e.getCause() instanceof DuplicateKeyException)) {
+                throw e;
+            }
+            Order existing = orderService.getOrderByRequestKey(userId, requestKey);
+            if (existing == null) {
+                throw e;
+            }
+            log.info("重复的下单请求，返回已创建订单: userId={}, orderNo={}", userId, existing.getOrderNo());
+            return existing;
+        }
+    }
+
     /**
      * 从请求头中获取用户ID
      */
     private Long getUserIdFromToken(HttpServletRequest request) {
-        String token = request.getHeader("Authorization");
-        log.info("收到Authorization头: {}", token);
-        
-        if (token != null && token.startsWith("Bearer ")) {
-            token = token.substring(7);
-            log.info("提取的Token: {}", token);
-            
-            try {
-                Long userId = JwtUtils.getUserIdFromToken(token);
-                log.info("解析出的用户ID: {}", userId);
-                return userId;
-            } catch (Exception e) {
-                log.error("Token解析失败: {}", e.getMessage(), e);
-                throw new RuntimeException("Token解析失败: " + e.getMessage());
-            }
+        try {
+            return AuthContext.from(request).getUserId();
+        } catch (SecurityException e) {
+            log.error("请求身份校验失败: {}", e.getMessage());
+            throw new RuntimeException("Token无效");
         }
-        log.error("Token格式无效或为空");
-        throw new RuntimeException("Token无效");
     }
 
     private void requireOrderOwnerOrAdmin(HttpServletRequest request, Long orderId) {
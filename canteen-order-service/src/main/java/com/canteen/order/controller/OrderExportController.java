@@ -0,0 +1,102 @@
+package com.canteen.order.controller;
+
+import com.canteen.common.utils.AuthContext;
+import com.canteen.order.entity.Order;
+import com.canteen.order.support.OrderCsvExporter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.*;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * 订单导出控制器
+ * 订单明细边查边写入响应，不在内存中生成整个文件；format=gzip 时输出gzip压缩的CSV
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/orders/export")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*", allowedHeaders = "*", methods = {RequestMethod.GET, RequestMethod.OPTIONS})
+public class OrderExportController {
+
+    private static final DateTimeFormatter FILE_DATE_FORMAT = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private final OrderCsvExporter orderCsvExporter;
+
+    /**
+     * 管理员导出订单明细，可按商户、状态、下单日期筛选
+     */
+    @GetMapping
+    public void exportOrders(HttpServletRequest request, HttpServletResponse response,
+                             @RequestParam(required = false) Long merchantId,
+                             @RequestParam(required = false) String status,
+                             @RequestParam(required = false)
+                             @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+                             @RequestParam(required = false)
+                             @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+                             @RequestParam(defaultValue = "csv") String format) throws IOException {
+        AuthContext.from(request).requireRole("ADMIN");
+        export(response, "orders", format, merchantId, status, startDate, endDate);
+    }
+
+    /**
+     * 商户导出本店订单明细
+     */
+    @GetMapping("/merchant/{merchantId}")
+    public void exportMerchantOrders(HttpServletRequest request, HttpServletResponse response,
+                                     @PathVariable Long merchantId,
+                                     @RequestParam(required = false) String status,
+                                     @RequestParam(required = false)
+                                     @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+                                     @RequestParam(required = false)
+                                     @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+                                     @RequestParam(defaultValue = "csv") String format) throws IOException {
+        AuthContext auth = AuthContext.from(request);
+        auth.requireRole("MERCHANT");
+        if (!auth.getUserId().equals(merchantId)) {
+            throw new SecurityException("无权限访问其他商户数据");
+        }
+        export(response, "merchant-" + merchantId + "-orders", format, merchantId, status, startDate, endDate);
+    }
+
+    /**
+     * 参数校验在设置响应头之前完成，校验失败时仍按统一格式返回错误；开始写出后发生的异常继续抛出，由容器中断连接，客户端不会收到截断但看似完整的文件
+     */
+    private void export(HttpServletResponse response, String fileName, String format, Long merchantId,
+                        String status, LocalDate startDate, LocalDate endDate) throws IOException {
+        boolean gzip;
+        if ("csv".equalsIgnoreCase(format)) {
+            gzip = false;
+        } else if ("gzip".equalsIgnoreCase(format)) {
+            gzip = true;
+        } else {
+            throw new RuntimeException("不支持的导出格式：" + format);
+        }
+        if (status != null && Order.Status.fromCode(status) == null) {
+            throw new RuntimeException("无效的订单状态：" + status);
+        }
+        if (startDate != null && endDate != null && startDate.isAfter(endDate)) {
+            throw new RuntimeException("开始日期不能晚于结束日期");
+        }
+
+        String suffix = (startDate != null ? "-" + FILE_DATE_FORMAT.format(startDate) : "")
+                + (endDate != null ? "-" + FILE_DATE_FORMAT.format(endDate) : "");
+        response.setContentType(gzip ? "application/gzip" : "text/csv;charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"" + fileName + suffix + (gzip ? ".csv.gz" : ".csv") + "\"");
+
+        long begin = System.currentTimeMillis();
+        long rows = orderCsvExporter.export(response.getOutputStream(), gzip, merchantId, status,
+                startDate != null ? startDate.atStartOfDay() : null,
+                endDate != null ? endDate.atTime(23, 59, 59) : null);
+        log.info("订单导出完成：merchantId={}, startDate={}, endDate={}, rows={}, 耗时{}ms",
+                merchantId, startDate, endDate, rows, System.currentTimeMillis() - begin);
+    }
+}
@@ -1,8 +1,13 @@
 package com.canteen.order.dto;
 
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
+import javax.validation.constraints.NotEmpty;
 import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.util.List;
 
 /**
  * 商户订单相关DTO
@@ -31,4 +36,31 @@ public class MerchantOrderDTO {
 
         private String reason;
     }
+
+    /**
+     * 批量操作订单请求
+     */
+    @Data
+    public static class BatchRequest {
+        @NotNull(message = "商户ID不能为空")
+        private Long merchantId;
+
+        @NotEmpty(message = "订单ID不能为空")
+        @Size(max = 100, message = "单次最多处理100个订单")
+        private List<Long> orderIds;
+    }
+
+    /**
+     * 批量操作中单个订单的处理结果，顺序与请求一致
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class BatchResult {
+        private Long orderId;
+
+        private boolean success;
+
+        private String message;
+    }
 }
@@ -0,0 +1,33 @@
+package com.canteen.order.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 推送给商户的订单事件
+ */
+@Data
+public class OrderEventMessage {
+
+    /**
+     * 事件ID，单调递增，断线重连时通过 Last-Event-ID 续传
+     */
+    private long id;
+
+    /**
+     * ORDER_CREATED / ORDER_STATUS_CHANGED
+     */
+    private String type;
+
+    private Long orderId;
+
+    private String orderNo;
+
+    private String status;
+
+    private BigDecimal totalAmount;
+
+    private LocalDateTime time;
+}
@@ -0,0 +1,39 @@
+package com.canteen.order.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 订单导出行，订单与订单项连接后每个订单项一行，没有订单项的订单一行且订单项字段为空
+ */
+@Data
+public class OrderExportRow {
+
+    private Long orderId;
+
+    private String orderNo;
+
+    private Long userId;
+
+    private Long merchantId;
+
+    private BigDecimal totalAmount;
+
+    private String status;
+
+    private String remark;
+
+    private LocalDateTime createTime;
+
+    private Long productId;
+
+    private String productName;
+
+    private Integer quantity;
+
+    private BigDecimal price;
+
+    private BigDecimal subtotal;
+}
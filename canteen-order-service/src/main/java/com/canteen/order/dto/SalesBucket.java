@@ -0,0 +1,28 @@
+package com.canteen.order.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * 销售汇总桶，按日期、小时、星期或商户聚合后的订单数和销售额
+ */
+@Data
+public class SalesBucket {
+
+    private LocalDate statDate;
+
+    private Integer statHour;
+
+    /**
+     * 星期，1 为周日，7 为周六
+     */
+    private Integer weekday;
+
+    private Long merchantId;
+
+    private Long orderCount;
+
+    private BigDecimal revenue;
+}
@@ -0,0 +1,16 @@
+package com.canteen.order.dto;
+
+import lombok.Data;
+
+/**
+ * 按商户和状态分组的订单数
+ */
+@Data
+public class StatusCount {
+
+    private Long merchantId;
+
+    private String status;
+
+    private Long count;
+}
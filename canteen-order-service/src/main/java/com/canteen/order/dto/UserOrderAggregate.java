@@ -0,0 +1,26 @@
+package com.canteen.order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 用户订单汇总：订单数、已完成金额、已支付金额（含已完成）、最近下单时间
+ * 缓存中的实例只读，增量更新时创建新实例替换
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserOrderAggregate {
+
+    private Long orderCount;
+
+    private BigDecimal completedAmount;
+
+    private BigDecimal paidAmount;
+
+    private LocalDateTime lastOrderTime;
+}
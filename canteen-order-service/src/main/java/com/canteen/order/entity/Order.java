@@ -20,12 +20,25 @@ public class Order {
 
     private Long userId;
 
+    private Long merchantId;
+
     private BigDecimal totalAmount;
 
     private String status;
 
     private String remark;
 
+    /**
+     * 下单请求键（Idempotency-Key），同一用户下唯一，用于识别重复提交
+     */
+    private String requestKey;
+
+    /**
+     * 乐观锁版本号，每次更新订单加1；条件更新按版本号判断读取后是否被并发修改
+     */
+    @Version
+    private Integer version;
+
     @TableField(fill = FieldFill.INSERT)
     private LocalDateTime createTime;
 
@@ -56,5 +69,20 @@ public class Order {
         public String getDescription() {
             return description;
         }
+
+        /**
+         * 根据状态码查找状态，未知状态码返回null
+         */
+        public static Status fromCode(String code) {
+            if (code == null) {
+                return null;
+            }
+            for (Status status : values()) {
+                if (status.code.equals(code)) {
+                    return status;
+                }
+            }
+            return null;
+        }
     }
 }
\ No newline at end of file
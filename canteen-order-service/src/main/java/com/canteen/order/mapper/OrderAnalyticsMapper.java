@@ -0,0 +1,69 @@
+package com.canteen.order.mapper;
+
+import com.canteen.order.dto.SalesBucket;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 订单按日、按小时、按星期聚合查询
+ * 在生成列 order_date、order_hour 上筛选和分组，走 (status, order_date) 或 (merchant_id, status, order_date) 索引；
+ * merchantId 为空时统计全部商户，includeArchive 为 true 时合并归档表
+ */
+@Mapper
+public interface OrderAnalyticsMapper {
+
+    String FILTER = "WHERE status IN " +
+            "<foreach collection='statuses' item='status' open='(' separator=',' close=')'>#{status}</foreach> " +
+            "<if test='merchantId != null'>AND merchant_id = #{merchantId} </if>" +
+            "AND order_date BETWEEN #{startDate} AND #{endDate}";
+
+    String SOURCE = "(" +
+            "SELECT order_date, order_hour, total_amount FROM orders " + FILTER +
+            "<if test='includeArchive'> UNION ALL " +
+            "SELECT order_date, order_hour, total_amount FROM orders_archive " + FILTER + "</if>" +
+            ") o";
+
+    /**
+     * 按下单日期聚合，只返回有订单的日期
+     */
+    @Select("<script>" +
+            "SELECT order_date AS stat_date, COUNT(*) AS order_count, SUM(total_amount) AS revenue " +
+            "FROM " + SOURCE + " GROUP BY order_date ORDER BY order_date" +
+            "</script>")
+    List<SalesBucket> selectDaily(@Param("statuses") Collection<String> statuses,
+                                  @Param("merchantId") Long merchantId,
+                                  @Param("startDate") LocalDate startDate,
+                                  @Param("endDate") LocalDate endDate,
+                                  @Param("includeArchive") boolean includeArchive);
+
+    /**
+     * 按下单小时聚合，只返回有订单的小时
+     */
+    @Select("<script>" +
+            "SELECT order_hour AS stat_hour, COUNT(*) AS order_count, SUM(total_amount) AS revenue " +
+            "FROM " + SOURCE + " GROUP BY order_hour ORDER BY order_hour" +
+            "</script>")
+    List<SalesBucket> selectHourly(@Param("statuses") Collection<String> statuses,
+                                   @Param("merchantId") Long merchantId,
+                                   @Param("startDate") LocalDate startDate,
+                                   @Param("endDate") LocalDate endDate,
+                                   @Param("includeArchive") boolean includeArchive);
+
+    /**
+     * 按星期聚合（DAYOFWEEK：1 为周日，7 为周六），只返回有订单的星期
+     */
+    @Select("<script>" +
+            "SELECT DAYOFWEEK(order_date) AS weekday, COUNT(*) AS order_count, SUM(total_amount) AS revenue " +
+            "FROM " + SOURCE + " GROUP BY DAYOFWEEK(order_date) ORDER BY weekday" +
+            "</script>")
+    List<SalesBucket> selectWeekday(@Param("statuses") Collection<String> statuses,
+                                    @Param("merchantId") Long merchantId,
+                                    @Param("startDate") LocalDate startDate,
+                                    @Param("endDate") LocalDate endDate,
+                                    @Param("includeArchive") boolean includeArchive);
+}
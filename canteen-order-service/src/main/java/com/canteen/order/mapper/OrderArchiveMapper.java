@@ -0,0 +1,118 @@
+package com.canteen.order.mapper;
+
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.canteen.order.entity.Order;
+import com.canteen.order.entity.OrderItem;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 订单归档数据访问层
+ * orders_archive、order_item_archive 与热表结构一致并保留原ID，历史查询按需合并热表和归档表
+ */
+@Mapper
+public interface OrderArchiveMapper {
+
+    String ORDER_COLUMNS = "id, order_no, user_id, merchant_id, total_amount, status, remark, request_key, " +
+            "create_time, update_time";
+
+    String ITEM_COLUMNS = "id, order_id, product_id, product_name, quantity, price, subtotal";
+
+    String ID_LIST = "<foreach collection='orderIds' item='id' open='(' separator=',' close=')'>#{id}</foreach>";
+
+    String HISTORY_FILTER = "<where>" +
+            "<if test='merchantId != null'>merchant_id = #{merchantId}</if>" +
+            "<if test='status != null'> AND status = #{status}</if>" +
+            "<if test='start != null'> AND create_time &gt;= #{start}</if>" +
+            "<if test='end != null'> AND create_time &lt;= #{end}</if>" +
+            "</where>";
+
+    /**
+     * 查询可归档的订单ID：处于给定状态且下单时间早于 before，按ID顺序取一批
+     */
+    @Select("<script>" +
+            "SELECT id FROM orders WHERE status IN " +
+            "<foreach collection='statuses' item='status' open='(' separator=',' close=')'>#{status}</foreach> " +
+            "AND create_time &lt; #{before} ORDER BY id LIMIT #{limit}" +
+            "</script>")
+    List<Long> selectArchivableIds(@Param("statuses") Collection<String> statuses,
+                                   @Param("before") LocalDateTime before,
+                                   @Param("limit") int limit);
+
+    /**
+     * 在事务内锁定仍满足归档条件的订单，防止迁移期间被退款等操作修改
+     */
+    @Select("<script>" +
+            "SELECT id FROM orders WHERE id IN " + ID_LIST + " AND status IN " +
+            "<foreach collection='statuses' item='status' open='(' separator=',' close=')'>#{status}</foreach> " +
+            "FOR UPDATE" +
+            "</script>")
+    List<Long> lockArchivable(@Param("orderIds") Collection<Long> orderIds,
+                              @Param("statuses") Collection<String> statuses);
+
+    @Insert("<script>" +
+            "INSERT INTO orders_archive (" + ORDER_COLUMNS + ") " +
+            "SELECT " + ORDER_COLUMNS + " FROM orders WHERE id IN " + ID_LIST +
+            "</script>")
+    int copyOrders(@Param("orderIds") Collection<Long> orderIds);
+
+    @Insert("<script>" +
+            "INSERT INTO order_item_archive (" + ITEM_COLUMNS + ") " +
+            "SELECT " + ITEM_COLUMNS + " FROM order_item WHERE order_id IN " + ID_LIST +
+            "</script>")
+    int copyItems(@Param("orderIds") Collection<Long> orderIds);
+
+    @Delete("<script>DELETE FROM order_item WHERE order_id IN " + ID_LIST + "</script>")
+    int deleteItems(@Param("orderIds") Collection<Long> orderIds);
+
+    @Delete("<script>DELETE FROM orders WHERE id IN " + ID_LIST + "</script>")
+    int deleteOrders(@Param("orderIds") Collection<Long> orderIds);
+
+    /**
+     * 合并热表和归档表分页查询订单，条件为空时不限
+     */
+    @Select("<script>" +
+            "SELECT " + ORDER_COLUMNS + " FROM (" +
+            "SELECT " + ORDER_COLUMNS + " FROM orders " + HISTORY_FILTER +
+            " UNION ALL " +
+            "SELECT " + ORDER_COLUMNS + " FROM orders_archive " + HISTORY_FILTER +
+            ") o ORDER BY create_time DESC, id DESC" +
+            "</script>")
+    Page<Order> selectHistoryPage(Page<Order> page,
+                                  @Param("merchantId") Long merchantId,
+                                  @Param("status") String status,
+                                  @Param("start") LocalDateTime start,
+                                  @Param("end") LocalDateTime end);
+
+    /**
+     * 合并热表和归档表查询商户订单，起止时间为空时不限
+     */
+    @Select("<script>" +
+            "SELECT " + ORDER_COLUMNS + " FROM (" +
+            "SELECT " + ORDER_COLUMNS + " FROM orders " + HISTORY_FILTER +
+            " UNION ALL " +
+            "SELECT " + ORDER_COLUMNS + " FROM orders_archive " + HISTORY_FILTER +
+            ") o ORDER BY create_time DESC" +
+            "</script>")
+    List<Order> selectHistory(@Param("merchantId") Long merchantId,
+                              @Param("status") String status,
+                              @Param("start") LocalDateTime start,
+                              @Param("end") LocalDateTime end);
+
+    /**
+     * 合并热表和归档表查询订单项
+     */
+    @Select("<script>" +
+            "SELECT " + ITEM_COLUMNS + " FROM order_item WHERE order_id IN " + ID_LIST +
+            " UNION ALL " +
+            "SELECT " + ITEM_COLUMNS + " FROM order_item_archive WHERE order_id IN " + ID_LIST +
+            "</script>")
+    List<OrderItem> selectHistoryItems(@Param("orderIds") Collection<Long> orderIds);
+}
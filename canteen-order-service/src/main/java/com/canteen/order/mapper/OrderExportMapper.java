@@ -0,0 +1,45 @@
+package com.canteen.order.mapper;
+
+import com.canteen.order.dto.OrderExportRow;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.mapping.ResultSetType;
+
+import java.time.LocalDateTime;
+
+/**
+ * 订单导出数据访问层
+ * 以游标逐行读取，结果集不整体加载到内存：MySQL 上 fetchSize 为 Integer.MIN_VALUE 时驱动按流式逐行读取，
+ * 只作用于导出语句，不需要在连接串开启 useCursorFetch（会让所有语句改用服务端预处理）；其他数据库按 fetchSize 分批取数
+ */
+@Mapper
+public interface OrderExportMapper {
+
+    /**
+     * 按ID顺序读取订单及订单项，archive 为 true 时读取归档表，条件为空时不限
+     * 游标只能在会话打开期间遍历，调用方需在事务内使用并在事务结束前关闭
+     */
+    @Select("<script>" +
+            "SELECT o.id AS order_id, o.order_no, o.user_id, o.merchant_id, o.total_amount, o.status, o.remark, " +
+            "o.create_time, i.product_id, i.product_name, i.quantity, i.price, i.subtotal " +
+            "FROM <choose><when test='archive'>orders_archive o LEFT JOIN order_item_archive i</when>" +
+            "<otherwise>orders o LEFT JOIN order_item i</otherwise></choose> ON i.order_id = o.id " +
+            "<where>" +
+            "<if test='merchantId != null'>o.merchant_id = #{merchantId}</if>" +
+            "<if test='status != null'> AND o.status = #{status}</if>" +
+            "<if test='start != null'> AND o.create_time &gt;= #{start}</if>" +
+            "<if test='end != null'> AND o.create_time &lt;= #{end}</if>" +
+            "</where>" +
+            " ORDER BY o.id, i.id" +
+            "</script>")
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = Integer.MIN_VALUE, databaseId = "mysql")
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = 1000)
+    Cursor<OrderExportRow> streamOrders(@Param("archive") boolean archive,
+                                        @Param("merchantId") Long merchantId,
+                                        @Param("status") String status,
+                                        @Param("start") LocalDateTime start,
+                                        @Param("end") LocalDateTime end);
+}
@@ -2,11 +2,28 @@ package com.canteen.order.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.canteen.order.entity.OrderItem;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
 
 /**
  * 订单详情数据访问层
  */
 @Mapper
 public interface OrderItemMapper extends BaseMapper<OrderItem> {
-}
\ No newline at end of file
+
+    /**
+     * 多行VALUES批量插入订单项，一次往返写入整个订单，自增ID回填到每个订单项
+     */
+    @Insert("<script>" +
+            "INSERT INTO order_item (order_id, product_id, product_name, quantity, price, subtotal) VALUES " +
+            "<foreach collection='items' item='item' separator=','>" +
+            "(#{item.orderId}, #{item.productId}, #{item.productName}, #{item.quantity}, #{item.price}, #{item.subtotal})" +
+            "</foreach>" +
+            "</script>")
+    @Options(useGeneratedKeys = true, keyProperty = "items.id", keyColumn = "id")
+    int insertBatch(@Param("items") List<OrderItem> items);
+}
@@ -1,13 +1,18 @@
 package com.canteen.order.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.canteen.order.dto.StatusCount;
+import com.canteen.order.dto.UserOrderAggregate;
 import com.canteen.order.entity.Order;
+import com.canteen.order.support.OrderStatusTransitions;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
-import java.util.Map;
 
 /**
  * 订单数据访问层
@@ -20,56 +25,208 @@ public interface OrderMapper extends BaseMapper<Order> {
      */
     List<Order> selectByUserId(Long userId);
     
-    /**
-     * 根据商户ID查询订单（通过订单项中的商品关联）
-     */
-    @Select("SELECT DISTINCT o.* FROM `order` o " +
-            "INNER JOIN order_item oi ON o.id = oi.order_id " +
-            "INNER JOIN product p ON oi.product_id = p.id " +
-            "WHERE p.merchant_id = #{merchantId}")
-    List<Order> selectByMerchantId(Long merchantId);
-    
     /**
      * 查询商户的待处理订单
      */
-    @Select("SELECT DISTINCT o.* FROM `order` o " +
-            "INNER JOIN order_item oi ON o.id = oi.order_id " +
-            "INNER JOIN product p ON oi.product_id = p.id " +
-            "WHERE p.merchant_id = #{merchantId} AND o.status IN ('PENDING', 'PAID')")
+    @Select("SELECT * FROM orders " +
+            "WHERE merchant_id = #{merchantId} AND status IN ('PENDING', 'PAID') " +
+            "ORDER BY create_time DESC")
     List<Order> selectPendingOrdersByMerchantId(Long merchantId);
     
     /**
      * 统计商户待处理订单数量
      */
-    @Select("SELECT COUNT(DISTINCT o.id) FROM `order` o " +
-            "INNER JOIN order_item oi ON o.id = oi.order_id " +
-            "INNER JOIN product p ON oi.product_id = p.id " +
-            "WHERE p.merchant_id = #{merchantId} AND o.status IN ('PENDING', 'PAID')")
+    @Select("SELECT COUNT(*) FROM orders WHERE merchant_id = #{merchantId} AND status IN ('PENDING', 'PAID')")
     int countPendingOrdersByMerchantId(Long merchantId);
     
+    /**
+     * 判断订单是否包含指定商户的商品（未回填商户ID的历史订单使用）
+     */
+    @Select("SELECT EXISTS(SELECT 1 FROM order_item oi " +
+            "INNER JOIN product p ON oi.product_id = p.id " +
+            "WHERE oi.order_id = #{orderId} AND p.merchant_id = #{merchantId})")
+    boolean existsMerchantOrderItem(@Param("orderId") Long orderId, @Param("merchantId") Long merchantId);
+    
     /**
      * 分页查询所有订单（管理员用）
      */
-    @Select("SELECT * FROM `order` ORDER BY create_time DESC LIMIT #{limit} OFFSET #{offset}")
+    @Select("SELECT * FROM orders ORDER BY create_time DESC LIMIT #{limit} OFFSET #{offset}")
     List<Order> selectAllOrdersWithPagination(@Param("offset") int offset, @Param("limit") int limit);
     
     /**
      * 统计所有订单数量
      */
-    @Select("SELECT COUNT(*) FROM `order`")
+    @Select("SELECT COUNT(*) FROM orders")
     int countAllOrders();
     
     /**
      * 按状态统计订单数量
      */
-    @Select("SELECT COUNT(*) FROM `order` WHERE status = #{status}")
+    @Select("SELECT COUNT(*) FROM orders WHERE status = #{status}")
     int countOrdersByStatus(String status);
+
+    /**
+     * 按商户和状态分组统计订单数（含归档订单），用于初始化和校准内存计数
+     */
+    @Select("SELECT merchant_id AS merchantId, status, COUNT(*) AS count FROM (" +
+            "SELECT merchant_id, status FROM orders UNION ALL SELECT merchant_id, status FROM orders_archive" +
+            ") o GROUP BY merchant_id, status")
+    List<StatusCount> countGroupByMerchantAndStatus();
+    
+    /**
+     * 按状态分组统计订单数（含归档订单），merchantId 不为空时只统计该商户，用于内存计数初始化完成前的读取
+     */
+    @Select("<script>" +
+            "SELECT status, COUNT(*) AS count FROM (" +
+            "SELECT status FROM orders<if test='merchantId != null'> WHERE merchant_id = #{merchantId}</if>" +
+            " UNION ALL " +
+            "SELECT status FROM orders_archive<if test='merchantId != null'> WHERE merchant_id = #{merchantId}</if>" +
+            ") o GROUP BY status" +
+            "</script>")
+    List<StatusCount> countGroupByStatus(@Param("merchantId") Long merchantId);
+    
+    /**
+     * 条件更新订单状态：仅当当前状态属于 expected 时才更新并递增版本号，返回影响行数
+     * merchantId 不为空时同时校验订单归属（未回填商户ID的历史订单按订单项判断）
+     * remarkSuffix 不为空时追加到备注末尾
+     */
+    @Update("<script>" +
+            "UPDATE orders SET status = #{target}, version = version + 1, update_time = #{updateTime}" +
+            "<if test='remarkSuffix != null'>, remark = CONCAT(IFNULL(remark, ''), #{remarkSuffix})</if>" +
+            " WHERE id = #{orderId} AND status IN " +
+            "<foreach collection='expected' item='status' open='(' separator=',' close=')'>#{status}</foreach>" +
+            "<if test='merchantId != null'>" +
+            " AND (merchant_id = #{merchantId} OR (merchant_id IS NULL AND EXISTS(" +
+            "SELECT 1 FROM order_item oi INNER JOIN product p ON oi.product_id = p.id " +
+            "WHERE oi.order_id = orders.id AND p.merchant_id = #{merchantId})))" +
+            "</if>" +
+            "</script>")
+    int transitionStatus(@Param("orderId") Long orderId,
+                         @Param("merchantId") Long merchantId,
+                         @Param("expected") Collection<String> expected,
+                         @Param("target") String target,
+                         @Param("remarkSuffix") String remarkSuffix,
+                         @Param("updateTime") LocalDateTime updateTime);
+    
+    /**
+     * 按状态流转表把订单推进到目标状态，一条UPDATE完成校验和更新
+     */
+    default boolean transition(Long orderId, Long merchantId, Order.Status target) {
+        List<String> expected = OrderStatusTransitions.predecessorCodesOf(target);
+        return !expected.isEmpty()
+                && transitionStatus(orderId, merchantId, expected, target.getCode(), null, LocalDateTime.now()) > 0;
+    }
+    
+    /**
+     * 不加锁读取订单当前状态和版本号，配合 transitionVersion 做乐观更新
+     */
+    @Select("SELECT id, merchant_id, status, version FROM orders WHERE id = #{orderId}")
+    Order selectVersionState(@Param("orderId") Long orderId);
+    
+    /**
+     * 加锁读取订单当前状态和版本号（当前读，不受事务快照影响），乐观更新冲突后使用
+     */
+    @Select("SELECT id, merchant_id, status, version FROM orders WHERE id = #{orderId} FOR UPDATE")
+    Order lockVersionState(@Param("orderId") Long orderId);
+    
+    /**
+     * 按版本号条件更新订单状态：读取后未被修改时才更新并递增版本号，返回影响行数
+     * merchantId 不为空时同时校验订单归属，remarkSuffix 不为空时追加到备注末尾
+     */
+    @Update("<script>" +
+            "UPDATE orders SET status = #{target}, version = version + 1, update_time = #{updateTime}" +
+            "<if test='remarkSuffix != null'>, remark = CONCAT(IFNULL(remark, ''), #{remarkSuffix})</if>" +
+            " WHERE id = #{orderId} AND version = #{version}" +
+            "<if test='merchantId != null'>" +
+            " AND (merchant_id = #{merchantId} OR (merchant_id IS NULL AND EXISTS(" +
+            "SELECT 1 FROM order_item oi INNER JOIN product p ON oi.product_id = p.id " +
+            "WHERE oi.order_id = orders.id AND p.merchant_id = #{merchantId})))" +
+            "</if>" +
+            "</script>")
+    int transitionVersion(@Param("orderId") Long orderId,
+                          @Param("merchantId") Long merchantId,
+                          @Param("version") Integer version,
+                          @Param("target") String target,
+                          @Param("remarkSuffix") String remarkSuffix,
+                          @Param("updateTime") LocalDateTime updateTime);
+    
+    /**
+     * 批量条件更新订单状态：只更新当前状态为 expected 的订单并递增版本号，返回影响行数
+     */
+    @Update("<script>" +
+            "UPDATE orders SET status = #{target}, version = version + 1, update_time = #{updateTime} " +
+            "WHERE status = #{expected} AND id IN " +
+            "<foreach collection='orderIds' item='orderId' open='(' separator=',' close=')'>#{orderId}</foreach>" +
+            "</script>")
+    int transitionStatusBatch(@Param("orderIds") Collection<Long> orderIds,
+                              @Param("expected") String expected,
+                              @Param("target") String target,
+                              @Param("updateTime") LocalDateTime updateTime);
+    
+    /**
+     * 锁定给定订单并返回 id、merchant_id、status 三列，批量操作在同一事务内据此校验归属和状态
+     */
+    @Select("<script>" +
+            "SELECT id, merchant_id, status FROM orders WHERE id IN " +
+            "<foreach collection='orderIds' item='orderId' open='(' separator=',' close=')'>#{orderId}</foreach>" +
+            " FOR UPDATE" +
+            "</script>")
+    List<Order> lockOrderStates(@Param("orderIds") Collection<Long> orderIds);
+
+    /**
+     * 在给定订单中筛选出包含指定商户商品的订单ID（未回填商户ID的历史订单使用）
+     */
+    @Select("<script>" +
+            "SELECT DISTINCT oi.order_id FROM order_item oi INNER JOIN product p ON oi.product_id = p.id " +
+            "WHERE p.merchant_id = #{merchantId} AND oi.order_id IN " +
+            "<foreach collection='orderIds' item='orderId' open='(' separator=',' close=')'>#{orderId}</foreach>" +
+            "</script>")
+    List<Long> selectMerchantItemOrderIds(@Param("orderIds") Collection<Long> orderIds,
+                                          @Param("merchantId") Long merchantId);
+
+    /**
+     * 在给定订单中筛选出处于指定状态的订单ID
+     */
+    @Select("<script>" +
+            "SELECT id FROM orders WHERE status = #{status} AND id IN " +
+            "<foreach collection='orderIds' item='orderId' open='(' separator=',' close=')'>#{orderId}</foreach>" +
+            "</script>")
+    List<Long> selectIdsByStatus(@Param("orderIds") Collection<Long> orderIds, @Param("status") String status);
+    
+    /**
+     * 查询订单所属商户，只返回 id 和 merchant_id 两列
+     */
+    @Select("<script>" +
+            "SELECT id, merchant_id FROM orders WHERE id IN " +
+            "<foreach collection='orderIds' item='orderId' open='(' separator=',' close=')'>#{orderId}</foreach>" +
+            "</script>")
+    List<Order> selectMerchantRefs(@Param("orderIds") Collection<Long> orderIds);
+    
+    /**
+     * 查询订单所属用户和金额，只返回 id、user_id、total_amount 三列
+     */
+    @Select("<script>" +
+            "SELECT id, user_id, total_amount FROM orders WHERE id IN " +
+            "<foreach collection='orderIds' item='orderId' open='(' separator=',' close=')'>#{orderId}</foreach>" +
+            "</script>")
+    List<Order> selectUserRefs(@Param("orderIds") Collection<Long> orderIds);
     
     /**
-     * 按时间范围统计订单数据
+     * 单条聚合查询用户的订单数、已完成金额、已支付金额和最近下单时间（含归档订单）
      */
-    @Select("SELECT DATE(create_time) as date, COUNT(*) as orderCount, SUM(total_amount) as totalAmount " +
-            "FROM `order` WHERE create_time BETWEEN #{startDate} AND #{endDate} " +
-            "GROUP BY DATE(create_time) ORDER BY date")
-    List<Map<String, Object>> getOrderStatsByDateRange(@Param("startDate") String startDate, @Param("endDate") String endDate);
-}
\ No newline at end of file
+    @Select("<script>" +
+            "SELECT COUNT(*) AS order_count, " +
+            "IFNULL(SUM(CASE WHEN status = 'COMPLETED' THEN total_amount END), 0) AS completed_amount, " +
+            "IFNULL(SUM(CASE WHEN status IN " +
+            "<foreach collection='paidStatuses' item='status' open='(' separator=',' close=')'>#{status}</foreach>" +
+            " THEN total_amount END), 0) AS paid_amount, " +
+            "MAX(create_time) AS last_order_time " +
+            "FROM (" +
+            "SELECT status, total_amount, create_time FROM orders WHERE user_id = #{userId} " +
+            "UNION ALL " +
+            "SELECT status, total_amount, create_time FROM orders_archive WHERE user_id = #{userId}" +
+            ") o" +
+            "</script>")
+    UserOrderAggregate selectUserAggregate(@Param("userId") Long userId,
+                                           @Param("paidStatuses") Collection<String> paidStatuses);
+}
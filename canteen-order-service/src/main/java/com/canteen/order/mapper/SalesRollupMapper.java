@@ -0,0 +1,90 @@
+package com.canteen.order.mapper;
+
+import com.canteen.order.dto.SalesBucket;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 销售汇总数据访问层
+ * order_sales_rollup 按 (下单日期, 下单小时, 商户) 分桶保存已支付订单数和销售额，未关联商户的订单记在 merchant_id = 0
+ */
+@Mapper
+public interface SalesRollupMapper {
+
+    /**
+     * 把订单按下单时间和商户累加到汇总桶，sign 为 1 计入、-1 扣除
+     */
+    @Insert("<script>" +
+            "INSERT INTO order_sales_rollup (stat_date, stat_hour, merchant_id, order_count, revenue) " +
+            "SELECT order_date, order_hour, IFNULL(merchant_id, 0), #{sign}, #{sign} * total_amount " +
+            "FROM orders WHERE id IN " +
+            "<foreach collection='orderIds' item='id' open='(' separator=',' close=')'>#{id}</foreach> " +
+            "ON DUPLICATE KEY UPDATE order_count = order_count + VALUES(order_count), " +
+            "revenue = revenue + VALUES(revenue)" +
+            "</script>")
+    int applyOrders(@Param("orderIds") Collection<Long> orderIds, @Param("sign") int sign);
+
+    @Delete("DELETE FROM order_sales_rollup")
+    int deleteAll();
+
+    /**
+     * 从订单表和归档表重新汇总全部已支付订单
+     */
+    @Insert("<script>" +
+            "INSERT INTO order_sales_rollup (stat_date, stat_hour, merchant_id, order_count, revenue) " +
+            "SELECT order_date, order_hour, IFNULL(merchant_id, 0), COUNT(*), SUM(total_amount) " +
+            "FROM (" +
+            "SELECT merchant_id, total_amount, order_date, order_hour FROM orders WHERE status IN " +
+            "<foreach collection='statuses' item='status' open='(' separator=',' close=')'>#{status}</foreach> " +
+            "UNION ALL " +
+            "SELECT merchant_id, total_amount, order_date, order_hour FROM orders_archive WHERE status IN " +
+            "<foreach collection='statuses' item='status' open='(' separator=',' close=')'>#{status}</foreach>" +
+            ") o " +
+            "GROUP BY order_date, order_hour, IFNULL(merchant_id, 0)" +
+            "</script>")
+    int rebuildFromOrders(@Param("statuses") Collection<String> statuses);
+
+    /**
+     * 汇总日期范围内的销售额，起止日期为空时不限
+     */
+    @Select("<script>" +
+            "SELECT IFNULL(SUM(revenue), 0) FROM order_sales_rollup " +
+            "<where>" +
+            "<if test='startDate != null'>stat_date &gt;= #{startDate}</if>" +
+            "<if test='endDate != null'> AND stat_date &lt;= #{endDate}</if>" +
+            "</where>" +
+            "</script>")
+    BigDecimal sumRevenue(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    /**
+     * 按日汇总，只返回有数据的日期
+     */
+    @Select("SELECT stat_date AS statDate, SUM(order_count) AS orderCount, SUM(revenue) AS revenue " +
+            "FROM order_sales_rollup WHERE stat_date BETWEEN #{startDate} AND #{endDate} " +
+            "GROUP BY stat_date ORDER BY stat_date")
+    List<SalesBucket> selectDaily(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    /**
+     * 按小时汇总某一天，只返回有数据的小时
+     */
+    @Select("SELECT stat_date AS statDate, stat_hour AS statHour, SUM(order_count) AS orderCount, SUM(revenue) AS revenue " +
+            "FROM order_sales_rollup WHERE stat_date = #{date} " +
+            "GROUP BY stat_date, stat_hour ORDER BY stat_hour")
+    List<SalesBucket> selectHourly(@Param("date") LocalDate date);
+
+    /**
+     * 按商户汇总日期范围内的销售额，销售额高的在前
+     */
+    @Select("SELECT merchant_id AS merchantId, SUM(order_count) AS orderCount, SUM(revenue) AS revenue " +
+            "FROM order_sales_rollup WHERE stat_date BETWEEN #{startDate} AND #{endDate} " +
+            "GROUP BY merchant_id ORDER BY SUM(revenue) DESC")
+    List<SalesBucket> selectByMerchant(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+}
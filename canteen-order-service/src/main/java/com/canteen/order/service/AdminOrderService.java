@@ -1,6 +1,7 @@
 package com.canteen.order.service;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 
@@ -34,11 +35,41 @@ public interface AdminOrderService {
      */
     List<Map<String, Object>> getSalesStats(Integer days);
 
+    /**
+     * 获取某天的分时销售统计
+     */
+    List<Map<String, Object>> getHourlySales(LocalDate date);
+
+    /**
+     * 获取日期范围内的商户销售排行
+     */
+    List<Map<String, Object>> getMerchantSales(LocalDate startDate, LocalDate endDate);
+
+    /**
+     * 获取日期范围内按星期（周一到周日）的销售统计
+     */
+    List<Map<String, Object>> getWeekdaySales(LocalDate startDate, LocalDate endDate);
+
+    /**
+     * 从订单表重建销售汇总，返回汇总桶数量
+     */
+    int rebuildSalesRollup();
+
+    /**
+     * 立即执行一次订单归档，返回迁移的订单数
+     */
+    int archiveOrders();
+
     /**
      * 获取用户订单统计
      */
     Map<String, Object> getUserOrderStats(Long userId);
 
+    /**
+     * 获取用户订单汇总缓存的命中率等指标
+     */
+    Map<String, Object> getUserStatsCacheMetrics();
+
     /**
      * 获取管理员订单列表
      */
@@ -1,7 +1,9 @@
 package com.canteen.order.service;
 
+import com.canteen.order.dto.MerchantOrderDTO;
 import com.canteen.order.entity.Order;
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 
@@ -30,6 +32,11 @@ public interface MerchantOrderService {
      */
     List<Map<String, Object>> getOrderTrends(Long merchantId, Integer days);
 
+    /**
+     * 获取商户日期范围内按小时、按星期的销售分布
+     */
+    Map<String, Object> getSalesDistribution(Long merchantId, LocalDate startDate, LocalDate endDate);
+
     /**
      * 获取商户订单统计
      */
@@ -45,6 +52,11 @@ public interface MerchantOrderService {
      */
     Map<String, Object> getMerchantOrderList(Long merchantId, Integer page, Integer size, String status);
 
+    /**
+     * 获取商户订单列表，cursor 不为空时按游标翻页，否则按页码翻页
+     */
+    Map<String, Object> getMerchantOrderList(Long merchantId, Integer page, Integer size, String status, String cursor);
+
     /**
      * 商户接单
      */
@@ -65,6 +77,11 @@ public interface MerchantOrderService {
      */
     void updateOrderStatus(Long orderId, Long merchantId, String status);
 
+    /**
+     * 批量推进订单状态（接单、出餐、完成），返回每个订单的处理结果
+     */
+    List<MerchantOrderDTO.BatchResult> batchUpdateStatus(List<Long> orderIds, Long merchantId, Order.Status target);
+
     /**
      * 获取订单详情
      */
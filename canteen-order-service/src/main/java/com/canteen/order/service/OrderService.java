@@ -15,7 +15,19 @@ public interface OrderService {
     /**
      * 创建订单
      */
-    Order createOrder(Long userId, List<OrderItem> items, String remark);
+    default Order createOrder(Long userId, List<OrderItem> items, String remark) {
+        return createOrder(userId, items, remark, null);
+    }
+
+    /**
+     * 创建订单，requestKey 非空时同一用户相同请求键只会创建一个订单
+     */
+    Order createOrder(Long userId, List<OrderItem> items, String remark, String requestKey);
+
+    /**
+     * 按下单请求键查询订单，不存在时返回null
+     */
+    Order getOrderByRequestKey(Long userId, String requestKey);
 
     /**
      * 获取用户订单列表
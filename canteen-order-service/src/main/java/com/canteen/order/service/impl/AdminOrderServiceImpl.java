@@ -2,31 +2,30 @@ package com.canteen.order.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.canteen.order.dto.SalesBucket;
+import com.canteen.order.dto.UserOrderAggregate;
 import com.canteen.order.entity.Order;
 import com.canteen.order.entity.OrderItem;
-import com.canteen.order.mapper.OrderItemMapper;
+import com.canteen.order.mapper.OrderAnalyticsMapper;
+import com.canteen.order.mapper.OrderArchiveMapper;
 import com.canteen.order.mapper.OrderMapper;
+import com.canteen.order.mapper.SalesRollupMapper;
 import com.canteen.order.service.AdminOrderService;
+import com.canteen.order.support.LongLruCache;
+import com.canteen.order.support.OrderArchiver;
+import com.canteen.order.support.OrderItemBatch;
+import com.canteen.order.support.OrderItemBatchLoader;
+import com.canteen.order.support.OrderStatusCounters;
+import com.canteen.order.support.OrderStatusTransitions;
+import com.canteen.order.support.SalesRollupRecorder;
+import com.canteen.order.support.UserOrderAggregates;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
 import java.math.BigDecimal;
-import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.util.*;
-import java.util.stream.Collectors;
-import org.springframework.util.StringUtils;
-
-import java.math.BigDecimal;
-import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.*;
-import java.util.stream.Collectors;
-
-import java.math.BigDecimal;
+import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
@@ -42,12 +41,19 @@ import java.util.stream.Collectors;
 public class AdminOrderServiceImpl implements AdminOrderService {
 
     private final OrderMapper orderMapper;
-    private final OrderItemMapper orderItemMapper;
+    private final OrderItemBatchLoader orderItemBatchLoader;
+    private final SalesRollupMapper salesRollupMapper;
+    private final SalesRollupRecorder salesRollupRecorder;
+    private final OrderStatusCounters orderStatusCounters;
+    private final UserOrderAggregates userOrderAggregates;
+    private final OrderArchiveMapper orderArchiveMapper;
+    private final OrderAnalyticsMapper orderAnalyticsMapper;
+    private final OrderArchiver orderArchiver;
 
     @Override
     public Long getTotalOrderCount() {
         try {
-            return orderMapper.selectCount(null);
+            return orderStatusCounters.total();
         } catch (Exception e) {
             log.error("获取订单总数失败", e);
             return 0L;
@@ -57,18 +63,8 @@ public class AdminOrderServiceImpl implements AdminOrderService {
     @Override
     public BigDecimal getTodaySales() {
         try {
-            LocalDateTime startOfDay = LocalDate.now().atStartOfDay();
-            LocalDateTime endOfDay = LocalDate.now().atTime(23, 59, 59);
-
-            QueryWrapper<Order> wrapper = new QueryWrapper<>();
-            wrapper.in("status", Order.Status.PAID.getCode(), Order.Status.PREPARING.getCode(), 
-                      Order.Status.READY.getCode(), Order.Status.COMPLETED.getCode());
-            wrapper.between("create_time", startOfDay, endOfDay);
-
-            List<Order> todayOrders = orderMapper.selectList(wrapper);
-            return todayOrders.stream()
-                    .map(Order::getTotalAmount)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+            LocalDate today = LocalDate.now();
+            return salesRollupMapper.sumRevenue(today, today);
         } catch (Exception e) {
             log.error("获取今日销售额失败", e);
             return BigDecimal.ZERO;
@@ -78,14 +74,7 @@ public class AdminOrderServiceImpl implements AdminOrderService {
     @Override
     public BigDecimal getTotalSales() {
         try {
-            QueryWrapper<Order> wrapper = new QueryWrapper<>();
-            wrapper.in("status", Order.Status.PAID.getCode(), Order.Status.PREPARING.getCode(), 
-                      Order.Status.READY.getCode(), Order.Status.COMPLETED.getCode());
-
-            List<Order> paidOrders = orderMapper.selectList(wrapper);
-            return paidOrders.stream()
-                    .map(Order::getTotalAmount)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+            return salesRollupMapper.sumRevenue(null, null);
         } catch (Exception e) {
             log.error("获取总销售额失败", e);
             return BigDecimal.ZERO;
@@ -97,15 +86,11 @@ public class AdminOrderServiceImpl implements AdminOrderService {
         try {
             List<Map<String, Object>> stats = new ArrayList<>();
             
-            // 统计各状态订单数量
+            // 各状态订单数量直接读内存计数
             for (Order.Status status : Order.Status.values()) {
-                QueryWrapper<Order> wrapper = new QueryWrapper<>();
-                wrapper.eq("status", status.getCode());
-                Long count = orderMapper.selectCount(wrapper);
-                
                 Map<String, Object> stat = new HashMap<>();
                 stat.put("status", status.getDescription());
-                stat.put("count", count);
+                stat.put("count", orderStatusCounters.count(status));
                 stats.add(stat);
             }
             
@@ -123,25 +108,20 @@ public class AdminOrderServiceImpl implements AdminOrderService {
             LocalDate endDate = LocalDate.now();
             LocalDate startDate = endDate.minusDays(days - 1);
 
+            // 一次读取整个区间的日汇总，没有数据的日期补0
+            Map<LocalDate, SalesBucket> daily = new HashMap<>();
+            for (SalesBucket bucket : salesRollupMapper.selectDaily(startDate, endDate)) {
+                daily.put(bucket.getStatDate(), bucket);
+            }
+
             for (int i = 0; i < days; i++) {
                 LocalDate currentDate = startDate.plusDays(i);
-                LocalDateTime startOfDay = currentDate.atStartOfDay();
-                LocalDateTime endOfDay = currentDate.atTime(23, 59, 59);
-
-                QueryWrapper<Order> wrapper = new QueryWrapper<>();
-                wrapper.in("status", Order.Status.PAID.getCode(), Order.Status.PREPARING.getCode(), 
-                          Order.Status.READY.getCode(), Order.Status.COMPLETED.getCode());
-                wrapper.between("create_time", startOfDay, endOfDay);
-
-                List<Order> dayOrders = orderMapper.selectList(wrapper);
-                BigDecimal dayAmount = dayOrders.stream()
-                        .map(Order::getTotalAmount)
-                        .reduce(BigDecimal.ZERO, BigDecimal::add);
+                SalesBucket bucket = daily.get(currentDate);
 
                 Map<String, Object> stat = new HashMap<>();
                 stat.put("date", currentDate.format(DateTimeFormatter.ofPattern("yyyy-MM-dd")));
-                stat.put("amount", dayAmount);
-                stat.put("orderCount", (long) dayOrders.size());
+                stat.put("amount", bucket != null ? bucket.getRevenue() : BigDecimal.ZERO);
+                stat.put("orderCount", bucket != null ? bucket.getOrderCount() : 0L);
                 stats.add(stat);
             }
 
@@ -153,28 +133,104 @@ public class AdminOrderServiceImpl implements AdminOrderService {
     }
 
     @Override
-    public Map<String, Object> getUserOrderStats(Long userId) {
+    public List<Map<String, Object>> getHourlySales(LocalDate date) {
         try {
-            Map<String, Object> stats = new HashMap<>();
+            Map<Integer, SalesBucket> hourly = new HashMap<>();
+            for (SalesBucket bucket : salesRollupMapper.selectHourly(date)) {
+                hourly.put(bucket.getStatHour(), bucket);
+            }
 
-            // 查询用户总订单数
-            QueryWrapper<Order> orderWrapper = new QueryWrapper<>();
-            orderWrapper.eq("user_id", userId);
-            Long totalOrders = orderMapper.selectCount(orderWrapper);
+            List<Map<String, Object>> stats = new ArrayList<>();
+            for (int hour = 0; hour < 24; hour++) {
+                SalesBucket bucket = hourly.get(hour);
+                Map<String, Object> stat = new HashMap<>();
+                stat.put("hour", hour);
+                stat.put("amount", bucket != null ? bucket.getRevenue() : BigDecimal.ZERO);
+                stat.put("orderCount", bucket != null ? bucket.getOrderCount() : 0L);
+                stats.add(stat);
+            }
+            return stats;
+        } catch (Exception e) {
+            log.error("获取分时销售统计失败：date={}", date, e);
+            return new ArrayList<>();
+        }
+    }
 
-            // 查询用户总消费金额
-            QueryWrapper<Order> paidOrderWrapper = new QueryWrapper<>();
-            paidOrderWrapper.eq("user_id", userId);
-            paidOrderWrapper.in("status", Order.Status.PAID.getCode(), Order.Status.PREPARING.getCode(), 
-                               Order.Status.READY.getCode(), Order.Status.COMPLETED.getCode());
-            
-            List<Order> paidOrders = orderMapper.selectList(paidOrderWrapper);
-            BigDecimal totalSpent = paidOrders.stream()
-                    .map(Order::getTotalAmount)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+    @Override
+    public List<Map<String, Object>> getMerchantSales(LocalDate startDate, LocalDate endDate) {
+        try {
+            List<Map<String, Object>> stats = new ArrayList<>();
+            for (SalesBucket bucket : salesRollupMapper.selectByMerchant(startDate, endDate)) {
+                Map<String, Object> stat = new HashMap<>();
+                stat.put("merchantId", bucket.getMerchantId() == 0L ? null : bucket.getMerchantId());
+                stat.put("amount", bucket.getRevenue());
+                stat.put("orderCount", bucket.getOrderCount());
+                stats.add(stat);
+            }
+            return stats;
+        } catch (Exception e) {
+            log.error("获取商户销售排行失败：startDate={}, endDate={}", startDate, endDate, e);
+            return new ArrayList<>();
+        }
+    }
 
-            stats.put("totalOrders", totalOrders);
-            stats.put("totalSpent", totalSpent);
+    @Override
+    public List<Map<String, Object>> getWeekdaySales(LocalDate startDate, LocalDate endDate) {
+        try {
+            Map<Integer, SalesBucket> weekdays = new HashMap<>();
+            for (SalesBucket bucket : orderAnalyticsMapper.selectWeekday(OrderStatusTransitions.REVENUE_CODES, null,
+                    startDate, endDate, orderArchiver.reachesArchive(startDate.atStartOfDay()))) {
+                weekdays.put(bucket.getWeekday(), bucket);
+            }
+
+            // 按周一到周日输出，DAYOFWEEK 中 1 为周日
+            List<Map<String, Object>> stats = new ArrayList<>();
+            for (DayOfWeek day : DayOfWeek.values()) {
+                SalesBucket bucket = weekdays.get(day.getValue() % 7 + 1);
+                Map<String, Object> stat = new HashMap<>();
+                stat.put("weekday", day.getValue());
+                stat.put("amount", bucket != null ? bucket.getRevenue() : BigDecimal.ZERO);
+                stat.put("orderCount", bucket != null ? bucket.getOrderCount() : 0L);
+                stats.add(stat);
+            }
+            return stats;
+        } catch (Exception e) {
+            log.error("获取按星期销售统计失败：startDate={}, endDate={}", startDate, endDate, e);
+            return new ArrayList<>();
+        }
+    }
+
+    @Override
+    public int rebuildSalesRollup() {
+        return salesRollupRecorder.rebuild();
+    }
+
+    @Override
+    public int archiveOrders() {
+        return orderArchiver.archive();
+    }
+
+    @Override
+    public Map<String, Object> getUserStatsCacheMetrics() {
+        LongLruCache.Stats cacheStats = userOrderAggregates.stats();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("size", cacheStats.getSize());
+        metrics.put("capacity", cacheStats.getCapacity());
+        metrics.put("hits", cacheStats.getHits());
+        metrics.put("misses", cacheStats.getMisses());
+        metrics.put("evictions", cacheStats.getEvictions());
+        metrics.put("hitRatio", cacheStats.getHitRatio());
+        return metrics;
+    }
+
+    @Override
+    public Map<String, Object> getUserOrderStats(Long userId) {
+        try {
+            Map<String, Object> stats = new HashMap<>();
+            UserOrderAggregate aggregate = userOrderAggregates.get(userId);
+            stats.put("totalOrders", aggregate.getOrderCount());
+            stats.put("totalSpent", aggregate.getPaidAmount());
+            stats.put("lastOrderTime", aggregate.getLastOrderTime());
 
             return stats;
         } catch (Exception e) {
@@ -190,28 +246,32 @@ public class AdminOrderServiceImpl implements AdminOrderService {
     public Map<String, Object> getAdminOrderList(Integer page, Integer size, String status, String startDate, String endDate) {
         try {
             Page<Order> pageParam = new Page<>(page, size);
-            QueryWrapper<Order> wrapper = new QueryWrapper<>();
-
-            // 状态筛选
-            if (StringUtils.hasText(status)) {
-                wrapper.eq("status", status);
-            }
-
-            // 时间范围筛选
-            if (StringUtils.hasText(startDate)) {
-                wrapper.ge("create_time", startDate + " 00:00:00");
-            }
-            if (StringUtils.hasText(endDate)) {
-                wrapper.le("create_time", endDate + " 23:59:59");
+            LocalDateTime start = StringUtils.hasText(startDate) ? LocalDate.parse(startDate).atStartOfDay() : null;
+            LocalDateTime end = StringUtils.hasText(endDate) ? LocalDate.parse(endDate).atTime(23, 59, 59) : null;
+            String statusFilter = StringUtils.hasText(status) ? status : null;
+
+            // 指定的时间范围早于归档边界时合并归档表，未指定时间范围只查近期订单
+            boolean history = (start != null || end != null) && orderArchiver.reachesArchive(start);
+            Page<Order> orderPage;
+            OrderItemBatch items;
+            if (history) {
+                orderPage = orderArchiveMapper.selectHistoryPage(pageParam, null, statusFilter, start, end);
+                List<Long> orderIds = orderPage.getRecords().stream().map(Order::getId).collect(Collectors.toList());
+                items = orderIds.isEmpty() ? OrderItemBatch.empty()
+                        : OrderItemBatch.of(orderArchiveMapper.selectHistoryItems(orderIds));
+            } else {
+                QueryWrapper<Order> wrapper = new QueryWrapper<>();
+                wrapper.eq(statusFilter != null, "status", statusFilter)
+                        .ge(start != null, "create_time", start)
+                        .le(end != null, "create_time", end)
+                        .orderByDesc("create_time");
+                orderPage = orderMapper.selectPage(pageParam, wrapper);
+                // 当前页订单项一次查询
+                items = orderItemBatchLoader.load(orderPage.getRecords());
             }
 
-            wrapper.orderByDesc("create_time");
-
-            Page<Order> orderPage = orderMapper.selectPage(pageParam, wrapper);
-
-            // 构建返回结果
             List<Map<String, Object>> orderList = orderPage.getRecords().stream()
-                    .map(this::convertOrderToMap)
+                    .map(order -> convertOrderToMap(order, items.itemsOf(order.getId())))
                     .collect(Collectors.toList());
 
             Map<String, Object> result = new HashMap<>();
@@ -234,7 +294,7 @@ public class AdminOrderServiceImpl implements AdminOrderService {
         }
     }
 
-    private Map<String, Object> convertOrderToMap(Order order) {
+    private Map<String, Object> convertOrderToMap(Order order, List<OrderItem> items) {
         Map<String, Object> orderMap = new HashMap<>();
         orderMap.put("id", order.getId());
         orderMap.put("orderNo", order.getOrderNo());
@@ -245,18 +305,7 @@ public class AdminOrderServiceImpl implements AdminOrderService {
         orderMap.put("remark", order.getRemark());
         orderMap.put("createTime", order.getCreateTime());
         orderMap.put("updateTime", order.getUpdateTime());
-
-        // 获取订单项
-        try {
-            QueryWrapper<OrderItem> itemWrapper = new QueryWrapper<>();
-            itemWrapper.eq("order_id", order.getId());
-            List<OrderItem> items = orderItemMapper.selectList(itemWrapper);
-            orderMap.put("items", items);
-        } catch (Exception e) {
-            log.warn("获取订单项失败：orderId={}", order.getId());
-            orderMap.put("items", new ArrayList<>());
-        }
-
+        orderMap.put("items", items);
         return orderMap;
     }
 
@@ -292,9 +341,10 @@ public class AdminOrderServiceImpl implements AdminOrderService {
                 total = orderMapper.countAllOrders();
             }
             
-            // 转换为返回格式
+            // 转换为返回格式，当前页订单项一次查询
+            OrderItemBatch items = orderItemBatchLoader.load(orders);
             List<Map<String, Object>> orderList = orders.stream()
-                    .map(this::convertOrderToMap)
+                    .map(order -> convertOrderToMap(order, items.itemsOf(order.getId())))
                     .collect(Collectors.toList());
             
             Map<String, Object> result = new HashMap<>();
@@ -323,16 +373,15 @@ public class AdminOrderServiceImpl implements AdminOrderService {
             Map<String, Object> stats = new HashMap<>();
             
             // 总订单数
-            int totalOrders = orderMapper.countAllOrders();
-            stats.put("totalOrders", totalOrders);
+            stats.put("totalOrders", orderStatusCounters.total());
             
             // 各状态订单数
-            stats.put("pendingOrders", orderMapper.countOrdersByStatus(Order.Status.PENDING.getCode()));
-            stats.put("paidOrders", orderMapper.countOrdersByStatus(Order.Status.PAID.getCode()));
-            stats.put("preparingOrders", orderMapper.countOrdersByStatus(Order.Status.PREPARING.getCode()));
-            stats.put("readyOrders", orderMapper.countOrdersByStatus(Order.Status.READY.getCode()));
-            stats.put("completedOrders", orderMapper.countOrdersByStatus(Order.Status.COMPLETED.getCode()));
-            stats.put("cancelledOrders", orderMapper.countOrdersByStatus(Order.Status.CANCELLED.getCode()));
+            stats.put("pendingOrders", orderStatusCounters.count(Order.Status.PENDING));
+            stats.put("paidOrders", orderStatusCounters.count(Order.Status.PAID));
+            stats.put("preparingOrders", orderStatusCounters.count(Order.Status.PREPARING));
+            stats.put("readyOrders", orderStatusCounters.count(Order.Status.READY));
+            stats.put("completedOrders", orderStatusCounters.count(Order.Status.COMPLETED));
+            stats.put("cancelledOrders", orderStatusCounters.count(Order.Status.CANCELLED));
             
             // 今日订单数
             LocalDateTime startOfDay = LocalDate.now().atStartOfDay();
@@ -361,19 +410,19 @@ public class AdminOrderServiceImpl implements AdminOrderService {
                 endDate = LocalDate.now().toString();
             }
             
-            // 获取时间范围内的统计数据
-            List<Map<String, Object>> dailyStats = orderMapper.getOrderStatsByDateRange(
-                    startDate + " 00:00:00", endDate + " 23:59:59");
-            
-            // 计算总计
-            BigDecimal totalAmount = dailyStats.stream()
-                    .map(stat -> (BigDecimal) stat.get("totalAmount"))
-                    .filter(Objects::nonNull)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-            
-            Long totalOrderCount = dailyStats.stream()
-                    .map(stat -> ((Number) stat.get("orderCount")).longValue())
-                    .reduce(0L, Long::sum);
+            // 从日汇总读取时间范围内的统计数据
+            List<Map<String, Object>> dailyStats = new ArrayList<>();
+            BigDecimal totalAmount = BigDecimal.ZERO;
+            long totalOrderCount = 0L;
+            for (SalesBucket bucket : salesRollupMapper.selectDaily(LocalDate.parse(startDate), LocalDate.parse(endDate))) {
+                Map<String, Object> stat = new HashMap<>();
+                stat.put("date", bucket.getStatDate().toString());
+                stat.put("orderCount", bucket.getOrderCount());
+                stat.put("totalAmount", bucket.getRevenue());
+                dailyStats.add(stat);
+                totalAmount = totalAmount.add(bucket.getRevenue());
+                totalOrderCount += bucket.getOrderCount();
+            }
             
             Map<String, Object> result = new HashMap<>();
             result.put("dailyStats", dailyStats);
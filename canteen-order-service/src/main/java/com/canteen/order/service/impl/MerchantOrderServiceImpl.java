@@ -1,23 +1,40 @@
 package com.canteen.order.service.impl;
 
-import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.canteen.order.dto.MerchantOrderDTO;
+import com.canteen.order.dto.SalesBucket;
 import com.canteen.order.entity.Order;
 import com.canteen.order.entity.OrderItem;
-import com.canteen.order.mapper.OrderItemMapper;
+import com.canteen.order.mapper.OrderAnalyticsMapper;
+import com.canteen.order.mapper.OrderArchiveMapper;
 import com.canteen.order.mapper.OrderMapper;
 import com.canteen.order.service.MerchantOrderService;
+import com.canteen.order.support.OrderArchiver;
+import com.canteen.order.support.OrderItemBatch;
+import com.canteen.order.support.OrderChangedEvent;
+import com.canteen.order.support.OrderItemBatchLoader;
+import com.canteen.order.support.OrderStatusCounters;
+import com.canteen.order.support.OrderStatusTransitions;
+import com.canteen.order.support.OrderStatusUpdater;
+import com.canteen.order.support.SalesRollupRecorder;
+import com.canteen.order.support.StockReservationManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -29,14 +46,31 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class MerchantOrderServiceImpl implements MerchantOrderService {
 
+    /**
+     * 支持批量推进的目标状态：接单、出餐、完成，每个只有一个前置状态
+     */
+    private static final Set<Order.Status> BATCH_TARGETS = Collections.unmodifiableSet(
+            EnumSet.of(Order.Status.PREPARING, Order.Status.READY, Order.Status.COMPLETED));
+
+    private static final int MAX_BATCH_SIZE = 100;
+
     private final OrderMapper orderMapper;
-    private final OrderItemMapper orderItemMapper;
+    private final OrderItemBatchLoader orderItemBatchLoader;
+    private final StockReservationManager stockReservationManager;
+    private final ApplicationEventPublisher eventPublisher;
+    private final SalesRollupRecorder salesRollupRecorder;
+    private final OrderStatusCounters orderStatusCounters;
+    private final OrderArchiveMapper orderArchiveMapper;
+    private final OrderAnalyticsMapper orderAnalyticsMapper;
+    private final OrderArchiver orderArchiver;
+    private final OrderStatusUpdater orderStatusUpdater;
 
     @Override
     public Long getPendingOrderCount(Long merchantId) {
         try {
-            // 使用新的Mapper方法根据商户ID筛选待处理订单
-            return (long) orderMapper.countPendingOrdersByMerchantId(merchantId);
+            // 待处理订单：待支付 + 已支付待接单，读内存计数
+            return orderStatusCounters.count(merchantId, Order.Status.PENDING)
+                    + orderStatusCounters.count(merchantId, Order.Status.PAID);
         } catch (Exception e) {
             log.error("获取商户待处理订单数失败：merchantId={}", merchantId, e);
             return 0L;
@@ -46,26 +80,8 @@ public class MerchantOrderServiceImpl implements MerchantOrderService {
     @Override
     public BigDecimal getTodayRevenue(Long merchantId) {
         try {
-            // 获取商户的所有订单，然后筛选今日的
-            List<Order> merchantOrders = orderMapper.selectByMerchantId(merchantId);
-            
-            LocalDateTime startOfDay = LocalDate.now().atStartOfDay();
-            LocalDateTime endOfDay = LocalDate.now().atTime(23, 59, 59);
-            
-            return merchantOrders.stream()
-                    .filter(order -> {
-                        LocalDateTime createTime = order.getCreateTime();
-                        return createTime.isAfter(startOfDay) && createTime.isBefore(endOfDay);
-                    })
-                    .filter(order -> {
-                        String status = order.getStatus();
-                        return Order.Status.PAID.getCode().equals(status) || 
-                               Order.Status.PREPARING.getCode().equals(status) ||
-                               Order.Status.READY.getCode().equals(status) || 
-                               Order.Status.COMPLETED.getCode().equals(status);
-                    })
-                    .map(Order::getTotalAmount)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+            // 只读取今日订单
+            return sumTodayRevenue(loadMerchantOrders(merchantId, LocalDate.now().atStartOfDay(), null));
         } catch (Exception e) {
             log.error("获取商户今日营业额失败：merchantId={}", merchantId, e);
             return BigDecimal.ZERO;
@@ -75,9 +91,7 @@ public class MerchantOrderServiceImpl implements MerchantOrderService {
     @Override
     public Long getTotalOrderCount(Long merchantId) {
         try {
-            // 根据商户ID获取订单总数
-            List<Order> merchantOrders = orderMapper.selectByMerchantId(merchantId);
-            return (long) merchantOrders.size();
+            return orderStatusCounters.total(merchantId);
         } catch (Exception e) {
             log.error("获取商户订单总数失败：merchantId={}", merchantId, e);
             return 0L;
@@ -91,25 +105,20 @@ public class MerchantOrderServiceImpl implements MerchantOrderService {
             LocalDate endDate = LocalDate.now();
             LocalDate startDate = endDate.minusDays(days - 1);
 
+            // 一次按日聚合查询，没有订单的日期补零
+            Map<LocalDate, SalesBucket> daily = new HashMap<>();
+            for (SalesBucket bucket : orderAnalyticsMapper.selectDaily(OrderStatusTransitions.REVENUE_CODES, merchantId,
+                    startDate, endDate, orderArchiver.reachesArchive(startDate.atStartOfDay()))) {
+                daily.put(bucket.getStatDate(), bucket);
+            }
             for (int i = 0; i < days; i++) {
                 LocalDate currentDate = startDate.plusDays(i);
-                LocalDateTime startOfDay = currentDate.atStartOfDay();
-                LocalDateTime endOfDay = currentDate.atTime(23, 59, 59);
-
-                QueryWrapper<Order> wrapper = new QueryWrapper<>();
-                wrapper.in("status", Order.Status.PAID.getCode(), Order.Status.PREPARING.getCode(), 
-                          Order.Status.READY.getCode(), Order.Status.COMPLETED.getCode());
-                wrapper.between("create_time", startOfDay, endOfDay);
-
-                List<Order> dayOrders = orderMapper.selectList(wrapper);
-                BigDecimal dayRevenue = dayOrders.stream()
-                        .map(Order::getTotalAmount)
-                        .reduce(BigDecimal.ZERO, BigDecimal::add);
+                SalesBucket bucket = daily.get(currentDate);
 
                 Map<String, Object> trend = new HashMap<>();
                 trend.put("date", currentDate.format(DateTimeFormatter.ofPattern("yyyy-MM-dd")));
-                trend.put("orderCount", (long) dayOrders.size());
-                trend.put("revenue", dayRevenue);
+                trend.put("orderCount", bucket != null ? bucket.getOrderCount() : 0L);
+                trend.put("revenue", bucket != null ? bucket.getRevenue() : BigDecimal.ZERO);
                 trends.add(trend);
             }
 
@@ -120,10 +129,60 @@ public class MerchantOrderServiceImpl implements MerchantOrderService {
         }
     }
 
+    @Override
+    public Map<String, Object> getSalesDistribution(Long merchantId, LocalDate startDate, LocalDate endDate) {
+        Map<String, Object> distribution = new HashMap<>();
+        try {
+            boolean includeArchive = orderArchiver.reachesArchive(startDate.atStartOfDay());
+            long[] hourCounts = new long[24];
+            BigDecimal[] hourRevenues = new BigDecimal[24];
+            for (SalesBucket bucket : orderAnalyticsMapper.selectHourly(OrderStatusTransitions.REVENUE_CODES,
+                    merchantId, startDate, endDate, includeArchive)) {
+                hourCounts[bucket.getStatHour()] = bucket.getOrderCount();
+                hourRevenues[bucket.getStatHour()] = bucket.getRevenue();
+            }
+            long[] weekdayCounts = new long[8];
+            BigDecimal[] weekdayRevenues = new BigDecimal[8];
+            for (SalesBucket bucket : orderAnalyticsMapper.selectWeekday(OrderStatusTransitions.REVENUE_CODES,
+                    merchantId, startDate, endDate, includeArchive)) {
+                weekdayCounts[bucket.getWeekday()] = bucket.getOrderCount();
+                weekdayRevenues[bucket.getWeekday()] = bucket.getRevenue();
+            }
+
+            List<Map<String, Object>> hourly = new ArrayList<>();
+            for (int hour = 0; hour < 24; hour++) {
+                Map<String, Object> stat = new HashMap<>();
+                stat.put("hour", hour);
+                stat.put("orderCount", hourCounts[hour]);
+                stat.put("revenue", hourRevenues[hour] != null ? hourRevenues[hour] : BigDecimal.ZERO);
+                hourly.add(stat);
+            }
+            // 按周一到周日输出，DAYOFWEEK 中 1 为周日
+            List<Map<String, Object>> weekly = new ArrayList<>();
+            for (DayOfWeek day : DayOfWeek.values()) {
+                int weekday = day.getValue() % 7 + 1;
+                Map<String, Object> stat = new HashMap<>();
+                stat.put("weekday", day.getValue());
+                stat.put("orderCount", weekdayCounts[weekday]);
+                stat.put("revenue", weekdayRevenues[weekday] != null ? weekdayRevenues[weekday] : BigDecimal.ZERO);
+                weekly.add(stat);
+            }
+            distribution.put("hourly", hourly);
+            distribution.put("weekday", weekly);
+        } catch (Exception e) {
+            log.error("获取商户销售分布失败：merchantId={}", merchantId, e);
+            distribution.put("hourly", new ArrayList<>());
+            distribution.put("weekday", new ArrayList<>());
+        }
+        return distribution;
+    }
+
     @Override
     public Map<String, Object> getMerchantOrderStats(Long merchantId, String startDate, String endDate) {
         try {
-            List<Order> merchantOrders = filterOrdersByDate(orderMapper.selectByMerchantId(merchantId), startDate, endDate);
+            // 商户订单只读取一次，汇总和每日统计都基于这份数据
+            List<Order> allOrders = loadMerchantOrders(merchantId, parseStart(startDate), parseEnd(endDate));
+            List<Order> merchantOrders = filterOrdersByDate(allOrders, startDate, endDate);
 
             // 统计各状态订单数
             Map<String, Object> stats = new HashMap<>();
@@ -141,7 +200,7 @@ public class MerchantOrderServiceImpl implements MerchantOrderService {
             stats.put("cancelledOrders", countByStatus(merchantOrders, Order.Status.CANCELLED.getCode()));
 
             // 每日统计
-            List<Map<String, Object>> dailyStats = getDailyStats(merchantId, startDate, endDate);
+            List<Map<String, Object>> dailyStats = getDailyStats(allOrders, startDate, endDate);
             stats.put("dailyStats", dailyStats);
 
             return stats;
@@ -160,7 +219,12 @@ public class MerchantOrderServiceImpl implements MerchantOrderService {
     @Override
     public Map<String, Object> getMerchantFinanceStats(Long merchantId, String startDate, String endDate) {
         try {
-            List<Order> orders = filterOrdersByDate(orderMapper.selectByMerchantId(merchantId), startDate, endDate)
+            // 商户订单只读取一次，总收入、今日收入和月度收入都基于这份数据，读取范围覆盖统计区间和最近6个月
+            LocalDateTime start = parseStart(startDate);
+            LocalDateTime monthsStart = YearMonth.now().minusMonths(5).atDay(1).atStartOfDay();
+            LocalDateTime loadFrom = start != null && start.isAfter(monthsStart) ? monthsStart : start;
+            List<Order> allOrders = loadMerchantOrders(merchantId, loadFrom, null);
+            List<Order> orders = filterOrdersByDate(allOrders, startDate, endDate)
                     .stream()
                     .filter(this::isRevenueOrder)
                     .collect(Collectors.toList());
@@ -174,7 +238,7 @@ public class MerchantOrderServiceImpl implements MerchantOrderService {
             stats.put("totalRevenue", totalRevenue);
 
             // 今日收入
-            BigDecimal todayRevenue = getTodayRevenue(merchantId);
+            BigDecimal todayRevenue = sumTodayRevenue(allOrders);
             stats.put("todayRevenue", todayRevenue);
 
             // 平均订单金额
@@ -183,7 +247,7 @@ public class MerchantOrderServiceImpl implements MerchantOrderService {
             stats.put("avgOrderAmount", avgOrderAmount);
 
             // 月度收入
-            List<Map<String, Object>> monthlyRevenues = getMonthlyRevenues(merchantId, startDate, endDate);
+            List<Map<String, Object>> monthlyRevenues = getMonthlyRevenues(allOrders);
             stats.put("monthlyRevenues", monthlyRevenues);
 
             return stats;
@@ -200,31 +264,56 @@ public class MerchantOrderServiceImpl implements MerchantOrderService {
 
     @Override
     public Map<String, Object> getMerchantOrderList(Long merchantId, Integer page, Integer size, String status) {
+        return getMerchantOrderList(merchantId, page, size, status, null);
+    }
+
+    @Override
+    public Map<String, Object> getMerchantOrderList(Long merchantId, Integer page, Integer size, String status, String cursor) {
         try {
-            Page<Order> pageParam = new Page<>(page, size);
-            QueryWrapper<Order> wrapper = new QueryWrapper<>();
-            List<Order> merchantOrders = orderMapper.selectByMerchantId(merchantId).stream()
-                    .filter(order -> !StringUtils.hasText(status) || status.equals(order.getStatus()))
-                    .sorted(Comparator.comparing(Order::getCreateTime, Comparator.nullsLast(Comparator.naturalOrder())).reversed())
-                    .collect(Collectors.toList());
+            int pageSize = Math.max(1, size);
+            LambdaQueryWrapper<Order> wrapper = new LambdaQueryWrapper<>();
+            wrapper.eq(Order::getMerchantId, merchantId);
+            if (StringUtils.hasText(status)) {
+                wrapper.eq(Order::getStatus, status);
+            }
 
-            int fromIndex = Math.max(0, (page - 1) * size);
-            int toIndex = Math.min(fromIndex + size, merchantOrders.size());
-            List<Order> pageOrders = fromIndex >= merchantOrders.size()
-                    ? new ArrayList<>()
-                    : merchantOrders.subList(fromIndex, toIndex);
+            Map<String, Object> result = new HashMap<>();
+            List<Order> pageOrders;
+            boolean hasMore;
+            if (StringUtils.hasText(cursor)) {
+                // 游标模式：从上一页最后一条之后继续读，不做COUNT和OFFSET，翻页耗时与历史订单量无关
+                OrderCursor after = OrderCursor.decode(cursor);
+                wrapper.and(w -> w.lt(Order::getCreateTime, after.createTime)
+                        .or(o -> o.eq(Order::getCreateTime, after.createTime).lt(Order::getId, after.id)));
+                wrapper.orderByDesc(Order::getCreateTime).orderByDesc(Order::getId);
+                wrapper.last("LIMIT " + (pageSize + 1));
+
+                List<Order> rows = orderMapper.selectList(wrapper);
+                hasMore = rows.size() > pageSize;
+                pageOrders = hasMore ? rows.subList(0, pageSize) : rows;
+            } else {
+                wrapper.orderByDesc(Order::getCreateTime).orderByDesc(Order::getId);
+                Page<Order> orderPage = orderMapper.selectPage(new Page<>(page, pageSize), wrapper);
+                pageOrders = orderPage.getRecords();
+                hasMore = orderPage.getCurrent() < orderPage.getPages();
+
+                result.put("total", orderPage.getTotal());
+                result.put("page", page);
+                result.put("pages", orderPage.getPages());
+            }
 
-            // 构建返回结果
+            // 构建返回结果，当前页订单项一次查询
+            OrderItemBatch items = orderItemBatchLoader.load(pageOrders);
             List<Map<String, Object>> orderList = pageOrders.stream()
-                    .map(this::convertOrderToMap)
+                    .map(order -> convertOrderToMap(order, items.itemsOf(order.getId())))
                     .collect(Collectors.toList());
 
-            Map<String, Object> result = new HashMap<>();
             result.put("records", orderList);
-            result.put("total", (long) merchantOrders.size());
-            result.put("page", page);
-            result.put("size", size);
-            result.put("pages", (long) Math.ceil((double) merchantOrders.size() / size));
+            result.put("size", pageSize);
+            result.put("hasMore", hasMore);
+            result.put("nextCursor", hasMore && !pageOrders.isEmpty()
+                    ? OrderCursor.of(pageOrders.get(pageOrders.size() - 1)).encode()
+                    : null);
 
             return result;
         } catch (Exception e) {
@@ -235,6 +324,8 @@ public class MerchantOrderServiceImpl implements MerchantOrderService {
             result.put("page", page);
             result.put("size", size);
             result.put("pages", 0L);
+            result.put("hasMore", false);
+            result.put("nextCursor", null);
             return result;
         }
     }
@@ -243,21 +334,11 @@ public class MerchantOrderServiceImpl implements MerchantOrderService {
     @Transactional
     public void acceptOrder(Long orderId, Long merchantId) {
         try {
-            Order order = orderMapper.selectById(orderId);
-            if (order == null) {
-                throw new RuntimeException("订单不存在");
-            }
-            if (!orderBelongsToMerchant(orderId, merchantId)) {
-                throw new RuntimeException("订单不存在或无权限操作");
+            if (!orderMapper.transition(orderId, merchantId, Order.Status.PREPARING)) {
+                throw transitionFailure(orderId, merchantId, "订单状态不正确，无法接单");
             }
-
-            if (!Order.Status.PAID.getCode().equals(order.getStatus())) {
-                throw new RuntimeException("订单状态不正确，无法接单");
-            }
-
-            order.setStatus(Order.Status.PREPARING.getCode());
-            order.setUpdateTime(LocalDateTime.now());
-            orderMapper.updateById(order);
+            eventPublisher.publishEvent(OrderChangedEvent.statusChanged(orderId, merchantId,
+                    Order.Status.PAID, Order.Status.PREPARING));
 
             log.info("商户接单成功：merchantId={}, orderId={}", merchantId, orderId);
         } catch (Exception e) {
@@ -270,22 +351,15 @@ public class MerchantOrderServiceImpl implements MerchantOrderService {
     @Transactional
     public void rejectOrder(Long orderId, Long merchantId, String reason) {
         try {
-            Order order = orderMapper.selectById(orderId);
-            if (order == null) {
-                throw new RuntimeException("订单不存在");
-            }
-            if (!orderBelongsToMerchant(orderId, merchantId)) {
-                throw new RuntimeException("订单不存在或无权限操作");
-            }
-
-            if (!Order.Status.PAID.getCode().equals(order.getStatus())) {
-                throw new RuntimeException("订单状态不正确，无法拒单");
+            int updated = orderMapper.transitionStatus(orderId, merchantId, List.of(Order.Status.PAID.getCode()),
+                    Order.Status.CANCELLED.getCode(), " [拒单原因：" + reason + "]", LocalDateTime.now());
+            if (updated == 0) {
+                throw transitionFailure(orderId, merchantId, "订单状态不正确，无法拒单");
             }
-
-            order.setStatus(Order.Status.CANCELLED.getCode());
-            order.setRemark(order.getRemark() + " [拒单原因：" + reason + "]");
-            order.setUpdateTime(LocalDateTime.now());
-            orderMapper.updateById(order);
+            stockReservationManager.release(orderId, Order.Status.PAID.getCode());
+            salesRollupRecorder.recordTransition(orderId, Order.Status.PAID, Order.Status.CANCELLED);
+            eventPublisher.publishEvent(OrderChangedEvent.statusChanged(orderId, merchantId,
+                    Order.Status.PAID, Order.Status.CANCELLED));
 
             log.info("商户拒单成功：merchantId={}, orderId={}, reason={}", merchantId, orderId, reason);
         } catch (Exception e) {
@@ -298,21 +372,18 @@ public class MerchantOrderServiceImpl implements MerchantOrderService {
     @Transactional
     public void refundOrder(Long orderId, Long merchantId, String reason) {
         try {
-            Order order = orderMapper.selectById(orderId);
-            if (order == null) {
-                throw new RuntimeException("订单不存在");
+            Order.Status previous = orderStatusUpdater.transitionFrom(orderId, merchantId, OrderStatusTransitions.REFUNDABLE,
+                    Order.Status.CANCELLED, appendReason(null, "退款原因", reason));
+            if (previous == null) {
+                throw transitionFailure(orderId, merchantId, "当前订单状态不支持退款");
             }
-            if (!orderBelongsToMerchant(orderId, merchantId)) {
-                throw new RuntimeException("订单不存在或无权限操作");
+            // 已支付未制作的订单归还库存，制作中及之后的订单菜品已消耗，保持扣减
+            if (previous == Order.Status.PAID) {
+                stockReservationManager.release(orderId, previous.getCode());
             }
-            if (!canRefund(order.getStatus())) {
-                throw new RuntimeException("当前订单状态不支持退款");
-            }
-
-            order.setStatus(Order.Status.CANCELLED.getCode());
-            order.setRemark(appendReason(order.getRemark(), "退款原因", reason));
-            order.setUpdateTime(LocalDateTime.now());
-            orderMapper.updateById(order);
+            salesRollupRecorder.recordTransition(orderId, previous, Order.Status.CANCELLED);
+            eventPublisher.publishEvent(OrderChangedEvent.statusChanged(orderId, merchantId,
+                    previous, Order.Status.CANCELLED));
 
             log.info("商户退款成功：merchantId={}, orderId={}, reason={}", merchantId, orderId, reason);
         } catch (Exception e) {
@@ -325,22 +396,24 @@ public class MerchantOrderServiceImpl implements MerchantOrderService {
     @Transactional
     public void updateOrderStatus(Long orderId, Long merchantId, String status) {
         try {
-            Order order = orderMapper.selectById(orderId);
-            if (order == null) {
-                throw new RuntimeException("订单不存在");
-            }
-            if (!orderBelongsToMerchant(orderId, merchantId)) {
-                throw new RuntimeException("订单不存在或无权限操作");
-            }
-
-            // 验证状态转换的合法性
-            if (!isValidStatusTransition(order.getStatus(), status)) {
+            Order.Status target = Order.Status.fromCode(status);
+            if (target == null) {
                 throw new RuntimeException("订单状态转换不合法");
             }
 
-            order.setStatus(status);
-            order.setUpdateTime(LocalDateTime.now());
-            orderMapper.updateById(order);
+            // 按流转表条件更新并取得原状态，取消时按原状态决定是否归还库存
+            Set<Order.Status> candidates = target == Order.Status.CANCELLED
+                    ? OrderStatusTransitions.MERCHANT_CANCELLABLE
+                    : OrderStatusTransitions.predecessorsOf(target);
+            Order.Status previous = orderStatusUpdater.transitionFrom(orderId, merchantId, candidates, target, null);
+            if (previous == null) {
+                throw transitionFailure(orderId, merchantId, "订单状态转换不合法");
+            }
+            if (target == Order.Status.CANCELLED) {
+                stockReservationManager.release(orderId, previous.getCode());
+            }
+            salesRollupRecorder.recordTransition(orderId, previous, target);
+            eventPublisher.publishEvent(OrderChangedEvent.statusChanged(orderId, merchantId, previous, target));
 
             log.info("订单状态更新成功：merchantId={}, orderId={}, status={}", merchantId, orderId, status);
         } catch (Exception e) {
@@ -349,6 +422,78 @@ public class MerchantOrderServiceImpl implements MerchantOrderService {
         }
     }
 
+    @Override
+    @Transactional
+    public List<MerchantOrderDTO.BatchResult> batchUpdateStatus(List<Long> orderIds, Long merchantId, Order.Status target) {
+        try {
+            Set<Order.Status> predecessors = OrderStatusTransitions.predecessorsOf(target);
+            if (!BATCH_TARGETS.contains(target) || predecessors.size() != 1) {
+                throw new RuntimeException("不支持批量更新到该状态");
+            }
+            Order.Status from = predecessors.iterator().next();
+            Set<Long> ids = new LinkedHashSet<>();
+            for (Long orderId : orderIds) {
+                if (orderId != null) {
+                    ids.add(orderId);
+                }
+            }
+            if (ids.isEmpty()) {
+                throw new RuntimeException("订单ID不能为空");
+            }
+            if (ids.size() > MAX_BATCH_SIZE) {
+                throw new RuntimeException("单次最多处理" + MAX_BATCH_SIZE + "个订单");
+            }
+
+            // 一次加锁读取归属和状态，锁持有到事务结束，之后的条件更新必然命中全部候选订单
+            Map<Long, Order> states = new HashMap<>();
+            List<Long> legacyIds = new ArrayList<>();
+            for (Order order : orderMapper.lockOrderStates(ids)) {
+                states.put(order.getId(), order);
+                if (order.getMerchantId() == null) {
+                    legacyIds.add(order.getId());
+                }
+            }
+            Set<Long> legacyOwned = legacyIds.isEmpty() ? Collections.emptySet()
+                    : new HashSet<>(orderMapper.selectMerchantItemOrderIds(legacyIds, merchantId));
+
+            List<MerchantOrderDTO.BatchResult> results = new ArrayList<>(ids.size());
+            List<Long> candidates = new ArrayList<>();
+            for (Long orderId : ids) {
+                Order order = states.get(orderId);
+                boolean owned = order != null && (order.getMerchantId() != null
+                        ? order.getMerchantId().equals(merchantId) : legacyOwned.contains(orderId));
+                if (!owned) {
+                    results.add(new MerchantOrderDTO.BatchResult(orderId, false, "订单不存在或无权限操作"));
+                } else if (!from.getCode().equals(order.getStatus())) {
+                    results.add(new MerchantOrderDTO.BatchResult(orderId, false,
+                            "订单状态不正确，当前状态：" + getStatusDescription(order.getStatus())));
+                } else {
+                    results.add(new MerchantOrderDTO.BatchResult(orderId, true, "操作成功"));
+                    candidates.add(orderId);
+                }
+            }
+
+            if (!candidates.isEmpty()) {
+                int updated = orderMapper.transitionStatusBatch(candidates, from.getCode(), target.getCode(),
+                        LocalDateTime.now());
+                if (updated != candidates.size()) {
+                    throw new IllegalStateException("批量更新订单数不一致：expected=" + candidates.size() + ", updated=" + updated);
+                }
+                for (Long orderId : candidates) {
+                    salesRollupRecorder.recordTransition(orderId, from, target);
+                }
+                eventPublisher.publishEvent(OrderChangedEvent.statusChanged(candidates, merchantId, from, target));
+            }
+
+            log.info("商户批量更新订单状态：merchantId={}, target={}, requested={}, updated={}",
+                    merchantId, target.getCode(), ids.size(), candidates.size());
+            return results;
+        } catch (Exception e) {
+            log.error("商户批量更新订单状态失败：merchantId={}, orderIds={}", merchantId, orderIds, e);
+            throw new RuntimeException("批量更新订单状态失败：" + e.getMessage());
+        }
+    }
+
     @Override
     public Map<String, Object> getOrderDetail(Long orderId, Long merchantId) {
         try {
@@ -356,11 +501,12 @@ public class MerchantOrderServiceImpl implements MerchantOrderService {
             if (order == null) {
                 throw new RuntimeException("订单不存在");
             }
-            if (!orderBelongsToMerchant(orderId, merchantId)) {
+            if (!orderBelongsToMerchant(order, merchantId)) {
                 throw new RuntimeException("订单不存在或无权限操作");
             }
 
-            Map<String, Object> orderDetail = convertOrderToMap(order);
+            Map<String, Object> orderDetail = convertOrderToMap(order, orderItemBatchLoader.load(List.of(order))
+                    .itemsOf(order.getId()));
             return orderDetail;
         } catch (Exception e) {
             log.error("获取订单详情失败：merchantId={}, orderId={}", merchantId, orderId, e);
@@ -369,72 +515,41 @@ public class MerchantOrderServiceImpl implements MerchantOrderService {
     }
 
     // 私有辅助方法
-    private List<Map<String, Object>> getDailyStats(Long merchantId, String startDate, String endDate) {
-        // 实现每日统计逻辑
-        List<Map<String, Object>> dailyStats = new ArrayList<>();
-        
-        LocalDate start = StringUtils.hasText(startDate) ? 
+    private List<Map<String, Object>> getDailyStats(List<Order> merchantOrders, String startDate, String endDate) {
+        LocalDate start = StringUtils.hasText(startDate) ?
                 LocalDate.parse(startDate) : LocalDate.now().minusDays(7);
-        LocalDate end = StringUtils.hasText(endDate) ? 
+        LocalDate end = StringUtils.hasText(endDate) ?
                 LocalDate.parse(endDate) : LocalDate.now();
 
-        for (LocalDate date = start; !date.isAfter(end); date = date.plusDays(1)) {
-            LocalDateTime startOfDay = date.atStartOfDay();
-            LocalDateTime endOfDay = date.atTime(23, 59, 59);
-
-            List<Order> dayOrders = orderMapper.selectByMerchantId(merchantId).stream()
-                    .filter(this::isRevenueOrder)
-                    .filter(order -> order.getCreateTime() != null
-                            && !order.getCreateTime().isBefore(startOfDay)
-                            && !order.getCreateTime().isAfter(endOfDay))
-                    .collect(Collectors.toList());
-            BigDecimal dayRevenue = dayOrders.stream()
-                    .map(Order::getTotalAmount)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-            Map<String, Object> dailyStat = new HashMap<>();
-            dailyStat.put("date", date.format(DateTimeFormatter.ofPattern("yyyy-MM-dd")));
-            dailyStat.put("orderCount", (long) dayOrders.size());
-            dailyStat.put("revenue", dayRevenue);
-            dailyStats.add(dailyStat);
-        }
-
-        return dailyStats;
+        // 一次遍历完成按日分桶，不再每天查询一次
+        RevenueBuckets buckets = RevenueBuckets.daily(start, end);
+        merchantOrders.stream()
+                .filter(this::isRevenueOrder)
+                .forEach(buckets::add);
+        return buckets.toList("date", DateTimeFormatter.ofPattern("yyyy-MM-dd"));
     }
 
-    private List<Map<String, Object>> getMonthlyRevenues(Long merchantId, String startDate, String endDate) {
-        // 实现月度收入统计逻辑
-        List<Map<String, Object>> monthlyRevenues = new ArrayList<>();
-        
-        // 简化实现：返回最近6个月的数据
-        LocalDate now = LocalDate.now();
-        for (int i = 5; i >= 0; i--) {
-            LocalDate monthStart = now.minusMonths(i).withDayOfMonth(1);
-            LocalDate monthEnd = monthStart.plusMonths(1).minusDays(1);
-
-            LocalDateTime startOfMonth = monthStart.atStartOfDay();
-            LocalDateTime endOfMonth = monthEnd.atTime(23, 59, 59);
-            List<Order> monthOrders = orderMapper.selectByMerchantId(merchantId).stream()
-                    .filter(this::isRevenueOrder)
-                    .filter(order -> order.getCreateTime() != null
-                            && !order.getCreateTime().isBefore(startOfMonth)
-                            && !order.getCreateTime().isAfter(endOfMonth))
-                    .collect(Collectors.toList());
-            BigDecimal monthRevenue = monthOrders.stream()
-                    .map(Order::getTotalAmount)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-            Map<String, Object> monthlyRevenue = new HashMap<>();
-            monthlyRevenue.put("month", monthStart.format(DateTimeFormatter.ofPattern("yyyy-MM")));
-            monthlyRevenue.put("revenue", monthRevenue);
-            monthlyRevenue.put("orderCount", (long) monthOrders.size());
-            monthlyRevenues.add(monthlyRevenue);
-        }
+    private List<Map<String, Object>> getMonthlyRevenues(List<Order> merchantOrders) {
+        // 简化实现：返回最近6个月的数据，一次遍历完成按月分桶
+        YearMonth currentMonth = YearMonth.now();
+        RevenueBuckets buckets = RevenueBuckets.monthly(currentMonth.minusMonths(5), currentMonth);
+        merchantOrders.stream()
+                .filter(this::isRevenueOrder)
+                .forEach(buckets::add);
+        return buckets.toList("month", DateTimeFormatter.ofPattern("yyyy-MM"));
+    }
 
-        return monthlyRevenues;
+    private BigDecimal sumTodayRevenue(List<Order> merchantOrders) {
+        LocalDate today = LocalDate.now();
+        return merchantOrders.stream()
+                .filter(this::isRevenueOrder)
+                .filter(order -> order.getCreateTime() != null && today.equals(order.getCreateTime().toLocalDate()))
+                .map(Order::getTotalAmount)
+                .filter(Objects::nonNull)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
     }
 
-    private Map<String, Object> convertOrderToMap(Order order) {
+    private Map<String, Object> convertOrderToMap(Order order, List<OrderItem> items) {
         Map<String, Object> orderMap = new HashMap<>();
         orderMap.put("id", order.getId());
         orderMap.put("orderNo", order.getOrderNo());
@@ -445,18 +560,7 @@ public class MerchantOrderServiceImpl implements MerchantOrderService {
         orderMap.put("remark", order.getRemark());
         orderMap.put("createTime", order.getCreateTime());
         orderMap.put("updateTime", order.getUpdateTime());
-
-        // 获取订单项
-        try {
-            QueryWrapper<OrderItem> itemWrapper = new QueryWrapper<>();
-            itemWrapper.eq("order_id", order.getId());
-            List<OrderItem> items = orderItemMapper.selectList(itemWrapper);
-            orderMap.put("items", items);
-        } catch (Exception e) {
-            log.warn("获取订单项失败：orderId={}", order.getId());
-            orderMap.put("items", new ArrayList<>());
-        }
-
+        orderMap.put("items", items);
         return orderMap;
     }
 
@@ -469,32 +573,54 @@ public class MerchantOrderServiceImpl implements MerchantOrderService {
         return status;
     }
 
-    private boolean isValidStatusTransition(String currentStatus, String newStatus) {
-        // 定义合法的状态转换
-        Map<String, List<String>> validTransitions = new HashMap<>();
-        validTransitions.put(Order.Status.PAID.getCode(), 
-                Arrays.asList(Order.Status.PREPARING.getCode(), Order.Status.CANCELLED.getCode()));
-        validTransitions.put(Order.Status.PREPARING.getCode(), 
-                Arrays.asList(Order.Status.READY.getCode(), Order.Status.CANCELLED.getCode()));
-        validTransitions.put(Order.Status.READY.getCode(), 
-                Arrays.asList(Order.Status.COMPLETED.getCode()));
+    /**
+     * 条件更新未命中时查明原因：订单不存在、无权限，或状态不允许
+     */
+    private RuntimeException transitionFailure(Long orderId, Long merchantId, String statusMessage) {
+        Order order = orderMapper.selectById(orderId);
+        if (order == null) {
+            return new RuntimeException("订单不存在");
+        }
+        if (!orderBelongsToMerchant(order, merchantId)) {
+            return new RuntimeException("订单不存在或无权限操作");
+        }
+        return new RuntimeException(statusMessage);
+    }
 
-        List<String> allowedStatuses = validTransitions.get(currentStatus);
-        return allowedStatuses != null && allowedStatuses.contains(newStatus);
+    private boolean orderBelongsToMerchant(Order order, Long merchantId) {
+        if (order.getMerchantId() != null) {
+            return order.getMerchantId().equals(merchantId);
+        }
+        // 未回填商户ID的历史订单，按该订单的订单项判断归属
+        return orderMapper.existsMerchantOrderItem(order.getId(), merchantId);
     }
 
-    private boolean orderBelongsToMerchant(Long orderId, Long merchantId) {
-        return orderMapper.selectByMerchantId(merchantId).stream()
-                .anyMatch(order -> orderId.equals(order.getId()));
+    /**
+     * 按下单时间范围读取商户订单，起始时间早于归档边界或不限时合并归档表
+     */
+    private List<Order> loadMerchantOrders(Long merchantId, LocalDateTime start, LocalDateTime end) {
+        if (orderArchiver.reachesArchive(start)) {
+            return orderArchiveMapper.selectHistory(merchantId, null, start, end);
+        }
+        LambdaQueryWrapper<Order> wrapper = new LambdaQueryWrapper<>();
+        wrapper.eq(Order::getMerchantId, merchantId)
+                .ge(Order::getCreateTime, start)
+                .le(end != null, Order::getCreateTime, end)
+                .orderByDesc(Order::getCreateTime);
+        return orderMapper.selectList(wrapper);
+    }
+
+    private LocalDateTime parseStart(String startDate) {
+        return StringUtils.hasText(startDate) ? LocalDate.parse(startDate).atStartOfDay() : null;
+    }
+
+    private LocalDateTime parseEnd(String endDate) {
+        return StringUtils.hasText(endDate) ? LocalDate.parse(endDate).atTime(23, 59, 59) : null;
     }
 
     private List<Order> filterOrdersByDate(List<Order> orders, String startDate, String endDate) {
-        LocalDateTime start = StringUtils.hasText(startDate)
-                ? LocalDate.parse(startDate).atStartOfDay()
-                : null;
-        LocalDateTime end = StringUtils.hasText(endDate)
-                ? LocalDate.parse(endDate).atTime(23, 59, 59)
-                : null;
+        LocalDateTime start = parseStart(startDate);
+        LocalDateTime end = parseEnd(endDate);
 
         return orders.stream()
                 .filter(order -> start == null || (order.getCreateTime() != null && !order.getCreateTime().isBefore(start)))
@@ -516,13 +642,6 @@ public class MerchantOrderServiceImpl implements MerchantOrderService {
                 || Order.Status.COMPLETED.getCode().equals(status);
     }
 
-    private boolean canRefund(String status) {
-        return Order.Status.PAID.getCode().equals(status)
-                || Order.Status.PREPARING.getCode().equals(status)
-                || Order.Status.READY.getCode().equals(status)
-                || Order.Status.COMPLETED.getCode().equals(status);
-    }
-
     private String appendReason(String remark, String label, String reason) {
         String baseRemark = StringUtils.hasText(remark) ? remark : "";
         String safeReason = StringUtils.hasText(reason) ? reason.trim() : "未填写";
@@ -531,7 +650,99 @@ public class MerchantOrderServiceImpl implements MerchantOrderService {
     
     @Override
     public List<Order> getPendingOrders(Long merchantId) {
-        // 通过订单项中的商品关联商户ID来筛选订单
+        // 按订单的商户ID和状态筛选，走 idx_merchant_status_time 索引，不关联订单项和商品
         return orderMapper.selectPendingOrdersByMerchantId(merchantId);
     }
+
+    /**
+     * 连续的日/月营收分桶，按下标直接定位桶，单次遍历即可得到完整序列
+     */
+    private static final class RevenueBuckets {
+
+        private final LocalDate firstDay;
+        private final boolean monthly;
+        private final long[] orderCounts;
+        private final BigDecimal[] revenues;
+
+        private RevenueBuckets(LocalDate firstDay, int size, boolean monthly) {
+            this.firstDay = firstDay;
+            this.monthly = monthly;
+            this.orderCounts = new long[Math.max(size, 0)];
+            this.revenues = new BigDecimal[orderCounts.length];
+            Arrays.fill(revenues, BigDecimal.ZERO);
+        }
+
+        static RevenueBuckets daily(LocalDate start, LocalDate end) {
+            return new RevenueBuckets(start, (int) ChronoUnit.DAYS.between(start, end) + 1, false);
+        }
+
+        static RevenueBuckets monthly(YearMonth start, YearMonth end) {
+            return new RevenueBuckets(start.atDay(1), (int) ChronoUnit.MONTHS.between(start, end) + 1, true);
+        }
+
+        void add(Order order) {
+            if (order.getCreateTime() == null) {
+                return;
+            }
+            LocalDate date = order.getCreateTime().toLocalDate();
+            long index = monthly
+                    ? ChronoUnit.MONTHS.between(YearMonth.from(firstDay), YearMonth.from(date))
+                    : ChronoUnit.DAYS.between(firstDay, date);
+            if (index < 0 || index >= orderCounts.length) {
+                return;
+            }
+            int i = (int) index;
+            orderCounts[i]++;
+            if (order.getTotalAmount() != null) {
+                revenues[i] = revenues[i].add(order.getTotalAmount());
+            }
+        }
+
+        List<Map<String, Object>> toList(String labelKey, DateTimeFormatter formatter) {
+            List<Map<String, Object>> result = new ArrayList<>(orderCounts.length);
+            for (int i = 0; i < orderCounts.length; i++) {
+                LocalDate bucketStart = monthly ? firstDay.plusMonths(i) : firstDay.plusDays(i);
+                Map<String, Object> bucket = new HashMap<>();
+                bucket.put(labelKey, bucketStart.format(formatter));
+                bucket.put("orderCount", orderCounts[i]);
+                bucket.put("revenue", revenues[i]);
+                result.add(bucket);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * 商户订单列表游标，记录上一页最后一条订单的 (createTime, id)
+     */
+    private static final class OrderCursor {
+
+        private final LocalDateTime createTime;
+        private final Long id;
+
+        private OrderCursor(LocalDateTime createTime, Long id) {
+            this.createTime = createTime;
+            this.id = id;
+        }
+
+        static OrderCursor of(Order order) {
+            return new OrderCursor(order.getCreateTime(), order.getId());
+        }
+
+        static OrderCursor decode(String token) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+                int separator = raw.lastIndexOf('|');
+                return new OrderCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                        Long.parseLong(raw.substring(separator + 1)));
+            } catch (Exception e) {
+                throw new RuntimeException("无效的分页游标");
+            }
+        }
+
+        String encode() {
+            String raw = createTime + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+    }
 }
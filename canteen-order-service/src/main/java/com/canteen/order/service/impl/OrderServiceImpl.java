@@ -2,14 +2,26 @@ package com.canteen.order.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.canteen.common.utils.SnowflakeIdGenerator;
 import com.canteen.order.controller.OrderController;
+import com.canteen.order.dto.UserOrderAggregate;
 import com.canteen.order.entity.Order;
 import com.canteen.order.entity.OrderItem;
 import com.canteen.order.mapper.OrderItemMapper;
 import com.canteen.order.mapper.OrderMapper;
 import com.canteen.order.service.OrderService;
+import com.canteen.order.support.OrderChangedEvent;
+import com.canteen.order.support.OrderStatusCounters;
+import com.canteen.order.support.OrderStatusTransitions;
+import com.canteen.order.support.OrderStatusUpdater;
+import com.canteen.order.support.ProductSnapshots;
+import com.canteen.order.support.ProductStockClient.ProductSnapshot;
+import com.canteen.order.support.SalesRollupRecorder;
+import com.canteen.order.support.StockReservationManager;
+import com.canteen.order.support.UserOrderAggregates;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
@@ -17,7 +29,11 @@ import org.springframework.util.StringUtils;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * 订单服务实现类
@@ -29,38 +45,65 @@ public class OrderServiceImpl implements OrderService {
 
     private final OrderMapper orderMapper;
     private final OrderItemMapper orderItemMapper;
+    private final StockReservationManager stockReservationManager;
+    private final SnowflakeIdGenerator orderIdGenerator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final SalesRollupRecorder salesRollupRecorder;
+    private final OrderStatusCounters orderStatusCounters;
+    private final UserOrderAggregates userOrderAggregates;
+    private final ProductSnapshots productSnapshots;
+    private final OrderStatusUpdater orderStatusUpdater;
 
     @Override
     @Transactional
-    public Order createOrder(Long userId, List<OrderItem> items, String remark) {
+    public Order createOrder(Long userId, List<OrderItem> items, String remark, String requestKey) {
         try {
-            // 计算总金额
+            // 其他实例或去重表过期后的重复提交，直接返回已创建的订单
+            if (requestKey != null) {
+                Order existing = getOrderByRequestKey(userId, requestKey);
+                if (existing != null) {
+                    log.info("重复的下单请求，返回已创建订单: userId={}, orderNo={}", userId, existing.getOrderNo());
+                    return existing;
+                }
+            }
+
+            // 整个购物车一次批量校验，价格、名称以商品服务为准，总金额按服务端价格计算
+            Long merchantId = applyProductSnapshots(items);
             BigDecimal totalAmount = items.stream()
-                    .map(item -> item.getPrice().multiply(new BigDecimal(item.getQuantity())))
+                    .map(OrderItem::getSubtotal)
                     .reduce(BigDecimal.ZERO, BigDecimal::add);
 
+            // 扣减库存，事务回滚时自动归还
+            StockReservationManager.StockHold stockHold =
+                    stockReservationManager.reserve(StockReservationManager.quantitiesOf(items));
+
             // 创建订单
             Order order = new Order();
             order.setUserId(userId);
+            order.setMerchantId(merchantId);
             order.setOrderNo(generateOrderNo());
             order.setTotalAmount(totalAmount);
             order.setStatus(Order.Status.PENDING.getCode());
             order.setRemark(remark);
+            order.setRequestKey(requestKey);
             order.setCreateTime(LocalDateTime.now());
             order.setUpdateTime(LocalDateTime.now());
 
             orderMapper.insert(order);
 
-            // 创建订单项
+            // 创建订单项，整单一条多行INSERT
             for (OrderItem item : items) {
                 item.setOrderId(order.getId());
-                orderItemMapper.insert(item);
             }
+            orderItemMapper.insertBatch(items);
 
+            // 待支付订单预占库存，超时未支付自动取消
+            stockHold.attach(order.getId());
+            eventPublisher.publishEvent(OrderChangedEvent.created(order));
             return order;
         } catch (Exception e) {
             log.error("创建订单失败", e);
-            throw new RuntimeException("创建订单失败: " + e.getMessage());
+            throw new RuntimeException("创建订单失败: " + e.getMessage(), e);
         }
     }
 
@@ -95,6 +138,14 @@ public class OrderServiceImpl implements OrderService {
         }
     }
 
+    @Override
+    public Order getOrderByRequestKey(Long userId, String requestKey) {
+        LambdaQueryWrapper<Order> wrapper = new LambdaQueryWrapper<>();
+        wrapper.eq(Order::getUserId, userId)
+               .eq(Order::getRequestKey, requestKey);
+        return orderMapper.selectOne(wrapper);
+    }
+
     @Override
     public List<OrderItem> getOrderItems(Long orderId) {
         try {
@@ -111,15 +162,22 @@ public class OrderServiceImpl implements OrderService {
     @Transactional
     public boolean updateOrderStatus(Long orderId, String status) {
         try {
-            Order order = orderMapper.selectById(orderId);
-            if (order == null) {
+            Order.Status target = Order.Status.fromCode(status);
+            if (target == null) {
                 return false;
             }
-            
-            order.setStatus(status);
-            order.setUpdateTime(LocalDateTime.now());
-            
-            return orderMapper.updateById(order) > 0;
+            if (target == Order.Status.CANCELLED) {
+                return cancelFrom(orderId, OrderStatusTransitions.predecessorsOf(Order.Status.CANCELLED));
+            }
+            // 按状态流转表条件更新，并发修改时只有一方成功
+            Order.Status previous = orderStatusUpdater.transitionFrom(orderId, null,
+                    OrderStatusTransitions.predecessorsOf(target), target, null);
+            if (previous == null) {
+                return false;
+            }
+            salesRollupRecorder.recordTransition(orderId, previous, target);
+            eventPublisher.publishEvent(OrderChangedEvent.statusChanged(orderId, null, previous, target));
+            return true;
         } catch (Exception e) {
             log.error("更新订单状态失败", e);
             return false;
@@ -130,7 +188,11 @@ public class OrderServiceImpl implements OrderService {
     @Transactional
     public boolean payOrder(Long orderId) {
         try {
-            return updateOrderStatus(orderId, Order.Status.PAID.getCode());
+            boolean paid = updateOrderStatus(orderId, Order.Status.PAID.getCode());
+            if (paid) {
+                stockReservationManager.confirm(orderId);
+            }
+            return paid;
         } catch (Exception e) {
             log.error("支付订单失败", e);
             return false;
@@ -141,7 +203,7 @@ public class OrderServiceImpl implements OrderService {
     @Transactional
     public boolean cancelOrder(Long orderId) {
         try {
-            return updateOrderStatus(orderId, Order.Status.CANCELLED.getCode());
+            return cancelFrom(orderId, OrderStatusTransitions.USER_CANCELLABLE);
         } catch (Exception e) {
             log.error("取消订单失败", e);
             return false;
@@ -152,18 +214,21 @@ public class OrderServiceImpl implements OrderService {
     @Transactional
     public boolean refundOrder(Long orderId, String reason) {
         try {
-            Order order = orderMapper.selectById(orderId);
-            if (order == null) {
-                return false;
+            Order.Status previous = orderStatusUpdater.transitionFrom(orderId, null, OrderStatusTransitions.REFUNDABLE,
+                    Order.Status.CANCELLED, appendReason(null, "退款原因", reason));
+            if (previous != null) {
+                // 已支付未制作的订单归还库存，制作中及之后的订单菜品已消耗，保持扣减
+                if (previous == Order.Status.PAID) {
+                    stockReservationManager.release(orderId, previous.getCode());
+                }
+                salesRollupRecorder.recordTransition(orderId, previous, Order.Status.CANCELLED);
+                eventPublisher.publishEvent(OrderChangedEvent.statusChanged(orderId, null, previous, Order.Status.CANCELLED));
+                return true;
             }
-            if (!canRefund(order.getStatus())) {
-                throw new RuntimeException("当前订单状态不支持退款");
+            if (orderMapper.selectById(orderId) == null) {
+                return false;
             }
-
-            order.setStatus(Order.Status.CANCELLED.getCode());
-            order.setRemark(appendReason(order.getRemark(), "退款原因", reason));
-            order.setUpdateTime(LocalDateTime.now());
-            return orderMapper.updateById(order) > 0;
+            throw new RuntimeException("当前订单状态不支持退款");
         } catch (Exception e) {
             log.error("退款订单失败", e);
             throw new RuntimeException("退款订单失败: " + e.getMessage());
@@ -173,24 +238,14 @@ public class OrderServiceImpl implements OrderService {
     @Override
     public OrderController.UserOrderStats getUserOrderStats(Long userId) {
         try {
-            LambdaQueryWrapper<Order> wrapper = new LambdaQueryWrapper<>();
-            wrapper.eq(Order::getUserId, userId);
-            
-            // 获取总订单数
-            Long totalOrders = orderMapper.selectCount(wrapper);
-            
-            // 获取总消费金额
-            wrapper.eq(Order::getStatus, Order.Status.COMPLETED.getCode());
-            List<Order> completedOrders = orderMapper.selectList(wrapper);
-            BigDecimal totalAmount = completedOrders.stream()
-                    .map(Order::getTotalAmount)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-            
-            return new OrderController.UserOrderStats(
-                    totalOrders.intValue(),
-                    totalAmount.toString(),
+            UserOrderAggregate aggregate = userOrderAggregates.get(userId);
+            OrderController.UserOrderStats stats = new OrderController.UserOrderStats(
+                    aggregate.getOrderCount().intValue(),
+                    aggregate.getCompletedAmount().toString(),
                     0 // 收藏数暂时返回0
             );
+            stats.setLastOrderTime(aggregate.getLastOrderTime());
+            return stats;
         } catch (Exception e) {
             log.error("获取用户订单统计失败", e);
             return new OrderController.UserOrderStats(0, "0", 0);
@@ -200,11 +255,11 @@ public class OrderServiceImpl implements OrderService {
     @Override
     public long getOrderCountByStatus(String status) {
         try {
-            LambdaQueryWrapper<Order> wrapper = new LambdaQueryWrapper<>();
-            if (StringUtils.hasText(status)) {
-                wrapper.eq(Order::getStatus, status);
+            if (!StringUtils.hasText(status)) {
+                return orderStatusCounters.total();
             }
-            return orderMapper.selectCount(wrapper);
+            Order.Status target = Order.Status.fromCode(status);
+            return target != null ? orderStatusCounters.count(target) : 0L;
         } catch (Exception e) {
             log.error("获取订单数量失败", e);
             return 0L;
@@ -232,7 +287,7 @@ public class OrderServiceImpl implements OrderService {
     @Override
     public long getTotalOrderCount() {
         try {
-            return orderMapper.selectCount(null);
+            return orderStatusCounters.total();
         } catch (Exception e) {
             log.error("获取总订单数失败", e);
             return 0L;
@@ -240,17 +295,75 @@ public class OrderServiceImpl implements OrderService {
     }
 
     /**
-     * 生成订单号
+     * 生成订单号，同一毫秒内和多实例间都不会重复
      */
     private String generateOrderNo() {
-        return "ORDER" + System.currentTimeMillis();
+        return orderIdGenerator.nextId("ORDER");
+    }
+
+    /**
+     * 用商品服务的商品信息校验订单项，覆盖客户端提交的价格和名称并计算小计，
+     * 返回订单所属商户；一个订单只能属于一个商户
+     */
+    private Long applyProductSnapshots(List<OrderItem> items) {
+        if (items == null || items.isEmpty()) {
+            throw new RuntimeException("订单商品不能为空");
+        }
+        Set<Long> productIds = new LinkedHashSet<>();
+        for (OrderItem item : items) {
+            if (item.getProductId() == null) {
+                throw new RuntimeException("商品ID不能为空");
+            }
+            if (item.getQuantity() == null || item.getQuantity() <= 0) {
+                throw new RuntimeException("商品数量必须大于0");
+            }
+            productIds.add(item.getProductId());
+        }
+
+        Map<Long, ProductSnapshot> products = productSnapshots.getAll(productIds);
+        Set<Long> merchantIds = new HashSet<>();
+        for (OrderItem item : items) {
+            ProductSnapshot product = products.get(item.getProductId());
+            if (product == null) {
+                throw new RuntimeException("商品不存在：" + item.getProductId());
+            }
+            if (!product.isOnSale() || product.getPrice() == null) {
+                throw new RuntimeException("商品已下架：" + product.getName());
+            }
+            if (item.getPrice() != null && item.getPrice().compareTo(product.getPrice()) != 0) {
+                log.info("商品价格已变更，按当前价格下单：productId={}, submitted={}, current={}",
+                        product.getId(), item.getPrice(), product.getPrice());
+            }
+            item.setPrice(product.getPrice());
+            item.setProductName(product.getName());
+            item.setSubtotal(product.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())));
+            if (product.getMerchantId() != null) {
+                merchantIds.add(product.getMerchantId());
+            }
+        }
+
+        if (merchantIds.size() > 1) {
+            throw new RuntimeException("一个订单只能包含同一商户的商品，请按商户分别下单");
+        }
+        if (merchantIds.isEmpty()) {
+            log.warn("订单商品未关联商户：productIds={}", productIds);
+            return null;
+        }
+        return merchantIds.iterator().next();
     }
 
-    private boolean canRefund(String status) {
-        return Order.Status.PAID.getCode().equals(status)
-                || Order.Status.PREPARING.getCode().equals(status)
-                || Order.Status.READY.getCode().equals(status)
-                || Order.Status.COMPLETED.getCode().equals(status);
+    /**
+     * 从允许的前置状态取消订单，按命中的原状态归还库存，保证并发取消时只归还一次
+     */
+    private boolean cancelFrom(Long orderId, Set<Order.Status> candidates) {
+        Order.Status previous = orderStatusUpdater.transitionFrom(orderId, null, candidates, Order.Status.CANCELLED, null);
+        if (previous == null) {
+            return false;
+        }
+        stockReservationManager.release(orderId, previous.getCode());
+        salesRollupRecorder.recordTransition(orderId, previous, Order.Status.CANCELLED);
+        eventPublisher.publishEvent(OrderChangedEvent.statusChanged(orderId, null, previous, Order.Status.CANCELLED));
+        return true;
     }
 
     private String appendReason(String remark, String label, String reason) {
@@ -0,0 +1,132 @@
+package com.canteen.order.support;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * 按请求键去重的内存表
+ *
+ * <p>同一请求键第一次到达时执行操作，处理期间到达的重复请求等待第一次的结果，
+ * 成功结果在有效期内直接返回；操作失败时不缓存，客户端可以用同一请求键重试。
+ * 表按插入顺序淘汰，超过容量或有效期的记录被移除，跨实例和超出有效期的重复请求由数据库唯一约束兜底。
+ */
+public class IdempotencyTable<V> {
+
+    private final int capacity;
+    private final long ttlMillis;
+    private final long waitMillis;
+    private final LongSupplier clock;
+
+    /**
+     * 插入顺序即过期顺序，过期记录总在表头
+     */
+    private final LinkedHashMap<String, Entry<V>> entries = new LinkedHashMap<>();
+
+    public IdempotencyTable(int capacity, long ttlMillis, long waitMillis) {
+        this(capacity, ttlMillis, waitMillis, System::currentTimeMillis);
+    }
+
+    IdempotencyTable(int capacity, long ttlMillis, long waitMillis, LongSupplier clock) {
+        if (capacity <= 0 || ttlMillis <= 0 || waitMillis <= 0) {
+            throw new IllegalArgumentException("容量、有效期和等待时长必须大于0");
+        }
+        this.capacity = capacity;
+        this.ttlMillis = ttlMillis;
+        this.waitMillis = waitMillis;
+        this.clock = clock;
+    }
+
+    /**
+     * 执行请求键对应的操作，重复请求返回第一次的结果
+     */
+    public V execute(String key, Supplier<V> action) {
+        Entry<V> entry;
+        boolean owner = false;
+        synchronized (entries) {
+            long now = clock.getAsLong();
+            evictExpired(now);
+            entry = entries.get(key);
+            if (entry == null) {
+                entry = new Entry<>(now + ttlMillis);
+                entries.put(key, entry);
+                owner = true;
+                if (entries.size() > capacity) {
+                    Iterator<Entry<V>> iterator = entries.values().iterator();
+                    iterator.next();
+                    iterator.remove();
+                }
+            }
+        }
+
+        if (owner) {
+            try {
+                V result = action.get();
+                entry.result.complete(result);
+                return result;
+            } catch (RuntimeException | Error e) {
+                remove(key, entry);
+                entry.result.completeExceptionally(e);
+                throw e;
+            }
+        }
+        return await(entry);
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private V await(Entry<V> entry) {
+        try {
+            return entry.result.get(waitMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new RuntimeException("相同请求正在处理中，请稍后重试");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("等待重复请求结果时被中断");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new RuntimeException(cause);
+        }
+    }
+
+    private void remove(String key, Entry<V> entry) {
+        synchronized (entries) {
+            entries.remove(key, entry);
+        }
+    }
+
+    private void evictExpired(long now) {
+        Iterator<Entry<V>> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().expireAt > now) {
+                return;
+            }
+            iterator.remove();
+        }
+    }
+
+    private static final class Entry<V> {
+        private final long expireAt;
+        private final CompletableFuture<V> result = new CompletableFuture<>();
+
+        private Entry(long expireAt) {
+            this.expireAt = expireAt;
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package com.canteen.order.support;
+
+import java.util.function.UnaryOperator;
+
+/**
+ * 以 long 为键的定长LRU缓存
+ *
+ * <p>键直接存放在 long 数组中，开放寻址（线性探测）定位，不装箱；条目按最近访问串成双向链表，
+ * 满容量时淘汰最久未访问的条目。所有操作在同一把锁内完成，适合读多写少、单次操作很短的场景。
+ * 缓存值应当不可变，更新时整体替换。
+ */
+public class LongLruCache<V> {
+
+    private static final int NONE = -1;
+
+    private final int capacity;
+    private final int mask;
+
+    /**
+     * 哈希表：槽位存条目下标+1，0 表示空
+     */
+    private final int[] table;
+
+    private final long[] keys;
+    private final Object[] values;
+    private final int[] prev;
+    private final int[] next;
+
+    private int head = NONE;
+    private int tail = NONE;
+    private int size;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public LongLruCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("缓存容量必须大于0");
+        }
+        this.capacity = capacity;
+        int tableSize = Integer.highestOneBit(Math.max(capacity * 2 - 1, 1)) << 1;
+        this.mask = tableSize - 1;
+        this.table = new int[tableSize];
+        this.keys = new long[capacity];
+        this.values = new Object[capacity];
+        this.prev = new int[capacity];
+        this.next = new int[capacity];
+    }
+
+    /**
+     * 查询并记录命中率，命中的条目移到链表头
+     */
+    public synchronized V get(long key) {
+        int index = indexOf(key);
+        if (index == NONE) {
+            misses++;
+            return null;
+        }
+        hits++;
+        moveToHead(index);
+        return valueAt(index);
+    }
+
+    public synchronized void put(long key, V value) {
+        int index = indexOf(key);
+        if (index != NONE) {
+            values[index] = value;
+            moveToHead(index);
+            return;
+        }
+        if (size == capacity) {
+            index = tail;
+            unlink(index);
+            removeFromTable(keys[index]);
+            evictions++;
+        } else {
+            index = size++;
+        }
+        keys[index] = key;
+        values[index] = value;
+        linkAtHead(index);
+        insertIntoTable(key, index);
+    }
+
+    /**
+     * 仅在键已缓存时更新值，不改变访问顺序，也不计入命中率；返回是否更新
+     */
+    public synchronized boolean updateIfPresent(long key, UnaryOperator<V> updater) {
+        int index = indexOf(key);
+        if (index == NONE) {
+            return false;
+        }
+        values[index] = updater.apply(valueAt(index));
+        return true;
+    }
+
+    public synchronized void remove(long key) {
+        int index = indexOf(key);
+        if (index == NONE) {
+            return;
+        }
+        unlink(index);
+        removeFromTable(key);
+        values[index] = null;
+        // 把最后一个条目挪到空出的位置，保持条目下标连续
+        int last = --size;
+        if (index != last) {
+            keys[index] = keys[last];
+            values[index] = values[last];
+            values[last] = null;
+            relink(last, index);
+            table[slotOf(keys[index])] = index + 1;
+        }
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(hits, misses, evictions, size, capacity);
+    }
+
+    @SuppressWarnings("unchecked")
+    private V valueAt(int index) {
+        return (V) values[index];
+    }
+
+    private int indexOf(long key) {
+        int slot = hash(key);
+        while (table[slot] != 0) {
+            int index = table[slot] - 1;
+            if (keys[index] == key) {
+                return index;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return NONE;
+    }
+
+    /**
+     * 键所在的哈希槽，调用前键必须存在
+     */
+    private int slotOf(long key) {
+        int slot = hash(key);
+        while (keys[table[slot] - 1] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void insertIntoTable(long key, int index) {
+        int slot = hash(key);
+        while (table[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = index + 1;
+    }
+
+    /**
+     * 线性探测的删除：把后面同一探测链上的条目前移填补空位，不留墓碑
+     */
+    private void removeFromTable(long key) {
+        int hole = slotOf(key);
+        int slot = hole;
+        while (true) {
+            slot = (slot + 1) & mask;
+            if (table[slot] == 0) {
+                break;
+            }
+            int home = hash(keys[table[slot] - 1]);
+            // home 不在 (hole, slot] 区间内时，该条目可以前移到空位
+            boolean between = hole <= slot ? (home > hole && home <= slot) : (home > hole || home <= slot);
+            if (!between) {
+                table[hole] = table[slot];
+                hole = slot;
+            }
+        }
+        table[hole] = 0;
+    }
+
+    private int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private void moveToHead(int index) {
+        if (index != head) {
+            unlink(index);
+            linkAtHead(index);
+        }
+    }
+
+    private void linkAtHead(int index) {
+        prev[index] = NONE;
+        next[index] = head;
+        if (head != NONE) {
+            prev[head] = index;
+        }
+        head = index;
+        if (tail == NONE) {
+            tail = index;
+        }
+    }
+
+    private void unlink(int index) {
+        int p = prev[index];
+        int n = next[index];
+        if (p != NONE) {
+            next[p] = n;
+        } else {
+            head = n;
+        }
+        if (n != NONE) {
+            prev[n] = p;
+        } else {
+            tail = p;
+        }
+    }
+
+    /**
+     * 把条目在链表中的位置从 from 转移到 to
+     */
+    private void relink(int from, int to) {
+        int p = prev[from];
+        int n = next[from];
+        prev[to] = p;
+        next[to] = n;
+        if (p != NONE) {
+            next[p] = to;
+        } else {
+            head = to;
+        }
+        if (n != NONE) {
+            prev[n] = to;
+        } else {
+            tail = to;
+        }
+    }
+
+    /**
+     * 缓存统计
+     */
+    public static final class Stats {
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final int size;
+        private final int capacity;
+
+        private Stats(long hits, long misses, long evictions, int size, int capacity) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.size = size;
+            this.capacity = capacity;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        public long getMisses() {
+            return misses;
+        }
+
+        public long getEvictions() {
+            return evictions;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public int getCapacity() {
+            return capacity;
+        }
+
+        public double getHitRatio() {
+            long requests = hits + misses;
+            return requests == 0 ? 0.0 : (double) hits / requests;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.canteen.order.support;
+
+import com.canteen.order.mapper.OrderArchiveMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 订单归档
+ *
+ * <p>定时把已完成、已取消且下单时间早于保留期的订单连同订单项迁入归档表，每批在一个事务内复制后删除，
+ * 批与批之间暂停，单次运行批数有上限，避免长事务和持续占用数据库。热表只保留近期订单，
+ * 查询起始时间早于保留期边界（或不限起始时间）的历史查询合并归档表。
+ */
+@Slf4j
+@Component
+public class OrderArchiver {
+
+    private final OrderArchiveMapper orderArchiveMapper;
+    private final TransactionOperations transactionOperations;
+    private final boolean enabled;
+    private final int retentionDays;
+    private final int batchSize;
+    private final long batchPauseMillis;
+    private final int maxBatches;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public OrderArchiver(OrderArchiveMapper orderArchiveMapper,
+                         TransactionOperations transactionOperations,
+                         @Value("${canteen.order.archive.enabled:true}") boolean enabled,
+                         @Value("${canteen.order.archive.retention-days:90}") int retentionDays,
+                         @Value("${canteen.order.archive.batch-size:500}") int batchSize,
+                         @Value("${canteen.order.archive.batch-pause-ms:200}") long batchPauseMillis,
+                         @Value("${canteen.order.archive.max-batches-per-run:200}") int maxBatches) {
+        if (retentionDays <= 0 || batchSize <= 0 || batchPauseMillis < 0 || maxBatches <= 0) {
+            throw new IllegalArgumentException("归档保留天数、批大小和单次批数必须大于0");
+        }
+        this.orderArchiveMapper = orderArchiveMapper;
+        this.transactionOperations = transactionOperations;
+        this.enabled = enabled;
+        this.retentionDays = retentionDays;
+        this.batchSize = batchSize;
+        this.batchPauseMillis = batchPauseMillis;
+        this.maxBatches = maxBatches;
+    }
+
+    @Scheduled(cron = "${canteen.order.archive.cron:0 30 3 * * ?}")
+    public void scheduledArchive() {
+        if (enabled) {
+            archive();
+        }
+    }
+
+    /**
+     * 执行一次归档，返回迁移的订单数；已有归档在运行时直接返回0
+     */
+    public int archive() {
+        if (!running.compareAndSet(false, true)) {
+            log.info("订单归档正在进行，跳过本次");
+            return 0;
+        }
+        try {
+            LocalDateTime before = horizon();
+            int archived = 0;
+            for (int batch = 0; batch < maxBatches; batch++) {
+                List<Long> orderIds = orderArchiveMapper.selectArchivableIds(
+                        OrderStatusTransitions.ARCHIVABLE_CODES, before, batchSize);
+                if (orderIds.isEmpty()) {
+                    break;
+                }
+                Integer moved = transactionOperations.execute(status -> archiveBatch(orderIds));
+                archived += moved != null ? moved : 0;
+                if (orderIds.size() < batchSize || !pause()) {
+                    break;
+                }
+            }
+            if (archived > 0) {
+                log.info("订单归档完成：before={}, archived={}", before, archived);
+            }
+            return archived;
+        } catch (Exception e) {
+            log.error("订单归档失败", e);
+            return 0;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * 热表保留期边界：下单时间早于该时间的已结束订单可能已归档
+     */
+    public LocalDateTime horizon() {
+        return LocalDate.now().minusDays(retentionDays).atStartOfDay();
+    }
+
+    /**
+     * 从 start 开始的查询是否需要合并归档表，start 为空表示不限起始时间
+     */
+    public boolean reachesArchive(LocalDateTime start) {
+        return start == null || start.isBefore(horizon());
+    }
+
+    private int archiveBatch(List<Long> candidates) {
+        List<Long> orderIds = orderArchiveMapper.lockArchivable(candidates, OrderStatusTransitions.ARCHIVABLE_CODES);
+        if (orderIds.isEmpty()) {
+            return 0;
+        }
+        int copied = orderArchiveMapper.copyOrders(orderIds);
+        orderArchiveMapper.copyItems(orderIds);
+        orderArchiveMapper.deleteItems(orderIds);
+        int deleted = orderArchiveMapper.deleteOrders(orderIds);
+        if (copied != deleted) {
+            throw new IllegalStateException("归档订单数不一致：copied=" + copied + ", deleted=" + deleted);
+        }
+        return deleted;
+    }
+
+    private boolean pause() {
+        if (batchPauseMillis == 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(batchPauseMillis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.canteen.order.support;
+
+import com.canteen.order.entity.Order;
+import lombok.Getter;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 订单新建或状态变更事件，事务提交后推送给订阅的商户，并更新状态计数和用户订单汇总
+ * merchantId 为空时由监听方按订单ID查询所属商户；previousStatus 为变更前状态，新建订单为空
+ */
+@Getter
+public class OrderChangedEvent {
+
+    public enum Type {
+        ORDER_CREATED,
+        ORDER_STATUS_CHANGED
+    }
+
+    private final Type type;
+    private final List<Long> orderIds;
+    private final Long merchantId;
+    private final Order.Status previousStatus;
+    private final String status;
+    private final Order order;
+
+    private OrderChangedEvent(Type type, List<Long> orderIds, Long merchantId, Order.Status previousStatus,
+                              String status, Order order) {
+        this.type = type;
+        this.orderIds = orderIds;
+        this.merchantId = merchantId;
+        this.previousStatus = previousStatus;
+        this.status = status;
+        this.order = order;
+    }
+
+    public static OrderChangedEvent created(Order order) {
+        return new OrderChangedEvent(Type.ORDER_CREATED, Collections.singletonList(order.getId()),
+                order.getMerchantId(), null, order.getStatus(), order);
+    }
+
+    public static OrderChangedEvent statusChanged(Long orderId, Long merchantId, Order.Status from, Order.Status to) {
+        return new OrderChangedEvent(Type.ORDER_STATUS_CHANGED, Collections.singletonList(orderId),
+                merchantId, from, to.getCode(), null);
+    }
+
+    public static OrderChangedEvent statusChanged(Collection<Long> orderIds, Order.Status from, Order.Status to) {
+        return statusChanged(orderIds, null, from, to);
+    }
+
+    public static OrderChangedEvent statusChanged(Collection<Long> orderIds, Long merchantId,
+                                                  Order.Status from, Order.Status to) {
+        return new OrderChangedEvent(Type.ORDER_STATUS_CHANGED, List.copyOf(orderIds), merchantId, from,
+                to.getCode(), null);
+    }
+}
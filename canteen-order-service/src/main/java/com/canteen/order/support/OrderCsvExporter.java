@@ -0,0 +1,145 @@
+package com.canteen.order.support;
+
+import com.canteen.order.dto.OrderExportRow;
+import com.canteen.order.entity.Order.Status;
+import com.canteen.order.mapper.OrderExportMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.cursor.Cursor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 订单明细CSV导出
+ *
+ * <p>用游标逐行读取订单及订单项，边读边写入输出流，每写一批刷新一次，内存占用与导出行数无关。
+ * 范围涉及归档期时先导出归档表再导出热表，两次读取在同一个事务内完成，读取同一快照，
+ * 导出期间被归档迁移的订单不会重复或遗漏。
+ */
+@Slf4j
+@Component
+public class OrderCsvExporter {
+
+    private static final String HEADER = "订单ID,订单号,用户ID,商户ID,订单金额,状态,备注,下单时间,商品ID,商品名称,数量,单价,小计";
+    private static final int BUFFER_SIZE = 8192;
+    private static final int FLUSH_ROWS = 1000;
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final OrderExportMapper orderExportMapper;
+    private final OrderArchiver orderArchiver;
+    private final TransactionOperations transactionOperations;
+
+    public OrderCsvExporter(OrderExportMapper orderExportMapper,
+                            OrderArchiver orderArchiver,
+                            TransactionOperations transactionOperations) {
+        this.orderExportMapper = orderExportMapper;
+        this.orderArchiver = orderArchiver;
+        this.transactionOperations = transactionOperations;
+    }
+
+    /**
+     * 导出订单明细到输出流，返回写出的数据行数；输出流由调用方关闭
+     *
+     * @param gzip 是否以gzip压缩写出
+     */
+    public long export(OutputStream out, boolean gzip, Long merchantId, String status,
+                       LocalDateTime start, LocalDateTime end) throws IOException {
+        // 压缩流开启同步刷新，分批刷新时已压缩的数据立即写出，不在压缩器中积压
+        GZIPOutputStream compressed = gzip ? new GZIPOutputStream(out, BUFFER_SIZE, true) : null;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(
+                compressed != null ? compressed : out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        writer.write('\uFEFF');
+        writer.write(HEADER);
+        writer.write('\n');
+        // 先写出表头，下游在查询执行期间即可开始接收
+        writer.flush();
+
+        Long rows;
+        try {
+            rows = transactionOperations.execute(transaction -> {
+                long written = 0;
+                if (orderArchiver.reachesArchive(start)) {
+                    written += writeRows(writer, true, merchantId, status, start, end);
+                }
+                return written + writeRows(writer, false, merchantId, status, start, end);
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        writer.flush();
+        if (compressed != null) {
+            compressed.finish();
+        }
+        out.flush();
+        return rows != null ? rows : 0L;
+    }
+
+    private long writeRows(Writer writer, boolean archive, Long merchantId, String status,
+                           LocalDateTime start, LocalDateTime end) {
+        long written = 0;
+        try (Cursor<OrderExportRow> cursor = orderExportMapper.streamOrders(archive, merchantId, status, start, end)) {
+            for (OrderExportRow row : cursor) {
+                writeRow(writer, row);
+                if (++written % FLUSH_ROWS == 0) {
+                    writer.flush();
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return written;
+    }
+
+    private void writeRow(Writer writer, OrderExportRow row) throws IOException {
+        Status status = Status.fromCode(row.getStatus());
+        writer.write(csvValue(row.getOrderId()));
+        writer.write(',');
+        writer.write(csvValue(row.getOrderNo()));
+        writer.write(',');
+        writer.write(csvValue(row.getUserId()));
+        writer.write(',');
+        writer.write(csvValue(row.getMerchantId()));
+        writer.write(',');
+        writer.write(csvValue(row.getTotalAmount()));
+        writer.write(',');
+        writer.write(csvValue(status != null ? status.getDescription() : row.getStatus()));
+        writer.write(',');
+        writer.write(csvValue(row.getRemark()));
+        writer.write(',');
+        writer.write(csvValue(row.getCreateTime() != null ? TIME_FORMAT.format(row.getCreateTime()) : null));
+        writer.write(',');
+        writer.write(csvValue(row.getProductId()));
+        writer.write(',');
+        writer.write(csvValue(row.getProductName()));
+        writer.write(',');
+        writer.write(csvValue(row.getQuantity()));
+        writer.write(',');
+        writer.write(csvValue(row.getPrice()));
+        writer.write(',');
+        writer.write(csvValue(row.getSubtotal()));
+        writer.write('\n');
+    }
+
+    private static String csvValue(Object value) {
+        String text = value == null ? "" : value.toString();
+        // 备注、菜品名等文本以公式字符开头时加单引号前缀，避免用Excel打开时被当作公式执行
+        if (value instanceof CharSequence && !text.isEmpty() && "=+-@\t\r".indexOf(text.charAt(0)) >= 0) {
+            text = "'" + text;
+        }
+        if (text.contains(",") || text.contains("\"") || text.contains("\n") || text.contains("\r")) {
+            return "\"" + text.replace("\"", "\"\"") + "\"";
+        }
+        return text;
+    }
+}
@@ -0,0 +1,389 @@
+package com.canteen.order.support;
+
+import com.canteen.order.dto.OrderEventMessage;
+import com.canteen.order.entity.Order;
+import com.canteen.order.mapper.OrderMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 商户订单事件订阅中心（SSE）
+ *
+ * <p>连接建立后由Servlet异步请求挂起，空闲连接不占线程；事件在事务提交后写入商户频道，
+ * 由调度线程按固定窗口交给写出线程池批量写出：窗口内同一订单的多次变更合并为最后一次，
+ * 每个订阅者的待推送缓冲有上限，积压超限时丢弃缓冲并通知客户端全量刷新（resync）。
+ *
+ * <p>同一订阅者同时只有一个写出任务，写出（含心跳）超过 {@link #WRITE_TIMEOUT_MILLIS} 未完成的订阅者被断开，
+ * 一个卡住的连接只占用一个写出线程，不影响其他商户的推送和心跳。
+ *
+ * <p>每个商户频道保留最近的事件，客户端重连时带上 Last-Event-ID 即可补发断线期间的事件；
+ * 请求的事件已被淘汰或来自服务重启前时同样返回 resync。
+ */
+@Slf4j
+@Component
+public class OrderEventHub {
+
+    static final int BUFFER_CAPACITY = 256;
+    static final int HISTORY_SIZE = 512;
+    static final String RESYNC_EVENT = "resync";
+    static final long WRITE_TIMEOUT_MILLIS = 10_000;
+
+    private static final int WRITER_THREADS = 4;
+
+    private static final long DISPATCH_INTERVAL_MILLIS = 200;
+    private static final long HEARTBEAT_INTERVAL_MILLIS = 15_000;
+    private static final long EMITTER_TIMEOUT_MILLIS = 30 * 60 * 1000L;
+    private static final long RECONNECT_DELAY_MILLIS = 3000;
+
+    private final OrderMapper orderMapper;
+    private final ExecutorService writers;
+    private final long writeTimeoutMillis;
+
+    /**
+     * 事件ID从启动时刻起递增，重启前的ID一定小于重启后的，续传时据此识别
+     */
+    private final long firstEventId = System.currentTimeMillis() * 1000;
+    private final AtomicLong sequence = new AtomicLong(firstEventId);
+
+    private final Map<Long, Channel> channels = new ConcurrentHashMap<>();
+    private final Queue<Subscriber> dirty = new ConcurrentLinkedQueue<>();
+    private final Set<Subscriber> writing = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService dispatcher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "order-event-dispatcher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    public OrderEventHub(OrderMapper orderMapper) {
+        this(orderMapper, Executors.newFixedThreadPool(WRITER_THREADS, new ThreadFactory() {
+            private final AtomicInteger index = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "order-event-writer-" + index.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        }), WRITE_TIMEOUT_MILLIS);
+    }
+
+    OrderEventHub(OrderMapper orderMapper, ExecutorService writers, long writeTimeoutMillis) {
+        this.orderMapper = orderMapper;
+        this.writers = writers;
+        this.writeTimeoutMillis = writeTimeoutMillis;
+    }
+
+    @PostConstruct
+    public void start() {
+        dispatcher.scheduleWithFixedDelay(this::dispatch, DISPATCH_INTERVAL_MILLIS, DISPATCH_INTERVAL_MILLIS,
+                TimeUnit.MILLISECONDS);
+        dispatcher.scheduleWithFixedDelay(this::heartbeat, HEARTBEAT_INTERVAL_MILLIS, HEARTBEAT_INTERVAL_MILLIS,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdownNow();
+        writers.shutdownNow();
+        channels.values().forEach(channel -> channel.subscribers.forEach(subscriber -> subscriber.emitter.complete()));
+    }
+
+    /**
+     * 订阅商户的订单事件，lastEventId 为客户端最后收到的事件ID
+     */
+    public SseEmitter subscribe(Long merchantId, String lastEventId) {
+        SseEmitter emitter = new SseEmitter(EMITTER_TIMEOUT_MILLIS);
+        subscribe(merchantId, lastEventId, emitter);
+        return emitter;
+    }
+
+    void subscribe(Long merchantId, String lastEventId, SseEmitter emitter) {
+        Channel channel = channels.computeIfAbsent(merchantId, key -> new Channel());
+        Subscriber subscriber = new Subscriber(channel, emitter);
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(e -> subscriber.close());
+
+        Long resumeFrom = parseEventId(lastEventId);
+        synchronized (channel) {
+            channel.subscribers.add(subscriber);
+            if (resumeFrom != null) {
+                if (resumeFrom < firstEventId || resumeFrom < channel.evictedUpTo) {
+                    subscriber.overflowed = true;
+                } else {
+                    for (OrderEventMessage message : channel.history) {
+                        if (message.getId() > resumeFrom) {
+                            subscriber.offer(message);
+                        }
+                    }
+                }
+            }
+        }
+
+        try {
+            emitter.send(SseEmitter.event().comment("connected").reconnectTime(RECONNECT_DELAY_MILLIS));
+        } catch (Exception e) {
+            subscriber.close();
+            return;
+        }
+        markDirty(subscriber);
+    }
+
+    /**
+     * 事务提交后把订单事件写入商户频道；未在事务中发布时立即处理
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderChanged(OrderChangedEvent event) {
+        if (channels.isEmpty()) {
+            return;
+        }
+        try {
+            for (Map.Entry<Long, List<Long>> entry : resolveMerchants(event).entrySet()) {
+                Channel channel = channels.get(entry.getKey());
+                if (channel == null) {
+                    continue;
+                }
+                for (Long orderId : entry.getValue()) {
+                    publish(channel, event, orderId);
+                }
+            }
+        } catch (Exception e) {
+            log.error("推送订单事件失败：type={}, orderIds={}", event.getType(), event.getOrderIds(), e);
+        }
+    }
+
+    public int getSubscriberCount() {
+        int count = 0;
+        for (Channel channel : channels.values()) {
+            count += channel.subscribers.size();
+        }
+        return count;
+    }
+
+    /**
+     * 断开写出超时的订阅者，把积压的事件交给写出线程池，由调度线程周期调用
+     */
+    void dispatch() {
+        long now = System.currentTimeMillis();
+        for (Subscriber subscriber : writing) {
+            long startedAt = subscriber.writeStartedAt;
+            if (startedAt != 0 && now - startedAt > writeTimeoutMillis && writing.remove(subscriber)) {
+                // 不调用emitter，写出线程仍持有它的锁；从频道移除后不再为它安排写出
+                log.warn("订单事件写出超时，断开订阅：已阻塞{}ms", now - startedAt);
+                subscriber.close();
+            }
+        }
+
+        Subscriber subscriber;
+        while ((subscriber = dirty.poll()) != null) {
+            subscriber.scheduled.set(false);
+            if (subscriber.closed || !writing.add(subscriber)) {
+                // 正在写出的订阅者由写出任务结束后重新安排
+                continue;
+            }
+            Subscriber target = subscriber;
+            try {
+                writers.execute(() -> write(target));
+            } catch (RejectedExecutionException e) {
+                writing.remove(target);
+            }
+        }
+    }
+
+    /**
+     * 心跳，防止代理和客户端把空闲连接当作断开；与事件一样由写出线程池写出
+     */
+    void heartbeat() {
+        for (Channel channel : channels.values()) {
+            for (Subscriber subscriber : channel.subscribers) {
+                synchronized (subscriber) {
+                    subscriber.heartbeatDue = true;
+                }
+                markDirty(subscriber);
+            }
+        }
+    }
+
+    private void write(Subscriber subscriber) {
+        List<OrderEventMessage> messages;
+        boolean resync;
+        boolean heartbeat;
+        synchronized (subscriber) {
+            resync = subscriber.overflowed;
+            messages = new ArrayList<>(subscriber.pending.values());
+            heartbeat = subscriber.heartbeatDue && !resync && messages.isEmpty();
+            subscriber.pending.clear();
+            subscriber.overflowed = false;
+            subscriber.heartbeatDue = false;
+        }
+        subscriber.writeStartedAt = System.currentTimeMillis();
+        try {
+            if (heartbeat) {
+                subscriber.emitter.send(SseEmitter.event().comment("heartbeat"));
+            }
+            if (resync) {
+                subscriber.emitter.send(SseEmitter.event().name(RESYNC_EVENT).data("{}", MediaType.APPLICATION_JSON));
+            }
+            for (OrderEventMessage message : messages) {
+                subscriber.emitter.send(SseEmitter.event()
+                        .id(String.valueOf(message.getId()))
+                        .name(message.getType())
+                        .data(message, MediaType.APPLICATION_JSON));
+            }
+        } catch (Exception e) {
+            log.debug("订单事件推送失败，断开订阅：{}", e.getMessage());
+            subscriber.close();
+        } finally {
+            subscriber.writeStartedAt = 0;
+            // 先释放再检查，写出期间到达的事件不会遗漏
+            if (writing.remove(subscriber) && subscriber.hasPending()) {
+                markDirty(subscriber);
+            }
+        }
+    }
+
+    private Map<Long, List<Long>> resolveMerchants(OrderChangedEvent event) {
+        Map<Long, List<Long>> byMerchant = new HashMap<>();
+        if (event.getMerchantId() != null) {
+            byMerchant.put(event.getMerchantId(), event.getOrderIds());
+            return byMerchant;
+        }
+        for (Order order : orderMapper.selectMerchantRefs(event.getOrderIds())) {
+            if (order.getMerchantId() != null) {
+                byMerchant.computeIfAbsent(order.getMerchantId(), key -> new ArrayList<>()).add(order.getId());
+            }
+        }
+        return byMerchant;
+    }
+
+    private void publish(Channel channel, OrderChangedEvent event, Long orderId) {
+        List<Subscriber> notify;
+        synchronized (channel) {
+            OrderEventMessage message = new OrderEventMessage();
+            message.setId(sequence.incrementAndGet());
+            message.setType(event.getType().name());
+            message.setOrderId(orderId);
+            message.setStatus(event.getStatus());
+            message.setTime(LocalDateTime.now());
+            if (event.getOrder() != null) {
+                message.setOrderNo(event.getOrder().getOrderNo());
+                message.setTotalAmount(event.getOrder().getTotalAmount());
+            }
+
+            channel.history.addLast(message);
+            if (channel.history.size() > HISTORY_SIZE) {
+                channel.evictedUpTo = channel.history.removeFirst().getId();
+            }
+            notify = new ArrayList<>(channel.subscribers);
+            for (Subscriber subscriber : notify) {
+                subscriber.offer(message);
+            }
+        }
+        notify.forEach(this::markDirty);
+    }
+
+    private void markDirty(Subscriber subscriber) {
+        if (subscriber.scheduled.compareAndSet(false, true)) {
+            dirty.add(subscriber);
+        }
+    }
+
+    private static Long parseEventId(String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return null;
+        }
+        try {
+            return Long.parseLong(lastEventId.trim());
+        } catch (NumberFormatException e) {
+            return 0L;
+        }
+    }
+
+    private static final class Channel {
+        private final Set<Subscriber> subscribers = new CopyOnWriteArraySet<>();
+        private final Deque<OrderEventMessage> history = new ArrayDeque<>();
+        private long evictedUpTo;
+    }
+
+    private static final class Subscriber {
+        private final Channel channel;
+        private final SseEmitter emitter;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        /**
+         * 按订单ID合并的待推送事件，保持最后一次变更的顺序
+         */
+        private final LinkedHashMap<Long, OrderEventMessage> pending = new LinkedHashMap<>();
+        private boolean overflowed;
+        private boolean heartbeatDue;
+        private volatile long writeStartedAt;
+        private volatile boolean closed;
+
+        private Subscriber(Channel channel, SseEmitter emitter) {
+            this.channel = channel;
+            this.emitter = emitter;
+        }
+
+        private synchronized void offer(OrderEventMessage message) {
+            if (overflowed) {
+                return;
+            }
+            OrderEventMessage previous = pending.remove(message.getOrderId());
+            if (previous != null && previous.getOrderNo() != null && message.getOrderNo() == null) {
+                // 新建后紧跟的状态变更合并进新建事件，保留订单号和金额
+                OrderEventMessage merged = new OrderEventMessage();
+                merged.setId(message.getId());
+                merged.setType(previous.getType());
+                merged.setOrderId(message.getOrderId());
+                merged.setOrderNo(previous.getOrderNo());
+                merged.setTotalAmount(previous.getTotalAmount());
+                merged.setStatus(message.getStatus());
+                merged.setTime(message.getTime());
+                message = merged;
+            }
+            pending.put(message.getOrderId(), message);
+            if (pending.size() > BUFFER_CAPACITY) {
+                pending.clear();
+                overflowed = true;
+            }
+        }
+
+        private synchronized boolean hasPending() {
+            return overflowed || heartbeatDue || !pending.isEmpty();
+        }
+
+        private void close() {
+            closed = true;
+            channel.subscribers.remove(this);
+        }
+    }
+}
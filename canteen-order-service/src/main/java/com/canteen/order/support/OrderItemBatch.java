@@ -0,0 +1,73 @@
+package com.canteen.order.support;
+
+import com.canteen.order.entity.OrderItem;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 一页订单的订单项，按订单ID分组
+ * 订单ID保存在有序 long[] 中，按订单取订单项时二分查找，不对 Long 装箱
+ */
+public class OrderItemBatch {
+
+    private static final OrderItemBatch EMPTY = new OrderItemBatch(new long[0], new int[]{0}, new ArrayList<>());
+
+    private final long[] orderIds;
+    private final int[] offsets;
+    private final List<OrderItem> items;
+
+    private OrderItemBatch(long[] orderIds, int[] offsets, List<OrderItem> items) {
+        this.orderIds = orderIds;
+        this.offsets = offsets;
+        this.items = items;
+    }
+
+    public static OrderItemBatch empty() {
+        return EMPTY;
+    }
+
+    public static OrderItemBatch of(List<OrderItem> orderItems) {
+        if (orderItems == null || orderItems.isEmpty()) {
+            return EMPTY;
+        }
+        List<OrderItem> sorted = new ArrayList<>(orderItems);
+        sorted.sort(Comparator.comparingLong(OrderItem::getOrderId)
+                .thenComparing(OrderItem::getId, Comparator.nullsLast(Comparator.naturalOrder())));
+
+        long[] ids = new long[sorted.size()];
+        int[] starts = new int[sorted.size() + 1];
+        int groups = 0;
+        for (int i = 0; i < sorted.size(); i++) {
+            long orderId = sorted.get(i).getOrderId();
+            if (groups == 0 || ids[groups - 1] != orderId) {
+                ids[groups] = orderId;
+                starts[groups] = i;
+                groups++;
+            }
+        }
+        starts[groups] = sorted.size();
+        return new OrderItemBatch(Arrays.copyOf(ids, groups), Arrays.copyOf(starts, groups + 1), sorted);
+    }
+
+    /**
+     * 获取指定订单的订单项，没有时返回空列表
+     */
+    public List<OrderItem> itemsOf(long orderId) {
+        int index = Arrays.binarySearch(orderIds, orderId);
+        if (index < 0) {
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(items.subList(offsets[index], offsets[index + 1]));
+    }
+
+    public int orderCount() {
+        return orderIds.length;
+    }
+
+    public int size() {
+        return items.size();
+    }
+}
@@ -0,0 +1,52 @@
+package com.canteen.order.support;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.canteen.order.entity.Order;
+import com.canteen.order.entity.OrderItem;
+import com.canteen.order.mapper.OrderItemMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * 订单项批量加载器
+ * 收集一页订单的ID，用一条 IN 查询取回全部订单项，避免逐单查询
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OrderItemBatchLoader {
+
+    private final OrderItemMapper orderItemMapper;
+
+    public OrderItemBatch load(Collection<Order> orders) {
+        if (orders == null || orders.isEmpty()) {
+            return OrderItemBatch.empty();
+        }
+        List<Long> orderIds = orders.stream()
+                .map(Order::getId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.toList());
+        return loadByOrderIds(orderIds);
+    }
+
+    public OrderItemBatch loadByOrderIds(Collection<Long> orderIds) {
+        if (orderIds == null || orderIds.isEmpty()) {
+            return OrderItemBatch.empty();
+        }
+        try {
+            LambdaQueryWrapper<OrderItem> wrapper = new LambdaQueryWrapper<>();
+            wrapper.in(OrderItem::getOrderId, orderIds);
+            return OrderItemBatch.of(orderItemMapper.selectList(wrapper));
+        } catch (Exception e) {
+            log.warn("批量获取订单项失败：orderCount={}", orderIds.size(), e);
+            return OrderItemBatch.empty();
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.canteen.order.support;
+
+import com.canteen.order.dto.StatusCount;
+import com.canteen.order.entity.Order;
+import com.canteen.order.entity.Order.Status;
+import com.canteen.order.mapper.OrderMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 订单状态内存计数
+ *
+ * <p>按状态、按商户+状态分别计数，启动时用一次分组查询初始化，之后监听订单新建和状态变更事件增减，
+ * 看板读取计数不访问数据库。计数定期与数据库分组结果比对校准，修正初始化期间并发变更等造成的偏差；
+ * 初始化完成前读取直接查库。
+ */
+@Slf4j
+@Component
+public class OrderStatusCounters {
+
+    private static final Status[] STATUSES = Status.values();
+
+    private final OrderMapper orderMapper;
+    private final Counts global = new Counts();
+    private final Map<Long, Counts> byMerchant = new ConcurrentHashMap<>();
+    private volatile boolean ready;
+
+    public OrderStatusCounters(OrderMapper orderMapper) {
+        this.orderMapper = orderMapper;
+    }
+
+    /**
+     * 订单新建和状态变更在事务提交后计数，事务回滚的变更不计；merchantId 为空时按订单ID查询所属商户
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderChanged(OrderChangedEvent event) {
+        try {
+            Status to = Status.fromCode(event.getStatus());
+            Status from = event.getPreviousStatus();
+            if (to == null || from == to) {
+                return;
+            }
+            if (event.getMerchantId() != null || event.getType() == OrderChangedEvent.Type.ORDER_CREATED) {
+                for (int i = 0; i < event.getOrderIds().size(); i++) {
+                    adjust(event.getMerchantId(), from, to);
+                }
+                return;
+            }
+            for (Order ref : orderMapper.selectMerchantRefs(event.getOrderIds())) {
+                adjust(ref.getMerchantId(), from, to);
+            }
+        } catch (Exception e) {
+            log.error("更新订单状态计数失败：orderIds={}", event.getOrderIds(), e);
+        }
+    }
+
+    public long count(Status status) {
+        if (!ready) {
+            return countFromDatabase(null)[status.ordinal()];
+        }
+        return global.get(status);
+    }
+
+    public long total() {
+        if (!ready) {
+            return sum(countFromDatabase(null));
+        }
+        return global.total();
+    }
+
+    public long count(Long merchantId, Status status) {
+        if (!ready) {
+            return countFromDatabase(merchantId)[status.ordinal()];
+        }
+        Counts counts = byMerchant.get(merchantId);
+        return counts != null ? counts.get(status) : 0L;
+    }
+
+    public long total(Long merchantId) {
+        if (!ready) {
+            return sum(countFromDatabase(merchantId));
+        }
+        Counts counts = byMerchant.get(merchantId);
+        return counts != null ? counts.total() : 0L;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        reconcile();
+    }
+
+    /**
+     * 与数据库分组统计比对，按差值校准；查询与校准之间发生的变更可能留下少量偏差，由下一次校准修正
+     */
+    @Scheduled(fixedDelayString = "${canteen.order.status-counters.reconcile-interval-ms:300000}",
+            initialDelayString = "${canteen.order.status-counters.reconcile-interval-ms:300000}")
+    public void reconcile() {
+        try {
+            long[] totals = new long[STATUSES.length];
+            Map<Long, long[]> merchantTotals = new HashMap<>();
+            for (StatusCount row : orderMapper.countGroupByMerchantAndStatus()) {
+                Status status = Status.fromCode(row.getStatus());
+                if (status == null || row.getCount() == null) {
+                    continue;
+                }
+                totals[status.ordinal()] += row.getCount();
+                if (row.getMerchantId() != null) {
+                    merchantTotals.computeIfAbsent(row.getMerchantId(), key -> new long[STATUSES.length])
+                            [status.ordinal()] += row.getCount();
+                }
+            }
+
+            long drift = global.correctTo(totals);
+            for (Map.Entry<Long, Counts> entry : byMerchant.entrySet()) {
+                if (!merchantTotals.containsKey(entry.getKey())) {
+                    drift += entry.getValue().correctTo(new long[STATUSES.length]);
+                }
+            }
+            for (Map.Entry<Long, long[]> entry : merchantTotals.entrySet()) {
+                drift += byMerchant.computeIfAbsent(entry.getKey(), key -> new Counts()).correctTo(entry.getValue());
+            }
+
+            if (!ready) {
+                ready = true;
+                log.info("订单状态计数初始化完成，订单总数：{}", global.total());
+            } else if (drift != 0) {
+                log.warn("订单状态计数已按数据库校准，偏差：{}", drift);
+            }
+        } catch (Exception e) {
+            log.error("校准订单状态计数失败", e);
+        }
+    }
+
+    /**
+     * 初始化完成前直接查库，与校准使用相同的统计口径（含归档订单），初始化前后读数一致
+     */
+    private long[] countFromDatabase(Long merchantId) {
+        long[] counts = new long[STATUSES.length];
+        for (StatusCount row : orderMapper.countGroupByStatus(merchantId)) {
+            Status status = Status.fromCode(row.getStatus());
+            if (status != null && row.getCount() != null) {
+                counts[status.ordinal()] += row.getCount();
+            }
+        }
+        return counts;
+    }
+
+    private static long sum(long[] counts) {
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        return total;
+    }
+
+    private void adjust(Long merchantId, Status from, Status to) {
+        global.move(from, to);
+        if (merchantId != null) {
+            byMerchant.computeIfAbsent(merchantId, key -> new Counts()).move(from, to);
+        }
+    }
+
+    private static final class Counts {
+        private final LongAdder[] adders = new LongAdder[STATUSES.length];
+
+        private Counts() {
+            for (int i = 0; i < adders.length; i++) {
+                adders[i] = new LongAdder();
+            }
+        }
+
+        private void move(Status from, Status to) {
+            if (from != null) {
+                adders[from.ordinal()].decrement();
+            }
+            if (to != null) {
+                adders[to.ordinal()].increment();
+            }
+        }
+
+        private long get(Status status) {
+            return Math.max(adders[status.ordinal()].sum(), 0L);
+        }
+
+        private long total() {
+            long total = 0;
+            for (Status status : STATUSES) {
+                total += get(status);
+            }
+            return total;
+        }
+
+        /**
+         * 按差值修正到目标值，返回修正量的绝对值之和
+         */
+        private long correctTo(long[] target) {
+            long drift = 0;
+            for (int i = 0; i < adders.length; i++) {
+                long diff = target[i] - adders[i].sum();
+                if (diff != 0) {
+                    adders[i].add(diff);
+                    drift += Math.abs(diff);
+                }
+            }
+            return drift;
+        }
+    }
+}
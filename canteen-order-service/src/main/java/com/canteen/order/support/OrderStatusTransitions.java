@@ -0,0 +1,97 @@
+package com.canteen.order.support;
+
+import com.canteen.order.entity.Order.Status;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 订单状态流转表
+ * 按目标状态登记允许的前置状态，状态更新时作为 WHERE status IN (...) 条件使用，
+ * 启动时构建一次，之后只读。
+ */
+public final class OrderStatusTransitions {
+
+    /**
+     * 用户可自行取消的状态：商户接单之前
+     */
+    public static final Set<Status> USER_CANCELLABLE = Collections.unmodifiableSet(
+            EnumSet.of(Status.PENDING, Status.PAID));
+
+    /**
+     * 商户可取消的状态：已支付、制作中
+     */
+    public static final Set<Status> MERCHANT_CANCELLABLE = Collections.unmodifiableSet(
+            EnumSet.of(Status.PAID, Status.PREPARING));
+
+    /**
+     * 可退款的状态：已支付之后
+     */
+    public static final Set<Status> REFUNDABLE = Collections.unmodifiableSet(
+            EnumSet.of(Status.PAID, Status.PREPARING, Status.READY, Status.COMPLETED));
+
+    public static final List<String> REFUNDABLE_CODES = codesOf(REFUNDABLE);
+
+    /**
+     * 计入销售额的状态：已支付且未取消
+     */
+    public static final Set<Status> REVENUE = REFUNDABLE;
+
+    public static final List<String> REVENUE_CODES = REFUNDABLE_CODES;
+
+    /**
+     * 可归档的状态：已完成、已取消
+     */
+    public static final Set<Status> ARCHIVABLE = Collections.unmodifiableSet(
+            EnumSet.of(Status.COMPLETED, Status.CANCELLED));
+
+    public static final List<String> ARCHIVABLE_CODES = codesOf(ARCHIVABLE);
+
+    private static final Map<Status, Set<Status>> PREDECESSORS = new EnumMap<>(Status.class);
+    private static final Map<Status, List<String>> PREDECESSOR_CODES = new EnumMap<>(Status.class);
+
+    static {
+        PREDECESSORS.put(Status.PAID, EnumSet.of(Status.PENDING));
+        PREDECESSORS.put(Status.PREPARING, EnumSet.of(Status.PAID));
+        PREDECESSORS.put(Status.READY, EnumSet.of(Status.PREPARING));
+        PREDECESSORS.put(Status.COMPLETED, EnumSet.of(Status.READY));
+        PREDECESSORS.put(Status.CANCELLED, EnumSet.of(Status.PENDING, Status.PAID, Status.PREPARING));
+
+        for (Map.Entry<Status, Set<Status>> entry : PREDECESSORS.entrySet()) {
+            entry.setValue(Collections.unmodifiableSet(entry.getValue()));
+            PREDECESSOR_CODES.put(entry.getKey(), codesOf(entry.getValue()));
+        }
+    }
+
+    private OrderStatusTransitions() {
+    }
+
+    /**
+     * 目标状态允许的前置状态，不可到达的状态返回空集合
+     */
+    public static Set<Status> predecessorsOf(Status target) {
+        return PREDECESSORS.getOrDefault(target, Collections.emptySet());
+    }
+
+    /**
+     * 目标状态允许的前置状态码，直接用作SQL的IN条件
+     */
+    public static List<String> predecessorCodesOf(Status target) {
+        return PREDECESSOR_CODES.getOrDefault(target, Collections.emptyList());
+    }
+
+    public static boolean canTransition(Status from, Status to) {
+        return from != null && predecessorsOf(to).contains(from);
+    }
+
+    public static List<String> codesOf(Set<Status> statuses) {
+        return Collections.unmodifiableList(statuses.stream()
+                .map(Status::getCode)
+                .collect(Collectors.toList()));
+    }
+}
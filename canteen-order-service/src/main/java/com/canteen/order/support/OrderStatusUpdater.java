@@ -0,0 +1,65 @@
+package com.canteen.order.support;
+
+import com.canteen.order.entity.Order;
+import com.canteen.order.entity.Order.Status;
+import com.canteen.order.mapper.OrderMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 订单状态推进
+ *
+ * <p>取消、退款、管理员改状态等需要知道原状态的变更从多个候选前置状态推进：只有一个候选时直接按状态条件更新；
+ * 多个候选时不加锁读取状态和版本号，再按版本号条件更新一次；更新失败时加锁重新读取，版本号已变说明期间被并发修改，
+ * 按最新状态重试。调用方在事务内执行，可重复读隔离级别下普通读取只能看到事务快照，冲突后必须用加锁的当前读，
+ * 否则读到的仍是旧版本号。加锁后不会再有并发修改，冲突次数有上限，超过 {@link #MAX_ATTEMPTS} 视为异常。
+ */
+@Component
+@RequiredArgsConstructor
+public class OrderStatusUpdater {
+
+    static final int MAX_ATTEMPTS = 8;
+
+    private final OrderMapper orderMapper;
+
+    /**
+     * 从候选前置状态推进到目标状态，返回推进前的状态；当前状态不在候选中或归属校验不通过时返回null
+     * merchantId 不为空时校验订单归属，remarkSuffix 不为空时追加到备注末尾
+     */
+    public Status transitionFrom(Long orderId, Long merchantId, Collection<Status> candidates,
+                                 Status target, String remarkSuffix) {
+        if (candidates.size() == 1) {
+            Status candidate = candidates.iterator().next();
+            int updated = orderMapper.transitionStatus(orderId, merchantId, List.of(candidate.getCode()),
+                    target.getCode(), remarkSuffix, LocalDateTime.now());
+            return updated > 0 ? candidate : null;
+        }
+
+        Order state = orderMapper.selectVersionState(orderId);
+        for (int attempt = 0; attempt < MAX_ATTEMPTS && state != null; attempt++) {
+            Status current = Status.fromCode(state.getStatus());
+            if (current == null || !candidates.contains(current)) {
+                return null;
+            }
+            if (orderMapper.transitionVersion(orderId, merchantId, state.getVersion(), target.getCode(),
+                    remarkSuffix, LocalDateTime.now()) > 0) {
+                return current;
+            }
+            Order latest = orderMapper.lockVersionState(orderId);
+            // 当前读的版本号未变说明不是并发冲突，而是归属校验不通过
+            if (latest == null || Objects.equals(latest.getVersion(), state.getVersion())) {
+                return null;
+            }
+            state = latest;
+        }
+        if (state == null) {
+            return null;
+        }
+        throw new RuntimeException("订单正被并发修改，请稍后重试");
+    }
+}
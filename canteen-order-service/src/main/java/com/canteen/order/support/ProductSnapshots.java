@@ -0,0 +1,91 @@
+package com.canteen.order.support;
+
+import com.canteen.order.support.ProductStockClient.ProductSnapshot;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.LongSupplier;
+
+/**
+ * 商品信息本地快照
+ *
+ * <p>下单校验价格和上架状态时按商品ID取快照，整个购物车未命中的商品合并为一次批量查询，
+ * 结果按商品ID缓存，有效期很短，热门商品在有效期内的重复下单不再访问商品服务。
+ * 商户调价或下架最多在一个有效期后生效；库存不在快照中，以扣减库存的结果为准。
+ */
+@Component
+public class ProductSnapshots {
+
+    private final ProductStockClient productClient;
+    private final LongLruCache<Entry> cache;
+    private final long ttlMillis;
+    private final LongSupplier clock;
+
+    public ProductSnapshots(ProductStockClient productClient,
+                            @Value("${canteen.order.product-snapshot.capacity:5000}") int capacity,
+                            @Value("${canteen.order.product-snapshot.ttl-ms:5000}") long ttlMillis) {
+        this(productClient, capacity, ttlMillis, System::currentTimeMillis);
+    }
+
+    ProductSnapshots(ProductStockClient productClient, int capacity, long ttlMillis, LongSupplier clock) {
+        if (ttlMillis <= 0) {
+            throw new IllegalArgumentException("快照有效期必须大于0");
+        }
+        this.productClient = productClient;
+        this.cache = new LongLruCache<>(capacity);
+        this.ttlMillis = ttlMillis;
+        this.clock = clock;
+    }
+
+    /**
+     * 批量获取商品快照，返回按商品ID索引的结果；商品服务中不存在的商品不在结果中
+     */
+    public Map<Long, ProductSnapshot> getAll(Collection<Long> productIds) {
+        long now = clock.getAsLong();
+        Map<Long, ProductSnapshot> snapshots = new HashMap<>();
+        Set<Long> misses = new LinkedHashSet<>();
+        for (Long productId : productIds) {
+            if (snapshots.containsKey(productId) || misses.contains(productId)) {
+                continue;
+            }
+            Entry entry = cache.get(productId);
+            if (entry != null && entry.expireAt > now) {
+                snapshots.put(productId, entry.snapshot);
+            } else {
+                misses.add(productId);
+            }
+        }
+        if (misses.isEmpty()) {
+            return snapshots;
+        }
+
+        for (ProductSnapshot snapshot : productClient.getProducts(List.copyOf(misses))) {
+            if (snapshot.getId() == null) {
+                continue;
+            }
+            snapshots.put(snapshot.getId(), snapshot);
+            cache.put(snapshot.getId(), new Entry(snapshot, now + ttlMillis));
+        }
+        return snapshots;
+    }
+
+    public LongLruCache.Stats stats() {
+        return cache.stats();
+    }
+
+    private static final class Entry {
+        private final ProductSnapshot snapshot;
+        private final long expireAt;
+
+        private Entry(ProductSnapshot snapshot, long expireAt) {
+            this.snapshot = snapshot;
+            this.expireAt = expireAt;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.canteen.order.support;
+
+import com.canteen.common.result.Result;
+import com.canteen.common.utils.InternalIdentity;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 商品服务接口客户端：批量查询商品、扣减和归还库存
+ */
+@Slf4j
+@Component
+public class ProductStockClient {
+
+    private static final String SERVICE_NAME = "canteen-order-service";
+
+    private final RestTemplate restTemplate;
+
+    @Value("${canteen.product-service.url:http://localhost:8082}")
+    private String productServiceUrl;
+
+    public ProductStockClient() {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(2000);
+        requestFactory.setReadTimeout(5000);
+        this.restTemplate = new RestTemplate(requestFactory);
+    }
+
+    /**
+     * 按ID批量查询商品，一次请求返回整个购物车的商品；不存在的商品不返回
+     */
+    public List<ProductSnapshot> getProducts(Collection<Long> productIds) {
+        String ids = productIds.stream().map(String::valueOf).collect(Collectors.joining(","));
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(InternalIdentity.HEADER, InternalIdentity.signService(SERVICE_NAME));
+
+        Result<List<ProductSnapshot>> result = restTemplate.exchange(productServiceUrl + "/api/products/batch?ids=" + ids,
+                HttpMethod.GET, new HttpEntity<>(headers),
+                new ParameterizedTypeReference<Result<List<ProductSnapshot>>>() {}).getBody();
+        if (result == null || !Result.SUCCESS_CODE.equals(result.getCode())) {
+            throw new RuntimeException("商品服务查询接口调用失败: " + (result == null ? "空响应" : result.getMessage()));
+        }
+        return result.getData() != null ? result.getData() : Collections.emptyList();
+    }
+
+    /**
+     * 批量扣减库存，返回与请求顺序一致的扣减结果
+     */
+    public List<Boolean> deduct(List<StockChange> changes) {
+        Result<List<Boolean>> result = post("/api/products/stock/deduct", changes,
+                new ParameterizedTypeReference<Result<List<Boolean>>>() {});
+        if (result.getData() == null || result.getData().size() != changes.size()) {
+            throw new RuntimeException("扣减库存返回结果不完整");
+        }
+        return result.getData();
+    }
+
+    /**
+     * 批量归还库存
+     */
+    public void restore(List<StockChange> changes) {
+        post("/api/products/stock/restore", changes, new ParameterizedTypeReference<Result<Integer>>() {});
+    }
+
+    private <T> Result<T> post(String path, List<StockChange> changes, ParameterizedTypeReference<Result<T>> type) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.set(InternalIdentity.HEADER, InternalIdentity.signService(SERVICE_NAME));
+
+        Result<T> result = restTemplate.exchange(productServiceUrl + path, HttpMethod.POST,
+                new HttpEntity<>(changes, headers), type).getBody();
+        if (result == null || !Result.SUCCESS_CODE.equals(result.getCode())) {
+            throw new RuntimeException("商品服务库存接口调用失败: " + (result == null ? "空响应" : result.getMessage()));
+        }
+        return result;
+    }
+
+    /**
+     * 下单时使用的商品信息，价格、名称和上架状态以商品服务为准
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ProductSnapshot {
+
+        private Long id;
+
+        private String name;
+
+        private BigDecimal price;
+
+        private Long merchantId;
+
+        /**
+         * 1 为上架
+         */
+        private Integer status;
+
+        public boolean isOnSale() {
+            return Integer.valueOf(1).equals(status);
+        }
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class StockChange {
+
+        private Long productId;
+
+        private Integer quantity;
+    }
+}
@@ -0,0 +1,56 @@
+package com.canteen.order.support;
+
+import com.canteen.order.entity.Order.Status;
+import com.canteen.order.mapper.SalesRollupMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collections;
+
+/**
+ * 销售汇总维护
+ *
+ * <p>订单进入或离开计入销售额的状态（支付、退款、取消已支付订单）时，在同一事务内按下单时间和商户增减汇总桶，
+ * 订单状态更新回滚时汇总一起回滚。汇总可随时从订单表重建，结果与增量维护一致。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SalesRollupRecorder {
+
+    private final SalesRollupMapper salesRollupMapper;
+
+    /**
+     * 记录订单从 from 到 to 的状态变更，不影响销售额的变更直接忽略
+     * 加入调用方事务，写汇总失败时整个事务回滚，避免订单状态和汇总不一致
+     */
+    @Transactional
+    public void recordTransition(Long orderId, Status from, Status to) {
+        int sign = deltaOf(from, to);
+        if (sign != 0) {
+            salesRollupMapper.applyOrders(Collections.singletonList(orderId), sign);
+        }
+    }
+
+    /**
+     * 清空汇总并从订单表重新汇总
+     */
+    @Transactional
+    public int rebuild() {
+        salesRollupMapper.deleteAll();
+        int buckets = salesRollupMapper.rebuildFromOrders(OrderStatusTransitions.REVENUE_CODES);
+        log.info("销售汇总重建完成：buckets={}", buckets);
+        return buckets;
+    }
+
+    static int deltaOf(Status from, Status to) {
+        boolean wasCounted = OrderStatusTransitions.REVENUE.contains(from);
+        boolean counted = OrderStatusTransitions.REVENUE.contains(to);
+        if (counted == wasCounted) {
+            return 0;
+        }
+        return counted ? 1 : -1;
+    }
+}
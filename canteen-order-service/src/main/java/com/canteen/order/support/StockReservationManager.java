@@ -0,0 +1,561 @@
+package com.canteen.order.support;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.canteen.order.entity.Order;
+import com.canteen.order.entity.OrderItem;
+import com.canteen.order.mapper.OrderMapper;
+import com.canteen.order.support.ProductStockClient.StockChange;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 下单库存预占管理器
+ *
+ * <p>下单时按商品扣减库存：同一批次窗口内对同一商品的扣减请求合并成一条
+ * {@code stock = stock - total WHERE stock >= total} 发往商品服务，热门商品的并发下单不会逐单排队争抢同一行锁；
+ * 合并扣减失败时再逐单尝试，尽量满足能满足的订单。
+ *
+ * <p>扣减成功的数量作为待支付订单的预占记录保存在内存中（按商品ID分片计数），支付后预占转为正式扣减，取消时归还库存；
+ * 转正和归还都在订单状态变更的事务提交后执行。
+ * 每条预占记录在时间轮上挂一个超时任务，到期的订单按批锁定后用一条UPDATE取消，只为本次取消的订单归还库存，不逐单轮询数据库。
+ * 服务重启后从数据库中的待支付订单重建预占记录和超时任务。
+ */
+@Slf4j
+@Component
+public class StockReservationManager {
+
+    private static final int SHARD_COUNT = 16;
+    private static final long RETRY_DELAY_MILLIS = 1000;
+    private static final long EXPIRY_TICK_MILLIS = 1000;
+    private static final int EXPIRY_WHEEL_SIZE = 64;
+    private static final int EXPIRY_BATCH_SIZE = 500;
+
+    private final ProductStockClient stockClient;
+    private final OrderMapper orderMapper;
+    private final OrderItemBatchLoader orderItemBatchLoader;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${canteen.order.stock.batch-window-ms:5}")
+    private long batchWindowMillis = 5;
+
+    @Value("${canteen.order.stock.deduct-timeout-ms:5000}")
+    private long deductTimeoutMillis = 5000;
+
+    @Value("${canteen.order.stock.reservation-timeout-minutes:15}")
+    private long reservationTimeoutMinutes = 15;
+
+    private final Shard[] shards = new Shard[SHARD_COUNT];
+    private final Map<Long, Reservation> reservations = new ConcurrentHashMap<>();
+    private final TimingWheel<Long> expiryWheel =
+            new TimingWheel<>(EXPIRY_TICK_MILLIS, EXPIRY_WHEEL_SIZE, System.currentTimeMillis());
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "stock-batch-flusher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public StockReservationManager(ProductStockClient stockClient, OrderMapper orderMapper,
+                                   OrderItemBatchLoader orderItemBatchLoader, ApplicationEventPublisher eventPublisher,
+                                   PlatformTransactionManager transactionManager) {
+        this.stockClient = stockClient;
+        this.orderMapper = orderMapper;
+        this.orderItemBatchLoader = orderItemBatchLoader;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        for (int i = 0; i < SHARD_COUNT; i++) {
+            shards[i] = new Shard();
+        }
+    }
+
+    /**
+     * 汇总订单项中每个商品的购买数量
+     */
+    public static Map<Long, Integer> quantitiesOf(List<OrderItem> items) {
+        Map<Long, Integer> quantities = new TreeMap<>();
+        for (OrderItem item : items) {
+            if (item.getProductId() == null) {
+                continue;
+            }
+            if (item.getQuantity() == null || item.getQuantity() <= 0) {
+                throw new RuntimeException("商品数量必须大于0");
+            }
+            quantities.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+        }
+        return quantities;
+    }
+
+    /**
+     * 扣减库存，任一商品库存不足时归还已扣减的部分并抛出异常
+     * 在事务中调用时，事务回滚会自动归还库存；提交后通过 {@link StockHold#attach} 绑定的订单开始计时预占
+     */
+    public StockHold reserve(Map<Long, Integer> quantities) {
+        if (quantities.isEmpty()) {
+            return new StockHold(quantities);
+        }
+
+        List<DeductRequest> requests = new ArrayList<>(quantities.size());
+        for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+            DeductRequest request = new DeductRequest(entry.getKey(), entry.getValue());
+            Shard shard = shardOf(entry.getKey());
+            synchronized (shard) {
+                shard.deducts.computeIfAbsent(entry.getKey(), key -> new ArrayList<>()).add(request);
+            }
+            requests.add(request);
+        }
+        scheduleFlush(batchWindowMillis);
+
+        Map<Long, Integer> deducted = new HashMap<>();
+        List<Long> insufficient = new ArrayList<>();
+        boolean unavailable = false;
+        for (DeductRequest request : requests) {
+            Boolean success = await(request);
+            if (success == null) {
+                unavailable = true;
+            } else if (success) {
+                deducted.put(request.productId, request.quantity);
+            } else {
+                insufficient.add(request.productId);
+            }
+        }
+
+        if (unavailable || !insufficient.isEmpty()) {
+            restore(deducted);
+            if (!insufficient.isEmpty()) {
+                throw new RuntimeException("商品库存不足，商品ID：" + insufficient);
+            }
+            throw new RuntimeException("扣减库存失败，请稍后重试");
+        }
+
+        StockHold hold = new StockHold(quantities);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED && hold.orderId != null) {
+                        hold(hold.orderId, quantities, LocalDateTime.now());
+                    } else if (status != STATUS_COMMITTED) {
+                        restore(quantities);
+                    }
+                }
+            });
+            hold.transactional = true;
+        }
+        return hold;
+    }
+
+    /**
+     * 订单已支付，预占转为正式扣减
+     * 在事务中调用时提交后才生效，事务回滚时预占记录和超时任务保持不变
+     */
+    public void confirm(Long orderId) {
+        afterCommit(() -> takeReservation(orderId));
+    }
+
+    /**
+     * 订单已取消，待支付或已支付未制作的订单归还库存
+     * 调用方需保证只对一次成功的状态变更调用；在事务中调用时提交后才归还，事务回滚时订单状态未变，库存和预占记录保持不变
+     */
+    public void release(Long orderId, String previousStatus) {
+        afterCommit(() -> {
+            Reservation reservation = takeReservation(orderId);
+            if (!Order.Status.PENDING.getCode().equals(previousStatus)
+                    && !Order.Status.PAID.getCode().equals(previousStatus)) {
+                return;
+            }
+            try {
+                // 预占记录已被超时取消领走（或在其他实例上）时按订单项归还；超时取消锁定订单后发现已取消，不会再归还
+                Map<Long, Integer> quantities = reservation != null
+                        ? reservation.quantities
+                        : quantitiesOf(orderItemBatchLoader.loadByOrderIds(Collections.singletonList(orderId))
+                        .itemsOf(orderId));
+                restore(quantities);
+            } catch (Exception e) {
+                log.error("订单取消后归还库存失败：orderId={}", orderId, e);
+            }
+        });
+    }
+
+    /**
+     * 待支付订单当前占用的商品数量
+     */
+    public int getReservedQuantity(Long productId) {
+        Shard shard = shardOf(productId);
+        synchronized (shard) {
+            return shard.reserved.getOrDefault(productId, 0);
+        }
+    }
+
+    public int getReservationCount() {
+        return reservations.size();
+    }
+
+    /**
+     * 推进超时时间轮，批量取消到期未支付的订单并归还库存
+     */
+    @Scheduled(fixedDelay = EXPIRY_TICK_MILLIS)
+    public void expireReservations() {
+        List<Long> expired = expiryWheel.advance(System.currentTimeMillis());
+        for (int from = 0; from < expired.size(); from += EXPIRY_BATCH_SIZE) {
+            cancelExpired(expired.subList(from, Math.min(from + EXPIRY_BATCH_SIZE, expired.size())));
+        }
+    }
+
+    private void cancelExpired(List<Long> orderIds) {
+        // 先领走预占记录，本实例不再按预占计数；谁完成状态变更谁归还库存，见 release 和 cancelPending
+        Map<Long, Reservation> claimed = new LinkedHashMap<>();
+        for (Long orderId : orderIds) {
+            Reservation reservation = reservations.remove(orderId);
+            if (reservation != null) {
+                adjustReserved(reservation.quantities, -1);
+                claimed.put(orderId, reservation);
+            }
+        }
+        if (claimed.isEmpty()) {
+            return;
+        }
+
+        try {
+            List<Long> cancelled = transactionTemplate.execute(status -> cancelPending(claimed.keySet()));
+            // 只为本次取消的订单归还库存；已支付或已被其他实例、用户取消的由对应的状态变更负责
+            for (Long orderId : cancelled) {
+                restore(claimed.get(orderId).quantities);
+            }
+            if (!cancelled.isEmpty()) {
+                eventPublisher.publishEvent(OrderChangedEvent.statusChanged(cancelled,
+                        Order.Status.PENDING, Order.Status.CANCELLED));
+            }
+            log.info("超时未支付订单已批量取消：到期{}个，取消{}个", claimed.size(), cancelled.size());
+        } catch (Exception e) {
+            log.error("批量取消超时订单失败，稍后重试：orderIds={}", claimed.keySet(), e);
+            long retryAt = System.currentTimeMillis() + RETRY_DELAY_MILLIS;
+            claimed.forEach((orderId, reservation) -> {
+                if (reservations.putIfAbsent(orderId, reservation) == null) {
+                    adjustReserved(reservation.quantities, 1);
+                    reservation.timeout = expiryWheel.schedule(orderId, retryAt);
+                }
+            });
+        }
+    }
+
+    /**
+     * 锁定到期订单，把仍待支付的订单用一条UPDATE取消，返回本次取消的订单ID
+     * 行锁保证多个实例同时持有同一订单的预占记录时只有一个实例取消成功
+     */
+    private List<Long> cancelPending(Collection<Long> orderIds) {
+        List<Long> pending = new ArrayList<>();
+        for (Order state : orderMapper.lockOrderStates(orderIds)) {
+            if (Order.Status.PENDING.getCode().equals(state.getStatus())) {
+                pending.add(state.getId());
+            }
+        }
+        if (pending.isEmpty()) {
+            return pending;
+        }
+        int updated = orderMapper.transitionStatusBatch(pending, Order.Status.PENDING.getCode(),
+                Order.Status.CANCELLED.getCode(), LocalDateTime.now());
+        if (updated != pending.size()) {
+            throw new IllegalStateException("超时订单状态已被并发修改：期望" + pending.size() + "，实际" + updated);
+        }
+        return pending;
+    }
+
+    /**
+     * 启动后根据数据库中的待支付订单重建预占记录
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildReservations() {
+        try {
+            List<Order> pendingOrders = orderMapper.selectList(new LambdaQueryWrapper<Order>()
+                    .eq(Order::getStatus, Order.Status.PENDING.getCode()));
+            OrderItemBatch batch = orderItemBatchLoader.load(pendingOrders);
+            for (Order order : pendingOrders) {
+                LocalDateTime createTime = order.getCreateTime() != null ? order.getCreateTime() : LocalDateTime.now();
+                hold(order.getId(), quantitiesOf(batch.itemsOf(order.getId())), createTime);
+            }
+            log.info("库存预占记录重建完成，待支付订单数：{}", pendingOrders.size());
+        } catch (Exception e) {
+            log.error("重建库存预占记录失败", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+        flusher.shutdown();
+    }
+
+    void hold(Long orderId, Map<Long, Integer> quantities, LocalDateTime createTime) {
+        if (orderId == null || quantities.isEmpty()) {
+            return;
+        }
+        long deadline = createTime.plusMinutes(reservationTimeoutMinutes)
+                .atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        Reservation reservation = new Reservation(quantities);
+        if (reservations.putIfAbsent(orderId, reservation) == null) {
+            adjustReserved(quantities, 1);
+            reservation.timeout = expiryWheel.schedule(orderId, deadline);
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private Reservation takeReservation(Long orderId) {
+        Reservation reservation = reservations.remove(orderId);
+        if (reservation != null) {
+            adjustReserved(reservation.quantities, -1);
+            TimingWheel.Timeout<Long> timeout = reservation.timeout;
+            if (timeout != null) {
+                timeout.cancel();
+            }
+        }
+        return reservation;
+    }
+
+    private void restore(Map<Long, Integer> quantities) {
+        if (quantities.isEmpty()) {
+            return;
+        }
+        for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+            Shard shard = shardOf(entry.getKey());
+            synchronized (shard) {
+                shard.restores.merge(entry.getKey(), entry.getValue(), Integer::sum);
+            }
+        }
+        scheduleFlush(batchWindowMillis);
+    }
+
+    private Boolean await(DeductRequest request) {
+        try {
+            return request.result.get(deductTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // 放弃等待；若之后扣减成功，由批处理线程负责归还
+            if (request.result.completeExceptionally(e)) {
+                log.warn("等待扣减库存超时：productId={}", request.productId);
+                return null;
+            }
+            return await(request);
+        } catch (ExecutionException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            request.result.completeExceptionally(e);
+            return null;
+        }
+    }
+
+    private void adjustReserved(Map<Long, Integer> quantities, int sign) {
+        for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+            Shard shard = shardOf(entry.getKey());
+            synchronized (shard) {
+                int reserved = shard.reserved.getOrDefault(entry.getKey(), 0) + sign * entry.getValue();
+                if (reserved > 0) {
+                    shard.reserved.put(entry.getKey(), reserved);
+                } else {
+                    shard.reserved.remove(entry.getKey());
+                }
+            }
+        }
+    }
+
+    private void scheduleFlush(long delayMillis) {
+        if (flushScheduled.compareAndSet(false, true)) {
+            flusher.schedule(this::flush, delayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    void flush() {
+        // 先复位标记再取数据，取数据之后到达的请求会重新调度一次刷新
+        flushScheduled.set(false);
+
+        Map<Long, List<DeductRequest>> deducts = new LinkedHashMap<>();
+        Map<Long, Integer> restores = new LinkedHashMap<>();
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                deducts.putAll(shard.deducts);
+                shard.deducts.clear();
+                restores.putAll(shard.restores);
+                shard.restores.clear();
+            }
+        }
+
+        if (!restores.isEmpty()) {
+            flushRestores(restores);
+        }
+        if (!deducts.isEmpty()) {
+            flushDeducts(deducts);
+        }
+    }
+
+    private void flushRestores(Map<Long, Integer> restores) {
+        try {
+            stockClient.restore(toChanges(restores));
+        } catch (Exception e) {
+            log.error("归还库存失败，稍后重试：{}", restores, e);
+            for (Map.Entry<Long, Integer> entry : restores.entrySet()) {
+                Shard shard = shardOf(entry.getKey());
+                synchronized (shard) {
+                    shard.restores.merge(entry.getKey(), entry.getValue(), Integer::sum);
+                }
+            }
+            scheduleFlush(RETRY_DELAY_MILLIS);
+        }
+    }
+
+    private void flushDeducts(Map<Long, List<DeductRequest>> deducts) {
+        List<Long> productIds = new ArrayList<>(deducts.keySet());
+        List<StockChange> combined = new ArrayList<>(productIds.size());
+        for (Long productId : productIds) {
+            int total = 0;
+            for (DeductRequest request : deducts.get(productId)) {
+                total += request.quantity;
+            }
+            combined.add(new StockChange(productId, total));
+        }
+
+        List<DeductRequest> retries = new ArrayList<>();
+        try {
+            List<Boolean> results = stockClient.deduct(combined);
+            for (int i = 0; i < productIds.size(); i++) {
+                List<DeductRequest> requests = deducts.get(productIds.get(i));
+                if (Boolean.TRUE.equals(results.get(i))) {
+                    requests.forEach(request -> complete(request, true));
+                } else if (requests.size() == 1) {
+                    complete(requests.get(0), false);
+                } else {
+                    retries.addAll(requests);
+                }
+            }
+        } catch (Exception e) {
+            log.error("批量扣减库存失败", e);
+            deducts.values().forEach(requests -> requests.forEach(request -> request.result.completeExceptionally(e)));
+            return;
+        }
+
+        if (retries.isEmpty()) {
+            return;
+        }
+        // 合并扣减不足时逐单扣减，先到先得
+        try {
+            List<StockChange> individual = new ArrayList<>(retries.size());
+            for (DeductRequest request : retries) {
+                individual.add(new StockChange(request.productId, request.quantity));
+            }
+            List<Boolean> results = stockClient.deduct(individual);
+            for (int i = 0; i < retries.size(); i++) {
+                complete(retries.get(i), Boolean.TRUE.equals(results.get(i)));
+            }
+        } catch (Exception e) {
+            log.error("逐单扣减库存失败", e);
+            retries.forEach(request -> request.result.completeExceptionally(e));
+        }
+    }
+
+    private void complete(DeductRequest request, boolean success) {
+        if (!request.result.complete(success) && success) {
+            // 下单线程已放弃等待，归还这部分库存
+            restore(Collections.singletonMap(request.productId, request.quantity));
+        }
+    }
+
+    private List<StockChange> toChanges(Map<Long, Integer> quantities) {
+        List<StockChange> changes = new ArrayList<>(quantities.size());
+        quantities.forEach((productId, quantity) -> changes.add(new StockChange(productId, quantity)));
+        return changes;
+    }
+
+    private Shard shardOf(Long productId) {
+        return shards[(Long.hashCode(productId) & 0x7fffffff) % SHARD_COUNT];
+    }
+
+    /**
+     * 一次下单的库存扣减结果
+     */
+    public final class StockHold {
+
+        private final Map<Long, Integer> quantities;
+        private volatile Long orderId;
+        private boolean transactional;
+
+        private StockHold(Map<Long, Integer> quantities) {
+            this.quantities = quantities;
+        }
+
+        /**
+         * 绑定订单，事务提交后开始计时预占
+         */
+        public void attach(Long orderId) {
+            this.orderId = orderId;
+            if (!transactional) {
+                hold(orderId, quantities, LocalDateTime.now());
+            }
+        }
+    }
+
+    private static final class Shard {
+        private final Map<Long, List<DeductRequest>> deducts = new HashMap<>();
+        private final Map<Long, Integer> restores = new HashMap<>();
+        private final Map<Long, Integer> reserved = new HashMap<>();
+    }
+
+    private static final class DeductRequest {
+        private final Long productId;
+        private final int quantity;
+        private final CompletableFuture<Boolean> result = new CompletableFuture<>();
+
+        private DeductRequest(Long productId, int quantity) {
+            this.productId = productId;
+            this.quantity = quantity;
+        }
+    }
+
+    private static final class Reservation {
+        private final Map<Long, Integer> quantities;
+        private volatile TimingWheel.Timeout<Long> timeout;
+
+        private Reservation(Map<Long, Integer> quantities) {
+            this.quantities = quantities;
+        }
+    }
+}
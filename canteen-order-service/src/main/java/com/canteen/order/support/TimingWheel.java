@@ -0,0 +1,211 @@
+package com.canteen.order.support;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 分层时间轮
+ *
+ * <p>第0层每格一个tick，每层 wheelSize 格，上一层的一格等于下一层转一圈；超出本层范围的定时任务放到上一层，
+ * 上层的格子到期时把其中的任务重新放入下层，直到落进第0层的格子后到期。
+ * 添加、取消都是O(1)，推进时间只处理到期的格子，与挂着的定时任务总数无关；到期精度为一个tick。
+ *
+ * <p>{@link #schedule} 和 {@link Timeout#cancel} 可在任意线程调用：新任务先进入无锁队列，
+ * 由调用 {@link #advance} 的单个线程放入格子；取消只做标记，到期时跳过。
+ */
+public class TimingWheel<T> {
+
+    private final long tickMillis;
+    private final int wheelSize;
+    private final Level root;
+    private final Queue<Timeout<T>> incoming = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+
+    public TimingWheel(long tickMillis, int wheelSize, long startMillis) {
+        if (tickMillis <= 0 || wheelSize <= 1) {
+            throw new IllegalArgumentException("时间轮参数不合法");
+        }
+        this.tickMillis = tickMillis;
+        this.wheelSize = wheelSize;
+        this.root = new Level(tickMillis, startMillis);
+    }
+
+    /**
+     * 添加定时任务，deadline 为到期的毫秒时间戳；已过期的任务在下一次推进时立即到期
+     */
+    public Timeout<T> schedule(T payload, long deadlineMillis) {
+        Timeout<T> timeout = new Timeout<>(payload, deadlineMillis, pendingCount);
+        pendingCount.incrementAndGet();
+        incoming.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * 推进时钟到 nowMillis，返回这段时间内到期且未取消的任务；只能由单个线程调用
+     */
+    public List<T> advance(long nowMillis) {
+        List<T> expired = new ArrayList<>();
+        Timeout<T> timeout;
+        while ((timeout = incoming.poll()) != null) {
+            place(timeout, expired);
+        }
+
+        while (root.currentTime + tickMillis <= nowMillis) {
+            long time = root.currentTime + tickMillis;
+            root.advanceClock(time);
+            // 从高层到低层检查当前格子，上层的任务会被重新放入下层或直接到期
+            List<Level> levels = new ArrayList<>();
+            for (Level level = root; level != null; level = level.overflow) {
+                levels.add(level);
+            }
+            for (int i = levels.size() - 1; i >= 0; i--) {
+                Queue<Timeout<T>> bucket = levels.get(i).takeExpired(time);
+                if (bucket != null) {
+                    while ((timeout = bucket.poll()) != null) {
+                        place(timeout, expired);
+                    }
+                }
+            }
+        }
+        return expired;
+    }
+
+    /**
+     * 尚未到期且未取消的任务数
+     */
+    public int size() {
+        return pendingCount.get();
+    }
+
+    private void place(Timeout<T> timeout, List<T> expired) {
+        if (timeout.isCancelled()) {
+            return;
+        }
+        if (!root.add(timeout) && timeout.expire()) {
+            expired.add(timeout.payload);
+        }
+    }
+
+    /**
+     * 时间轮中的一个定时任务
+     */
+    public static final class Timeout<T> {
+
+        private static final int PENDING = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+
+        private final T payload;
+        private final long deadline;
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+        private final AtomicInteger pendingCount;
+
+        private Timeout(T payload, long deadline, AtomicInteger pendingCount) {
+            this.payload = payload;
+            this.deadline = deadline;
+            this.pendingCount = pendingCount;
+        }
+
+        /**
+         * 取消定时任务，已到期或已取消时返回false
+         */
+        public boolean cancel() {
+            if (state.compareAndSet(PENDING, CANCELLED)) {
+                pendingCount.decrementAndGet();
+                return true;
+            }
+            return false;
+        }
+
+        public boolean isCancelled() {
+            return state.get() == CANCELLED;
+        }
+
+        public T getPayload() {
+            return payload;
+        }
+
+        public long getDeadline() {
+            return deadline;
+        }
+
+        private boolean expire() {
+            if (state.compareAndSet(PENDING, EXPIRED)) {
+                pendingCount.decrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    }
+
+    private final class Level {
+
+        private final long tick;
+        private final long interval;
+        private final Queue<Timeout<T>>[] buckets;
+        private final long[] expirations;
+        private long currentTime;
+        private Level overflow;
+
+        @SuppressWarnings("unchecked")
+        private Level(long tick, long startMillis) {
+            this.tick = tick;
+            this.interval = tick * wheelSize;
+            this.buckets = new Queue[wheelSize];
+            this.expirations = new long[wheelSize];
+            for (int i = 0; i < wheelSize; i++) {
+                buckets[i] = new ArrayDeque<>();
+                expirations[i] = -1;
+            }
+            this.currentTime = startMillis - (startMillis % tick);
+        }
+
+        /**
+         * 放入本层或上层的格子，已到期（落在当前格子内）时返回false
+         */
+        private boolean add(Timeout<T> timeout) {
+            long deadline = timeout.deadline;
+            if (deadline < currentTime + tick) {
+                return false;
+            }
+            if (deadline < currentTime + interval) {
+                long virtualId = deadline / tick;
+                int index = (int) (virtualId % wheelSize);
+                buckets[index].add(timeout);
+                expirations[index] = virtualId * tick;
+                return true;
+            }
+            if (overflow == null) {
+                overflow = new Level(interval, currentTime);
+            }
+            return overflow.add(timeout);
+        }
+
+        private void advanceClock(long time) {
+            if (time >= currentTime + tick) {
+                currentTime = time - (time % tick);
+                if (overflow != null) {
+                    overflow.advanceClock(currentTime);
+                }
+            }
+        }
+
+        /**
+         * 取出到 time 为止已到期的当前格子
+         */
+        private Queue<Timeout<T>> takeExpired(long time) {
+            int index = (int) ((time / tick) % wheelSize);
+            if (expirations[index] < 0 || expirations[index] > time) {
+                return null;
+            }
+            Queue<Timeout<T>> bucket = buckets[index];
+            buckets[index] = new ArrayDeque<>();
+            expirations[index] = -1;
+            return bucket;
+        }
+    }
+}
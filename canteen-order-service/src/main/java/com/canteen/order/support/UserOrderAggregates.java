@@ -0,0 +1,160 @@
+package com.canteen.order.support;
+
+import com.canteen.order.dto.UserOrderAggregate;
+import com.canteen.order.entity.Order;
+import com.canteen.order.entity.Order.Status;
+import com.canteen.order.mapper.OrderMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 用户订单汇总缓存
+ *
+ * <p>按用户ID缓存订单数、消费金额和最近下单时间，容量固定、按最近访问淘汰。未命中时用一条聚合SQL加载，
+ * 之后监听订单新建和状态变更事件增量更新已缓存的用户，未缓存的用户不做任何查询。
+ * 加载期间有订单变更时本次结果不放入缓存；事务提交与事件处理之间的加载仍可能重复计入一次变更，
+ * 由缓存有效期兜底，过期后重新加载。
+ */
+@Slf4j
+@Component
+public class UserOrderAggregates {
+
+    private final OrderMapper orderMapper;
+    private final LongLruCache<Entry> cache;
+    private final long ttlMillis;
+    private final LongSupplier clock;
+
+    /**
+     * 每个订单事件递增一次，用于判断加载期间是否有并发变更
+     */
+    private final AtomicLong changes = new AtomicLong();
+
+    public UserOrderAggregates(OrderMapper orderMapper,
+                               @Value("${canteen.order.user-stats-cache.capacity:10000}") int capacity,
+                               @Value("${canteen.order.user-stats-cache.ttl-minutes:30}") long ttlMinutes) {
+        this(orderMapper, capacity, ttlMinutes * 60 * 1000, System::currentTimeMillis);
+    }
+
+    UserOrderAggregates(OrderMapper orderMapper, int capacity, long ttlMillis, LongSupplier clock) {
+        if (ttlMillis <= 0) {
+            throw new IllegalArgumentException("缓存有效期必须大于0");
+        }
+        this.orderMapper = orderMapper;
+        this.cache = new LongLruCache<>(capacity);
+        this.ttlMillis = ttlMillis;
+        this.clock = clock;
+    }
+
+    /**
+     * 获取用户订单汇总，未命中或已过期时查库
+     */
+    public UserOrderAggregate get(long userId) {
+        long now = clock.getAsLong();
+        Entry entry = cache.get(userId);
+        if (entry != null && entry.expireAt > now) {
+            return entry.aggregate;
+        }
+
+        long stamp = changes.get();
+        UserOrderAggregate aggregate = normalize(
+                orderMapper.selectUserAggregate(userId, OrderStatusTransitions.REVENUE_CODES));
+        if (changes.get() == stamp) {
+            cache.put(userId, new Entry(aggregate, now + ttlMillis));
+        } else {
+            cache.remove(userId);
+        }
+        return aggregate;
+    }
+
+    /**
+     * 订单变更在事务提交后更新已缓存用户的汇总，事务回滚的变更不计
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderChanged(OrderChangedEvent event) {
+        changes.incrementAndGet();
+        try {
+            Status to = Status.fromCode(event.getStatus());
+            Status from = event.getPreviousStatus();
+            if (to == null || from == to || cache.size() == 0) {
+                return;
+            }
+
+            Order created = event.getOrder();
+            if (event.getType() == OrderChangedEvent.Type.ORDER_CREATED && created != null) {
+                if (created.getUserId() != null) {
+                    apply(created.getUserId(), 1, created.getCreateTime(), created.getTotalAmount(), from, to);
+                }
+                return;
+            }
+            if (amountSign(from, to, Status.COMPLETED) == 0 && paidSign(from, to) == 0) {
+                return;
+            }
+            for (Order ref : orderMapper.selectUserRefs(event.getOrderIds())) {
+                if (ref.getUserId() != null) {
+                    apply(ref.getUserId(), 0, null, ref.getTotalAmount(), from, to);
+                }
+            }
+        } catch (Exception e) {
+            log.error("更新用户订单汇总失败：orderIds={}", event.getOrderIds(), e);
+        }
+    }
+
+    public LongLruCache.Stats stats() {
+        return cache.stats();
+    }
+
+    private void apply(long userId, long countDelta, LocalDateTime createTime, BigDecimal amount,
+                       Status from, Status to) {
+        BigDecimal value = amount != null ? amount : BigDecimal.ZERO;
+        BigDecimal completedDelta = value.multiply(BigDecimal.valueOf(amountSign(from, to, Status.COMPLETED)));
+        BigDecimal paidDelta = value.multiply(BigDecimal.valueOf(paidSign(from, to)));
+        cache.updateIfPresent(userId, entry -> {
+            UserOrderAggregate current = entry.aggregate;
+            LocalDateTime last = current.getLastOrderTime();
+            if (createTime != null && (last == null || createTime.isAfter(last))) {
+                last = createTime;
+            }
+            return new Entry(new UserOrderAggregate(
+                    current.getOrderCount() + countDelta,
+                    current.getCompletedAmount().add(completedDelta),
+                    current.getPaidAmount().add(paidDelta),
+                    last), entry.expireAt);
+        });
+    }
+
+    private static int amountSign(Status from, Status to, Status counted) {
+        return (to == counted ? 1 : 0) - (from == counted ? 1 : 0);
+    }
+
+    private static int paidSign(Status from, Status to) {
+        return SalesRollupRecorder.deltaOf(from, to);
+    }
+
+    private static UserOrderAggregate normalize(UserOrderAggregate aggregate) {
+        if (aggregate == null) {
+            return new UserOrderAggregate(0L, BigDecimal.ZERO, BigDecimal.ZERO, null);
+        }
+        return new UserOrderAggregate(
+                aggregate.getOrderCount() != null ? aggregate.getOrderCount() : 0L,
+                aggregate.getCompletedAmount() != null ? aggregate.getCompletedAmount() : BigDecimal.ZERO,
+                aggregate.getPaidAmount() != null ? aggregate.getPaidAmount() : BigDecimal.ZERO,
+                aggregate.getLastOrderTime());
+    }
+
+    private static final class Entry {
+        private final UserOrderAggregate aggregate;
+        private final long expireAt;
+
+        private Entry(UserOrderAggregate aggregate, long expireAt) {
+            this.aggregate = aggregate;
+            this.expireAt = expireAt;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.canteen.order.mapper;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.MybatisSqlSessionFactoryBuilder;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.h2.jdbcx.JdbcDataSource;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Mapper测试公共支持：H2内存库（MySQL兼容模式）+ MyBatis-Plus会话
+ */
+final class H2MapperSupport {
+
+    static final String ORDERS_DDL = "CREATE TABLE orders (" +
+            "id BIGINT PRIMARY KEY AUTO_INCREMENT, order_no VARCHAR(32) NOT NULL, user_id BIGINT NOT NULL, " +
+            "merchant_id BIGINT, total_amount DECIMAL(10,2) NOT NULL, status VARCHAR(20) NOT NULL, " +
+            "remark VARCHAR(500), request_key VARCHAR(64), version INT NOT NULL DEFAULT 0, " +
+            "create_time TIMESTAMP, update_time TIMESTAMP, " +
+            "order_date DATE GENERATED ALWAYS AS (DATE(create_time)), " +
+            "order_hour TINYINT GENERATED ALWAYS AS (HOUR(create_time)), " +
+            "UNIQUE (user_id, request_key))";
+
+    static final String ORDERS_ARCHIVE_DDL = "CREATE TABLE orders_archive (" +
+            "id BIGINT PRIMARY KEY, order_no VARCHAR(32) NOT NULL, user_id BIGINT NOT NULL, " +
+            "merchant_id BIGINT, total_amount DECIMAL(10,2) NOT NULL, status VARCHAR(20) NOT NULL, " +
+            "remark VARCHAR(500), request_key VARCHAR(64), create_time TIMESTAMP, update_time TIMESTAMP, " +
+            "archive_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
+            "order_date DATE GENERATED ALWAYS AS (DATE(create_time)), " +
+            "order_hour TINYINT GENERATED ALWAYS AS (HOUR(create_time)))";
+
+    static final String[] ORDER_DATE_INDEX_DDL = {
+            "CREATE INDEX idx_status_order_date ON orders (status, order_date)",
+            "CREATE INDEX idx_merchant_status_date ON orders (merchant_id, status, order_date)",
+            "CREATE INDEX idx_archive_status_order_date ON orders_archive (status, order_date)",
+            "CREATE INDEX idx_archive_merchant_status_date ON orders_archive (merchant_id, status, order_date)"
+    };
+
+    static final String ORDER_ITEM_ARCHIVE_DDL = "CREATE TABLE order_item_archive (" +
+            "id BIGINT PRIMARY KEY, order_id BIGINT NOT NULL, product_id BIGINT NOT NULL, " +
+            "product_name VARCHAR(100) NOT NULL, quantity INT NOT NULL, " +
+            "price DECIMAL(10,2) NOT NULL, subtotal DECIMAL(10,2) NOT NULL)";
+
+    static final String ORDER_ITEM_DDL = "CREATE TABLE order_item (" +
+            "id BIGINT PRIMARY KEY AUTO_INCREMENT, order_id BIGINT NOT NULL, product_id BIGINT NOT NULL, " +
+            "product_name VARCHAR(100) NOT NULL, quantity INT NOT NULL, " +
+            "price DECIMAL(10,2) NOT NULL, subtotal DECIMAL(10,2) NOT NULL)";
+
+    static final String PRODUCT_DDL = "CREATE TABLE product (" +
+            "id BIGINT PRIMARY KEY AUTO_INCREMENT, merchant_id BIGINT, name VARCHAR(100))";
+
+    static final String SALES_ROLLUP_DDL = "CREATE TABLE order_sales_rollup (" +
+            "stat_date DATE NOT NULL, stat_hour TINYINT NOT NULL, merchant_id BIGINT NOT NULL DEFAULT 0, " +
+            "order_count BIGINT NOT NULL DEFAULT 0, revenue DECIMAL(14,2) NOT NULL DEFAULT 0, " +
+            "PRIMARY KEY (stat_date, stat_hour, merchant_id))";
+
+    private H2MapperSupport() {
+    }
+
+    /**
+     * 新建一个独立的内存库，执行建表语句后返回自动提交的会话
+     */
+    static SqlSession openSession(String database, Class<?> mapper, String... ddl) throws SQLException {
+        return openSessionFactory(database, mapper, ddl).openSession(true);
+    }
+
+    /**
+     * 新建一个独立的内存库并返回会话工厂，用于多线程各自开会话的并发测试
+     */
+    static SqlSessionFactory openSessionFactory(String database, Class<?> mapper, String... ddl) throws SQLException {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + database + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+            for (String sql : ddl) {
+                statement.execute(sql);
+            }
+        }
+
+        MybatisConfiguration configuration = new MybatisConfiguration(
+                new Environment("test", new JdbcTransactionFactory(), dataSource));
+        configuration.setMapUnderscoreToCamelCase(true);
+        configuration.addMapper(mapper);
+        return new MybatisSqlSessionFactoryBuilder().build(configuration);
+    }
+}
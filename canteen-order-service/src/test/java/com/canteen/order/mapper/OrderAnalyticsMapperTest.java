@@ -0,0 +1,145 @@
+package com.canteen.order.mapper;
+
+import com.canteen.order.dto.SalesBucket;
+import com.canteen.order.support.OrderStatusTransitions;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.session.SqlSession;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 订单按日、按小时、按星期聚合测试类（H2内存库，MySQL兼容模式）
+ * 除结果外用 EXPLAIN 确认每条查询在 order_date 索引上做范围扫描，没有全表扫描
+ */
+public class OrderAnalyticsMapperTest {
+
+    private static final String NAMESPACE = OrderAnalyticsMapper.class.getName() + ".";
+    private static final LocalDate MONDAY = LocalDate.of(2024, 5, 20);
+
+    private SqlSession session;
+    private OrderAnalyticsMapper orderAnalyticsMapper;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        String[] ddl = new String[2 + H2MapperSupport.ORDER_DATE_INDEX_DDL.length];
+        ddl[0] = H2MapperSupport.ORDERS_DDL;
+        ddl[1] = H2MapperSupport.ORDERS_ARCHIVE_DDL;
+        System.arraycopy(H2MapperSupport.ORDER_DATE_INDEX_DDL, 0, ddl, 2, H2MapperSupport.ORDER_DATE_INDEX_DDL.length);
+        session = H2MapperSupport.openSession("order_analytics_test", OrderAnalyticsMapper.class, ddl);
+        orderAnalyticsMapper = session.getMapper(OrderAnalyticsMapper.class);
+
+        insertOrder("orders", 1, 2L, "2024-05-20 11:30:00", "12.50", "PAID");
+        insertOrder("orders", 2, 2L, "2024-05-20 11:45:00", "7.50", "COMPLETED");
+        insertOrder("orders", 3, 3L, "2024-05-21 18:05:00", "20.00", "READY");
+        insertOrder("orders", 4, 2L, "2024-05-21 12:00:00", "99.00", "CANCELLED");
+        insertOrder("orders", 5, 2L, "2024-05-26 12:10:00", "10.00", "COMPLETED");
+        insertOrder("orders_archive", 6, 2L, "2024-05-19 09:00:00", "30.00", "COMPLETED");
+    }
+
+    @AfterEach
+    void tearDown() {
+        session.close();
+    }
+
+    @Test
+    void testDailyAndHourlyAggregates() {
+        List<SalesBucket> daily = orderAnalyticsMapper.selectDaily(OrderStatusTransitions.REVENUE_CODES, null,
+                MONDAY, MONDAY.plusDays(6), false);
+        assertEquals(List.of(MONDAY, MONDAY.plusDays(1), MONDAY.plusDays(6)),
+                daily.stream().map(SalesBucket::getStatDate).collect(Collectors.toList()));
+        assertEquals(2L, daily.get(0).getOrderCount());
+        assertEquals(0, new BigDecimal("20.00").compareTo(daily.get(0).getRevenue()));
+
+        List<SalesBucket> merchantDaily = orderAnalyticsMapper.selectDaily(OrderStatusTransitions.REVENUE_CODES, 2L,
+                MONDAY.minusDays(1), MONDAY.plusDays(6), true);
+        assertEquals(List.of(MONDAY.minusDays(1), MONDAY, MONDAY.plusDays(6)),
+                merchantDaily.stream().map(SalesBucket::getStatDate).collect(Collectors.toList()));
+
+        List<SalesBucket> hourly = orderAnalyticsMapper.selectHourly(OrderStatusTransitions.REVENUE_CODES, null,
+                MONDAY, MONDAY.plusDays(6), false);
+        assertEquals(List.of(11, 12, 18), hourly.stream().map(SalesBucket::getStatHour).collect(Collectors.toList()));
+        assertEquals(2L, hourly.get(0).getOrderCount());
+    }
+
+    @Test
+    void testWeekdayAggregate() {
+        List<SalesBucket> weekdays = orderAnalyticsMapper.selectWeekday(OrderStatusTransitions.REVENUE_CODES, 2L,
+                MONDAY.minusDays(1), MONDAY.plusDays(6), true);
+        // DAYOFWEEK：1 为周日（19日、26日），2 为周一（20日）
+        assertEquals(List.of(1, 2), weekdays.stream().map(SalesBucket::getWeekday).collect(Collectors.toList()));
+        assertEquals(2L, weekdays.get(0).getOrderCount());
+        assertEquals(0, new BigDecimal("40.00").compareTo(weekdays.get(0).getRevenue()));
+    }
+
+    @Test
+    void testQueriesUseOrderDateIndexes() {
+        for (String statement : List.of("selectDaily", "selectHourly", "selectWeekday")) {
+            String allMerchants = explain(statement, null, false);
+            assertTrue(allMerchants.contains("IDX_STATUS_ORDER_DATE"), statement + ": " + allMerchants);
+            assertFalse(allMerchants.contains("tableScan"), statement + ": " + allMerchants);
+
+            String oneMerchant = explain(statement, 2L, true);
+            assertTrue(oneMerchant.contains("IDX_MERCHANT_STATUS_DATE"), statement + ": " + oneMerchant);
+            assertTrue(oneMerchant.contains("IDX_ARCHIVE_MERCHANT_STATUS_DATE"), statement + ": " + oneMerchant);
+            assertFalse(oneMerchant.contains("tableScan"), statement + ": " + oneMerchant);
+        }
+    }
+
+    /**
+     * 按映射语句生成实际SQL并绑定参数，返回 EXPLAIN 输出的执行计划
+     */
+    private String explain(String statement, Long merchantId, boolean includeArchive) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("statuses", OrderStatusTransitions.REVENUE_CODES);
+        params.put("merchantId", merchantId);
+        params.put("startDate", MONDAY);
+        params.put("endDate", MONDAY.plusDays(6));
+        params.put("includeArchive", includeArchive);
+        BoundSql boundSql = session.getConfiguration().getMappedStatement(NAMESPACE + statement).getBoundSql(params);
+
+        try (PreparedStatement prepared = session.getConnection().prepareStatement("EXPLAIN " + boundSql.getSql())) {
+            List<ParameterMapping> mappings = boundSql.getParameterMappings();
+            for (int i = 0; i < mappings.size(); i++) {
+                String property = mappings.get(i).getProperty();
+                prepared.setObject(i + 1, boundSql.hasAdditionalParameter(property)
+                        ? boundSql.getAdditionalParameter(property) : params.get(property));
+            }
+            try (ResultSet resultSet = prepared.executeQuery()) {
+                StringBuilder plan = new StringBuilder();
+                while (resultSet.next()) {
+                    plan.append(resultSet.getString(1));
+                }
+                return plan.toString();
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void insertOrder(String table, long id, Long merchantId, String createTime, String amount, String status) {
+        execute("INSERT INTO " + table + " (id, order_no, user_id, merchant_id, total_amount, status, create_time) VALUES (" +
+                id + ", 'ORDER" + id + "', 1, " + merchantId + ", " + amount + ", '" + status + "', '" + createTime + "')");
+    }
+
+    private void execute(String sql) {
+        try (Statement statement = session.getConnection().createStatement()) {
+            statement.execute(sql);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.canteen.order.mapper;
+
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.canteen.order.entity.Order;
+import com.canteen.order.entity.OrderItem;
+import com.canteen.order.support.OrderArchiver;
+import org.apache.ibatis.session.SqlSession;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 订单归档与历史查询测试类（H2内存库，MySQL兼容模式）
+ */
+public class OrderArchiveMapperTest {
+
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private SqlSession session;
+    private OrderArchiveMapper orderArchiveMapper;
+    private OrderArchiver orderArchiver;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        session = H2MapperSupport.openSession("order_archive_test", OrderArchiveMapper.class,
+                H2MapperSupport.ORDERS_DDL, H2MapperSupport.ORDER_ITEM_DDL,
+                H2MapperSupport.ORDERS_ARCHIVE_DDL, H2MapperSupport.ORDER_ITEM_ARCHIVE_DDL);
+        orderArchiveMapper = session.getMapper(OrderArchiveMapper.class);
+        orderArchiver = new OrderArchiver(orderArchiveMapper, TransactionOperations.withoutTransaction(),
+                true, 90, 2, 0, 10);
+
+        LocalDateTime old = LocalDateTime.now().minusDays(200);
+        insertOrder(1, "COMPLETED", old);
+        insertOrder(2, "CANCELLED", old.plusHours(1));
+        insertOrder(3, "COMPLETED", old.plusHours(2));
+        insertOrder(4, "PAID", old.plusHours(3));
+        insertOrder(5, "COMPLETED", LocalDateTime.now().minusDays(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        session.close();
+    }
+
+    @Test
+    void testArchiveMovesOldFinishedOrdersInBatches() {
+        assertEquals(3, orderArchiver.archive());
+
+        assertEquals(List.of(4L, 5L), ids("SELECT id FROM orders ORDER BY id"));
+        assertEquals(List.of(1L, 2L, 3L), ids("SELECT id FROM orders_archive ORDER BY id"));
+        assertEquals(List.of(40L, 50L), ids("SELECT id FROM order_item ORDER BY id"));
+        assertEquals(List.of(10L, 20L, 30L), ids("SELECT id FROM order_item_archive ORDER BY id"));
+
+        // 已归档的订单不会重复迁移
+        assertEquals(0, orderArchiver.archive());
+    }
+
+    @Test
+    void testHistoryQueriesUnionArchive() {
+        orderArchiver.archive();
+
+        List<Order> merchantOrders = orderArchiveMapper.selectHistory(2L, null, null, null);
+        assertEquals(List.of(5L, 4L, 3L, 2L, 1L), merchantOrders.stream().map(Order::getId).collect(Collectors.toList()));
+
+        Page<Order> page = orderArchiveMapper.selectHistoryPage(new Page<>(1, 10), null, "COMPLETED",
+                LocalDateTime.now().minusDays(365), null);
+        assertEquals(List.of(5L, 3L, 1L), page.getRecords().stream().map(Order::getId).collect(Collectors.toList()));
+
+        List<OrderItem> items = orderArchiveMapper.selectHistoryItems(List.of(1L, 5L));
+        assertEquals(List.of(10L, 50L), items.stream().map(OrderItem::getId).sorted().collect(Collectors.toList()));
+
+        assertTrue(orderArchiver.reachesArchive(null));
+        assertTrue(orderArchiver.reachesArchive(LocalDateTime.now().minusDays(91)));
+        assertFalse(orderArchiver.reachesArchive(LocalDateTime.now().minusDays(30)));
+    }
+
+    private void insertOrder(long id, String status, LocalDateTime createTime) {
+        String time = createTime.format(FORMATTER);
+        execute("INSERT INTO orders (id, order_no, user_id, merchant_id, total_amount, status, create_time, update_time) " +
+                "VALUES (" + id + ", 'ORDER" + id + "', 1, 2, 10.00, '" + status + "', '" + time + "', '" + time + "')");
+        execute("INSERT INTO order_item (id, order_id, product_id, product_name, quantity, price, subtotal) " +
+                "VALUES (" + id * 10 + ", " + id + ", 9, 'noodles', 1, 10.00, 10.00)");
+    }
+
+    private List<Long> ids(String sql) {
+        try (Statement statement = session.getConnection().createStatement();
+             ResultSet resultSet = statement.executeQuery(sql)) {
+            List<Long> ids = new ArrayList<>();
+            while (resultSet.next()) {
+                ids.add(resultSet.getLong(1));
+            }
+            return ids;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void execute(String sql) {
+        try (Statement statement = session.getConnection().createStatement()) {
+            statement.execute(sql);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.canteen.order.mapper;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.canteen.order.support.OrderArchiver;
+import com.canteen.order.support.OrderCsvExporter;
+import org.apache.ibatis.session.SqlSession;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 订单游标导出测试类（H2内存库，MySQL兼容模式）
+ */
+public class OrderExportMapperTest {
+
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private SqlSession session;
+    private OrderArchiver orderArchiver;
+    private OrderCsvExporter orderCsvExporter;
+    private LocalDateTime recent;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        session = H2MapperSupport.openSession("order_export_test", OrderExportMapper.class,
+                H2MapperSupport.ORDERS_DDL, H2MapperSupport.ORDER_ITEM_DDL,
+                H2MapperSupport.ORDERS_ARCHIVE_DDL, H2MapperSupport.ORDER_ITEM_ARCHIVE_DDL);
+        session.getConfiguration().addMapper(OrderArchiveMapper.class);
+        orderArchiver = new OrderArchiver(session.getMapper(OrderArchiveMapper.class),
+                TransactionOperations.withoutTransaction(), true, 90, 500, 0, 10);
+        orderCsvExporter = new OrderCsvExporter(session.getMapper(OrderExportMapper.class), orderArchiver,
+                TransactionOperations.withoutTransaction());
+
+        LocalDateTime old = LocalDateTime.now().minusDays(200).withNano(0);
+        recent = LocalDateTime.now().minusDays(1).withNano(0);
+        insertOrder(1, 2L, "COMPLETED", old, null);
+        insertItem(1, "红烧肉", 1, "12.00");
+        insertItem(1, "米饭", 2, "1.50");
+        insertOrder(2, 3L, "PAID", recent, "少辣, \"多葱\"");
+        insertItem(2, "牛肉面", 1, "18.00");
+        insertOrder(3, 2L, "PENDING", recent.plusMinutes(5), "=HYPERLINK(\"http://x.cn\",\"点我\")");
+        assertEquals(1, orderArchiver.archive());
+    }
+
+    @AfterEach
+    void tearDown() {
+        session.close();
+    }
+
+    @Test
+    void testExportReadsArchiveThenHotTable() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long rows = orderCsvExporter.export(out, true, null, null, null, null);
+
+        String csv = new String(new GZIPInputStream(new ByteArrayInputStream(out.toByteArray())).readAllBytes(),
+                StandardCharsets.UTF_8);
+        List<String> lines = csv.lines().toList();
+        assertEquals(4, rows);
+        assertEquals(5, lines.size());
+        assertTrue(lines.get(0).startsWith("\uFEFF订单ID,订单号"));
+        // 已归档的订单在前，每个订单项一行，没有订单项的订单保留一行
+        assertTrue(lines.get(1).startsWith("1,ORDER1,1,2,"));
+        assertTrue(lines.get(1).endsWith(",红烧肉,1,12.00,12.00"));
+        assertTrue(lines.get(2).endsWith(",米饭,2,1.50,3.00"));
+        assertTrue(lines.get(3).contains(",\"少辣, \"\"多葱\"\"\"," + FORMATTER.format(recent) + ","));
+        assertTrue(lines.get(4).startsWith("3,ORDER3,1,2,"));
+        // 公式字符开头的文本加单引号前缀后再按规则转义
+        assertTrue(lines.get(4).contains(",\"'=HYPERLINK(\"\"http://x.cn\"\",\"\"点我\"\")\","));
+        assertTrue(lines.get(4).endsWith(",,,,,"));
+    }
+
+    @Test
+    void testRecentRangeSkipsArchiveAndFiltersMerchant() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long rows = orderCsvExporter.export(out, false, 2L, null, recent.toLocalDate().atStartOfDay(), null);
+
+        List<String> lines = new String(out.toByteArray(), StandardCharsets.UTF_8).lines().toList();
+        assertEquals(1, rows);
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(1).startsWith("3,ORDER3,1,2,"));
+    }
+
+    @Test
+    void testOnlyMysqlExportStreamsRowByRow() {
+        MybatisConfiguration mysql = new MybatisConfiguration();
+        mysql.setDatabaseId("mysql");
+        mysql.addMapper(OrderExportMapper.class);
+        String statementId = OrderExportMapper.class.getName() + ".streamOrders";
+        assertEquals(Integer.MIN_VALUE, mysql.getMappedStatement(statementId).getFetchSize());
+        assertEquals(1000, session.getConfiguration().getMappedStatement(statementId).getFetchSize());
+    }
+
+    private void insertOrder(long id, Long merchantId, String status, LocalDateTime createTime, String remark) {
+        execute("INSERT INTO orders (id, order_no, user_id, merchant_id, total_amount, status, remark, create_time) VALUES (" +
+                id + ", 'ORDER" + id + "', 1, " + merchantId + ", 15.00, '" + status + "', " +
+                (remark == null ? "NULL" : "'" + remark + "'") + ", '" + FORMATTER.format(createTime) + "')");
+    }
+
+    private void insertItem(long orderId, String productName, int quantity, String price) {
+        execute("INSERT INTO order_item (order_id, product_id, product_name, quantity, price, subtotal) VALUES (" +
+                orderId + ", 10, '" + productName + "', " + quantity + ", " + price + ", " + price + " * " + quantity + ")");
+    }
+
+    private void execute(String sql) {
+        try (Statement statement = session.getConnection().createStatement()) {
+            statement.execute(sql);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.canteen.order.mapper;
+
+import com.canteen.order.entity.OrderItem;
+import org.apache.ibatis.session.SqlSession;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 订单详情批量插入测试类（H2内存库，MySQL兼容模式）
+ */
+public class OrderItemMapperTest {
+
+    private SqlSession session;
+    private OrderItemMapper orderItemMapper;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        session = H2MapperSupport.openSession("order_item_test", OrderItemMapper.class, H2MapperSupport.ORDER_ITEM_DDL);
+        orderItemMapper = session.getMapper(OrderItemMapper.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        session.close();
+    }
+
+    @Test
+    void testInsertBatchWritesAllItemsAndReturnsKeys() {
+        List<OrderItem> items = new ArrayList<>();
+        for (int i = 1; i <= 6; i++) {
+            items.add(item(100L, (long) i, i));
+        }
+
+        assertEquals(6, orderItemMapper.insertBatch(items));
+
+        for (OrderItem item : items) {
+            assertNotNull(item.getId());
+            OrderItem stored = orderItemMapper.selectById(item.getId());
+            assertEquals(item.getProductId(), stored.getProductId());
+            assertEquals(0, item.getSubtotal().compareTo(stored.getSubtotal()));
+        }
+        assertEquals(6, items.stream().map(OrderItem::getId).distinct().count());
+    }
+
+    @Test
+    void testInsertBatchSingleItem() {
+        OrderItem item = item(200L, 9L, 2);
+
+        assertEquals(1, orderItemMapper.insertBatch(List.of(item)));
+        assertNotNull(item.getId());
+        assertEquals(200L, orderItemMapper.selectById(item.getId()).getOrderId());
+    }
+
+    private static OrderItem item(Long orderId, Long productId, int quantity) {
+        OrderItem item = new OrderItem();
+        item.setOrderId(orderId);
+        item.setProductId(productId);
+        item.setProductName("餐品" + productId);
+        item.setQuantity(quantity);
+        item.setPrice(new BigDecimal("12.50"));
+        item.setSubtotal(item.getPrice().multiply(new BigDecimal(quantity)));
+        return item;
+    }
+}
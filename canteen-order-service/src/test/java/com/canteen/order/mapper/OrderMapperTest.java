@@ -0,0 +1,173 @@
+package com.canteen.order.mapper;
+
+import com.canteen.order.dto.UserOrderAggregate;
+import com.canteen.order.entity.Order;
+import com.canteen.order.support.OrderStatusTransitions;
+import com.canteen.order.support.OrderStatusUpdater;
+import org.apache.ibatis.session.SqlSession;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 订单状态条件更新测试类（H2内存库，MySQL兼容模式）
+ */
+public class OrderMapperTest {
+
+    private static final Long MERCHANT_ID = 2L;
+
+    private SqlSession session;
+    private OrderMapper orderMapper;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        session = H2MapperSupport.openSession("order_status_test", OrderMapper.class,
+                H2MapperSupport.ORDERS_DDL, H2MapperSupport.ORDERS_ARCHIVE_DDL, H2MapperSupport.ORDER_ITEM_DDL,
+                H2MapperSupport.PRODUCT_DDL);
+        orderMapper = session.getMapper(OrderMapper.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        session.close();
+    }
+
+    @Test
+    void testTransitionSucceedsOnlyFromAllowedStatus() {
+        Long orderId = insertOrder(MERCHANT_ID, Order.Status.PAID);
+
+        assertTrue(orderMapper.transition(orderId, MERCHANT_ID, Order.Status.PREPARING));
+        // 同一转换重复执行时前置状态已不满足，不会覆盖
+        assertFalse(orderMapper.transition(orderId, MERCHANT_ID, Order.Status.PREPARING));
+        assertFalse(orderMapper.transition(orderId, MERCHANT_ID, Order.Status.COMPLETED));
+        assertTrue(orderMapper.transition(orderId, MERCHANT_ID, Order.Status.READY));
+        assertEquals("READY", orderMapper.selectById(orderId).getStatus());
+    }
+
+    @Test
+    void testTransitionChecksMerchantOwnership() {
+        Long orderId = insertOrder(MERCHANT_ID, Order.Status.PAID);
+        assertFalse(orderMapper.transition(orderId, 3L, Order.Status.PREPARING));
+
+        // 未回填商户ID的历史订单按订单项所属商品判断
+        Long legacyOrderId = insertOrder(null, Order.Status.PAID);
+        execute("INSERT INTO product (id, merchant_id, name) VALUES (9, 2, 'noodles')");
+        execute("INSERT INTO order_item (order_id, product_id, product_name, quantity, price, subtotal) " +
+                "VALUES (" + legacyOrderId + ", 9, 'noodles', 1, 8.00, 8.00)");
+        assertFalse(orderMapper.transition(legacyOrderId, 3L, Order.Status.PREPARING));
+        assertTrue(orderMapper.transition(legacyOrderId, MERCHANT_ID, Order.Status.PREPARING));
+    }
+
+    @Test
+    void testTransitionFromReportsPreviousStatusAndAppendsRemark() {
+        Long orderId = insertOrder(MERCHANT_ID, Order.Status.PAID);
+
+        OrderStatusUpdater updater = new OrderStatusUpdater(orderMapper);
+        Order.Status previous = updater.transitionFrom(orderId, null, OrderStatusTransitions.USER_CANCELLABLE,
+                Order.Status.CANCELLED, " [取消]");
+        assertEquals(Order.Status.PAID, previous);
+        assertNull(updater.transitionFrom(orderId, null, OrderStatusTransitions.USER_CANCELLABLE,
+                Order.Status.CANCELLED, " [取消]"));
+
+        Order order = orderMapper.selectById(orderId);
+        assertEquals("CANCELLED", order.getStatus());
+        assertEquals("少辣 [取消]", order.getRemark());
+        assertEquals(0, orderMapper.transitionStatus(orderId, null, OrderStatusTransitions.REFUNDABLE_CODES,
+                "CANCELLED", null, LocalDateTime.now()));
+    }
+
+    @Test
+    void testBatchTransitionSkipsOrdersThatMovedOn() {
+        Long pending = insertOrder(MERCHANT_ID, Order.Status.PENDING);
+        Long paid = insertOrder(MERCHANT_ID, Order.Status.PAID);
+
+        assertEquals(1, orderMapper.transitionStatusBatch(List.of(pending, paid), "PENDING", "CANCELLED",
+                LocalDateTime.now()));
+        assertEquals(List.of(pending), orderMapper.selectIdsByStatus(List.of(pending, paid), "CANCELLED"));
+    }
+
+    @Test
+    void testLockOrderStatesAndLegacyOwnership() {
+        Long owned = insertOrder(MERCHANT_ID, Order.Status.PAID);
+        Long legacy = insertOrder(null, Order.Status.PREPARING);
+        Long foreignLegacy = insertOrder(null, Order.Status.PAID);
+        execute("INSERT INTO product (id, merchant_id, name) VALUES (9, 2, 'noodles'), (10, 3, 'rice')");
+        execute("INSERT INTO order_item (order_id, product_id, product_name, quantity, price, subtotal) VALUES (" +
+                legacy + ", 9, 'noodles', 1, 8.00, 8.00), (" + legacy + ", 9, 'noodles', 2, 8.00, 16.00), (" +
+                foreignLegacy + ", 10, 'rice', 1, 2.00, 2.00)");
+
+        List<Order> states = orderMapper.lockOrderStates(List.of(owned, legacy, foreignLegacy, 999L));
+        assertEquals(3, states.size());
+        Order ownedState = states.stream().filter(order -> order.getId().equals(owned)).findFirst().orElseThrow();
+        assertEquals(MERCHANT_ID, ownedState.getMerchantId());
+        assertEquals("PAID", ownedState.getStatus());
+
+        assertEquals(List.of(legacy), orderMapper.selectMerchantItemOrderIds(List.of(legacy, foreignLegacy), MERCHANT_ID));
+    }
+
+    @Test
+    void testUserAggregateSumsByStatusInOneQuery() {
+        insertOrder(MERCHANT_ID, Order.Status.PENDING);
+        insertOrder(MERCHANT_ID, Order.Status.PAID);
+        insertOrder(MERCHANT_ID, Order.Status.COMPLETED);
+        insertOrder(MERCHANT_ID, Order.Status.CANCELLED);
+
+        UserOrderAggregate aggregate = orderMapper.selectUserAggregate(1L, OrderStatusTransitions.REVENUE_CODES);
+        assertEquals(4L, aggregate.getOrderCount());
+        assertEquals(0, new BigDecimal("8.00").compareTo(aggregate.getCompletedAmount()));
+        assertEquals(0, new BigDecimal("16.00").compareTo(aggregate.getPaidAmount()));
+        assertNotNull(aggregate.getLastOrderTime());
+
+        UserOrderAggregate empty = orderMapper.selectUserAggregate(99L, OrderStatusTransitions.REVENUE_CODES);
+        assertEquals(0L, empty.getOrderCount());
+        assertEquals(0, BigDecimal.ZERO.compareTo(empty.getPaidAmount()));
+        assertNull(empty.getLastOrderTime());
+    }
+
+    @Test
+    void testStatusCountsIncludeArchivedOrders() {
+        insertOrder(MERCHANT_ID, Order.Status.PAID);
+        insertOrder(3L, Order.Status.COMPLETED);
+        execute("INSERT INTO orders_archive (id, order_no, user_id, merchant_id, total_amount, status, create_time) " +
+                "VALUES (900, 'ARCHIVED900', 1, " + MERCHANT_ID + ", 8.00, 'COMPLETED', CURRENT_TIMESTAMP)");
+
+        Map<String, Long> all = new HashMap<>();
+        orderMapper.countGroupByStatus(null).forEach(row -> all.put(row.getStatus(), row.getCount()));
+        assertEquals(Map.of("PAID", 1L, "COMPLETED", 2L), all);
+
+        Map<String, Long> merchant = new HashMap<>();
+        orderMapper.countGroupByStatus(MERCHANT_ID).forEach(row -> merchant.put(row.getStatus(), row.getCount()));
+        assertEquals(Map.of("PAID", 1L, "COMPLETED", 1L), merchant);
+    }
+
+    private Long insertOrder(Long merchantId, Order.Status status) {
+        Order order = new Order();
+        order.setOrderNo("ORDER" + System.nanoTime());
+        order.setUserId(1L);
+        order.setMerchantId(merchantId);
+        order.setTotalAmount(new BigDecimal("8.00"));
+        order.setStatus(status.getCode());
+        order.setRemark("少辣");
+        order.setCreateTime(LocalDateTime.now());
+        order.setUpdateTime(LocalDateTime.now());
+        orderMapper.insert(order);
+        return order.getId();
+    }
+
+    private void execute(String sql) {
+        try (Statement statement = session.getConnection().createStatement()) {
+            statement.execute(sql);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.canteen.order.mapper;
+
+import com.canteen.order.entity.Order;
+import com.canteen.order.support.OrderStatusTransitions;
+import com.canteen.order.support.OrderStatusUpdater;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.TransactionIsolationLevel;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 订单乐观并发更新测试类：多线程在各自事务内同时修改同一订单，验证没有丢失更新，快照过期后能重试成功
+ */
+public class OrderVersionContentionTest {
+
+    private static final Long MERCHANT_ID = 2L;
+    private static final int THREADS = 16;
+    private static final int TASKS = 400;
+
+    private SqlSessionFactory sessionFactory;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        sessionFactory = H2MapperSupport.openSessionFactory("order_version_test", OrderMapper.class,
+                H2MapperSupport.ORDERS_DDL, H2MapperSupport.ORDER_ITEM_DDL, H2MapperSupport.PRODUCT_DDL);
+    }
+
+    @Test
+    void testConcurrentTransitionsFormOneChain() throws Exception {
+        Long orderId = insertOrder();
+
+        // 接单、出餐、完成、取消交替争抢同一订单
+        List<Order.Status> previous = hammer(task -> inTransaction(orderId, updater -> {
+            switch (task % 4) {
+                case 0:
+                    return updater.transitionFrom(orderId, MERCHANT_ID, Set.of(Order.Status.PAID),
+                            Order.Status.PREPARING, null);
+                case 1:
+                    return updater.transitionFrom(orderId, MERCHANT_ID, Set.of(Order.Status.PREPARING),
+                            Order.Status.READY, null);
+                case 2:
+                    return updater.transitionFrom(orderId, MERCHANT_ID, Set.of(Order.Status.READY),
+                            Order.Status.COMPLETED, null);
+                default:
+                    return updater.transitionFrom(orderId, null, OrderStatusTransitions.REFUNDABLE,
+                            Order.Status.CANCELLED, " [取消" + task + "]");
+            }
+        }));
+
+        // 每个前置状态最多被一个线程成功推进，成功次数与版本号一致
+        Map<Order.Status, Integer> successes = new EnumMap<>(Order.Status.class);
+        for (Order.Status status : previous) {
+            successes.merge(status, 1, Integer::sum);
+        }
+        successes.values().forEach(count -> assertEquals(1, count));
+
+        Order order = selectOrder(orderId);
+        assertEquals(previous.size(), order.getVersion());
+        assertTrue(previous.contains(Order.Status.PAID));
+        if (Order.Status.CANCELLED.getCode().equals(order.getStatus())) {
+            assertTrue(order.getRemark().matches("少辣 \\[取消\\d+]"));
+        } else {
+            assertEquals(Order.Status.COMPLETED.getCode(), order.getStatus());
+            assertEquals(3, previous.size());
+            assertEquals("少辣", order.getRemark());
+        }
+    }
+
+    @Test
+    void testConcurrentCancelsSucceedOnce() throws Exception {
+        Long orderId = insertOrder();
+
+        List<Order.Status> previous = hammer(task -> inTransaction(orderId, updater -> updater.transitionFrom(orderId, null,
+                OrderStatusTransitions.USER_CANCELLABLE, Order.Status.CANCELLED, " [取消" + task + "]")));
+
+        assertEquals(List.of(Order.Status.PAID), previous);
+        Order order = selectOrder(orderId);
+        assertEquals(1, order.getVersion());
+        assertTrue(order.getRemark().matches("少辣 \\[取消\\d+]"));
+    }
+
+    @Test
+    void testConflictInsideSnapshotRetriesFromCurrentRead() {
+        Long orderId = insertOrder();
+
+        Order.Status refunded = inTransaction(orderId, updater -> {
+            // 退款事务已建立快照，商户随后接单并提交
+            Order.Status accepted = inTransaction(orderId, accept -> accept.transitionFrom(orderId, MERCHANT_ID,
+                    Set.of(Order.Status.PAID), Order.Status.PREPARING, null));
+            assertEquals(Order.Status.PAID, accepted);
+            // 快照中仍是旧版本号，冲突后按当前读重试，制作中的订单可以退款
+            return updater.transitionFrom(orderId, MERCHANT_ID, OrderStatusTransitions.REFUNDABLE,
+                    Order.Status.CANCELLED, " [退款]");
+        });
+        assertEquals(Order.Status.PREPARING, refunded);
+
+        Order order = selectOrder(orderId);
+        assertEquals(Order.Status.CANCELLED.getCode(), order.getStatus());
+        assertEquals(2, order.getVersion());
+        assertEquals("少辣 [退款]", order.getRemark());
+    }
+
+    /**
+     * 在显式事务内执行，按 MySQL 可重复读的语义：事务内首次读取建立快照，之后的普通读取都返回快照，
+     * 更新和加锁读取是当前读。H2 的可重复读在更新快照之后被其他事务修改过的行时直接报错回滚，与 InnoDB 不同，
+     * 所以连接使用读已提交，快照由这里固定
+     */
+    private Order.Status inTransaction(Long orderId, Work work) {
+        try (SqlSession session = sessionFactory.openSession(TransactionIsolationLevel.READ_COMMITTED)) {
+            OrderMapper orderMapper = session.getMapper(OrderMapper.class);
+            OrderMapper snapshotView = mock(OrderMapper.class, delegatesTo(orderMapper));
+            doReturn(orderMapper.selectVersionState(orderId)).when(snapshotView).selectVersionState(orderId);
+            Order.Status previous = work.run(new OrderStatusUpdater(snapshotView));
+            session.commit();
+            return previous;
+        }
+    }
+
+    /**
+     * 所有线程同时开始执行任务，返回成功推进时的前置状态
+     */
+    private List<Order.Status> hammer(Task task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Order.Status>> futures = new ArrayList<>();
+            for (int i = 0; i < TASKS; i++) {
+                int index = i;
+                futures.add(executor.submit(() -> {
+                    start.await(5, TimeUnit.SECONDS);
+                    return task.run(index);
+                }));
+            }
+            start.countDown();
+
+            List<Order.Status> previous = new ArrayList<>();
+            for (Future<Order.Status> future : futures) {
+                Order.Status status = future.get(30, TimeUnit.SECONDS);
+                if (status != null) {
+                    previous.add(status);
+                }
+            }
+            return previous;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Long insertOrder() {
+        try (SqlSession session = sessionFactory.openSession(true)) {
+            Order order = new Order();
+            order.setOrderNo("ORDER" + System.nanoTime());
+            order.setUserId(1L);
+            order.setMerchantId(MERCHANT_ID);
+            order.setTotalAmount(new BigDecimal("8.00"));
+            order.setStatus(Order.Status.PAID.getCode());
+            order.setRemark("少辣");
+            order.setCreateTime(LocalDateTime.now());
+            order.setUpdateTime(LocalDateTime.now());
+            session.getMapper(OrderMapper.class).insert(order);
+            return order.getId();
+        }
+    }
+
+    private Order selectOrder(Long orderId) {
+        try (SqlSession session = sessionFactory.openSession(true)) {
+            return session.getMapper(OrderMapper.class).selectById(orderId);
+        }
+    }
+
+    private interface Task {
+        Order.Status run(int index);
+    }
+
+    private interface Work {
+        Order.Status run(OrderStatusUpdater updater);
+    }
+}
@@ -0,0 +1,116 @@
+package com.canteen.order.mapper;
+
+import com.canteen.order.dto.SalesBucket;
+import com.canteen.order.support.OrderStatusTransitions;
+import org.apache.ibatis.session.SqlSession;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 销售汇总增量维护与重建测试类（H2内存库，MySQL兼容模式）
+ */
+public class SalesRollupMapperTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 5, 20);
+
+    private SqlSession session;
+    private SalesRollupMapper salesRollupMapper;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        session = H2MapperSupport.openSession("sales_rollup_test", SalesRollupMapper.class,
+                H2MapperSupport.ORDERS_DDL, H2MapperSupport.ORDERS_ARCHIVE_DDL, H2MapperSupport.SALES_ROLLUP_DDL);
+        salesRollupMapper = session.getMapper(SalesRollupMapper.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        session.close();
+    }
+
+    @Test
+    void testIncrementalUpdatesMatchRebuild() {
+        insertOrder(1, 2L, "2024-05-20 11:30:00", "12.50", "PAID");
+        insertOrder(2, 2L, "2024-05-20 11:45:00", "8.00", "PENDING");
+        insertOrder(3, null, "2024-05-20 12:05:00", "20.00", "COMPLETED");
+        insertOrder(4, 3L, "2024-05-21 09:00:00", "15.00", "CANCELLED");
+
+        // 按状态变更的顺序增量维护：1、3、4 支付，2 仍待支付，4 随后退款
+        salesRollupMapper.applyOrders(List.of(1L, 3L), 1);
+        salesRollupMapper.applyOrders(List.of(4L), 1);
+        salesRollupMapper.applyOrders(List.of(4L), -1);
+        List<String> incremental = snapshot();
+
+        salesRollupMapper.deleteAll();
+        salesRollupMapper.rebuildFromOrders(OrderStatusTransitions.REVENUE_CODES);
+        List<String> rebuilt = snapshot();
+
+        assertEquals(List.of("2024-05-20/11/2/1/12.50", "2024-05-20/12/0/1/20.00", "2024-05-21/9/3/0/0.00"),
+                incremental);
+        assertEquals(List.of("2024-05-20/11/2/1/12.50", "2024-05-20/12/0/1/20.00"), rebuilt);
+    }
+
+    @Test
+    void testRangeQueriesReadBuckets() {
+        insertOrder(1, 2L, "2024-05-20 11:30:00", "12.50", "PAID");
+        insertOrder(2, 2L, "2024-05-20 11:50:00", "7.50", "READY");
+        insertOrder(3, 3L, "2024-05-20 18:00:00", "30.00", "COMPLETED");
+        insertOrder(4, 3L, "2024-05-22 08:00:00", "5.00", "PAID");
+        salesRollupMapper.rebuildFromOrders(OrderStatusTransitions.REVENUE_CODES);
+
+        assertEquals(0, new BigDecimal("50.00").compareTo(salesRollupMapper.sumRevenue(DAY, DAY)));
+        assertEquals(0, new BigDecimal("55.00").compareTo(salesRollupMapper.sumRevenue(null, null)));
+        assertEquals(0, BigDecimal.ZERO.compareTo(salesRollupMapper.sumRevenue(DAY.plusDays(1), DAY.plusDays(1))));
+
+        List<SalesBucket> daily = salesRollupMapper.selectDaily(DAY, DAY.plusDays(2));
+        assertEquals(2, daily.size());
+        assertEquals(DAY, daily.get(0).getStatDate());
+        assertEquals(3L, daily.get(0).getOrderCount());
+
+        List<SalesBucket> hourly = salesRollupMapper.selectHourly(DAY);
+        assertEquals(List.of(11, 18), List.of(hourly.get(0).getStatHour(), hourly.get(1).getStatHour()));
+        assertEquals(2L, hourly.get(0).getOrderCount());
+
+        List<SalesBucket> merchants = salesRollupMapper.selectByMerchant(DAY, DAY.plusDays(2));
+        assertEquals(3L, merchants.get(0).getMerchantId());
+        assertEquals(0, new BigDecimal("35.00").compareTo(merchants.get(0).getRevenue()));
+    }
+
+    private void insertOrder(long id, Long merchantId, String createTime, String amount, String status) {
+        execute("INSERT INTO orders (id, order_no, user_id, merchant_id, total_amount, status, create_time) VALUES (" +
+                id + ", 'ORDER" + id + "', 1, " + merchantId + ", " + amount + ", '" + status + "', '" + createTime + "')");
+    }
+
+    private List<String> snapshot() {
+        List<String> rows = new ArrayList<>();
+        try (Statement statement = session.getConnection().createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT stat_date, stat_hour, merchant_id, order_count, revenue " +
+                     "FROM order_sales_rollup ORDER BY stat_date, stat_hour, merchant_id")) {
+            while (resultSet.next()) {
+                rows.add(resultSet.getDate(1) + "/" + resultSet.getInt(2) + "/" + resultSet.getLong(3) + "/" +
+                        resultSet.getLong(4) + "/" + resultSet.getBigDecimal(5));
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        return rows;
+    }
+
+    private void execute(String sql) {
+        try (Statement statement = session.getConnection().createStatement()) {
+            statement.execute(sql);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.canteen.order.service.impl;
+
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.canteen.order.dto.SalesBucket;
+import com.canteen.order.entity.Order;
+import com.canteen.order.entity.OrderItem;
+import com.canteen.order.mapper.OrderAnalyticsMapper;
+import com.canteen.order.mapper.OrderArchiveMapper;
+import com.canteen.order.mapper.OrderItemMapper;
+import com.canteen.order.mapper.OrderMapper;
+import com.canteen.order.mapper.SalesRollupMapper;
+import com.canteen.order.support.OrderArchiver;
+import com.canteen.order.support.OrderItemBatchLoader;
+import com.canteen.order.support.OrderStatusCounters;
+import com.canteen.order.support.SalesRollupRecorder;
+import com.canteen.order.support.UserOrderAggregates;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+/**
+ * 管理员订单服务测试类
+ */
+public class AdminOrderServiceImplTest {
+
+    @Mock
+    private OrderMapper orderMapper;
+
+    @Mock
+    private OrderItemMapper orderItemMapper;
+
+    @Mock
+    private SalesRollupMapper salesRollupMapper;
+
+    @Mock
+    private OrderArchiveMapper orderArchiveMapper;
+
+    @Mock
+    private OrderAnalyticsMapper orderAnalyticsMapper;
+
+    private AdminOrderServiceImpl adminOrderService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        adminOrderService = new AdminOrderServiceImpl(orderMapper, new OrderItemBatchLoader(orderItemMapper),
+                salesRollupMapper, new SalesRollupRecorder(salesRollupMapper), new OrderStatusCounters(orderMapper),
+                new UserOrderAggregates(orderMapper, 100, 30), orderArchiveMapper, orderAnalyticsMapper,
+                new OrderArchiver(orderArchiveMapper, TransactionOperations.withoutTransaction(), true, 90, 500, 0, 10));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testAdminOrderListLoadsItemsOncePerPage() {
+        List<Order> orders = new ArrayList<>();
+        List<OrderItem> items = new ArrayList<>();
+        for (long id = 1; id <= 50; id++) {
+            orders.add(order(id));
+            items.add(item(id * 10, id));
+            items.add(item(id * 10 + 1, id));
+        }
+        when(orderMapper.selectPage(any(), any())).thenAnswer(invocation -> {
+            Page<Order> page = invocation.getArgument(0);
+            page.setRecords(orders);
+            page.setTotal(500);
+            return page;
+        });
+        when(orderItemMapper.selectList(any())).thenReturn(items);
+
+        Map<String, Object> result = adminOrderService.getAdminOrderList(1, 50, null, null, null);
+
+        // 50 条订单的一页：1 次分页查询 + 1 次订单项查询
+        verify(orderMapper, times(1)).selectPage(any(), any());
+        verify(orderItemMapper, times(1)).selectList(any());
+
+        List<Map<String, Object>> records = (List<Map<String, Object>>) result.get("records");
+        assertEquals(50, records.size());
+        for (Map<String, Object> record : records) {
+            List<OrderItem> orderItems = (List<OrderItem>) record.get("items");
+            assertEquals(2, orderItems.size());
+            assertTrue(orderItems.stream().allMatch(item -> item.getOrderId().equals(record.get("id"))));
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testAdminOrderListUnionsArchiveOnlyForOldRange() {
+        when(orderMapper.selectPage(any(), any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(orderArchiveMapper.selectHistoryPage(any(), any(), any(), any(), any())).thenAnswer(invocation -> {
+            Page<Order> page = invocation.getArgument(0);
+            page.setRecords(List.of(order(1L)));
+            page.setTotal(1);
+            return page;
+        });
+        when(orderArchiveMapper.selectHistoryItems(List.of(1L))).thenReturn(List.of(item(10L, 1L)));
+
+        LocalDate today = LocalDate.now();
+        adminOrderService.getAdminOrderList(1, 20, null, today.minusDays(7).toString(), today.toString());
+        verify(orderArchiveMapper, never()).selectHistoryPage(any(), any(), any(), any(), any());
+
+        Map<String, Object> result = adminOrderService.getAdminOrderList(1, 20, "COMPLETED",
+                today.minusYears(1).toString(), today.toString());
+        verify(orderMapper, times(1)).selectPage(any(), any());
+        verify(orderArchiveMapper, times(1)).selectHistoryPage(any(), isNull(), eq("COMPLETED"), any(), any());
+        List<Map<String, Object>> records = (List<Map<String, Object>>) result.get("records");
+        assertEquals(1, ((List<OrderItem>) records.get(0).get("items")).size());
+        verify(orderItemMapper, never()).selectList(any());
+    }
+
+    @Test
+    void testAllOrdersLoadsItemsOncePerPage() {
+        List<Order> orders = new ArrayList<>();
+        for (long id = 1; id <= 20; id++) {
+            orders.add(order(id));
+        }
+        when(orderMapper.selectAllOrdersWithPagination(0, 20)).thenReturn(orders);
+        when(orderMapper.countAllOrders()).thenReturn(20);
+        when(orderItemMapper.selectList(any())).thenReturn(List.of(item(1L, 3L)));
+
+        adminOrderService.getAllOrders(1, 20, null);
+
+        verify(orderItemMapper, times(1)).selectList(any());
+    }
+
+    @Test
+    void testSalesStatsReadRollupOnce() {
+        LocalDate today = LocalDate.now();
+        SalesBucket bucket = new SalesBucket();
+        bucket.setStatDate(today.minusDays(1));
+        bucket.setOrderCount(3L);
+        bucket.setRevenue(new BigDecimal("36.50"));
+        when(salesRollupMapper.selectDaily(today.minusDays(29), today)).thenReturn(List.of(bucket));
+
+        List<Map<String, Object>> stats = adminOrderService.getSalesStats(30);
+
+        // 30 天的统计只读一次日汇总，不再扫描订单表
+        verify(salesRollupMapper, times(1)).selectDaily(any(), any());
+        verify(orderMapper, never()).selectList(any());
+        assertEquals(30, stats.size());
+        assertEquals(new BigDecimal("36.50"), stats.get(28).get("amount"));
+        assertEquals(3L, stats.get(28).get("orderCount"));
+        assertEquals(BigDecimal.ZERO, stats.get(29).get("amount"));
+        assertEquals(0L, stats.get(29).get("orderCount"));
+    }
+
+    private Order order(Long id) {
+        Order order = new Order();
+        order.setId(id);
+        order.setOrderNo("ORDER" + id);
+        order.setStatus("PAID");
+        order.setTotalAmount(BigDecimal.TEN);
+        order.setCreateTime(LocalDateTime.now());
+        return order;
+    }
+
+    private OrderItem item(Long id, Long orderId) {
+        OrderItem item = new OrderItem();
+        item.setId(id);
+        item.setOrderId(orderId);
+        item.setQuantity(1);
+        item.setPrice(BigDecimal.ONE);
+        return item;
+    }
+}
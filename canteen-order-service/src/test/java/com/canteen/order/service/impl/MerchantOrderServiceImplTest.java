@@ -0,0 +1,310 @@
+package com.canteen.order.service.impl;
+
+import com.canteen.order.dto.MerchantOrderDTO;
+import com.canteen.order.dto.SalesBucket;
+import com.canteen.order.entity.Order;
+import com.canteen.order.mapper.OrderAnalyticsMapper;
+import com.canteen.order.mapper.OrderArchiveMapper;
+import com.canteen.order.mapper.OrderItemMapper;
+import com.canteen.order.mapper.OrderMapper;
+import com.canteen.order.mapper.SalesRollupMapper;
+import com.canteen.order.support.OrderArchiver;
+import com.canteen.order.support.OrderItemBatchLoader;
+import com.canteen.order.support.OrderStatusCounters;
+import com.canteen.order.support.OrderStatusUpdater;
+import com.canteen.order.support.SalesRollupRecorder;
+import com.canteen.order.support.StockReservationManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+/**
+ * 商户订单服务测试类
+ */
+public class MerchantOrderServiceImplTest {
+
+    private static final Long MERCHANT_ID = 2L;
+
+    @Mock
+    private OrderMapper orderMapper;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private OrderItemMapper orderItemMapper;
+
+    @Mock
+    private StockReservationManager stockReservationManager;
+
+    @Mock
+    private SalesRollupMapper salesRollupMapper;
+
+    @Mock
+    private OrderArchiveMapper orderArchiveMapper;
+
+    @Mock
+    private OrderAnalyticsMapper orderAnalyticsMapper;
+
+    private MerchantOrderServiceImpl merchantOrderService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        merchantOrderService = new MerchantOrderServiceImpl(orderMapper, new OrderItemBatchLoader(orderItemMapper),
+                stockReservationManager, eventPublisher, new SalesRollupRecorder(salesRollupMapper),
+                new OrderStatusCounters(orderMapper), orderArchiveMapper, orderAnalyticsMapper,
+                new OrderArchiver(orderArchiveMapper, TransactionOperations.withoutTransaction(), true, 90, 500, 0, 10),
+                new OrderStatusUpdater(orderMapper));
+    }
+
+    @Test
+    void testDashboardQueryCountIsConstant() {
+        LocalDate today = LocalDate.now();
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 90; i++) {
+            orders.add(order((long) i, today.minusDays(i), "COMPLETED", "10.00"));
+        }
+        when(orderMapper.selectList(any())).thenReturn(orders);
+        when(orderArchiveMapper.selectHistory(eq(MERCHANT_ID), isNull(), any(), isNull())).thenReturn(orders);
+
+        // 30天的统计区间：旧实现每天一次、每月一次查询，共30+6+2次
+        String startDate = today.minusDays(29).toString();
+        String endDate = today.toString();
+        merchantOrderService.getMerchantOrderStats(MERCHANT_ID, startDate, endDate);
+        merchantOrderService.getMerchantFinanceStats(MERCHANT_ID, startDate, endDate);
+
+        // 订单统计区间在保留期内只查热表，财务统计的最近6个月需要合并归档表
+        verify(orderMapper, times(1)).selectList(any());
+        verify(orderArchiveMapper, times(1)).selectHistory(eq(MERCHANT_ID), isNull(), any(), isNull());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testDailyStatsBuckets() {
+        LocalDate today = LocalDate.now();
+        List<Order> orders = List.of(
+                order(1L, today, "PAID", "12.50"),
+                order(2L, today, "COMPLETED", "7.50"),
+                order(3L, today, "CANCELLED", "99.00"),
+                order(4L, today.minusDays(2), "READY", "5.00"),
+                order(5L, today.minusDays(30), "COMPLETED", "50.00"));
+        when(orderMapper.selectList(any())).thenReturn(orders);
+
+        Map<String, Object> stats = merchantOrderService.getMerchantOrderStats(
+                MERCHANT_ID, today.minusDays(6).toString(), today.toString());
+
+        assertEquals(4L, stats.get("totalOrders"));
+        assertEquals(1L, stats.get("cancelledOrders"));
+        List<Map<String, Object>> dailyStats = (List<Map<String, Object>>) stats.get("dailyStats");
+        assertEquals(7, dailyStats.size());
+
+        Map<String, Object> last = dailyStats.get(6);
+        assertEquals(today.toString(), last.get("date"));
+        assertEquals(2L, last.get("orderCount"));
+        assertEquals(0, new BigDecimal("20.00").compareTo((BigDecimal) last.get("revenue")));
+
+        Map<String, Object> twoDaysAgo = dailyStats.get(4);
+        assertEquals(1L, twoDaysAgo.get("orderCount"));
+        assertEquals(0L, dailyStats.get(0).get("orderCount"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testMonthlyRevenueBuckets() {
+        LocalDate today = LocalDate.now();
+        List<Order> orders = List.of(
+                order(1L, today, "COMPLETED", "10.00"),
+                order(2L, today.withDayOfMonth(1).minusMonths(1), "COMPLETED", "20.00"),
+                order(3L, today.withDayOfMonth(1).minusMonths(7), "COMPLETED", "40.00"));
+        when(orderArchiveMapper.selectHistory(MERCHANT_ID, null, null, null)).thenReturn(orders);
+
+        // 不限起始时间的统计合并归档表
+        Map<String, Object> stats = merchantOrderService.getMerchantFinanceStats(MERCHANT_ID, null, null);
+
+        assertEquals(0, new BigDecimal("10.00").compareTo((BigDecimal) stats.get("todayRevenue")));
+        List<Map<String, Object>> monthly = (List<Map<String, Object>>) stats.get("monthlyRevenues");
+        assertEquals(6, monthly.size());
+        assertEquals(1L, monthly.get(5).get("orderCount"));
+        assertEquals(0, new BigDecimal("20.00").compareTo((BigDecimal) monthly.get(4).get("revenue")));
+    }
+
+    @Test
+    void testTrendsUseOneDailyAggregate() {
+        LocalDate today = LocalDate.now();
+        SalesBucket bucket = new SalesBucket();
+        bucket.setStatDate(today.minusDays(1));
+        bucket.setOrderCount(3L);
+        bucket.setRevenue(new BigDecimal("36.00"));
+        when(orderAnalyticsMapper.selectDaily(any(), eq(MERCHANT_ID), eq(today.minusDays(6)), eq(today), eq(false)))
+                .thenReturn(List.of(bucket));
+
+        List<Map<String, Object>> trends = merchantOrderService.getOrderTrends(MERCHANT_ID, 7);
+
+        assertEquals(7, trends.size());
+        assertEquals(3L, trends.get(5).get("orderCount"));
+        assertEquals(0L, trends.get(6).get("orderCount"));
+        verify(orderAnalyticsMapper, times(1)).selectDaily(any(), any(), any(), any(), anyBoolean());
+        verify(orderMapper, never()).selectList(any());
+    }
+
+    @Test
+    void testOwnershipCheckUsesLoadedOrder() {
+        Order order = order(100L, LocalDate.now(), "PAID", "10.00");
+        order.setMerchantId(MERCHANT_ID);
+        when(orderMapper.selectById(100L)).thenReturn(order);
+        when(orderMapper.transition(100L, MERCHANT_ID, Order.Status.PREPARING)).thenReturn(true);
+
+        merchantOrderService.acceptOrder(100L, MERCHANT_ID);
+        assertThrows(RuntimeException.class, () -> merchantOrderService.getOrderDetail(100L, 3L));
+
+        verify(orderMapper, never()).selectList(any());
+        verify(orderMapper, never()).existsMerchantOrderItem(any(), any());
+    }
+
+    @Test
+    void testOwnershipCheckFallsBackForLegacyOrder() {
+        Order order = order(101L, LocalDate.now(), "PAID", "10.00");
+        when(orderMapper.selectById(101L)).thenReturn(order);
+        when(orderMapper.existsMerchantOrderItem(101L, MERCHANT_ID)).thenReturn(true);
+
+        assertNotNull(merchantOrderService.getOrderDetail(101L, MERCHANT_ID));
+        verify(orderMapper, never()).selectList(any());
+    }
+
+    @Test
+    void testAcceptIsSingleConditionalUpdate() {
+        when(orderMapper.transition(100L, MERCHANT_ID, Order.Status.PREPARING)).thenReturn(true);
+
+        merchantOrderService.acceptOrder(100L, MERCHANT_ID);
+
+        verify(orderMapper, never()).selectById(any());
+        verify(orderMapper, never()).updateById(any(Order.class));
+        verify(salesRollupMapper, never()).applyOrders(any(), anyInt());
+    }
+
+    @Test
+    void testFailedTransitionReportsCause() {
+        Order order = order(100L, LocalDate.now(), "CANCELLED", "10.00");
+        order.setMerchantId(MERCHANT_ID);
+        when(orderMapper.selectById(100L)).thenReturn(order);
+
+        RuntimeException stateError = assertThrows(RuntimeException.class,
+                () -> merchantOrderService.acceptOrder(100L, MERCHANT_ID));
+        assertTrue(stateError.getMessage().contains("订单状态不正确"));
+
+        RuntimeException ownerError = assertThrows(RuntimeException.class,
+                () -> merchantOrderService.rejectOrder(100L, 3L, "售罄"));
+        assertTrue(ownerError.getMessage().contains("无权限"));
+        verify(stockReservationManager, never()).release(any(), any());
+    }
+
+    @Test
+    void testMerchantCancelReleasesStockByPreviousStatus() {
+        when(orderMapper.selectVersionState(100L)).thenReturn(versionState(100L, "PAID"));
+        when(orderMapper.transitionVersion(eq(100L), eq(MERCHANT_ID), eq(0), eq("CANCELLED"), isNull(), any()))
+                .thenReturn(1);
+
+        merchantOrderService.updateOrderStatus(100L, MERCHANT_ID, "CANCELLED");
+
+        verify(stockReservationManager).release(100L, "PAID");
+        verify(salesRollupMapper).applyOrders(List.of(100L), -1);
+    }
+
+    @Test
+    void testRefundDeductsFromSalesRollup() {
+        when(orderMapper.selectVersionState(100L)).thenReturn(versionState(100L, "COMPLETED"));
+        when(orderMapper.transitionVersion(eq(100L), eq(MERCHANT_ID), eq(0), eq("CANCELLED"), any(), any()))
+                .thenReturn(1);
+
+        merchantOrderService.refundOrder(100L, MERCHANT_ID, "菜品售罄");
+
+        verify(salesRollupMapper).applyOrders(List.of(100L), -1);
+        verify(stockReservationManager, never()).release(any(), any());
+    }
+
+    @Test
+    void testRefundOfPaidOrderReleasesStock() {
+        when(orderMapper.selectVersionState(100L)).thenReturn(versionState(100L, "PAID"));
+        when(orderMapper.transitionVersion(eq(100L), eq(MERCHANT_ID), eq(0), eq("CANCELLED"), any(), any()))
+                .thenReturn(1);
+
+        merchantOrderService.refundOrder(100L, MERCHANT_ID, "不想要了");
+
+        verify(stockReservationManager).release(100L, "PAID");
+        verify(salesRollupMapper).applyOrders(List.of(100L), -1);
+    }
+
+    @Test
+    void testBatchAcceptLocksOnceAndUpdatesInOneStatement() {
+        Order paid = order(100L, LocalDate.now(), "PAID", "10.00");
+        paid.setMerchantId(MERCHANT_ID);
+        Order preparing = order(101L, LocalDate.now(), "PREPARING", "10.00");
+        preparing.setMerchantId(MERCHANT_ID);
+        Order other = order(102L, LocalDate.now(), "PAID", "10.00");
+        other.setMerchantId(3L);
+        Order legacy = order(103L, LocalDate.now(), "PAID", "10.00");
+        when(orderMapper.lockOrderStates(any())).thenReturn(List.of(paid, preparing, other, legacy));
+        when(orderMapper.selectMerchantItemOrderIds(List.of(103L), MERCHANT_ID)).thenReturn(List.of(103L));
+        when(orderMapper.transitionStatusBatch(eq(List.of(100L, 103L)), eq("PAID"), eq("PREPARING"), any()))
+                .thenReturn(2);
+
+        List<MerchantOrderDTO.BatchResult> results = merchantOrderService.batchUpdateStatus(
+                List.of(100L, 101L, 102L, 103L, 104L, 100L), MERCHANT_ID, Order.Status.PREPARING);
+
+        assertEquals(List.of(100L, 101L, 102L, 103L, 104L),
+                results.stream().map(MerchantOrderDTO.BatchResult::getOrderId).collect(Collectors.toList()));
+        assertEquals(List.of(true, false, false, true, false),
+                results.stream().map(MerchantOrderDTO.BatchResult::isSuccess).collect(Collectors.toList()));
+        assertTrue(results.get(1).getMessage().contains("订单状态不正确"));
+        assertTrue(results.get(2).getMessage().contains("无权限"));
+        assertTrue(results.get(4).getMessage().contains("无权限"));
+
+        verify(orderMapper, times(1)).lockOrderStates(any());
+        verify(orderMapper, times(1)).transitionStatusBatch(any(), any(), any(), any());
+        verify(orderMapper, never()).transitionStatus(any(), any(), any(), any(), any(), any());
+        verify(eventPublisher, times(1)).publishEvent(any(Object.class));
+    }
+
+    @Test
+    void testBatchRejectsUnsupportedTarget() {
+        assertThrows(RuntimeException.class, () -> merchantOrderService.batchUpdateStatus(
+                List.of(100L), MERCHANT_ID, Order.Status.CANCELLED));
+        verify(orderMapper, never()).lockOrderStates(any());
+    }
+
+    private Order order(Long id, LocalDate date, String status, String amount) {
+        Order order = new Order();
+        order.setId(id);
+        order.setStatus(status);
+        order.setTotalAmount(new BigDecimal(amount));
+        order.setCreateTime(date.atTime(12, 0));
+        return order;
+    }
+
+    private Order versionState(Long orderId, String status) {
+        Order order = new Order();
+        order.setId(orderId);
+        order.setStatus(status);
+        order.setVersion(0);
+        return order;
+    }
+}
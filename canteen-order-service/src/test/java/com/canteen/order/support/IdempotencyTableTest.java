@@ -0,0 +1,101 @@
+package com.canteen.order.support;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 请求键去重表测试类
+ */
+public class IdempotencyTableTest {
+
+    @Test
+    void testConcurrentDuplicatesWaitForFirstResult() throws Exception {
+        IdempotencyTable<String> table = new IdempotencyTable<>(100, 60_000, 5_000);
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<String> first = executor.submit(() -> table.execute("1:key", () -> {
+                executions.incrementAndGet();
+                started.countDown();
+                await(release);
+                return "ORDER1";
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            List<Future<String>> duplicates = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                duplicates.add(executor.submit(() -> table.execute("1:key", () -> {
+                    executions.incrementAndGet();
+                    return "DUPLICATE";
+                })));
+            }
+            release.countDown();
+
+            assertEquals("ORDER1", first.get(5, TimeUnit.SECONDS));
+            for (Future<String> duplicate : duplicates) {
+                assertEquals("ORDER1", duplicate.get(5, TimeUnit.SECONDS));
+            }
+            // 完成后的重复请求直接返回缓存结果
+            assertEquals("ORDER1", table.execute("1:key", () -> "DUPLICATE"));
+            assertEquals(1, executions.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testFailureIsNotCached() {
+        IdempotencyTable<String> table = new IdempotencyTable<>(100, 60_000, 5_000);
+        RuntimeException error = assertThrows(RuntimeException.class,
+                () -> table.execute("1:key", () -> {
+                    throw new RuntimeException("库存不足");
+                }));
+        assertEquals("库存不足", error.getMessage());
+        assertEquals(0, table.size());
+
+        assertEquals("ORDER2", table.execute("1:key", () -> "ORDER2"));
+    }
+
+    @Test
+    void testEntriesExpireAndTableIsBounded() {
+        AtomicLong now = new AtomicLong(1_000);
+        IdempotencyTable<String> table = new IdempotencyTable<>(2, 1_000, 5_000, now::get);
+        table.execute("a", () -> "A");
+        now.addAndGet(500);
+        table.execute("b", () -> "B");
+
+        // a 已过期，b 仍在有效期内
+        now.addAndGet(600);
+        assertEquals("B", table.execute("b", () -> "B2"));
+        assertEquals(1, table.size());
+
+        // 超出容量时淘汰最早的记录
+        table.execute("c", () -> "C");
+        table.execute("d", () -> "D");
+        assertEquals(2, table.size());
+        assertEquals("B3", table.execute("b", () -> "B3"));
+        assertEquals("D", table.execute("d", () -> "D2"));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
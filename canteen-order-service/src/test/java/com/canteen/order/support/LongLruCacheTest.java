@@ -0,0 +1,74 @@
+package com.canteen.order.support;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * long 键LRU缓存测试类
+ */
+public class LongLruCacheTest {
+
+    @Test
+    void testEvictsLeastRecentlyUsedAndCountsHits() {
+        LongLruCache<String> cache = new LongLruCache<>(2);
+        cache.put(1L, "A");
+        cache.put(2L, "B");
+        assertEquals("A", cache.get(1L));
+
+        // 2 最久未访问，被淘汰
+        cache.put(3L, "C");
+        assertNull(cache.get(2L));
+        assertEquals("A", cache.get(1L));
+        assertEquals("C", cache.get(3L));
+
+        // 只更新已缓存的键，不影响命中率
+        assertTrue(cache.updateIfPresent(3L, value -> value + "2"));
+        assertFalse(cache.updateIfPresent(2L, value -> "B2"));
+        assertNull(cache.get(2L));
+
+        LongLruCache.Stats stats = cache.stats();
+        assertEquals(3, stats.getHits());
+        assertEquals(2, stats.getMisses());
+        assertEquals(1, stats.getEvictions());
+        assertEquals(2, stats.getSize());
+        assertEquals(0.6, stats.getHitRatio(), 1e-9);
+        assertEquals("C2", cache.get(3L));
+    }
+
+    @Test
+    void testMatchesAccessOrderedMapUnderRandomOperations() {
+        int capacity = 64;
+        LongLruCache<Long> cache = new LongLruCache<>(capacity);
+        Map<Long, Long> expected = new LinkedHashMap<Long, Long>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Long> eldest) {
+                return size() > capacity;
+            }
+        };
+
+        Random random = new Random(42);
+        for (int i = 0; i < 200_000; i++) {
+            // 键集中在较小范围内，使探测链冲突和删除后的前移都被覆盖
+            long key = random.nextInt(256) * 1024L;
+            int operation = random.nextInt(10);
+            if (operation < 5) {
+                assertEquals(expected.get(key), cache.get(key), "key=" + key);
+            } else if (operation < 9) {
+                cache.put(key, (long) i);
+                expected.put(key, (long) i);
+            } else {
+                cache.remove(key);
+                expected.remove(key);
+            }
+            assertEquals(expected.size(), cache.size());
+        }
+        for (Map.Entry<Long, Long> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), cache.get(entry.getKey()));
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package com.canteen.order.support;
+
+import com.canteen.order.dto.OrderEventMessage;
+import com.canteen.order.entity.Order;
+import com.canteen.order.mapper.OrderMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+/**
+ * 商户订单事件订阅中心测试类
+ */
+public class OrderEventHubTest {
+
+    private static final Long MERCHANT_ID = 2L;
+
+    @Mock
+    private OrderMapper orderMapper;
+
+    private ThreadPoolExecutor writers;
+
+    private OrderEventHub hub;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        writers = (ThreadPoolExecutor) Executors.newFixedThreadPool(2);
+        hub = new OrderEventHub(orderMapper, writers, 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        writers.shutdownNow();
+    }
+
+    @Test
+    void testBurstOfUpdatesIsCoalescedPerOrder() throws Exception {
+        RecordingEmitter emitter = subscribe(null);
+
+        hub.onOrderChanged(OrderChangedEvent.created(order(10L)));
+        hub.onOrderChanged(OrderChangedEvent.statusChanged(10L, MERCHANT_ID, Order.Status.PENDING, Order.Status.PAID));
+        hub.onOrderChanged(OrderChangedEvent.statusChanged(11L, MERCHANT_ID, Order.Status.PAID, Order.Status.PREPARING));
+        hub.onOrderChanged(OrderChangedEvent.statusChanged(10L, MERCHANT_ID, Order.Status.PAID, Order.Status.CANCELLED));
+        dispatch();
+
+        List<OrderEventMessage> messages = emitter.messages();
+        assertEquals(2, messages.size());
+        assertEquals(11L, messages.get(0).getOrderId());
+        OrderEventMessage merged = messages.get(1);
+        assertEquals("ORDER_CREATED", merged.getType());
+        assertEquals("CANCELLED", merged.getStatus());
+        assertEquals("ORDER10", merged.getOrderNo());
+    }
+
+    @Test
+    void testSlowSubscriberOverflowTurnsIntoResync() throws Exception {
+        RecordingEmitter emitter = subscribe(null);
+        for (long orderId = 1; orderId <= OrderEventHub.BUFFER_CAPACITY + 1; orderId++) {
+            hub.onOrderChanged(OrderChangedEvent.statusChanged(orderId, MERCHANT_ID, Order.Status.PENDING, Order.Status.PAID));
+        }
+        dispatch();
+
+        assertTrue(emitter.messages().isEmpty());
+        assertTrue(emitter.text().contains("event:" + OrderEventHub.RESYNC_EVENT));
+
+        // 溢出只影响当次积压，之后的事件照常推送
+        hub.onOrderChanged(OrderChangedEvent.statusChanged(1L, MERCHANT_ID, Order.Status.PENDING, Order.Status.PREPARING));
+        dispatch();
+        assertEquals(1, emitter.messages().size());
+    }
+
+    @Test
+    void testResumeFromLastEventId() throws Exception {
+        subscribe(null);
+        when(orderMapper.selectMerchantRefs(anyCollection())).thenReturn(List.of(order(20L), order(21L)));
+        hub.onOrderChanged(OrderChangedEvent.statusChanged(List.of(20L, 21L), Order.Status.PENDING, Order.Status.CANCELLED));
+        hub.onOrderChanged(OrderChangedEvent.statusChanged(22L, MERCHANT_ID, Order.Status.PENDING, Order.Status.PAID));
+        dispatch();
+
+        RecordingEmitter first = subscribe(null);
+        hub.onOrderChanged(OrderChangedEvent.statusChanged(23L, MERCHANT_ID, Order.Status.PENDING, Order.Status.PAID));
+        dispatch();
+        long lastSeen = first.messages().get(0).getId();
+
+        hub.onOrderChanged(OrderChangedEvent.statusChanged(24L, MERCHANT_ID, Order.Status.PENDING, Order.Status.PAID));
+        RecordingEmitter resumed = subscribe(String.valueOf(lastSeen));
+        dispatch();
+        assertEquals(List.of(24L), resumed.messages().stream()
+                .map(OrderEventMessage::getOrderId).collect(Collectors.toList()));
+
+        // 服务重启前的事件ID无法续传
+        RecordingEmitter stale = subscribe("1");
+        dispatch();
+        assertTrue(stale.text().contains("event:" + OrderEventHub.RESYNC_EVENT));
+        assertEquals(4, hub.getSubscriberCount());
+    }
+
+    @Test
+    void testEventsOnlyReachOwningMerchant() throws Exception {
+        RecordingEmitter emitter = subscribe(null);
+        hub.onOrderChanged(OrderChangedEvent.statusChanged(30L, 3L, Order.Status.PENDING, Order.Status.PAID));
+        when(orderMapper.selectMerchantRefs(anyCollection())).thenReturn(new ArrayList<>());
+        hub.onOrderChanged(OrderChangedEvent.statusChanged(List.of(31L), Order.Status.PENDING, Order.Status.CANCELLED));
+        dispatch();
+
+        assertTrue(emitter.messages().isEmpty());
+    }
+
+    @Test
+    void testStalledSubscriberDoesNotBlockOthers() throws Exception {
+        CountDownLatch unblock = new CountDownLatch(1);
+        StalledEmitter stalled = new StalledEmitter(unblock);
+        hub.subscribe(MERCHANT_ID, null, stalled);
+        RecordingEmitter healthy = subscribe(null);
+        stalled.stall = true;
+
+        try {
+            hub.onOrderChanged(OrderChangedEvent.statusChanged(40L, MERCHANT_ID, Order.Status.PENDING, Order.Status.PAID));
+            hub.dispatch();
+            assertTrue(stalled.entered.await(5, TimeUnit.SECONDS));
+            awaitUntil(() -> healthy.messages().size() == 1);
+
+            // 卡住的连接占着一个写出线程，其他订阅者的心跳照常写出
+            hub.heartbeat();
+            hub.dispatch();
+            awaitUntil(() -> healthy.text().contains("heartbeat"));
+
+            // 写出超时的订阅者被断开，之后的事件不再为它安排写出
+            Thread.sleep(150);
+            hub.dispatch();
+            assertEquals(1, hub.getSubscriberCount());
+            hub.onOrderChanged(OrderChangedEvent.statusChanged(41L, MERCHANT_ID, Order.Status.PENDING, Order.Status.PAID));
+            hub.dispatch();
+            awaitUntil(() -> healthy.messages().size() == 2);
+            assertEquals(1, stalled.sends.get());
+        } finally {
+            unblock.countDown();
+        }
+    }
+
+    /**
+     * 调度后等待写出线程处理完已提交的任务
+     */
+    private void dispatch() throws InterruptedException {
+        hub.dispatch();
+        awaitUntil(() -> writers.getCompletedTaskCount() == writers.getTaskCount());
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "等待超时");
+            Thread.sleep(10);
+        }
+    }
+
+    private RecordingEmitter subscribe(String lastEventId) {
+        RecordingEmitter emitter = new RecordingEmitter();
+        hub.subscribe(MERCHANT_ID, lastEventId, emitter);
+        return emitter;
+    }
+
+    private Order order(Long id) {
+        Order order = new Order();
+        order.setId(id);
+        order.setMerchantId(MERCHANT_ID);
+        order.setOrderNo("ORDER" + id);
+        order.setStatus(Order.Status.PENDING.getCode());
+        order.setTotalAmount(new BigDecimal("15.00"));
+        return order;
+    }
+
+    /**
+     * 记录写出内容的SseEmitter
+     */
+    private static class RecordingEmitter extends SseEmitter {
+
+        private final List<Object> sent = new ArrayList<>();
+
+        @Override
+        public synchronized void send(SseEventBuilder builder) {
+            for (DataWithMediaType data : builder.build()) {
+                sent.add(data.getData());
+            }
+        }
+
+        synchronized List<OrderEventMessage> messages() {
+            return sent.stream()
+                    .filter(OrderEventMessage.class::isInstance)
+                    .map(OrderEventMessage.class::cast)
+                    .collect(Collectors.toList());
+        }
+
+        synchronized String text() {
+            return sent.stream()
+                    .filter(String.class::isInstance)
+                    .map(String.class::cast)
+                    .collect(Collectors.joining());
+        }
+    }
+
+    /**
+     * 模拟TCP窗口写满的连接：开始阻塞后写出一直不返回
+     */
+    private static class StalledEmitter extends SseEmitter {
+
+        private final CountDownLatch unblock;
+        private final CountDownLatch entered = new CountDownLatch(1);
+        private final AtomicInteger sends = new AtomicInteger();
+        private volatile boolean stall;
+
+        StalledEmitter(CountDownLatch unblock) {
+            this.unblock = unblock;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            if (!stall) {
+                return;
+            }
+            sends.incrementAndGet();
+            entered.countDown();
+            try {
+                unblock.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
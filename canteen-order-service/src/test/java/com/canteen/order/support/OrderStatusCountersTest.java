@@ -0,0 +1,134 @@
+package com.canteen.order.support;
+
+import com.canteen.order.dto.StatusCount;
+import com.canteen.order.entity.Order;
+import com.canteen.order.entity.Order.Status;
+import com.canteen.order.mapper.OrderMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * 订单状态内存计数测试类
+ */
+public class OrderStatusCountersTest {
+
+    private static final Long MERCHANT_ID = 2L;
+
+    @Mock
+    private OrderMapper orderMapper;
+
+    private OrderStatusCounters counters;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        counters = new OrderStatusCounters(orderMapper);
+        when(orderMapper.countGroupByMerchantAndStatus()).thenReturn(List.of(
+                row(MERCHANT_ID, "PENDING", 3), row(MERCHANT_ID, "PAID", 2),
+                row(3L, "COMPLETED", 10), row(null, "COMPLETED", 4)));
+    }
+
+    @Test
+    void testReadsGoToDatabaseUntilInitialized() {
+        // 初始化前与校准口径一致，含归档订单
+        when(orderMapper.countGroupByStatus(null)).thenReturn(List.of(row(null, "PAID", 7), row(null, "COMPLETED", 9)));
+        when(orderMapper.countGroupByStatus(MERCHANT_ID)).thenReturn(List.of(row(null, "PAID", 2)));
+        assertEquals(7L, counters.count(Status.PAID));
+        assertEquals(16L, counters.total());
+        assertEquals(2L, counters.count(MERCHANT_ID, Status.PAID));
+        assertEquals(0L, counters.count(MERCHANT_ID, Status.COMPLETED));
+        assertEquals(2L, counters.total(MERCHANT_ID));
+
+        counters.initialize();
+        assertEquals(2L, counters.count(Status.PAID));
+        assertEquals(14L, counters.count(Status.COMPLETED));
+        assertEquals(19L, counters.total());
+        assertEquals(5L, counters.total(MERCHANT_ID));
+        assertEquals(0L, counters.total(99L));
+        verify(orderMapper, times(2)).countGroupByStatus(null);
+        verify(orderMapper, times(3)).countGroupByStatus(MERCHANT_ID);
+    }
+
+    @Test
+    void testEventsMoveCountsWithoutQueries() {
+        counters.initialize();
+        Order order = new Order();
+        order.setId(100L);
+        order.setMerchantId(MERCHANT_ID);
+        order.setStatus("PENDING");
+
+        counters.onOrderChanged(OrderChangedEvent.created(order));
+        counters.onOrderChanged(OrderChangedEvent.statusChanged(100L, MERCHANT_ID, Status.PENDING, Status.PAID));
+        counters.onOrderChanged(OrderChangedEvent.statusChanged(100L, MERCHANT_ID, Status.PAID, Status.PREPARING));
+
+        assertEquals(3L, counters.count(MERCHANT_ID, Status.PENDING));
+        assertEquals(2L, counters.count(MERCHANT_ID, Status.PAID));
+        assertEquals(1L, counters.count(MERCHANT_ID, Status.PREPARING));
+        assertEquals(20L, counters.total());
+
+        // 未带商户ID的批量变更按订单ID查询所属商户
+        Order ref = new Order();
+        ref.setId(101L);
+        ref.setMerchantId(MERCHANT_ID);
+        when(orderMapper.selectMerchantRefs(any())).thenReturn(List.of(ref));
+        counters.onOrderChanged(OrderChangedEvent.statusChanged(List.of(101L), Status.PENDING, Status.CANCELLED));
+        assertEquals(2L, counters.count(MERCHANT_ID, Status.PENDING));
+        assertEquals(1L, counters.count(Status.CANCELLED));
+
+        verify(orderMapper, never()).countGroupByStatus(any());
+        verify(orderMapper, times(1)).countGroupByMerchantAndStatus();
+    }
+
+    @Test
+    void testReconcileCorrectsDrift() throws Exception {
+        counters.initialize();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 10_000; i++) {
+                        counters.onOrderChanged(OrderChangedEvent.statusChanged(1L, MERCHANT_ID,
+                                Status.PENDING, Status.PAID));
+                        counters.onOrderChanged(OrderChangedEvent.statusChanged(1L, MERCHANT_ID,
+                                Status.PAID, Status.PENDING));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(3L, counters.count(MERCHANT_ID, Status.PENDING));
+
+        // 数据库外发生的变更（如手工改库）在下一次校准时修正
+        counters.onOrderChanged(OrderChangedEvent.statusChanged(1L, 3L, Status.COMPLETED, Status.CANCELLED));
+        assertEquals(9L, counters.count(3L, Status.COMPLETED));
+        counters.reconcile();
+        assertEquals(10L, counters.count(3L, Status.COMPLETED));
+        assertEquals(0L, counters.count(Status.CANCELLED));
+    }
+
+    private StatusCount row(Long merchantId, String status, long count) {
+        StatusCount row = new StatusCount();
+        row.setMerchantId(merchantId);
+        row.setStatus(status);
+        row.setCount(count);
+        return row;
+    }
+}
@@ -0,0 +1,72 @@
+package com.canteen.order.support;
+
+import com.canteen.order.support.ProductStockClient.ProductSnapshot;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * 商品快照测试类
+ */
+public class ProductSnapshotsTest {
+
+    @Mock
+    private ProductStockClient productClient;
+
+    private final AtomicLong now = new AtomicLong(1_000);
+    private ProductSnapshots snapshots;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        snapshots = new ProductSnapshots(productClient, 100, 5_000, now::get);
+    }
+
+    @Test
+    void testMissesAreFetchedInOneBatch() {
+        when(productClient.getProducts(List.of(1L, 2L, 3L))).thenReturn(List.of(
+                new ProductSnapshot(1L, "红烧肉", new BigDecimal("12.00"), 2L, 1),
+                new ProductSnapshot(2L, "米饭", new BigDecimal("1.50"), 2L, 0)));
+
+        Map<Long, ProductSnapshot> result = snapshots.getAll(List.of(1L, 2L, 1L, 3L));
+        assertEquals(2, result.size());
+        assertTrue(result.get(1L).isOnSale());
+        assertFalse(result.get(2L).isOnSale());
+        verify(productClient, times(1)).getProducts(any());
+
+        // 已缓存的商品不再查询，只查询未命中的部分
+        when(productClient.getProducts(List.of(3L, 4L))).thenReturn(List.of(
+                new ProductSnapshot(4L, "牛肉面", new BigDecimal("18.00"), 2L, 1)));
+        result = snapshots.getAll(List.of(1L, 3L, 4L));
+        assertEquals(new BigDecimal("12.00"), result.get(1L).getPrice());
+        assertEquals("牛肉面", result.get(4L).getName());
+        assertNull(result.get(3L));
+        verify(productClient).getProducts(List.of(3L, 4L));
+    }
+
+    @Test
+    void testExpiredSnapshotsAreReloaded() {
+        when(productClient.getProducts(List.of(1L)))
+                .thenReturn(List.of(new ProductSnapshot(1L, "红烧肉", new BigDecimal("12.00"), 2L, 1)))
+                .thenReturn(List.of(new ProductSnapshot(1L, "红烧肉", new BigDecimal("13.00"), 2L, 1)));
+
+        snapshots.getAll(List.of(1L));
+        now.addAndGet(4_999);
+        assertEquals(new BigDecimal("12.00"), snapshots.getAll(List.of(1L)).get(1L).getPrice());
+
+        // 有效期过后按商品服务的最新价格
+        now.addAndGet(1);
+        assertEquals(new BigDecimal("13.00"), snapshots.getAll(List.of(1L)).get(1L).getPrice());
+        verify(productClient, times(2)).getProducts(List.of(1L));
+    }
+}
@@ -0,0 +1,216 @@
+package com.canteen.order.support;
+
+import com.canteen.order.entity.Order;
+import com.canteen.order.entity.OrderItem;
+import com.canteen.order.mapper.OrderItemMapper;
+import com.canteen.order.mapper.OrderMapper;
+import com.canteen.order.support.ProductStockClient.StockChange;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * 库存预占管理器测试类
+ */
+public class StockReservationManagerTest {
+
+    private static final Long PRODUCT_ID = 1L;
+
+    @Mock
+    private ProductStockClient stockClient;
+
+    @Mock
+    private OrderMapper orderMapper;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private OrderItemMapper orderItemMapper;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private StockReservationManager manager;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        manager = new StockReservationManager(stockClient, orderMapper, new OrderItemBatchLoader(orderItemMapper),
+                eventPublisher, transactionManager);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testConcurrentReservationsAreCoalesced() throws Exception {
+        when(stockClient.deduct(anyList())).thenAnswer(invocation -> {
+            List<StockChange> changes = invocation.getArgument(0);
+            return Collections.nCopies(changes.size(), true);
+        });
+
+        int checkouts = 20;
+        ExecutorService executor = Executors.newFixedThreadPool(checkouts);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger succeeded = new AtomicInteger();
+        for (int i = 0; i < checkouts; i++) {
+            long orderId = i;
+            executor.submit(() -> {
+                start.await();
+                manager.reserve(Map.of(PRODUCT_ID, 1)).attach(orderId);
+                succeeded.incrementAndGet();
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(checkouts, succeeded.get());
+        assertEquals(checkouts, manager.getReservedQuantity(PRODUCT_ID));
+
+        ArgumentCaptor<List<StockChange>> captor = ArgumentCaptor.forClass(List.class);
+        verify(stockClient, atLeastOnce()).deduct(captor.capture());
+        int total = captor.getAllValues().stream().flatMap(List::stream).mapToInt(StockChange::getQuantity).sum();
+        assertEquals(checkouts, total);
+        // 同一窗口内的请求合并为一条扣减，调用次数远少于下单次数
+        assertTrue(captor.getAllValues().size() < checkouts);
+    }
+
+    @Test
+    void testInsufficientStockRestoresOtherProducts() {
+        when(stockClient.deduct(anyList())).thenAnswer(invocation -> {
+            List<StockChange> changes = invocation.getArgument(0);
+            List<Boolean> results = new ArrayList<>();
+            for (StockChange change : changes) {
+                results.add(!change.getProductId().equals(2L));
+            }
+            return results;
+        });
+
+        RuntimeException error = assertThrows(RuntimeException.class,
+                () -> manager.reserve(Map.of(1L, 2, 2L, 1)));
+        assertTrue(error.getMessage().contains("库存不足"));
+
+        verify(stockClient, timeout(1000)).restore(List.of(new StockChange(1L, 2)));
+        assertEquals(0, manager.getReservedQuantity(1L));
+    }
+
+    @Test
+    void testReleaseRestoresReservedStockOnce() {
+        when(stockClient.deduct(anyList())).thenReturn(List.of(true));
+        manager.reserve(Map.of(PRODUCT_ID, 3)).attach(100L);
+        assertEquals(3, manager.getReservedQuantity(PRODUCT_ID));
+
+        manager.release(100L, Order.Status.PENDING.getCode());
+
+        assertEquals(0, manager.getReservedQuantity(PRODUCT_ID));
+        assertEquals(0, manager.getReservationCount());
+        verify(stockClient, timeout(1000)).restore(List.of(new StockChange(PRODUCT_ID, 3)));
+    }
+
+    @Test
+    void testReleaseWaitsForCommit() {
+        when(stockClient.deduct(anyList())).thenReturn(List.of(true));
+        manager.reserve(Map.of(PRODUCT_ID, 3)).attach(100L);
+
+        // 事务回滚时订单仍待支付，预占记录保留，库存不归还
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            manager.release(100L, Order.Status.PENDING.getCode());
+            assertEquals(3, manager.getReservedQuantity(PRODUCT_ID));
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertEquals(1, manager.getReservationCount());
+        verify(stockClient, after(200).never()).restore(anyList());
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            manager.release(100L, Order.Status.PENDING.getCode());
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertEquals(0, manager.getReservationCount());
+        verify(stockClient, timeout(1000)).restore(List.of(new StockChange(PRODUCT_ID, 3)));
+    }
+
+    @Test
+    void testExpiredReservationsAreCancelledInBulk() {
+        LocalDateTime longAgo = LocalDateTime.now().minusHours(1);
+        manager.hold(200L, Map.of(PRODUCT_ID, 2), longAgo);
+        manager.hold(201L, Map.of(PRODUCT_ID, 1), longAgo);
+        manager.hold(203L, Map.of(PRODUCT_ID, 8), longAgo);
+        manager.hold(202L, Map.of(PRODUCT_ID, 4), LocalDateTime.now());
+        // 201 在超时前已被支付，203 已被其他实例或用户取消
+        when(orderMapper.lockOrderStates(anyCollection())).thenReturn(List.of(
+                state(200L, Order.Status.PENDING), state(201L, Order.Status.PAID), state(203L, Order.Status.CANCELLED)));
+        when(orderMapper.transitionStatusBatch(anyCollection(), eq("PENDING"), eq("CANCELLED"), any())).thenReturn(1);
+
+        manager.expireReservations();
+
+        verify(orderMapper).lockOrderStates(argThat(ids -> ids.size() == 3 && ids.containsAll(List.of(200L, 201L, 203L))));
+        verify(orderMapper).transitionStatusBatch(eq(List.of(200L)), eq("PENDING"), eq("CANCELLED"), any());
+        verify(transactionManager).commit(any());
+        // 只归还本次取消的订单，不按最终状态推断
+        verify(stockClient, timeout(1000)).restore(List.of(new StockChange(PRODUCT_ID, 2)));
+        verify(stockClient, after(200).times(1)).restore(anyList());
+        verify(eventPublisher).publishEvent(argThat((OrderChangedEvent event) -> event.getOrderIds().equals(List.of(200L))));
+        assertEquals(4, manager.getReservedQuantity(PRODUCT_ID));
+        assertEquals(1, manager.getReservationCount());
+    }
+
+    @Test
+    void testUserCancelAfterExpiryClaimRestoresFromItems() {
+        manager.hold(200L, Map.of(PRODUCT_ID, 2), LocalDateTime.now().minusHours(1));
+        // 超时取消领走预占记录后，用户取消先抢到状态变更
+        when(orderMapper.lockOrderStates(anyCollection())).thenReturn(List.of(state(200L, Order.Status.CANCELLED)));
+        OrderItem item = new OrderItem();
+        item.setOrderId(200L);
+        item.setProductId(PRODUCT_ID);
+        item.setQuantity(2);
+        when(orderItemMapper.selectList(any())).thenReturn(List.of(item));
+
+        manager.expireReservations();
+        manager.release(200L, Order.Status.PENDING.getCode());
+
+        verify(orderMapper, never()).transitionStatusBatch(anyCollection(), any(), any(), any());
+        verify(stockClient, timeout(1000)).restore(List.of(new StockChange(PRODUCT_ID, 2)));
+        verify(stockClient, after(200).times(1)).restore(anyList());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    private static Order state(Long orderId, Order.Status status) {
+        Order order = new Order();
+        order.setId(orderId);
+        order.setStatus(status.getCode());
+        return order;
+    }
+}
@@ -0,0 +1,85 @@
+package com.canteen.order.support;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 分层时间轮测试类
+ */
+public class TimingWheelTest {
+
+    private static final long START = 1_000_000L;
+
+    @Test
+    void testTimersFireWithinOneTickAcrossLevels() {
+        // 10ms一格、8格一层：第0层80ms，第1层640ms，第2层5120ms
+        TimingWheel<Long> wheel = new TimingWheel<>(10, 8, START);
+        long[] delays = {15, 79, 81, 300, 639, 641, 4000, 6000};
+        for (long delay : delays) {
+            wheel.schedule(delay, START + delay);
+        }
+
+        Map<Long, Long> firedAt = new HashMap<>();
+        for (long now = START; now <= START + 7000; now += 10) {
+            for (Long delay : wheel.advance(now)) {
+                assertNull(firedAt.put(delay, now), "重复到期: " + delay);
+            }
+        }
+
+        assertEquals(delays.length, firedAt.size());
+        for (long delay : delays) {
+            long deadline = START + delay;
+            long fired = firedAt.get(delay);
+            assertTrue(fired >= deadline - 10 && fired < deadline + 10,
+                    "delay=" + delay + " firedAt=" + (fired - START));
+        }
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void testCancelledAndOverdueTimers() {
+        TimingWheel<String> wheel = new TimingWheel<>(100, 16, START);
+        TimingWheel.Timeout<String> cancelled = wheel.schedule("cancelled", START + 500);
+        wheel.schedule("overdue", START - 60_000);
+        wheel.schedule("kept", START + 500);
+        assertTrue(cancelled.cancel());
+        assertFalse(cancelled.cancel());
+        assertEquals(2, wheel.size());
+
+        // 已过期的任务在下一次推进时立即到期
+        assertEquals(List.of("overdue"), wheel.advance(START));
+        assertEquals(List.of("kept"), wheel.advance(START + 600));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void testManyPendingTimersFireExactlyOnce() {
+        TimingWheel<Integer> wheel = new TimingWheel<>(1000, 64, START);
+        int count = 50_000;
+        Random random = new Random(42);
+        for (int i = 0; i < count; i++) {
+            // 分布在20分钟内，大部分落在第1层
+            wheel.schedule(i, START + random.nextInt(20 * 60 * 1000));
+        }
+        assertEquals(count, wheel.size());
+
+        boolean[] fired = new boolean[count];
+        int total = 0;
+        // 模拟定时任务偶尔延迟，一次推进跨越多个tick
+        for (long now = START; now <= START + 21 * 60 * 1000; now += 7000) {
+            for (Integer id : wheel.advance(now)) {
+                assertFalse(fired[id]);
+                fired[id] = true;
+                total++;
+            }
+        }
+        assertEquals(count, total);
+        assertEquals(0, wheel.size());
+    }
+}
@@ -0,0 +1,99 @@
+package com.canteen.order.support;
+
+import com.canteen.order.dto.UserOrderAggregate;
+import com.canteen.order.entity.Order;
+import com.canteen.order.entity.Order.Status;
+import com.canteen.order.mapper.OrderMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * 用户订单汇总缓存测试类
+ */
+public class UserOrderAggregatesTest {
+
+    private static final long USER_ID = 7L;
+    private static final LocalDateTime LAST_ORDER = LocalDateTime.of(2024, 5, 20, 11, 30);
+
+    @Mock
+    private OrderMapper orderMapper;
+
+    private final AtomicLong now = new AtomicLong(1_000);
+    private UserOrderAggregates aggregates;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        aggregates = new UserOrderAggregates(orderMapper, 100, 60_000, now::get);
+        when(orderMapper.selectUserAggregate(eq(USER_ID), any())).thenReturn(
+                new UserOrderAggregate(3L, new BigDecimal("20.00"), new BigDecimal("32.50"), LAST_ORDER));
+    }
+
+    @Test
+    void testMissLoadsOnceThenHits() {
+        assertEquals(3L, aggregates.get(USER_ID).getOrderCount());
+        assertEquals(3L, aggregates.get(USER_ID).getOrderCount());
+        verify(orderMapper, times(1)).selectUserAggregate(eq(USER_ID), any());
+        assertEquals(0.5, aggregates.stats().getHitRatio(), 1e-9);
+
+        // 没有订单的用户返回零值
+        UserOrderAggregate empty = aggregates.get(8L);
+        assertEquals(0L, empty.getOrderCount());
+        assertEquals(0, BigDecimal.ZERO.compareTo(empty.getPaidAmount()));
+
+        // 过期后重新查库
+        now.addAndGet(60_000);
+        aggregates.get(USER_ID);
+        verify(orderMapper, times(2)).selectUserAggregate(eq(USER_ID), any());
+    }
+
+    @Test
+    void testEventsUpdateCachedUserIncrementally() {
+        aggregates.get(USER_ID);
+
+        Order created = new Order();
+        created.setId(100L);
+        created.setUserId(USER_ID);
+        created.setTotalAmount(new BigDecimal("12.00"));
+        created.setStatus(Status.PENDING.getCode());
+        created.setCreateTime(LAST_ORDER.plusHours(1));
+        aggregates.onOrderChanged(OrderChangedEvent.created(created));
+
+        Order ref = new Order();
+        ref.setId(100L);
+        ref.setUserId(USER_ID);
+        ref.setTotalAmount(new BigDecimal("12.00"));
+        when(orderMapper.selectUserRefs(anyCollection())).thenReturn(List.of(ref));
+        aggregates.onOrderChanged(OrderChangedEvent.statusChanged(100L, 2L, Status.PENDING, Status.PAID));
+        aggregates.onOrderChanged(OrderChangedEvent.statusChanged(100L, 2L, Status.READY, Status.COMPLETED));
+        // 备餐中不影响金额，不查询订单
+        aggregates.onOrderChanged(OrderChangedEvent.statusChanged(100L, 2L, Status.PAID, Status.PREPARING));
+
+        UserOrderAggregate aggregate = aggregates.get(USER_ID);
+        assertEquals(4L, aggregate.getOrderCount());
+        assertEquals(0, new BigDecimal("32.00").compareTo(aggregate.getCompletedAmount()));
+        assertEquals(0, new BigDecimal("44.50").compareTo(aggregate.getPaidAmount()));
+        assertEquals(LAST_ORDER.plusHours(1), aggregate.getLastOrderTime());
+        verify(orderMapper, times(1)).selectUserAggregate(eq(USER_ID), any());
+        verify(orderMapper, times(2)).selectUserRefs(anyCollection());
+    }
+
+    @Test
+    void testNoLookupsWhileCacheIsEmpty() {
+        aggregates.onOrderChanged(OrderChangedEvent.statusChanged(List.of(1L, 2L), Status.PAID, Status.CANCELLED));
+        verify(orderMapper, never()).selectUserRefs(anyCollection());
+    }
+}
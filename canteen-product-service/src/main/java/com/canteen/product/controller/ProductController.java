@@ -3,6 +3,9 @@ package com.canteen.product.controller;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.canteen.common.result.PageResult;
 import com.canteen.common.result.Result;
+import com.canteen.common.utils.AuthContext;
+import com.canteen.common.utils.InternalIdentity;
+import com.canteen.product.dto.StockChangeDTO;
 import com.canteen.product.entity.Product;
 import com.canteen.product.entity.ProductCategory;
 import com.canteen.product.service.ProductService;
@@ -10,6 +13,8 @@ import com.canteen.product.service.ProductCategoryService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
+import javax.servlet.http.HttpServletRequest;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 
@@ -21,6 +26,8 @@ import java.util.Map;
 @CrossOrigin(origins = "*", allowedHeaders = "*", methods = {RequestMethod.GET, RequestMethod.POST, RequestMethod.PUT, RequestMethod.DELETE, RequestMethod.OPTIONS})
 public class ProductController {
 
+    private static final int MAX_BATCH_SIZE = 200;
+
     @Autowired
     private ProductService productService;
 
@@ -74,6 +81,21 @@ public class ProductController {
         return Result.success(product);
     }
 
+    /**
+     * 按ID批量获取餐品，ids 以逗号分隔，最多200个；含已下架餐品，不存在的ID不返回
+     */
+    @GetMapping("/batch")
+    public Result<List<Product>> getProductsByIds(@RequestParam List<Long> ids) {
+        if (ids.size() > MAX_BATCH_SIZE) {
+            return Result.error("批量查询的餐品数量不能超过" + MAX_BATCH_SIZE);
+        }
+        try {
+            return Result.success(productService.getProductsByIds(new LinkedHashSet<>(ids)));
+        } catch (Exception e) {
+            return Result.error("批量获取餐品失败: " + e.getMessage());
+        }
+    }
+
     /**
      * 获取分类列表
      */
@@ -109,6 +131,40 @@ public class ProductController {
         return productService.getTopProductsForMerchant(limit);
     }
 
+    /**
+     * 批量扣减库存（仅供订单服务内部调用）
+     */
+    @PostMapping("/stock/deduct")
+    public Result<List<Boolean>> deductStock(HttpServletRequest request, @RequestBody List<StockChangeDTO> changes) {
+        try {
+            AuthContext.from(request).requireRole(InternalIdentity.SERVICE_ROLE);
+        } catch (SecurityException e) {
+            return Result.unauthorized(e.getMessage());
+        }
+        try {
+            return Result.success(productService.deductStock(changes));
+        } catch (Exception e) {
+            return Result.error("扣减库存失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 批量归还库存（仅供订单服务内部调用）
+     */
+    @PostMapping("/stock/restore")
+    public Result<Integer> restoreStock(HttpServletRequest request, @RequestBody List<StockChangeDTO> changes) {
+        try {
+            AuthContext.from(request).requireRole(InternalIdentity.SERVICE_ROLE);
+        } catch (SecurityException e) {
+            return Result.unauthorized(e.getMessage());
+        }
+        try {
+            return Result.success(productService.restoreStock(changes));
+        } catch (Exception e) {
+            return Result.error("归还库存失败: " + e.getMessage());
+        }
+    }
+
     /**
      * 健康检查
      */
@@ -0,0 +1,14 @@
+package com.canteen.product.dto;
+
+import lombok.Data;
+
+/**
+ * 库存变更请求，由订单服务批量提交
+ */
+@Data
+public class StockChangeDTO {
+
+    private Long productId;
+
+    private Integer quantity;
+}
@@ -83,6 +83,12 @@ public interface ProductMapper extends BaseMapper<Product> {
      */
     @Update("UPDATE product SET stock = stock - #{quantity} WHERE id = #{productId} AND stock >= #{quantity}")
     int updateStock(@Param("productId") Long productId, @Param("quantity") int quantity);
+
+    /**
+     * 归还商品库存
+     */
+    @Update("UPDATE product SET stock = stock + #{quantity} WHERE id = #{productId}")
+    int restoreStock(@Param("productId") Long productId, @Param("quantity") int quantity);
     
     /**
      * 获取系统统计数据
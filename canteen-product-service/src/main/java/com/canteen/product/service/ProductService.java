@@ -2,11 +2,13 @@ package com.canteen.product.service;
 
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.canteen.product.dto.StockChangeDTO;
 import com.canteen.product.entity.Product;
 import com.canteen.product.mapper.ProductMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -56,6 +58,42 @@ public class ProductService {
         return productMapper.selectById(id);
     }
 
+    /**
+     * 按ID批量查询餐品，含已下架餐品，由调用方判断是否可售；不存在的ID不返回
+     */
+    public List<Product> getProductsByIds(Collection<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return new java.util.ArrayList<>();
+        }
+        return productMapper.selectBatchIds(ids);
+    }
+
+    /**
+     * 批量扣减库存，每一项独立执行带 stock >= quantity 条件的更新，
+     * 行锁只在单条语句内持有；返回与请求顺序一致的扣减结果
+     */
+    public List<Boolean> deductStock(List<StockChangeDTO> changes) {
+        List<Boolean> results = new java.util.ArrayList<>(changes.size());
+        for (StockChangeDTO change : changes) {
+            boolean valid = change.getProductId() != null && change.getQuantity() != null && change.getQuantity() > 0;
+            results.add(valid && productMapper.updateStock(change.getProductId(), change.getQuantity()) > 0);
+        }
+        return results;
+    }
+
+    /**
+     * 批量归还库存
+     */
+    public int restoreStock(List<StockChangeDTO> changes) {
+        int restored = 0;
+        for (StockChangeDTO change : changes) {
+            if (change.getProductId() != null && change.getQuantity() != null && change.getQuantity() > 0) {
+                restored += productMapper.restoreStock(change.getProductId(), change.getQuantity());
+            }
+        }
+        return restored;
+    }
+
     /**
      * 获取热门推荐
      */
@@ -1,6 +1,7 @@
 package com.canteen.user.config;
 
-import com.canteen.common.utils.JwtUtils;
+import com.canteen.common.utils.AuthContext;
+import com.canteen.common.utils.InternalIdentity;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -24,44 +25,38 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
         
-        String token = getTokenFromRequest(request);
+        AuthContext auth = resolveAuth(request);
         
-        if (token != null && JwtUtils.validateToken(token)) {
-            try {
-                String username = JwtUtils.getUsernameFromToken(token);
-                Long userId = JwtUtils.getUserIdFromToken(token);
-                String role = JwtUtils.getRoleFromToken(token);
-                
-                // 创建认证对象
-                UsernamePasswordAuthenticationToken authentication = 
-                    new UsernamePasswordAuthenticationToken(
-                        username, 
-                        null, 
-                        Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + role))
-                    );
-                
-                // 设置用户ID到认证对象的details中
-                authentication.setDetails(userId);
-                
-                // 设置到Security上下文
-                SecurityContextHolder.getContext().setAuthentication(authentication);
-                
-            } catch (Exception e) {
-                logger.error("JWT认证失败", e);
-            }
+        if (auth != null) {
+            // 创建认证对象
+            UsernamePasswordAuthenticationToken authentication = 
+                new UsernamePasswordAuthenticationToken(
+                    auth.getUsername(), 
+                    null, 
+                    Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + auth.getRole()))
+                );
+            
+            // 设置用户ID到认证对象的details中
+            authentication.setDetails(auth.getUserId());
+            
+            // 设置到Security上下文
+            SecurityContextHolder.getContext().setAuthentication(authentication);
         }
         
         filterChain.doFilter(request, response);
     }
     
     /**
-     * 从请求中获取Token
+     * 解析请求身份：优先使用网关签发的身份头，直连请求回退到JWT验证
      */
-    private String getTokenFromRequest(HttpServletRequest request) {
-        String bearerToken = request.getHeader("Authorization");
-        if (bearerToken != null && bearerToken.startsWith("Bearer ")) {
-            return bearerToken.substring(7);
+    private AuthContext resolveAuth(HttpServletRequest request) {
+        if (request.getHeader(InternalIdentity.HEADER) == null && AuthContext.extractToken(request) == null) {
+            return null;
+        }
+        try {
+            return AuthContext.from(request);
+        } catch (SecurityException e) {
+            return null;
         }
-        return null;
     }
-}
\ No newline at end of file
+}
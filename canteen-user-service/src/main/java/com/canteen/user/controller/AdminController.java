@@ -2,7 +2,6 @@ package com.canteen.user.controller;
 
 import com.canteen.common.result.Result;
 import com.canteen.common.utils.AuthContext;
-import com.canteen.common.utils.JwtUtils;
 import com.canteen.user.dto.AdminDTO;
 import com.canteen.user.service.AdminService;
 import lombok.RequiredArgsConstructor;
@@ -166,12 +165,11 @@ public class AdminController {
      * 从请求头中获取用户ID
      */
     private Long getUserIdFromToken(HttpServletRequest request) {
-        String token = request.getHeader("Authorization");
-        if (token != null && token.startsWith("Bearer ")) {
-            token = token.substring(7);
-            return JwtUtils.getUserIdFromToken(token);
+        try {
+            return AuthContext.from(request).getUserId();
+        } catch (SecurityException e) {
+            throw new RuntimeException("Token无效");
         }
-        throw new RuntimeException("Token无效");
     }
 
     private Long getAdminIdFromToken(HttpServletRequest request) {
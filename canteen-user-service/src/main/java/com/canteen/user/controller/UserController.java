@@ -1,7 +1,7 @@
 package com.canteen.user.controller;
 
 import com.canteen.common.result.Result;
-import com.canteen.common.utils.JwtUtils;
+import com.canteen.common.utils.AuthContext;
 import com.canteen.user.dto.UserDTO;
 import com.canteen.user.entity.User;
 import com.canteen.user.service.UserService;
@@ -261,11 +261,10 @@ public class UserController {
      * 从请求头中获取用户ID
      */
     private Long getUserIdFromToken(HttpServletRequest request) {
-        String token = request.getHeader("Authorization");
-        if (token != null && token.startsWith("Bearer ")) {
-            token = token.substring(7);
-            return JwtUtils.getUserIdFromToken(token);
+        try {
+            return AuthContext.from(request).getUserId();
+        } catch (SecurityException e) {
+            throw new RuntimeException("Token无效");
         }
-        throw new RuntimeException("Token无效");
     }
 }
\ No newline at end of file
@@ -0,0 +1,50 @@
+-- 为订单表冗余存储商户ID，商户侧订单查询改为单表索引范围扫描
+-- 可重复执行：已执行过 role_upgrade.sql 的库会跳过加列
+
+USE canteen_system;
+
+-- 1. 添加merchant_id字段（不存在时）
+SET @column_exists = (SELECT COUNT(*) FROM information_schema.COLUMNS
+                      WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'orders' AND COLUMN_NAME = 'merchant_id');
+SET @ddl = IF(@column_exists = 0,
+              'ALTER TABLE `orders` ADD COLUMN `merchant_id` BIGINT COMMENT ''商户ID'' AFTER `user_id`',
+              'SELECT 1');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- 2. 根据订单项回填历史订单的商户ID
+-- 历史上跨商户的订单归属到商户ID最小的一方
+UPDATE `orders` o
+INNER JOIN (
+    SELECT oi.`order_id`, MIN(p.`merchant_id`) AS `merchant_id`
+    FROM `order_item` oi
+    INNER JOIN `product` p ON oi.`product_id` = p.`id`
+    WHERE p.`merchant_id` IS NOT NULL
+    GROUP BY oi.`order_id`
+) t ON o.`id` = t.`order_id`
+SET o.`merchant_id` = t.`merchant_id`
+WHERE o.`merchant_id` IS NULL;
+
+-- 3. 商户+状态+时间联合索引，覆盖商户订单列表、待处理订单和统计查询
+SET @index_exists = (SELECT COUNT(*) FROM information_schema.STATISTICS
+                     WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'orders' AND INDEX_NAME = 'idx_merchant_status_time');
+SET @ddl = IF(@index_exists = 0,
+              'ALTER TABLE `orders` ADD INDEX `idx_merchant_status_time` (`merchant_id`, `status`, `create_time`)',
+              'SELECT 1');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- 4. 联合索引已覆盖merchant_id前缀，删除单列索引
+SET @index_exists = (SELECT COUNT(*) FROM information_schema.STATISTICS
+                     WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'orders' AND INDEX_NAME = 'idx_merchant_id');
+SET @ddl = IF(@index_exists > 0,
+              'ALTER TABLE `orders` DROP INDEX `idx_merchant_id`',
+              'SELECT 1');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- 查看表结构确认
+SHOW INDEX FROM `orders`;
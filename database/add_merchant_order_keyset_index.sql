@@ -0,0 +1,17 @@
+-- 商户订单列表游标分页索引
+-- 未按状态筛选时，按 (create_time, id) 倒序翻页可直接沿索引读取，无需排序
+-- 可重复执行：索引已存在时跳过
+
+USE canteen_system;
+
+SET @index_exists = (SELECT COUNT(*) FROM information_schema.STATISTICS
+                     WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'orders' AND INDEX_NAME = 'idx_merchant_time');
+SET @ddl = IF(@index_exists = 0,
+              'ALTER TABLE `orders` ADD INDEX `idx_merchant_time` (`merchant_id`, `create_time`, `id`)',
+              'SELECT 1');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- 查看表结构确认
+SHOW INDEX FROM `orders`;
@@ -0,0 +1,49 @@
+-- 订单归档表
+-- 已完成、已取消且下单时间早于保留期（默认90天）的订单由订单服务定时分批迁入归档表，热表只保留近期订单；
+-- 归档表结构与热表一致，保留原订单ID，不再更新，只供历史查询、汇总重建和状态计数校准使用
+
+USE canteen_system;
+
+CREATE TABLE IF NOT EXISTS `orders_archive` (
+    `id` BIGINT PRIMARY KEY COMMENT '订单ID（与原订单相同）',
+    `order_no` VARCHAR(32) NOT NULL COMMENT '订单号',
+    `user_id` BIGINT NOT NULL COMMENT '用户ID',
+    `merchant_id` BIGINT COMMENT '商户ID',
+    `total_amount` DECIMAL(10,2) NOT NULL COMMENT '订单总金额',
+    `status` VARCHAR(20) NOT NULL COMMENT '订单状态',
+    `remark` VARCHAR(500) COMMENT '备注',
+    `request_key` VARCHAR(64) COMMENT '下单请求键',
+    `create_time` TIMESTAMP NULL COMMENT '创建时间',
+    `update_time` TIMESTAMP NULL COMMENT '更新时间',
+    `archive_time` TIMESTAMP DEFAULT CURRENT_TIMESTAMP COMMENT '归档时间',
+    UNIQUE INDEX `uk_order_no` (`order_no`),
+    INDEX `idx_user_id` (`user_id`),
+    INDEX `idx_merchant_time` (`merchant_id`, `create_time`),
+    INDEX `idx_create_time` (`create_time`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='订单归档表';
+
+CREATE TABLE IF NOT EXISTS `order_item_archive` (
+    `id` BIGINT PRIMARY KEY COMMENT '详情ID（与原订单项相同）',
+    `order_id` BIGINT NOT NULL COMMENT '订单ID',
+    `product_id` BIGINT NOT NULL COMMENT '餐品ID',
+    `product_name` VARCHAR(100) NOT NULL COMMENT '餐品名称（冗余存储）',
+    `quantity` INT NOT NULL COMMENT '数量',
+    `price` DECIMAL(10,2) NOT NULL COMMENT '单价',
+    `subtotal` DECIMAL(10,2) NOT NULL COMMENT '小计',
+    INDEX `idx_order_id` (`order_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='订单详情归档表';
+
+-- 归档扫描按状态和下单时间筛选
+SET @index_exists = (SELECT COUNT(*) FROM information_schema.STATISTICS
+                     WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'orders' AND INDEX_NAME = 'idx_status_create_time');
+SET @ddl = IF(@index_exists = 0,
+              'ALTER TABLE `orders` ADD INDEX `idx_status_create_time` (`status`, `create_time`)',
+              'SELECT 1');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- 查看热表与归档表的订单数
+SELECT 'orders' AS table_name, COUNT(*) AS order_count FROM `orders`
+UNION ALL
+SELECT 'orders_archive', COUNT(*) FROM `orders_archive`;
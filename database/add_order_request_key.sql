@@ -0,0 +1,11 @@
+-- 下单幂等请求键
+-- 客户端通过 Idempotency-Key 请求头标识一次下单，同一用户相同请求键只能创建一个订单
+-- 订单服务内存去重表只覆盖单实例，多实例并发提交由该唯一约束兜底；未携带请求键的订单为NULL，不受约束
+
+USE canteen_system;
+
+ALTER TABLE `orders` ADD COLUMN `request_key` VARCHAR(64) NULL COMMENT '下单请求键' AFTER `remark`;
+ALTER TABLE `orders` ADD UNIQUE INDEX `uk_user_request_key` (`user_id`, `request_key`);
+
+-- 查看表结构确认
+SHOW INDEX FROM `orders`;
@@ -0,0 +1,26 @@
+-- 销售汇总表
+-- 按 (下单日期, 下单小时, 商户) 分桶保存已支付订单数和销售额，订单支付、退款、取消已支付订单时在同一事务内增减，
+-- 管理端销售统计直接读汇总表，不再扫描订单表；未关联商户的订单记在 merchant_id = 0
+
+USE canteen_system;
+
+CREATE TABLE IF NOT EXISTS `order_sales_rollup` (
+  `stat_date` DATE NOT NULL COMMENT '下单日期',
+  `stat_hour` TINYINT NOT NULL COMMENT '下单小时（0-23）',
+  `merchant_id` BIGINT NOT NULL DEFAULT 0 COMMENT '商户ID，0表示未关联商户',
+  `order_count` BIGINT NOT NULL DEFAULT 0 COMMENT '已支付订单数',
+  `revenue` DECIMAL(14,2) NOT NULL DEFAULT 0 COMMENT '销售额',
+  PRIMARY KEY (`stat_date`, `stat_hour`, `merchant_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='订单销售汇总';
+
+-- 从历史订单初始化汇总，之后也可以通过 POST /api/orders/stats/sales/rebuild 重建
+DELETE FROM `order_sales_rollup`;
+INSERT INTO `order_sales_rollup` (`stat_date`, `stat_hour`, `merchant_id`, `order_count`, `revenue`)
+SELECT DATE(`create_time`), HOUR(`create_time`), IFNULL(`merchant_id`, 0), COUNT(*), SUM(`total_amount`)
+FROM `orders`
+WHERE `status` IN ('PAID', 'PREPARING', 'READY', 'COMPLETED')
+GROUP BY DATE(`create_time`), HOUR(`create_time`), IFNULL(`merchant_id`, 0);
+
+-- 查看汇总结果
+SELECT `stat_date`, SUM(`order_count`) AS order_count, SUM(`revenue`) AS revenue
+FROM `order_sales_rollup` GROUP BY `stat_date` ORDER BY `stat_date` DESC LIMIT 7;
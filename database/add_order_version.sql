@@ -0,0 +1,19 @@
+-- 订单乐观锁版本号
+-- 用户取消、商户接单、管理员改状态可能同时修改同一订单，每次更新订单时版本号加1
+-- 订单服务先不加锁读取状态和版本号，再按版本号条件更新，版本号已变则重新读取后重试，热点订单不持有行锁
+-- 归档表只保存已结束的订单，不再修改，不需要该列
+-- 可重复执行：列已存在时跳过
+
+USE canteen_system;
+
+SET @column_exists = (SELECT COUNT(*) FROM information_schema.COLUMNS
+                      WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'orders' AND COLUMN_NAME = 'version');
+SET @ddl = IF(@column_exists = 0,
+              'ALTER TABLE `orders` ADD COLUMN `version` INT NOT NULL DEFAULT 0 COMMENT ''乐观锁版本号'' AFTER `request_key`',
+              'SELECT 1');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- 查看表结构确认
+DESC `orders`;